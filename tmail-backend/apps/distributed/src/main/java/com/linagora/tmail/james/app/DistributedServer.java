@@ -28,6 +28,7 @@ import org.apache.james.mailbox.cassandra.CassandraMailboxManager;
 import org.apache.james.mailbox.store.search.ListeningMessageSearchIndex;
 import org.apache.james.mailbox.store.search.MessageSearchIndex;
 import org.apache.james.mailbox.store.search.SimpleMessageSearchIndex;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.modules.BlobExportMechanismModule;
 import org.apache.james.modules.CassandraConsistencyTaskSerializationModule;
 import org.apache.james.modules.DistributedTaskManagerModule;
@@ -121,12 +122,16 @@ import com.linagora.tmail.combined.identity.UsersRepositoryModuleChooser;
 import com.linagora.tmail.contact.RabbitMQEmailAddressContactModule;
 import com.linagora.tmail.encrypted.ClearEmailContentFactory;
 import com.linagora.tmail.encrypted.EncryptedMailboxManager;
-import com.linagora.tmail.encrypted.KeystoreManager;
+import com.linagora.tmail.encrypted.EncryptionConfiguration;
+import com.linagora.tmail.encrypted.EncryptionExecutor;
 import com.linagora.tmail.encrypted.MailboxConfiguration;
+import com.linagora.tmail.encrypted.PublicKeyCache;
 import com.linagora.tmail.encrypted.cassandra.CassandraEncryptedEmailContentStore;
 import com.linagora.tmail.encrypted.cassandra.EncryptedEmailContentStoreCassandraModule;
 import com.linagora.tmail.encrypted.cassandra.KeystoreCassandraModule;
 import com.linagora.tmail.event.DistributedEmailAddressContactEventModule;
+import com.linagora.tmail.event.DistributedKeystoreEventModule;
+import com.linagora.tmail.event.DistributedRateLimitingPlanEventModule;
 import com.linagora.tmail.event.RabbitMQAndRedisEventBusModule;
 import com.linagora.tmail.healthcheck.TasksHeathCheckModule;
 import com.linagora.tmail.james.jmap.TMailJMAPModule;
@@ -171,6 +176,8 @@ import com.linagora.tmail.webadmin.RateLimitPlanRoutesModule;
 import com.linagora.tmail.webadmin.TeamMailboxRoutesModule;
 import com.linagora.tmail.webadmin.archival.InboxArchivalTaskModule;
 import com.linagora.tmail.webadmin.cleanup.MailboxesCleanupModule;
+import com.linagora.tmail.webadmin.ldap.LdapGroupsCacheRoutesModule;
+import com.linagora.tmail.webadmin.secondaryblobstore.SecondaryBlobStoreReplicationRoutesModule;
 
 public class DistributedServer {
     private static class ScanningQuotaSearchModule extends AbstractModule {
@@ -298,6 +305,8 @@ public class DistributedServer {
             new CassandraPublicAssetRepositoryModule(),
             new DistributedEmailAddressContactEventModule(),
             new DistributedEmailAddressContactEventDeadLettersModule(),
+            new DistributedKeystoreEventModule(),
+            new DistributedRateLimitingPlanEventModule(),
             new DistributedTaskSerializationModule(),
             new JMAPEventBusModule(),
             new RabbitMQEmailAddressContactModule(),
@@ -333,7 +342,9 @@ public class DistributedServer {
             .combineWith(MailQueueViewChoice.ModuleChooser.choose(configuration.mailQueueViewChoice()))
             .combineWith(BlobStoreModulesChooser.chooseModules(blobStoreConfiguration))
             .combineWith(BlobStoreCacheModulesChooser.chooseModules(blobStoreConfiguration))
+            .combineWith(chooseSecondaryBlobStoreReplicationRoutes(blobStoreConfiguration))
             .combineWith(UsersRepositoryModuleChooser.chooseModules(configuration.usersRepositoryImplementation()))
+            .combineWith(chooseLdapGroupsCacheRoutes(configuration.usersRepositoryImplementation()))
             .combineWith(chooseFirebase(configuration.firebaseModuleChooserConfiguration()))
             .combineWith(chooseLinagoraServicesDiscovery(configuration.linagoraServicesDiscoveryModuleChooserConfiguration()))
             .combineWith(chooseRedisRateLimiterModule(configuration))
@@ -380,18 +391,39 @@ public class DistributedServer {
     }
 
     private static class EncryptedMailboxModule extends AbstractModule {
+        private final MailboxConfiguration mailboxConfiguration;
+
+        EncryptedMailboxModule(MailboxConfiguration mailboxConfiguration) {
+            this.mailboxConfiguration = mailboxConfiguration;
+        }
+
         @Provides
         @Singleton
-        MailboxManager provide(CassandraMailboxManager mailboxManager, KeystoreManager keystoreManager,
+        EncryptionExecutor provideEncryptionExecutor(MetricFactory metricFactory) {
+            return new EncryptionExecutor(mailboxConfiguration.getEncryptionThreads(), mailboxConfiguration.getEncryptionQueueSize(), metricFactory);
+        }
+
+        @Provides
+        @Singleton
+        EncryptionConfiguration provideEncryptionConfiguration() {
+            return mailboxConfiguration.getEncryptionConfiguration();
+        }
+
+        @Provides
+        @Singleton
+        MailboxManager provide(CassandraMailboxManager mailboxManager, PublicKeyCache publicKeyCache,
                                ClearEmailContentFactory clearEmailContentFactory,
-                               CassandraEncryptedEmailContentStore contentStore) {
-            return new EncryptedMailboxManager(mailboxManager, keystoreManager, clearEmailContentFactory, contentStore);
+                               CassandraEncryptedEmailContentStore contentStore,
+                               EncryptionExecutor encryptionExecutor,
+                               EncryptionConfiguration encryptionConfiguration) {
+            return new EncryptedMailboxManager(mailboxManager, publicKeyCache, clearEmailContentFactory, contentStore, encryptionExecutor,
+                encryptionConfiguration);
         }
     }
 
     private static List<Module> chooseMailbox(MailboxConfiguration mailboxConfiguration) {
         if (mailboxConfiguration.isEncryptionEnabled()) {
-            return ImmutableList.of(new EncryptedMailboxModule());
+            return ImmutableList.of(new EncryptedMailboxModule(mailboxConfiguration));
         }
         return ImmutableList.of();
     }
@@ -474,6 +506,21 @@ public class DistributedServer {
         }
     }
 
+    private static Module chooseLdapGroupsCacheRoutes(UsersRepositoryModuleChooser.Implementation usersRepositoryImplementation) {
+        if (usersRepositoryImplementation == UsersRepositoryModuleChooser.Implementation.COMBINED) {
+            return new LdapGroupsCacheRoutesModule();
+        }
+        return Modules.EMPTY_MODULE;
+    }
+
+    private static Module chooseSecondaryBlobStoreReplicationRoutes(BlobStoreConfiguration blobStoreConfiguration) {
+        if (blobStoreConfiguration.maybeSecondaryS3BlobStoreConfiguration().isPresent()
+            && blobStoreConfiguration.secondaryReplicationConfiguration().asynchronous()) {
+            return new SecondaryBlobStoreReplicationRoutesModule();
+        }
+        return Modules.EMPTY_MODULE;
+    }
+
     private static Module chooseDropListsModule(DistributedJamesConfiguration configuration) {
         if (configuration.dropListEnabled()) {
             return Modules.combine(new CassandraDropListsModule(), new DropListsRoutesModule());
@@ -16,6 +16,7 @@ import org.apache.james.data.UsersRepositoryModuleChooser;
 import org.apache.james.jmap.JMAPListenerModule;
 import org.apache.james.mailbox.MailboxManager;
 import org.apache.james.mailbox.inmemory.InMemoryMailboxManager;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.modules.BlobExportMechanismModule;
 import org.apache.james.modules.BlobMemoryModule;
 import org.apache.james.modules.MailboxModule;
@@ -47,11 +48,13 @@ import com.google.inject.Singleton;
 import com.google.inject.util.Modules;
 import com.linagora.tmail.encrypted.ClearEmailContentFactory;
 import com.linagora.tmail.encrypted.EncryptedMailboxManager;
+import com.linagora.tmail.encrypted.EncryptionConfiguration;
+import com.linagora.tmail.encrypted.EncryptionExecutor;
 import com.linagora.tmail.encrypted.InMemoryEncryptedEmailContentStore;
 import com.linagora.tmail.encrypted.InMemoryEncryptedEmailContentStoreModule;
-import com.linagora.tmail.encrypted.KeystoreManager;
 import com.linagora.tmail.encrypted.KeystoreMemoryModule;
 import com.linagora.tmail.encrypted.MailboxConfiguration;
+import com.linagora.tmail.encrypted.PublicKeyCache;
 import com.linagora.tmail.james.jmap.TMailJMAPModule;
 import com.linagora.tmail.james.jmap.contact.MemoryEmailAddressContactModule;
 import com.linagora.tmail.james.jmap.firebase.FirebaseCommonModule;
@@ -195,18 +198,39 @@ public class MemoryServer {
     }
 
     private static class EncryptedMailboxModule extends AbstractModule {
+        private final MailboxConfiguration mailboxConfiguration;
+
+        EncryptedMailboxModule(MailboxConfiguration mailboxConfiguration) {
+            this.mailboxConfiguration = mailboxConfiguration;
+        }
+
+        @Provides
+        @Singleton
+        EncryptionExecutor provideEncryptionExecutor(MetricFactory metricFactory) {
+            return new EncryptionExecutor(mailboxConfiguration.getEncryptionThreads(), mailboxConfiguration.getEncryptionQueueSize(), metricFactory);
+        }
+
+        @Provides
+        @Singleton
+        EncryptionConfiguration provideEncryptionConfiguration() {
+            return mailboxConfiguration.getEncryptionConfiguration();
+        }
+
         @Provides
         @Singleton
-        MailboxManager provide(InMemoryMailboxManager mailboxManager, KeystoreManager keystoreManager,
+        MailboxManager provide(InMemoryMailboxManager mailboxManager, PublicKeyCache publicKeyCache,
                                ClearEmailContentFactory clearEmailContentFactory,
-                               InMemoryEncryptedEmailContentStore contentStore) {
-            return new EncryptedMailboxManager(mailboxManager, keystoreManager, clearEmailContentFactory, contentStore);
+                               InMemoryEncryptedEmailContentStore contentStore,
+                               EncryptionExecutor encryptionExecutor,
+                               EncryptionConfiguration encryptionConfiguration) {
+            return new EncryptedMailboxManager(mailboxManager, publicKeyCache, clearEmailContentFactory, contentStore, encryptionExecutor,
+                encryptionConfiguration);
         }
     }
 
     private static List<Module> chooseMailbox(MailboxConfiguration mailboxConfiguration) {
         if (mailboxConfiguration.isEncryptionEnabled()) {
-            return ImmutableList.of(new EncryptedMailboxModule());
+            return ImmutableList.of(new EncryptedMailboxModule(mailboxConfiguration));
         }
         return ImmutableList.of();
     }
@@ -2,10 +2,18 @@ package com.linagora.tmail.blob.blobid.list
 
 import org.apache.james.blob.api.BlobId
 import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.{SFlux, SMono}
 
 trait BlobIdList {
   def isStored(blobId: BlobId): Publisher[java.lang.Boolean]
 
+  /**
+   * @return the blob ids among the given ones that are stored.
+   */
+  def storedAmong(blobIds: Seq[BlobId]): Publisher[BlobId] =
+    SFlux.fromIterable(blobIds)
+      .filterWhen(blobId => SMono.fromPublisher(isStored(blobId)).map(_.booleanValue()))
+
   def store(blobId: BlobId): Publisher[Unit]
 
   def remove(blobId: BlobId): Publisher[Unit]
@@ -0,0 +1,68 @@
+package com.linagora.tmail.blob.blobid.list
+
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import com.linagora.tmail.blob.blobid.list.CachingBlobIdList.{AVOIDED_READS_METRIC, PERFORMED_READS_METRIC}
+import org.apache.james.blob.api.BlobId
+import org.apache.james.metrics.api.{Metric, MetricFactory}
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+object CachingBlobIdList {
+  val DEFAULT_MAXIMUM_SIZE: Long = 100000
+  val AVOIDED_READS_METRIC: String = "blobIdList-avoided-reads"
+  val PERFORMED_READS_METRIC: String = "blobIdList-performed-reads"
+}
+
+/**
+ * Node local cache of the blob ids known to be stored, so that saving again an already saved blob does not read the
+ * underlying blob id list.
+ *
+ * Only stored blob ids are cached: a blob id not known to be stored is always checked against the underlying blob id
+ * list, as it could have been stored by another node.
+ */
+class CachingBlobIdList(underlying: BlobIdList, maximumSize: Long, metricFactory: MetricFactory) extends BlobIdList {
+  private val knownStored: Cache[BlobId, java.lang.Boolean] = Caffeine.newBuilder()
+    .maximumSize(maximumSize)
+    .build()
+  private val avoidedReadsMetric: Metric = metricFactory.generate(AVOIDED_READS_METRIC)
+  private val performedReadsMetric: Metric = metricFactory.generate(PERFORMED_READS_METRIC)
+
+  override def isStored(blobId: BlobId): Publisher[java.lang.Boolean] =
+    SMono.defer(() => {
+      if (isKnownStored(blobId)) {
+        avoidedReadsMetric.increment()
+        SMono.just(java.lang.Boolean.TRUE)
+      } else {
+        performedReadsMetric.increment()
+        SMono.fromPublisher(underlying.isStored(blobId))
+          .doOnNext(stored => if (stored) remember(blobId))
+      }
+    })
+
+  override def storedAmong(blobIds: Seq[BlobId]): Publisher[BlobId] =
+    SFlux.defer(() => {
+      val (known, unknown) = blobIds.distinct.partition(isKnownStored)
+      avoidedReadsMetric.add(known.size)
+      performedReadsMetric.add(unknown.size)
+
+      if (unknown.isEmpty) {
+        SFlux.fromIterable(known)
+      } else {
+        SFlux.fromIterable(known)
+          .concatWith(SFlux.fromPublisher(underlying.storedAmong(unknown))
+            .doOnNext(remember))
+      }
+    })
+
+  override def store(blobId: BlobId): Publisher[Unit] =
+    SMono.fromPublisher(underlying.store(blobId))
+      .doOnSuccess(_ => remember(blobId))
+
+  override def remove(blobId: BlobId): Publisher[Unit] =
+    SMono.fromPublisher(underlying.remove(blobId))
+      .doFinally(_ => knownStored.invalidate(blobId))
+
+  private def isKnownStored(blobId: BlobId): Boolean = knownStored.getIfPresent(blobId) != null
+
+  private def remember(blobId: BlobId): Unit = knownStored.put(blobId, java.lang.Boolean.TRUE)
+}
@@ -1,9 +1,10 @@
 package com.linagora.tmail.blob.blobid.list.cassandra
 
-import com.google.inject.{AbstractModule, Scopes}
-import com.linagora.tmail.blob.blobid.list.BlobIdList
+import com.google.inject.{AbstractModule, Provides, Scopes, Singleton}
+import com.linagora.tmail.blob.blobid.list.{BlobIdList, CachingBlobIdList}
 import jakarta.inject.Inject
 import org.apache.james.blob.api.BlobId
+import org.apache.james.metrics.api.MetricFactory
 import org.reactivestreams.Publisher
 
 case class BlobIdListCassandraModule() extends AbstractModule {
@@ -11,8 +12,12 @@ case class BlobIdListCassandraModule() extends AbstractModule {
     bind(classOf[CassandraBlobIdListDAO]).in(Scopes.SINGLETON)
     bind(classOf[CassandraBlobIdList]).in(Scopes.SINGLETON)
 
-    bind(classOf[BlobIdList]).to(classOf[CassandraBlobIdList])
   }
+
+  @Provides
+  @Singleton
+  def provideBlobIdList(cassandraBlobIdList: CassandraBlobIdList, metricFactory: MetricFactory): BlobIdList =
+    new CachingBlobIdList(cassandraBlobIdList, CachingBlobIdList.DEFAULT_MAXIMUM_SIZE, metricFactory)
 }
 
 class CassandraBlobIdList @Inject()(cassandraBlobIdListDAO: CassandraBlobIdListDAO) extends BlobIdList {
@@ -20,6 +25,9 @@ class CassandraBlobIdList @Inject()(cassandraBlobIdListDAO: CassandraBlobIdListD
   override def isStored(blobId: BlobId): Publisher[java.lang.Boolean] =
     cassandraBlobIdListDAO.isStored(blobId)
 
+  override def storedAmong(blobIds: Seq[BlobId]): Publisher[BlobId] =
+    cassandraBlobIdListDAO.storedAmong(blobIds)
+
   override def store(blobId: BlobId): Publisher[Unit] =
     cassandraBlobIdListDAO.insert(blobId)
 
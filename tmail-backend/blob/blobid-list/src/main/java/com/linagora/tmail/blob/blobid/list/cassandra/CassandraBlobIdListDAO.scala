@@ -4,10 +4,19 @@ import com.datastax.oss.driver.api.core.CqlSession
 import com.datastax.oss.driver.api.core.cql.PreparedStatement
 import com.datastax.oss.driver.api.querybuilder.QueryBuilder.{bindMarker, deleteFrom, insertInto, selectFrom}
 import com.linagora.tmail.blob.blobid.list.cassandra.BlobIdListTable._
+import com.linagora.tmail.blob.blobid.list.cassandra.CassandraBlobIdListDAO.{BLOB_IDS, IN_CLAUSE_MAX_SIZE}
 import jakarta.inject.Inject
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor
 import org.apache.james.blob.api.BlobId
-import reactor.core.scala.publisher.SMono
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.jdk.CollectionConverters._
+
+object CassandraBlobIdListDAO {
+  private val BLOB_IDS: String = "blob_ids"
+  // Every partition of an IN clause is read by the coordinator: keep it small
+  private val IN_CLAUSE_MAX_SIZE: Int = 64
+}
 
 class CassandraBlobIdListDAO @Inject()(session: CqlSession) {
   private val executor: CassandraAsyncExecutor = new CassandraAsyncExecutor(session)
@@ -23,6 +32,12 @@ class CassandraBlobIdListDAO @Inject()(session: CqlSession) {
       .whereColumn(BLOB_ID).isEqualTo(bindMarker(BLOB_ID))
       .build())
 
+  private val selectAmongStatement: PreparedStatement =
+    session.prepare(selectFrom(TABLE_NAME)
+      .column(BLOB_ID)
+      .whereColumn(BLOB_ID).in(bindMarker(BLOB_IDS))
+      .build())
+
   private val deleteStatement: PreparedStatement =
     session.prepare(deleteFrom(TABLE_NAME)
       .whereColumn(BLOB_ID).isEqualTo(bindMarker(BLOB_ID))
@@ -37,6 +52,15 @@ class CassandraBlobIdListDAO @Inject()(session: CqlSession) {
       .setString(BLOB_ID, blobId.asString)))
       .map(_.booleanValue())
 
+  def storedAmong(blobIds: Seq[BlobId]): SFlux[BlobId] = {
+    val blobIdsByValue: Map[String, BlobId] = blobIds.map(blobId => blobId.asString -> blobId).toMap
+
+    SFlux.fromIterable(blobIdsByValue.keys.grouped(IN_CLAUSE_MAX_SIZE).toSeq)
+      .concatMap(values => SFlux.fromPublisher(executor.executeRows(selectAmongStatement.bind()
+        .setList(BLOB_IDS, values.toList.asJava, classOf[String]))))
+      .map(row => blobIdsByValue(row.getString(BLOB_ID)))
+  }
+
   def remove(blobId: BlobId): SMono[Unit] =
     SMono.fromPublisher(executor.executeVoid(deleteStatement.bind()
       .setString(BLOB_ID, blobId.asString)))
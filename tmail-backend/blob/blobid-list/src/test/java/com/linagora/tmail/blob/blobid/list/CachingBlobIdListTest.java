@@ -0,0 +1,143 @@
+package com.linagora.tmail.blob.blobid.list;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.apache.james.backends.cassandra.CassandraCluster;
+import org.apache.james.backends.cassandra.CassandraClusterExtension;
+import org.apache.james.backends.cassandra.components.CassandraModule;
+import org.apache.james.backends.cassandra.versions.CassandraSchemaVersionModule;
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.PlainBlobId;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.google.common.collect.ImmutableList;
+import com.linagora.tmail.blob.blobid.list.cassandra.CassandraBlobIdList;
+import com.linagora.tmail.blob.blobid.list.cassandra.CassandraBlobIdListDAO;
+import com.linagora.tmail.blob.blobid.list.cassandra.CassandraBlobIdListModule;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import scala.jdk.javaapi.CollectionConverters;
+
+class CachingBlobIdListTest {
+    @RegisterExtension
+    static CassandraClusterExtension cassandraCluster = new CassandraClusterExtension(
+        CassandraModule.aggregateModules(CassandraBlobIdListModule.MODULE(),
+            CassandraSchemaVersionModule.MODULE));
+
+    private static final BlobId.Factory BLOB_ID_FACTORY = new PlainBlobId.Factory();
+
+    private CassandraBlobIdList cassandraBlobIdList;
+    private RecordingMetricFactory metricFactory;
+    private CachingBlobIdList testee;
+
+    @BeforeEach
+    void setUp(CassandraCluster cassandra) {
+        cassandraBlobIdList = new CassandraBlobIdList(new CassandraBlobIdListDAO(cassandra.getConf()));
+        metricFactory = new RecordingMetricFactory();
+        testee = new CachingBlobIdList(cassandraBlobIdList, CachingBlobIdList.DEFAULT_MAXIMUM_SIZE(), metricFactory);
+    }
+
+    @Test
+    void isStoredShouldNotReadTheUnderlyingListWhenStoredThroughTheCache() {
+        BlobId blobId = randomBlobId();
+        Mono.from(testee.store(blobId)).block();
+
+        assertThat(Mono.from(testee.isStored(blobId)).block()).isTrue();
+        assertThat(metricFactory.countFor(CachingBlobIdList.AVOIDED_READS_METRIC())).isEqualTo(1);
+        assertThat(metricFactory.countFor(CachingBlobIdList.PERFORMED_READS_METRIC())).isZero();
+    }
+
+    @Test
+    void isStoredShouldNotReadTheUnderlyingListTwiceForAStoredBlobId() {
+        BlobId blobId = randomBlobId();
+        Mono.from(cassandraBlobIdList.store(blobId)).block();
+
+        Mono.from(testee.isStored(blobId)).block();
+        assertThat(Mono.from(testee.isStored(blobId)).block()).isTrue();
+
+        assertThat(metricFactory.countFor(CachingBlobIdList.AVOIDED_READS_METRIC())).isEqualTo(1);
+        assertThat(metricFactory.countFor(CachingBlobIdList.PERFORMED_READS_METRIC())).isEqualTo(1);
+    }
+
+    @Test
+    void isStoredShouldNotCacheUnknownBlobIds() {
+        BlobId blobId = randomBlobId();
+        assertThat(Mono.from(testee.isStored(blobId)).block()).isFalse();
+
+        // Stored by another node
+        Mono.from(cassandraBlobIdList.store(blobId)).block();
+
+        assertThat(Mono.from(testee.isStored(blobId)).block()).isTrue();
+    }
+
+    @Test
+    void removeShouldInvalidateTheCachedBlobId() {
+        BlobId blobId = randomBlobId();
+        Mono.from(testee.store(blobId)).block();
+
+        Mono.from(testee.remove(blobId)).block();
+
+        assertThat(Mono.from(testee.isStored(blobId)).block()).isFalse();
+    }
+
+    @Test
+    void storedAmongShouldReturnTheStoredBlobIds() {
+        BlobId stored = randomBlobId();
+        BlobId notStored = randomBlobId();
+        Mono.from(cassandraBlobIdList.store(stored)).block();
+
+        assertThat(storedAmong(ImmutableList.of(stored, notStored))).containsExactly(stored);
+    }
+
+    @Test
+    void storedAmongShouldOnlyReadTheUnknownBlobIds() {
+        BlobId known = randomBlobId();
+        BlobId unknown = randomBlobId();
+        Mono.from(testee.store(known)).block();
+        Mono.from(cassandraBlobIdList.store(unknown)).block();
+
+        assertThat(storedAmong(ImmutableList.of(known, unknown))).containsExactlyInAnyOrder(known, unknown);
+        assertThat(metricFactory.countFor(CachingBlobIdList.AVOIDED_READS_METRIC())).isEqualTo(1);
+        assertThat(metricFactory.countFor(CachingBlobIdList.PERFORMED_READS_METRIC())).isEqualTo(1);
+    }
+
+    @Test
+    void storedAmongShouldCacheTheStoredBlobIds() {
+        BlobId blobId = randomBlobId();
+        Mono.from(cassandraBlobIdList.store(blobId)).block();
+        storedAmong(ImmutableList.of(blobId));
+
+        assertThat(Mono.from(testee.isStored(blobId)).block()).isTrue();
+        assertThat(metricFactory.countFor(CachingBlobIdList.AVOIDED_READS_METRIC())).isEqualTo(1);
+    }
+
+    @Test
+    void storedAmongShouldSupportMoreBlobIdsThanAnInClause() {
+        List<BlobId> blobIds = IntStream.range(0, 150)
+            .mapToObj(i -> randomBlobId())
+            .toList();
+        Flux.fromIterable(blobIds)
+            .flatMap(blobId -> Mono.from(cassandraBlobIdList.store(blobId)))
+            .blockLast();
+
+        assertThat(storedAmong(blobIds)).containsExactlyInAnyOrderElementsOf(blobIds);
+    }
+
+    private List<BlobId> storedAmong(List<BlobId> blobIds) {
+        return Flux.from(testee.storedAmong(CollectionConverters.asScala(blobIds).toSeq()))
+            .collectList()
+            .block();
+    }
+
+    private BlobId randomBlobId() {
+        return BLOB_ID_FACTORY.of(UUID.randomUUID().toString());
+    }
+}
@@ -0,0 +1,39 @@
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import java.time.Duration;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * When enabled, a read not answered by the preferred blob store within the given percentile of its latest latencies is
+ * also sent to the other blob store, and the first answer wins. The delay is bounded by the minimum and maximum delays,
+ * the maximum delay being used until latencies are recorded.
+ */
+public record HedgedReadConfiguration(boolean enabled, double percentile, Duration minDelay, Duration maxDelay) {
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(20);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(2);
+
+    public static final HedgedReadConfiguration DISABLED = new HedgedReadConfiguration(false,
+        DEFAULT_PERCENTILE, DEFAULT_MIN_DELAY, DEFAULT_MAX_DELAY);
+
+    public static HedgedReadConfiguration enabled(double percentile, Duration minDelay, Duration maxDelay) {
+        return new HedgedReadConfiguration(true, percentile, minDelay, maxDelay);
+    }
+
+    public HedgedReadConfiguration {
+        Preconditions.checkArgument(percentile > 0 && percentile <= 1, "'percentile' should be in ]0, 1]");
+        Preconditions.checkArgument(!minDelay.isNegative(), "'minDelay' should not be negative");
+        Preconditions.checkArgument(maxDelay.compareTo(minDelay) >= 0, "'maxDelay' should not be lower than 'minDelay'");
+    }
+
+    Duration hedgeDelay(Duration percentileLatency) {
+        if (percentileLatency.compareTo(minDelay) < 0) {
+            return minDelay;
+        }
+        if (percentileLatency.compareTo(maxDelay) > 0) {
+            return maxDelay;
+        }
+        return percentileLatency;
+    }
+}
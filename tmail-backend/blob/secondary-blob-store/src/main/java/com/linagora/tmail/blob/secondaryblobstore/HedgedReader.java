@@ -0,0 +1,203 @@
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.ObjectStoreException;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Reads from the preferred blob store, and also from the other one when the preferred blob store is slower than usual
+ * or fails. The first successful answer wins and the other read is cancelled. A losing answer that was already
+ * received, like the stream of a blob store response, gets closed.
+ *
+ * The preferred blob store is the first one, until the latency average of the second one gets twice lower. As the
+ * non preferred blob store is only read by hedged reads, its latency average only gets refreshed by them. Cancelled
+ * hedged reads are not recorded, and a cancelled preferred read never lowers the latency average of its blob store.
+ */
+class HedgedReader {
+    record TrackedStore(String name, BlobStoreDAO blobStoreDAO, LatencyTracker latencyTracker, Metric wins) {
+    }
+
+    record ReadAttempt<T>(TrackedStore store, Optional<T> value, Optional<ObjectStoreException> error) {
+        static <T> ReadAttempt<T> success(TrackedStore store, T value) {
+            return new ReadAttempt<>(store, Optional.of(value), Optional.empty());
+        }
+
+        static <T> ReadAttempt<T> failure(TrackedStore store, ObjectStoreException error) {
+            return new ReadAttempt<>(store, Optional.empty(), Optional.of(error));
+        }
+
+        boolean isSuccess() {
+            return value.isPresent();
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgedReader.class);
+    private static final int PREFERENCE_SWITCH_RATIO = 2;
+
+    static final String READS_METRIC = "secondary-blob-store-hedging-reads";
+    static final String HEDGED_READS_METRIC = "secondary-blob-store-hedged-reads";
+    static final String FIRST_WINS_METRIC = "secondary-blob-store-hedged-read-first-wins";
+    static final String SECOND_WINS_METRIC = "secondary-blob-store-hedged-read-second-wins";
+    static final String PREFERENCE_SWITCHES_METRIC = "secondary-blob-store-preferred-store-switches";
+
+    private final HedgedReadConfiguration configuration;
+    private final TrackedStore first;
+    private final TrackedStore second;
+    private final AtomicReference<TrackedStore> preferred;
+    private final Metric readsMetric;
+    private final Metric hedgedReadsMetric;
+    private final Metric preferenceSwitchesMetric;
+
+    HedgedReader(BlobStoreDAO firstBlobStoreDAO, BlobStoreDAO secondBlobStoreDAO, HedgedReadConfiguration configuration, MetricFactory metricFactory) {
+        this.configuration = configuration;
+        this.first = new TrackedStore("first", firstBlobStoreDAO, new LatencyTracker(), metricFactory.generate(FIRST_WINS_METRIC));
+        this.second = new TrackedStore("second", secondBlobStoreDAO, new LatencyTracker(), metricFactory.generate(SECOND_WINS_METRIC));
+        this.preferred = new AtomicReference<>(first);
+        this.readsMetric = metricFactory.generate(READS_METRIC);
+        this.hedgedReadsMetric = metricFactory.generate(HEDGED_READS_METRIC);
+        this.preferenceSwitchesMetric = metricFactory.generate(PREFERENCE_SWITCHES_METRIC);
+    }
+
+    <T> Mono<T> read(BucketName bucketName, BlobId blobId, Function<BlobStoreDAO, Publisher<T>> read) {
+        return Mono.defer(() -> {
+            readsMetric.increment();
+            TrackedStore preferredStore = preferred.get();
+            TrackedStore otherStore = other(preferredStore);
+            Sinks.Empty<Void> preferredStoreFailed = Sinks.empty();
+            AtomicBoolean hedged = new AtomicBoolean(false);
+
+            Mono<ReadAttempt<T>> preferredRead = attempt(preferredStore, read, false)
+                .doOnNext(attempt -> attempt.error().ifPresent(e -> {
+                    LOGGER.warn("Fail to read from the {} blob store with bucket name {} and blobId {}. Use {} blob store",
+                        preferredStore.name(), bucketName.asString(), blobId.asString(), otherStore.name(), e);
+                    preferredStoreFailed.tryEmitEmpty();
+                }));
+            Mono<ReadAttempt<T>> otherRead = Mono.firstWithSignal(
+                    Mono.delay(hedgeDelay(preferredStore))
+                        .doOnNext(any -> {
+                            hedged.set(true);
+                            hedgedReadsMetric.increment();
+                        })
+                        .then(),
+                    preferredStoreFailed.asMono())
+                .then(Mono.defer(() -> attempt(otherStore, read, true)));
+
+            return Flux.merge(preferredRead, otherRead)
+                .takeUntil(ReadAttempt::isSuccess)
+                .last()
+                .<T>handle((attempt, sink) -> {
+                    if (attempt.isSuccess()) {
+                        if (hedged.get()) {
+                            attempt.store().wins().increment();
+                        }
+                        sink.next(attempt.value().get());
+                    } else {
+                        sink.error(attempt.error().get());
+                    }
+                })
+                .doOnDiscard(Object.class, HedgedReader::release);
+        });
+    }
+
+    private static void release(Object discarded) {
+        Object value = discarded instanceof ReadAttempt<?> attempt ? attempt.value().orElse(null) : discarded;
+        if (value instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close the losing answer of a hedged read", e);
+            }
+        }
+    }
+
+    private <T> Mono<ReadAttempt<T>> attempt(TrackedStore store, Function<BlobStoreDAO, Publisher<T>> read, boolean hedge) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean answered = new AtomicBoolean(false);
+            return Mono.from(read.apply(store.blobStoreDAO()))
+                .doOnSuccess(any -> {
+                    answered.set(true);
+                    recordLatency(store, elapsed(start));
+                })
+                .doOnCancel(() -> {
+                    // A cancelled hedged read only ran for a part of the preferred read: its elapsed time tells nothing
+                    // of its latency and would make a slow blob store look like the fastest one
+                    if (!hedge && !answered.get()) {
+                        recordLatency(store, cancelledLatency(store, elapsed(start)));
+                    }
+                })
+                .map(value -> ReadAttempt.success(store, value));
+        })
+            .onErrorResume(ObjectStoreException.class, e -> Mono.just(ReadAttempt.<T>failure(store, e)));
+    }
+
+    private Duration hedgeDelay(TrackedStore store) {
+        return store.latencyTracker().percentile(configuration.percentile())
+            .map(configuration::hedgeDelay)
+            .orElse(configuration.maxDelay());
+    }
+
+    private Duration elapsed(long start) {
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    // The elapsed time of a cancelled read is a lower bound of its latency: it should not lower the average
+    private Duration cancelledLatency(TrackedStore store, Duration elapsed) {
+        return store.latencyTracker().ewma()
+            .filter(ewma -> ewma.compareTo(elapsed) > 0)
+            .orElse(elapsed);
+    }
+
+    private void recordLatency(TrackedStore store, Duration latency) {
+        store.latencyTracker().record(latency);
+        reconsiderPreferredStore();
+    }
+
+    private void reconsiderPreferredStore() {
+        TrackedStore current = preferred.get();
+        TrackedStore candidate = other(current);
+        Optional<Duration> currentLatency = current.latencyTracker().ewma();
+        Optional<Duration> candidateLatency = candidate.latencyTracker().ewma();
+        if (currentLatency.isEmpty() || candidateLatency.isEmpty()) {
+            return;
+        }
+        if (candidateLatency.get().multipliedBy(PREFERENCE_SWITCH_RATIO).compareTo(currentLatency.get()) < 0
+            && preferred.compareAndSet(current, candidate)) {
+            preferenceSwitchesMetric.increment();
+            LOGGER.info("Reading preferably from the {} blob store: its average latency is {} ms against {} ms for the {} blob store",
+                candidate.name(), candidateLatency.get().toMillis(), currentLatency.get().toMillis(), current.name());
+        }
+    }
+
+    private TrackedStore other(TrackedStore store) {
+        if (store == first) {
+            return second;
+        }
+        return first;
+    }
+
+    @VisibleForTesting
+    BlobStoreDAO preferredBlobStoreDAO() {
+        return preferred.get().blobStoreDAO();
+    }
+}
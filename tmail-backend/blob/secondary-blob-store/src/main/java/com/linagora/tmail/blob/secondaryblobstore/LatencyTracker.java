@@ -0,0 +1,54 @@
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read latencies of a blob store: an exponentially weighted moving average, to compare the blob stores, and a window of
+ * the latest samples, to compute percentiles.
+ */
+class LatencyTracker {
+    static final double EWMA_WEIGHT = 0.2;
+    static final int WINDOW_SIZE = 128;
+    private static final long NO_SAMPLE = -1;
+
+    private final AtomicLong ewmaNanos = new AtomicLong(NO_SAMPLE);
+    private final AtomicLongArray window = new AtomicLongArray(WINDOW_SIZE);
+    private final AtomicLong sampleCount = new AtomicLong();
+
+    void record(Duration latency) {
+        long nanos = latency.toNanos();
+        ewmaNanos.accumulateAndGet(nanos, (previous, sample) -> {
+            if (previous == NO_SAMPLE) {
+                return sample;
+            }
+            return Math.round(EWMA_WEIGHT * sample + (1 - EWMA_WEIGHT) * previous);
+        });
+        window.set(Math.toIntExact(sampleCount.getAndIncrement() % WINDOW_SIZE), nanos);
+    }
+
+    Optional<Duration> ewma() {
+        long nanos = ewmaNanos.get();
+        if (nanos == NO_SAMPLE) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos(nanos));
+    }
+
+    Optional<Duration> percentile(double percentile) {
+        int size = Math.toIntExact(Math.min(sampleCount.get(), WINDOW_SIZE));
+        if (size == 0) {
+            return Optional.empty();
+        }
+        long[] samples = new long[size];
+        for (int i = 0; i < size; i++) {
+            samples[i] = window.get(i);
+        }
+        Arrays.sort(samples);
+        int index = Math.max(0, (int) Math.ceil(percentile * size) - 1);
+        return Optional.of(Duration.ofNanos(samples[index]));
+    }
+}
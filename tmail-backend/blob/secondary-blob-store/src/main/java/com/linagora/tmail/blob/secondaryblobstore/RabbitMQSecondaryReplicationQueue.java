@@ -0,0 +1,324 @@
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import static com.rabbitmq.client.MessageProperties.PERSISTENT_TEXT_PLAIN;
+import static org.apache.james.backends.rabbitmq.Constants.DURABLE;
+import static org.apache.james.backends.rabbitmq.Constants.EMPTY_ROUTING_KEY;
+import static org.apache.james.backends.rabbitmq.Constants.REQUEUE;
+import static org.apache.james.backends.rabbitmq.Constants.evaluateDurable;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.james.backends.rabbitmq.RabbitMQConfiguration;
+import org.apache.james.backends.rabbitmq.ReceiverProvider;
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.lifecycle.api.Startable;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Delivery;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.rabbitmq.AcknowledgableDelivery;
+import reactor.rabbitmq.BindingSpecification;
+import reactor.rabbitmq.ConsumeOptions;
+import reactor.rabbitmq.ExchangeSpecification;
+import reactor.rabbitmq.OutboundMessage;
+import reactor.rabbitmq.QueueSpecification;
+import reactor.rabbitmq.Receiver;
+import reactor.rabbitmq.Sender;
+
+/**
+ * Replicates the writes of the primary blob store to the secondary blob store through a durable RabbitMQ queue.
+ *
+ * Failed replications are acknowledged and published to a retry queue without consumer, one per backoff duration, whose
+ * messages expire back to the replication exchange: the exponential backoff does not hold a delivery. Once the
+ * configured number of retries is exhausted, they are moved to a dead-letter queue, from which
+ * {@link #replayDeadLetters(ReplayContext)} publishes them again.
+ *
+ * Backpressure is enforced by the consumer prefetch: at most 'concurrency' operations are replicated at the same time
+ * on each node.
+ */
+public class RabbitMQSecondaryReplicationQueue implements SecondaryReplicationQueue, Startable, Closeable {
+    public static class ReplayContext {
+        private final AtomicLong replayedCount = new AtomicLong();
+        private final AtomicLong failedCount = new AtomicLong();
+
+        public long getReplayedCount() {
+            return replayedCount.get();
+        }
+
+        public long getFailedCount() {
+            return failedCount.get();
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RabbitMQSecondaryReplicationQueue.class);
+
+    public static final String EXCHANGE_NAME = "secondary-blob-store-replication";
+    public static final String QUEUE_NAME = "secondary-blob-store-replication";
+    public static final String DEAD_LETTER_EXCHANGE_NAME = "secondary-blob-store-replication-dead-letter";
+    public static final String DEAD_LETTER_QUEUE_NAME = "secondary-blob-store-replication-dead-letter";
+    public static final String RETRY_QUEUE_NAME_PREFIX = "secondary-blob-store-replication-retry-";
+
+    public static final String ENQUEUED_METRIC = "secondary-blob-store-replication-enqueued";
+    public static final String REPLICATED_METRIC = "secondary-blob-store-replication-replicated";
+    public static final String RETRIED_METRIC = "secondary-blob-store-replication-retried";
+    public static final String DEAD_LETTERED_METRIC = "secondary-blob-store-replication-dead-lettered";
+    public static final String REPLICATION_TIMER = "secondary-blob-store-replication";
+
+    private static final String OPERATION_HEADER = "operation";
+    private static final String BUCKET_NAME_HEADER = "bucketName";
+    private static final String RETRY_COUNT_HEADER = "retryCount";
+    private static final String BLOB_ID_DELIMITER = "\n";
+    private static final String DEFAULT_EXCHANGE = "";
+
+    private final Sender sender;
+    private final ReceiverProvider receiverProvider;
+    private final RabbitMQConfiguration rabbitMQConfiguration;
+    private final SecondaryReplicator replicator;
+    private final BlobId.Factory blobIdFactory;
+    private final SecondaryReplicationConfiguration configuration;
+    private final MetricFactory metricFactory;
+    private final Metric enqueuedMetric;
+    private final Metric replicatedMetric;
+    private final Metric retriedMetric;
+    private final Metric deadLetteredMetric;
+    private Disposable consumer;
+
+    public RabbitMQSecondaryReplicationQueue(Sender sender,
+                                             ReceiverProvider receiverProvider,
+                                             RabbitMQConfiguration rabbitMQConfiguration,
+                                             SecondaryReplicator replicator,
+                                             BlobId.Factory blobIdFactory,
+                                             SecondaryReplicationConfiguration configuration,
+                                             MetricFactory metricFactory) {
+        this.sender = sender;
+        this.receiverProvider = receiverProvider;
+        this.rabbitMQConfiguration = rabbitMQConfiguration;
+        this.replicator = replicator;
+        this.blobIdFactory = blobIdFactory;
+        this.configuration = configuration;
+        this.metricFactory = metricFactory;
+        this.enqueuedMetric = metricFactory.generate(ENQUEUED_METRIC);
+        this.replicatedMetric = metricFactory.generate(REPLICATED_METRIC);
+        this.retriedMetric = metricFactory.generate(RETRIED_METRIC);
+        this.deadLetteredMetric = metricFactory.generate(DEAD_LETTERED_METRIC);
+    }
+
+    public void start() {
+        Flux.concat(
+                sender.declareExchange(ExchangeSpecification.exchange(EXCHANGE_NAME)
+                    .durable(DURABLE)),
+                sender.declareExchange(ExchangeSpecification.exchange(DEAD_LETTER_EXCHANGE_NAME)
+                    .durable(DURABLE)),
+                sender.declareQueue(QueueSpecification
+                    .queue(QUEUE_NAME)
+                    .durable(evaluateDurable(DURABLE, rabbitMQConfiguration.isQuorumQueuesUsed()))
+                    .arguments(rabbitMQConfiguration.workQueueArgumentsBuilder()
+                        .put("x-dead-letter-exchange", DEAD_LETTER_EXCHANGE_NAME)
+                        .put("x-dead-letter-routing-key", EMPTY_ROUTING_KEY)
+                        .build())),
+                sender.declareQueue(QueueSpecification
+                    .queue(DEAD_LETTER_QUEUE_NAME)
+                    .durable(evaluateDurable(DURABLE, rabbitMQConfiguration.isQuorumQueuesUsed()))
+                    .arguments(rabbitMQConfiguration.workQueueArgumentsBuilder()
+                        .build())),
+                sender.bind(BindingSpecification.binding()
+                    .exchange(EXCHANGE_NAME)
+                    .queue(QUEUE_NAME)
+                    .routingKey(EMPTY_ROUTING_KEY)),
+                sender.bind(BindingSpecification.binding()
+                    .exchange(DEAD_LETTER_EXCHANGE_NAME)
+                    .queue(DEAD_LETTER_QUEUE_NAME)
+                    .routingKey(EMPTY_ROUTING_KEY)),
+                Flux.range(0, configuration.maxRetries())
+                    .map(this::backoff)
+                    .distinct()
+                    .concatMap(this::declareRetryQueue))
+            .then()
+            .block();
+
+        consumer = consume();
+    }
+
+    private Mono<AMQP.Queue.DeclareOk> declareRetryQueue(Duration backoff) {
+        // Messages expire back to the replication exchange once the backoff elapsed
+        return sender.declareQueue(QueueSpecification
+            .queue(retryQueueName(backoff))
+            .durable(evaluateDurable(DURABLE, rabbitMQConfiguration.isQuorumQueuesUsed()))
+            .arguments(rabbitMQConfiguration.workQueueArgumentsBuilder()
+                .put("x-message-ttl", backoff.toMillis())
+                .put("x-dead-letter-exchange", EXCHANGE_NAME)
+                .put("x-dead-letter-routing-key", EMPTY_ROUTING_KEY)
+                .build()));
+    }
+
+    private static String retryQueueName(Duration backoff) {
+        return RETRY_QUEUE_NAME_PREFIX + backoff.toMillis();
+    }
+
+    @Override
+    public Mono<Void> enqueue(ReplicationOperation operation) {
+        return publish(operation, 0)
+            .doOnSuccess(any -> enqueuedMetric.increment());
+    }
+
+    /**
+     * Stops at the first operation that could not be published again, which is left in the dead-letter queue.
+     */
+    public Mono<Void> replayDeadLetters(ReplayContext context) {
+        return sender.declareQueue(QueueSpecification.queue(DEAD_LETTER_QUEUE_NAME).passive(true))
+            .map(AMQP.Queue.DeclareOk::getMessageCount)
+            .filter(count -> count > 0)
+            .flatMap(count -> Flux.using(receiverProvider::createReceiver,
+                    receiver -> receiver.consumeManualAck(DEAD_LETTER_QUEUE_NAME, new ConsumeOptions().qos(configuration.concurrency())),
+                    Receiver::close)
+                .take(count)
+                .concatMap(delivery -> replay(delivery, context))
+                .takeWhile(replayed -> replayed)
+                .then());
+    }
+
+    private Mono<Boolean> replay(AcknowledgableDelivery delivery, ReplayContext context) {
+        return Mono.fromCallable(() -> deserialize(delivery))
+            .flatMap(operation -> publish(operation, 0))
+            .then(Mono.fromCallable(() -> {
+                delivery.ack();
+                context.replayedCount.incrementAndGet();
+                return true;
+            }))
+            .onErrorResume(e -> {
+                LOGGER.error("Failed to replay a dead-lettered secondary blob store replication, stopping the replay", e);
+                delivery.nack(REQUEUE);
+                context.failedCount.incrementAndGet();
+                return Mono.just(false);
+            });
+    }
+
+    private Disposable consume() {
+        return Flux.using(receiverProvider::createReceiver,
+                receiver -> receiver.consumeManualAck(QUEUE_NAME, new ConsumeOptions().qos(configuration.concurrency())),
+                Receiver::close)
+            .flatMap(this::handle, configuration.concurrency())
+            .subscribeOn(Schedulers.boundedElastic())
+            .subscribe();
+    }
+
+    private Mono<Void> handle(AcknowledgableDelivery delivery) {
+        int retryCount = retryCount(delivery);
+
+        return Mono.fromCallable(() -> deserialize(delivery))
+            .flatMap(operation -> Mono.from(metricFactory.decoratePublisherWithTimerMetric(REPLICATION_TIMER, replicator.replicate(operation)))
+                .then(Mono.fromRunnable(() -> {
+                    delivery.ack();
+                    replicatedMetric.increment();
+                }))
+                .onErrorResume(e -> retryOrDeadLetter(delivery, operation, retryCount, e)))
+            .onErrorResume(e -> {
+                LOGGER.error("Invalid secondary blob store replication message", e);
+                deadLetter(delivery);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private Mono<Void> retryOrDeadLetter(AcknowledgableDelivery delivery, ReplicationOperation operation, int retryCount, Throwable error) {
+        if (retryCount >= configuration.maxRetries()) {
+            LOGGER.error("Failed to replicate {} of bucket {} on the secondary blob store after {} retries, moving it to the dead-letter queue",
+                operation.type(), operation.bucketName().asString(), retryCount, error);
+            deadLetter(delivery);
+            return Mono.empty();
+        }
+        LOGGER.warn("Failed to replicate {} of bucket {} on the secondary blob store, retrying", operation.type(), operation.bucketName().asString(), error);
+        return publish(DEFAULT_EXCHANGE, retryQueueName(backoff(retryCount)), operation, retryCount + 1)
+            .then(Mono.fromRunnable(() -> {
+                delivery.ack();
+                retriedMetric.increment();
+            }))
+            .onErrorResume(e -> {
+                LOGGER.error("Failed to publish the retry of a secondary blob store replication", e);
+                deadLetter(delivery);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private void deadLetter(AcknowledgableDelivery delivery) {
+        delivery.nack(!REQUEUE);
+        deadLetteredMetric.increment();
+    }
+
+    private Duration backoff(int retryCount) {
+        return configuration.retryBackoff().multipliedBy(1L << Math.min(retryCount, 10));
+    }
+
+    private Mono<Void> publish(ReplicationOperation operation, int retryCount) {
+        return publish(EXCHANGE_NAME, EMPTY_ROUTING_KEY, operation, retryCount);
+    }
+
+    private Mono<Void> publish(String exchange, String routingKey, ReplicationOperation operation, int retryCount) {
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+            .deliveryMode(PERSISTENT_TEXT_PLAIN.getDeliveryMode())
+            .priority(PERSISTENT_TEXT_PLAIN.getPriority())
+            .contentType(PERSISTENT_TEXT_PLAIN.getContentType())
+            .headers(ImmutableMap.of(
+                OPERATION_HEADER, operation.type().name(),
+                BUCKET_NAME_HEADER, operation.bucketName().asString(),
+                RETRY_COUNT_HEADER, retryCount))
+            .build();
+        byte[] body = operation.blobIds().stream()
+            .map(BlobId::asString)
+            .reduce((a, b) -> a + BLOB_ID_DELIMITER + b)
+            .orElse("")
+            .getBytes(StandardCharsets.UTF_8);
+
+        return sender.sendWithPublishConfirms(Mono.just(new OutboundMessage(exchange, routingKey, properties, body)))
+            .next()
+            .<Void>handle((result, sink) -> {
+                if (result.isAck()) {
+                    sink.complete();
+                } else {
+                    sink.error(new IllegalStateException("RabbitMQ did not acknowledge the secondary blob store replication of bucket " + operation.bucketName().asString()));
+                }
+            });
+    }
+
+    private ReplicationOperation deserialize(Delivery delivery) {
+        Map<String, Object> headers = delivery.getProperties().getHeaders();
+        ReplicationOperation.Type type = ReplicationOperation.Type.valueOf(headers.get(OPERATION_HEADER).toString());
+        BucketName bucketName = BucketName.of(headers.get(BUCKET_NAME_HEADER).toString());
+        String body = new String(delivery.getBody(), StandardCharsets.UTF_8);
+        ImmutableList<BlobId> blobIds = Arrays.stream(body.split(BLOB_ID_DELIMITER))
+            .filter(blobId -> !blobId.isEmpty())
+            .map(blobIdFactory::parse)
+            .collect(ImmutableList.toImmutableList());
+        return new ReplicationOperation(type, bucketName, blobIds);
+    }
+
+    private int retryCount(Delivery delivery) {
+        return Optional.ofNullable(delivery.getProperties().getHeaders())
+            .map(headers -> headers.get(RETRY_COUNT_HEADER))
+            .map(retryCount -> ((Number) retryCount).intValue())
+            .orElse(0);
+    }
+
+    @Override
+    public void close() {
+        Optional.ofNullable(consumer).ifPresent(Disposable::dispose);
+    }
+}
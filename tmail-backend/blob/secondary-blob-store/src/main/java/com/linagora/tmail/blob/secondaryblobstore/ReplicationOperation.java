@@ -0,0 +1,33 @@
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BucketName;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A write to apply on the secondary blob store. Saved content is not carried: it is read back from the primary blob
+ * store when the operation gets replicated.
+ */
+public record ReplicationOperation(Type type, BucketName bucketName, List<BlobId> blobIds) {
+    public enum Type {
+        SAVE,
+        DELETE,
+        DELETE_BUCKET
+    }
+
+    public static ReplicationOperation save(BucketName bucketName, BlobId blobId) {
+        return new ReplicationOperation(Type.SAVE, bucketName, ImmutableList.of(blobId));
+    }
+
+    public static ReplicationOperation delete(BucketName bucketName, Collection<BlobId> blobIds) {
+        return new ReplicationOperation(Type.DELETE, bucketName, ImmutableList.copyOf(blobIds));
+    }
+
+    public static ReplicationOperation deleteBucket(BucketName bucketName) {
+        return new ReplicationOperation(Type.DELETE_BUCKET, bucketName, ImmutableList.of());
+    }
+}
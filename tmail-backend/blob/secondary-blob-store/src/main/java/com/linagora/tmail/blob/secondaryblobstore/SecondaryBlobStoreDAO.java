@@ -1,23 +1,31 @@
 package com.linagora.tmail.blob.secondaryblobstore;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.james.blob.api.BlobId;
 import org.apache.james.blob.api.BlobStoreDAO;
 import org.apache.james.blob.api.BucketName;
 import org.apache.james.blob.api.ObjectNotFoundException;
 import org.apache.james.blob.api.ObjectStoreException;
 import org.apache.james.blob.api.ObjectStoreIOException;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.NoopMetricFactory;
 import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteSource;
+import com.google.common.io.FileBackedOutputStream;
+import com.google.common.primitives.Ints;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -41,12 +49,52 @@ public class SecondaryBlobStoreDAO implements BlobStoreDAO {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SecondaryBlobStoreDAO.class);
 
+    public static final int DEFAULT_IN_MEMORY_THRESHOLD = 1024 * 1024;
+    public static final String SPILLED_BYTES_METRIC = "secondary-blob-store-spilled-bytes";
+    public static final String SPILLED_COUNT_METRIC = "secondary-blob-store-spilled-count";
+
     private final BlobStoreDAO firstBlobStoreDAO;
     private final BlobStoreDAO secondBlobStoreDAO;
+    private final int inMemoryThreshold;
+    private final Metric spilledBytesMetric;
+    private final Metric spilledCountMetric;
+    private final SecondaryReplicator replicator;
+    private final Optional<SecondaryReplicationQueue> replicationQueue;
+    private final Optional<HedgedReader> hedgedReader;
 
     public SecondaryBlobStoreDAO(BlobStoreDAO firstBlobStoreDAO, BlobStoreDAO secondBlobStoreDAO) {
+        this(firstBlobStoreDAO, secondBlobStoreDAO, new NoopMetricFactory(), DEFAULT_IN_MEMORY_THRESHOLD, Optional.empty(), HedgedReadConfiguration.DISABLED);
+    }
+
+    public SecondaryBlobStoreDAO(BlobStoreDAO firstBlobStoreDAO, BlobStoreDAO secondBlobStoreDAO, MetricFactory metricFactory) {
+        this(firstBlobStoreDAO, secondBlobStoreDAO, metricFactory, DEFAULT_IN_MEMORY_THRESHOLD, Optional.empty(), HedgedReadConfiguration.DISABLED);
+    }
+
+    /**
+     * Only the writes to the first blob store are awaited: the writes to the second blob store are enqueued into the
+     * replication queue, and applied in the background.
+     */
+    public SecondaryBlobStoreDAO(BlobStoreDAO firstBlobStoreDAO, BlobStoreDAO secondBlobStoreDAO, MetricFactory metricFactory, SecondaryReplicationQueue replicationQueue) {
+        this(firstBlobStoreDAO, secondBlobStoreDAO, metricFactory, DEFAULT_IN_MEMORY_THRESHOLD, Optional.of(replicationQueue), HedgedReadConfiguration.DISABLED);
+    }
+
+    /**
+     * When the hedged reads are enabled, the reactive reads are raced against both blob stores, see {@link HedgedReader}.
+     */
+    public SecondaryBlobStoreDAO(BlobStoreDAO firstBlobStoreDAO, BlobStoreDAO secondBlobStoreDAO, MetricFactory metricFactory,
+                                 int inMemoryThreshold, Optional<SecondaryReplicationQueue> replicationQueue,
+                                 HedgedReadConfiguration hedgedReadConfiguration) {
+        Preconditions.checkArgument(inMemoryThreshold >= 0, "'inMemoryThreshold' should not be negative");
         this.firstBlobStoreDAO = firstBlobStoreDAO;
         this.secondBlobStoreDAO = secondBlobStoreDAO;
+        this.inMemoryThreshold = inMemoryThreshold;
+        this.spilledBytesMetric = metricFactory.generate(SPILLED_BYTES_METRIC);
+        this.spilledCountMetric = metricFactory.generate(SPILLED_COUNT_METRIC);
+        this.replicator = new SecondaryReplicator(firstBlobStoreDAO, secondBlobStoreDAO);
+        this.replicationQueue = replicationQueue;
+        this.hedgedReader = Optional.of(hedgedReadConfiguration)
+            .filter(HedgedReadConfiguration::enabled)
+            .map(configuration -> new HedgedReader(firstBlobStoreDAO, secondBlobStoreDAO, configuration, metricFactory));
     }
 
     @Override
@@ -61,6 +109,9 @@ public class SecondaryBlobStoreDAO implements BlobStoreDAO {
 
     @Override
     public Mono<InputStream> readReactive(BucketName bucketName, BlobId blobId) {
+        if (hedgedReader.isPresent()) {
+            return hedgedReader.get().read(bucketName, blobId, blobStoreDAO -> blobStoreDAO.readReactive(bucketName, blobId));
+        }
         return Mono.from(firstBlobStoreDAO.readReactive(bucketName, blobId))
             .onErrorResume(ObjectStoreException.class, ex -> {
                 LOGGER.warn("Fail to read from the first blob store with bucket name {} and blobId {}. Use second blob store", bucketName.asString(), blobId.asString(), ex);
@@ -70,6 +121,9 @@ public class SecondaryBlobStoreDAO implements BlobStoreDAO {
 
     @Override
     public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
+        if (hedgedReader.isPresent()) {
+            return hedgedReader.get().read(bucketName, blobId, blobStoreDAO -> blobStoreDAO.readBytes(bucketName, blobId));
+        }
         return Mono.from(firstBlobStoreDAO.readBytes(bucketName, blobId))
             .onErrorResume(ObjectStoreException.class, ex -> {
                 LOGGER.warn("Fail to read from the first blob store with bucket name {} and blobId {}. Use second blob store", bucketName.asString(), blobId.asString(), ex);
@@ -79,53 +133,85 @@ public class SecondaryBlobStoreDAO implements BlobStoreDAO {
 
     @Override
     public Mono<Void> save(BucketName bucketName, BlobId blobId, byte[] data) {
-        return Flux.merge(asSavingStatus(firstBlobStoreDAO.save(bucketName, blobId, data)),
-                asSavingStatus(secondBlobStoreDAO.save(bucketName, blobId, data)))
-            .collectList()
-            .handle(this::merge);
+        return write(firstBlobStoreDAO.save(bucketName, blobId, data),
+            () -> secondBlobStoreDAO.save(bucketName, blobId, data),
+            ReplicationOperation.save(bucketName, blobId));
     }
 
+    /**
+     * The stream can only be consumed once, while it needs to be written to both blob stores. It is buffered in memory
+     * up to the threshold, then spilled to a temporary file, and the buffered content is saved concurrently to both
+     * blob stores. The temporary file is deleted once both saves are done.
+     *
+     * With a replication queue, the stream is directly saved to the first blob store.
+     */
     @Override
-    // TODO Could be optimized with FileBackedOutputStream
     public Mono<Void> save(BucketName bucketName, BlobId blobId, InputStream inputStream) {
-        return Mono.fromCallable(() -> IOUtils.toByteArray(inputStream))
-            .subscribeOn(Schedulers.boundedElastic())
-            .flatMap(data -> Flux.merge(asSavingStatus(firstBlobStoreDAO.save(bucketName, blobId, data)),
-                    asSavingStatus(secondBlobStoreDAO.save(bucketName, blobId, data)))
-                .collectList()
-                .handle(this::merge));
+        if (replicationQueue.isPresent()) {
+            return Mono.from(firstBlobStoreDAO.save(bucketName, blobId, inputStream))
+                .then(replicateLater(replicationQueue.get(), ReplicationOperation.save(bucketName, blobId)));
+        }
+        return Mono.usingWhen(
+            Mono.fromCallable(() -> buffer(inputStream))
+                .subscribeOn(Schedulers.boundedElastic()),
+            content -> save(bucketName, blobId, content.asByteSource()),
+            this::release);
+    }
+
+    private FileBackedOutputStream buffer(InputStream inputStream) throws IOException {
+        FileBackedOutputStream content = new FileBackedOutputStream(inMemoryThreshold);
+        try (content) {
+            inputStream.transferTo(content);
+        } catch (IOException e) {
+            content.reset();
+            throw e;
+        }
+        long size = content.asByteSource().size();
+        if (size > inMemoryThreshold) {
+            spilledCountMetric.increment();
+            // Metrics are int based: saturates rather than failing the save of a blob larger than 2 GiB
+            spilledBytesMetric.add(Ints.saturatedCast(size));
+        }
+        return content;
+    }
+
+    private Mono<Void> release(FileBackedOutputStream content) {
+        return Mono.<Void>fromRunnable(() -> {
+                try {
+                    content.reset();
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to delete the temporary file backing a secondary blob store save", e);
+                }
+            })
+            .subscribeOn(Schedulers.boundedElastic());
     }
 
     @Override
     public Mono<Void> save(BucketName bucketName, BlobId blobId, ByteSource content) {
-        return Flux.merge(asSavingStatus(firstBlobStoreDAO.save(bucketName, blobId, content)),
-                asSavingStatus(secondBlobStoreDAO.save(bucketName, blobId, content)))
-            .collectList()
-            .handle(this::merge);
+        return write(firstBlobStoreDAO.save(bucketName, blobId, content),
+            () -> secondBlobStoreDAO.save(bucketName, blobId, content),
+            ReplicationOperation.save(bucketName, blobId));
     }
 
     @Override
     public Mono<Void> delete(BucketName bucketName, BlobId blobId) {
-        return Flux.merge(asSavingStatus(firstBlobStoreDAO.delete(bucketName, blobId)),
-                asSavingStatus(secondBlobStoreDAO.delete(bucketName, blobId)))
-            .collectList()
-            .handle(this::merge);
+        return write(firstBlobStoreDAO.delete(bucketName, blobId),
+            () -> secondBlobStoreDAO.delete(bucketName, blobId),
+            ReplicationOperation.delete(bucketName, ImmutableList.of(blobId)));
     }
 
     @Override
     public Mono<Void> delete(BucketName bucketName, Collection<BlobId> blobIds) {
-        return Flux.merge(asSavingStatus(firstBlobStoreDAO.delete(bucketName, blobIds)),
-                asSavingStatus(secondBlobStoreDAO.delete(bucketName, blobIds)))
-            .collectList()
-            .handle(this::merge);
+        return write(firstBlobStoreDAO.delete(bucketName, blobIds),
+            () -> secondBlobStoreDAO.delete(bucketName, blobIds),
+            ReplicationOperation.delete(bucketName, blobIds));
     }
 
     @Override
     public Mono<Void> deleteBucket(BucketName bucketName) {
-        return Flux.merge(asSavingStatus(firstBlobStoreDAO.deleteBucket(bucketName)),
-                asSavingStatus(secondBlobStoreDAO.deleteBucket(bucketName)))
-            .collectList()
-            .handle(this::merge);
+        return write(firstBlobStoreDAO.deleteBucket(bucketName),
+            () -> secondBlobStoreDAO.deleteBucket(bucketName),
+            ReplicationOperation.deleteBucket(bucketName));
     }
 
     @Override
@@ -138,6 +224,32 @@ public class SecondaryBlobStoreDAO implements BlobStoreDAO {
         return Flux.from(firstBlobStoreDAO.listBlobs(bucketName));
     }
 
+    private Mono<Void> write(Publisher<Void> firstWrite, Supplier<Publisher<Void>> secondWrite, ReplicationOperation operation) {
+        return replicationQueue
+            .map(queue -> Mono.from(firstWrite)
+                .then(replicateLater(queue, operation)))
+            .orElseGet(() -> Flux.merge(asSavingStatus(firstWrite), asSavingStatus(secondWrite.get()))
+                .collectList()
+                .handle(this::merge));
+    }
+
+    private Mono<Void> replicateLater(SecondaryReplicationQueue queue, ReplicationOperation operation) {
+        return queue.enqueue(operation)
+            .onErrorResume(e -> {
+                LOGGER.warn("Failure to enqueue the {} replication of bucket {}, replicating it synchronously", operation.type(), operation.bucketName().asString(), e);
+                return replicator.replicate(operation)
+                    .onErrorResume(replicationError -> {
+                        LOGGER.warn("Failure to save in secondary blobStore", replicationError);
+                        return Mono.empty();
+                    });
+            });
+    }
+
+    @VisibleForTesting
+    Optional<HedgedReader> hedgedReader() {
+        return hedgedReader;
+    }
+
     private Mono<SavingStatus> asSavingStatus(Publisher<Void> publisher) {
         return Mono.from(publisher).then(Mono.just(SavingStatus.success()))
             .onErrorResume(e -> Mono.just(SavingStatus.failure(e)));
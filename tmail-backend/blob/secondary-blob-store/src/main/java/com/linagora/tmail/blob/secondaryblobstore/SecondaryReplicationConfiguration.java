@@ -0,0 +1,24 @@
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import java.time.Duration;
+
+import com.google.common.base.Preconditions;
+
+public record SecondaryReplicationConfiguration(boolean asynchronous, int maxRetries, Duration retryBackoff, int concurrency) {
+    public static final int DEFAULT_MAX_RETRIES = 8;
+    public static final Duration DEFAULT_RETRY_BACKOFF = Duration.ofSeconds(1);
+    public static final int DEFAULT_CONCURRENCY = 16;
+
+    public static final SecondaryReplicationConfiguration SYNCHRONOUS = new SecondaryReplicationConfiguration(false,
+        DEFAULT_MAX_RETRIES, DEFAULT_RETRY_BACKOFF, DEFAULT_CONCURRENCY);
+
+    public static SecondaryReplicationConfiguration asynchronous(int maxRetries, Duration retryBackoff, int concurrency) {
+        return new SecondaryReplicationConfiguration(true, maxRetries, retryBackoff, concurrency);
+    }
+
+    public SecondaryReplicationConfiguration {
+        Preconditions.checkArgument(maxRetries >= 0, "'maxRetries' should not be negative");
+        Preconditions.checkArgument(!retryBackoff.isNegative(), "'retryBackoff' should not be negative");
+        Preconditions.checkArgument(concurrency > 0, "'concurrency' should be strictly positive");
+    }
+}
@@ -0,0 +1,11 @@
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Durably records the writes still to be applied on the secondary blob store.
+ */
+@FunctionalInterface
+public interface SecondaryReplicationQueue {
+    Mono<Void> enqueue(ReplicationOperation operation);
+}
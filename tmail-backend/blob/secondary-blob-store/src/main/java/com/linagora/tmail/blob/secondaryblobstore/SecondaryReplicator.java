@@ -0,0 +1,69 @@
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.ObjectNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Applies a {@link ReplicationOperation} on the secondary blob store. Saved blobs are copied from the primary blob
+ * store: a blob deleted from the primary blob store in the meantime has nothing left to replicate. Likewise, deleted
+ * blobs are only deleted from the secondary blob store once gone from the primary blob store.
+ *
+ * Operations are replicated concurrently and retried, so the operations on a blob can be replicated out of order:
+ * checking the primary blob store makes the secondary blob store converge to it whatever the order.
+ */
+public class SecondaryReplicator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SecondaryReplicator.class);
+
+    private final BlobStoreDAO firstBlobStoreDAO;
+    private final BlobStoreDAO secondBlobStoreDAO;
+
+    public SecondaryReplicator(BlobStoreDAO firstBlobStoreDAO, BlobStoreDAO secondBlobStoreDAO) {
+        this.firstBlobStoreDAO = firstBlobStoreDAO;
+        this.secondBlobStoreDAO = secondBlobStoreDAO;
+    }
+
+    public Mono<Void> replicate(ReplicationOperation operation) {
+        return switch (operation.type()) {
+            case SAVE -> Mono.usingWhen(firstBlobStoreDAO.readReactive(operation.bucketName(), operation.blobIds().getFirst()),
+                    content -> Mono.from(secondBlobStoreDAO.save(operation.bucketName(), operation.blobIds().getFirst(), content)),
+                    content -> Mono.fromCallable(() -> {
+                        content.close();
+                        return content;
+                    }).then())
+                .onErrorResume(ObjectNotFoundException.class, e -> {
+                    LOGGER.info("Blob {} of bucket {} is no longer in the primary blob store, skipping its replication",
+                        operation.blobIds().getFirst().asString(), operation.bucketName().asString());
+                    return Mono.empty();
+                });
+            case DELETE -> Flux.fromIterable(operation.blobIds())
+                .filterWhen(blobId -> isAbsentFromPrimary(operation.bucketName(), blobId))
+                .collect(ImmutableList.toImmutableList())
+                .filter(blobIds -> !blobIds.isEmpty())
+                .flatMap(blobIds -> Mono.from(secondBlobStoreDAO.delete(operation.bucketName(), blobIds)));
+            case DELETE_BUCKET -> Mono.from(secondBlobStoreDAO.deleteBucket(operation.bucketName()));
+        };
+    }
+
+    private Mono<Boolean> isAbsentFromPrimary(BucketName bucketName, BlobId blobId) {
+        return Mono.usingWhen(firstBlobStoreDAO.readReactive(bucketName, blobId),
+                content -> {
+                    LOGGER.info("Blob {} of bucket {} was saved again in the primary blob store, skipping its deletion",
+                        blobId.asString(), bucketName.asString());
+                    return Mono.just(false);
+                },
+                content -> Mono.fromCallable(() -> {
+                    content.close();
+                    return content;
+                }).then())
+            .onErrorResume(ObjectNotFoundException.class, e -> Mono.just(true));
+    }
+}
@@ -0,0 +1,58 @@
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyTrackerTest {
+    @Test
+    void ewmaShouldBeEmptyWhenNoSample() {
+        assertThat(new LatencyTracker().ewma()).isEmpty();
+    }
+
+    @Test
+    void percentileShouldBeEmptyWhenNoSample() {
+        assertThat(new LatencyTracker().percentile(0.95)).isEmpty();
+    }
+
+    @Test
+    void ewmaShouldBeTheFirstSample() {
+        LatencyTracker testee = new LatencyTracker();
+
+        testee.record(Duration.ofMillis(100));
+
+        assertThat(testee.ewma()).contains(Duration.ofMillis(100));
+    }
+
+    @Test
+    void ewmaShouldWeightTheLatestSample() {
+        LatencyTracker testee = new LatencyTracker();
+
+        testee.record(Duration.ofMillis(100));
+        testee.record(Duration.ofMillis(200));
+
+        assertThat(testee.ewma()).contains(Duration.ofMillis(120));
+    }
+
+    @Test
+    void percentileShouldBeComputedOverTheSamples() {
+        LatencyTracker testee = new LatencyTracker();
+
+        IntStream.rangeClosed(1, 100).forEach(i -> testee.record(Duration.ofMillis(i)));
+
+        assertThat(testee.percentile(0.95)).contains(Duration.ofMillis(95));
+    }
+
+    @Test
+    void percentileShouldOnlyConsiderTheLatestSamples() {
+        LatencyTracker testee = new LatencyTracker();
+
+        IntStream.range(0, LatencyTracker.WINDOW_SIZE).forEach(i -> testee.record(Duration.ofSeconds(10)));
+        IntStream.range(0, LatencyTracker.WINDOW_SIZE).forEach(i -> testee.record(Duration.ofMillis(10)));
+
+        assertThat(testee.percentile(1)).contains(Duration.ofMillis(10));
+    }
+}
@@ -0,0 +1,185 @@
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import static org.apache.james.backends.rabbitmq.RabbitMQExtension.IsolationPolicy.STRONG;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.SHORT_BYTEARRAY;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BLOB_ID;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BUCKET_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.awaitility.Durations.TEN_SECONDS;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import java.io.InputStream;
+import java.time.Duration;
+
+import org.apache.james.backends.rabbitmq.RabbitMQExtension;
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.PlainBlobId;
+import org.apache.james.blob.memory.MemoryBlobStoreDAO;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class RabbitMQSecondaryReplicationQueueTest {
+    @RegisterExtension
+    static RabbitMQExtension rabbitMQExtension = RabbitMQExtension.singletonRabbitMQ()
+        .isolationPolicy(STRONG);
+
+    private static final SecondaryReplicationConfiguration CONFIGURATION = SecondaryReplicationConfiguration.asynchronous(2, Duration.ofMillis(10), 4);
+
+    private MemoryBlobStoreDAO firstBlobStoreDAO;
+    private MemoryBlobStoreDAO secondBlobStoreDAO;
+    private RecordingMetricFactory metricFactory;
+    private RabbitMQSecondaryReplicationQueue testee;
+
+    @BeforeEach
+    void setUp() {
+        firstBlobStoreDAO = new MemoryBlobStoreDAO();
+        secondBlobStoreDAO = spy(new MemoryBlobStoreDAO());
+        metricFactory = new RecordingMetricFactory();
+        testee = new RabbitMQSecondaryReplicationQueue(rabbitMQExtension.getSender(),
+            rabbitMQExtension.getReceiverProvider(),
+            rabbitMQExtension.getRabbitMQ().withQuorumQueueConfiguration(),
+            new SecondaryReplicator(firstBlobStoreDAO, secondBlobStoreDAO),
+            new PlainBlobId.Factory(),
+            CONFIGURATION,
+            metricFactory);
+        testee.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        testee.close();
+    }
+
+    @Test
+    void enqueuedSaveShouldBeReplicatedToTheSecondBlobStore() {
+        Mono.from(firstBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        testee.enqueue(ReplicationOperation.save(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        await().atMost(TEN_SECONDS).untilAsserted(() ->
+            assertThat(Mono.from(secondBlobStoreDAO.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+                .isEqualTo(SHORT_BYTEARRAY));
+    }
+
+    @Test
+    void enqueuedSaveShouldBeSkippedWhenTheBlobIsNoLongerInTheFirstBlobStore() {
+        testee.enqueue(ReplicationOperation.save(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        await().atMost(TEN_SECONDS).untilAsserted(() ->
+            assertThat(metricFactory.countFor(RabbitMQSecondaryReplicationQueue.REPLICATED_METRIC)).isEqualTo(1));
+        assertThat(Flux.from(secondBlobStoreDAO.listBlobs(TEST_BUCKET_NAME)).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    void enqueuedDeleteShouldBeReplicatedToTheSecondBlobStore() {
+        Mono.from(secondBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        testee.enqueue(ReplicationOperation.delete(TEST_BUCKET_NAME, ImmutableList.of(TEST_BLOB_ID))).block();
+
+        await().atMost(TEN_SECONDS).untilAsserted(() ->
+            assertThat(Flux.from(secondBlobStoreDAO.listBlobs(TEST_BUCKET_NAME)).collectList().block())
+                .isEmpty());
+    }
+
+    @Test
+    void enqueuedDeleteShouldBeSkippedWhenTheBlobWasSavedAgainInTheFirstBlobStore() {
+        // SAVE X, DELETE X, SAVE X where the DELETE is replicated last, for instance after a retry
+        Mono.from(firstBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        testee.enqueue(ReplicationOperation.save(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+        testee.enqueue(ReplicationOperation.save(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+        await().atMost(TEN_SECONDS).untilAsserted(() ->
+            assertThat(metricFactory.countFor(RabbitMQSecondaryReplicationQueue.REPLICATED_METRIC)).isEqualTo(2));
+
+        testee.enqueue(ReplicationOperation.delete(TEST_BUCKET_NAME, ImmutableList.of(TEST_BLOB_ID))).block();
+
+        await().atMost(TEN_SECONDS).untilAsserted(() ->
+            assertThat(metricFactory.countFor(RabbitMQSecondaryReplicationQueue.REPLICATED_METRIC)).isEqualTo(3));
+        assertThat(Mono.from(secondBlobStoreDAO.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+            .isEqualTo(SHORT_BYTEARRAY);
+    }
+
+    @Test
+    void enqueuedDeleteBucketShouldBeReplicatedToTheSecondBlobStore() {
+        Mono.from(secondBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        testee.enqueue(ReplicationOperation.deleteBucket(TEST_BUCKET_NAME)).block();
+
+        await().atMost(TEN_SECONDS).untilAsserted(() ->
+            assertThat(Flux.from(secondBlobStoreDAO.listBuckets()).collectList().block())
+                .isEmpty());
+    }
+
+    @Test
+    void failedReplicationShouldBeRetried() {
+        Mono.from(firstBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        doReturn(Mono.error(new RuntimeException("boom")))
+            .doCallRealMethod()
+            .when(secondBlobStoreDAO).save(any(BucketName.class), any(BlobId.class), any(InputStream.class));
+
+        testee.enqueue(ReplicationOperation.save(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        await().atMost(TEN_SECONDS).untilAsserted(() ->
+            assertThat(Mono.from(secondBlobStoreDAO.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+                .isEqualTo(SHORT_BYTEARRAY));
+        assertThat(metricFactory.countFor(RabbitMQSecondaryReplicationQueue.RETRIED_METRIC)).isEqualTo(1);
+    }
+
+    @Test
+    void replicationShouldBeDeadLetteredWhenRetriesAreExhausted() {
+        Mono.from(firstBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        doReturn(Mono.error(new RuntimeException("boom")))
+            .when(secondBlobStoreDAO).save(any(BucketName.class), any(BlobId.class), any(InputStream.class));
+
+        testee.enqueue(ReplicationOperation.save(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        await().atMost(TEN_SECONDS).untilAsserted(() ->
+            assertThat(metricFactory.countFor(RabbitMQSecondaryReplicationQueue.DEAD_LETTERED_METRIC)).isEqualTo(1));
+        assertThat(metricFactory.countFor(RabbitMQSecondaryReplicationQueue.RETRIED_METRIC)).isEqualTo(2);
+    }
+
+    @Test
+    void replayDeadLettersShouldReplicateDeadLetteredOperations() {
+        Mono.from(firstBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        doReturn(Mono.error(new RuntimeException("boom")))
+            .when(secondBlobStoreDAO).save(any(BucketName.class), any(BlobId.class), any(InputStream.class));
+        testee.enqueue(ReplicationOperation.save(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+        await().atMost(TEN_SECONDS).untilAsserted(() ->
+            assertThat(metricFactory.countFor(RabbitMQSecondaryReplicationQueue.DEAD_LETTERED_METRIC)).isEqualTo(1));
+        doCallRealMethod()
+            .when(secondBlobStoreDAO).save(any(BucketName.class), any(BlobId.class), any(InputStream.class));
+
+        RabbitMQSecondaryReplicationQueue.ReplayContext context = new RabbitMQSecondaryReplicationQueue.ReplayContext();
+        await().atMost(TEN_SECONDS).untilAsserted(() -> {
+            testee.replayDeadLetters(context).block();
+            assertThat(context.getReplayedCount()).isEqualTo(1);
+        });
+
+        await().atMost(TEN_SECONDS).untilAsserted(() ->
+            assertThat(Mono.from(secondBlobStoreDAO.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+                .isEqualTo(SHORT_BYTEARRAY));
+    }
+
+    @Test
+    void replayDeadLettersShouldDoNothingWhenNoDeadLetters() {
+        RabbitMQSecondaryReplicationQueue.ReplayContext context = new RabbitMQSecondaryReplicationQueue.ReplayContext();
+
+        testee.replayDeadLetters(context).block();
+
+        assertThat(context.getReplayedCount()).isZero();
+        assertThat(context.getFailedCount()).isZero();
+    }
+}
@@ -6,15 +6,27 @@ import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BLOB_ID;
 import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BUCKET_NAME;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
 
 import org.apache.james.blob.api.BlobStoreDAO;
 import org.apache.james.blob.api.BlobStoreDAOContract;
+import org.apache.james.blob.api.ObjectNotFoundException;
 import org.apache.james.blob.api.ObjectStoreException;
 import org.apache.james.blob.memory.MemoryBlobStoreDAO;
+import org.apache.james.metrics.api.NoopMetricFactory;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -26,6 +38,8 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class SecondaryBlobStoreDAOTest implements BlobStoreDAOContract {
+    private static final HedgedReadConfiguration HEDGED_READ_CONFIGURATION = HedgedReadConfiguration.enabled(0.95, Duration.ofMillis(10), Duration.ofMillis(50));
+
     private SecondaryBlobStoreDAO blobStoreDAO;
     private MemoryBlobStoreDAO firstMemoryBlobStoreDAO;
     private MemoryBlobStoreDAO secondMemoryBlobStoreDAO;
@@ -91,6 +105,41 @@ public class SecondaryBlobStoreDAOTest implements BlobStoreDAOContract {
             .isEqualTo(SHORT_BYTEARRAY);
     }
 
+    @Test
+    public void saveInputStreamAboveThresholdShouldSaveDataToBothBlobStores() {
+        byte[] data = largeData();
+
+        Mono.from(blobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, new ByteArrayInputStream(data))).block();
+
+        assertThat(Mono.from(firstMemoryBlobStoreDAO.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+            .isEqualTo(data);
+        assertThat(Mono.from(secondMemoryBlobStoreDAO.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+            .isEqualTo(data);
+    }
+
+    @Test
+    public void saveInputStreamAboveThresholdShouldRecordSpilledBytes() {
+        RecordingMetricFactory metricFactory = new RecordingMetricFactory();
+        SecondaryBlobStoreDAO testee = new SecondaryBlobStoreDAO(firstMemoryBlobStoreDAO, secondMemoryBlobStoreDAO, metricFactory);
+        byte[] data = largeData();
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, new ByteArrayInputStream(data))).block();
+
+        assertThat(metricFactory.countFor(SecondaryBlobStoreDAO.SPILLED_BYTES_METRIC)).isEqualTo(data.length);
+        assertThat(metricFactory.countFor(SecondaryBlobStoreDAO.SPILLED_COUNT_METRIC)).isEqualTo(1);
+    }
+
+    @Test
+    public void saveInputStreamBelowThresholdShouldNotRecordSpilledBytes() {
+        RecordingMetricFactory metricFactory = new RecordingMetricFactory();
+        SecondaryBlobStoreDAO testee = new SecondaryBlobStoreDAO(firstMemoryBlobStoreDAO, secondMemoryBlobStoreDAO, metricFactory);
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, new ByteArrayInputStream(SHORT_BYTEARRAY))).block();
+
+        assertThat(metricFactory.countFor(SecondaryBlobStoreDAO.SPILLED_BYTES_METRIC)).isZero();
+        assertThat(metricFactory.countFor(SecondaryBlobStoreDAO.SPILLED_COUNT_METRIC)).isZero();
+    }
+
     @Test
     public void saveByteSourceShouldSaveDataToBothBlobStores() {
         Mono.from(blobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ByteSource.wrap(SHORT_BYTEARRAY))).block();
@@ -101,6 +150,175 @@ public class SecondaryBlobStoreDAOTest implements BlobStoreDAOContract {
             .isEqualTo(SHORT_BYTEARRAY);
     }
 
+    @Test
+    public void saveShouldOnlyWriteToFirstBlobStoreWhenReplicationQueue() {
+        List<ReplicationOperation> operations = new CopyOnWriteArrayList<>();
+        SecondaryBlobStoreDAO testee = new SecondaryBlobStoreDAO(firstMemoryBlobStoreDAO, secondMemoryBlobStoreDAO, new NoopMetricFactory(),
+            operation -> Mono.fromRunnable(() -> operations.add(operation)));
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(Mono.from(firstMemoryBlobStoreDAO.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+            .isEqualTo(SHORT_BYTEARRAY);
+        assertThat(Flux.from(secondMemoryBlobStoreDAO.listBlobs(TEST_BUCKET_NAME)).collectList().block())
+            .isEmpty();
+        assertThat(operations).containsExactly(ReplicationOperation.save(TEST_BUCKET_NAME, TEST_BLOB_ID));
+    }
+
+    @Test
+    public void saveInputStreamShouldEnqueueTheReplicationWhenReplicationQueue() {
+        List<ReplicationOperation> operations = new CopyOnWriteArrayList<>();
+        SecondaryBlobStoreDAO testee = new SecondaryBlobStoreDAO(firstMemoryBlobStoreDAO, secondMemoryBlobStoreDAO, new NoopMetricFactory(),
+            operation -> Mono.fromRunnable(() -> operations.add(operation)));
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, new ByteArrayInputStream(SHORT_BYTEARRAY))).block();
+
+        assertThat(Mono.from(firstMemoryBlobStoreDAO.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+            .isEqualTo(SHORT_BYTEARRAY);
+        assertThat(operations).containsExactly(ReplicationOperation.save(TEST_BUCKET_NAME, TEST_BLOB_ID));
+    }
+
+    @Test
+    public void deleteShouldEnqueueTheReplicationWhenReplicationQueue() {
+        List<ReplicationOperation> operations = new CopyOnWriteArrayList<>();
+        SecondaryBlobStoreDAO testee = new SecondaryBlobStoreDAO(firstMemoryBlobStoreDAO, secondMemoryBlobStoreDAO, new NoopMetricFactory(),
+            operation -> Mono.fromRunnable(() -> operations.add(operation)));
+        Mono.from(firstMemoryBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        Mono.from(secondMemoryBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        Mono.from(testee.delete(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        assertThat(Flux.from(firstMemoryBlobStoreDAO.listBlobs(TEST_BUCKET_NAME)).collectList().block())
+            .isEmpty();
+        assertThat(Flux.from(secondMemoryBlobStoreDAO.listBlobs(TEST_BUCKET_NAME)).collectList().block())
+            .containsExactly(TEST_BLOB_ID);
+        assertThat(operations).containsExactly(ReplicationOperation.delete(TEST_BUCKET_NAME, ImmutableList.of(TEST_BLOB_ID)));
+    }
+
+    @Test
+    public void saveShouldReplicateSynchronouslyWhenEnqueueFails() {
+        SecondaryBlobStoreDAO testee = new SecondaryBlobStoreDAO(firstMemoryBlobStoreDAO, secondMemoryBlobStoreDAO, new NoopMetricFactory(),
+            operation -> Mono.error(new RuntimeException("RabbitMQ is down")));
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(Mono.from(secondMemoryBlobStoreDAO.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+            .isEqualTo(SHORT_BYTEARRAY);
+    }
+
+    @Test
+    public void readBytesShouldBeHedgedWhenFirstBlobStoreIsSlow() {
+        MemoryBlobStoreDAO slowBlobStoreDAO = spy(firstMemoryBlobStoreDAO);
+        doReturn(Mono.just(SHORT_BYTEARRAY).delayElement(Duration.ofSeconds(10)))
+            .when(slowBlobStoreDAO).readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID);
+        RecordingMetricFactory metricFactory = new RecordingMetricFactory();
+        SecondaryBlobStoreDAO testee = hedgedTestee(slowBlobStoreDAO, metricFactory, HEDGED_READ_CONFIGURATION);
+        Mono.from(secondMemoryBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block(Duration.ofSeconds(5)))
+            .isEqualTo(SHORT_BYTEARRAY);
+        assertThat(metricFactory.countFor(HedgedReader.HEDGED_READS_METRIC)).isEqualTo(1);
+        assertThat(metricFactory.countFor(HedgedReader.SECOND_WINS_METRIC)).isEqualTo(1);
+    }
+
+    @Test
+    public void readBytesShouldNotBeHedgedWhenFirstBlobStoreAnswersWithinTheDelay() {
+        RecordingMetricFactory metricFactory = new RecordingMetricFactory();
+        SecondaryBlobStoreDAO testee = hedgedTestee(firstMemoryBlobStoreDAO, metricFactory,
+            HedgedReadConfiguration.enabled(0.95, Duration.ofSeconds(1), Duration.ofSeconds(1)));
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block())
+            .isEqualTo(SHORT_BYTEARRAY);
+        assertThat(metricFactory.countFor(HedgedReader.READS_METRIC)).isEqualTo(1);
+        assertThat(metricFactory.countFor(HedgedReader.HEDGED_READS_METRIC)).isZero();
+    }
+
+    @Test
+    public void hedgedReadReactiveShouldNotWaitForTheDelayWhenFirstBlobStoreFails() {
+        RecordingMetricFactory metricFactory = new RecordingMetricFactory();
+        SecondaryBlobStoreDAO testee = hedgedTestee(firstMemoryBlobStoreDAO, metricFactory,
+            HedgedReadConfiguration.enabled(0.95, Duration.ofMinutes(1), Duration.ofMinutes(1)));
+        Mono.from(secondMemoryBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(testee.readReactive(TEST_BUCKET_NAME, TEST_BLOB_ID).block(Duration.ofSeconds(5)))
+            .hasSameContentAs(new ByteArrayInputStream(SHORT_BYTEARRAY));
+        assertThat(metricFactory.countFor(HedgedReader.HEDGED_READS_METRIC)).isZero();
+    }
+
+    @Test
+    public void hedgedReadReactiveShouldCloseTheLosingStream() {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        InputStream losingStream = new ByteArrayInputStream(SHORT_BYTEARRAY) {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+        // Both blob stores answer: the first one after the second one, once the hedged read won
+        MemoryBlobStoreDAO slowBlobStoreDAO = spy(firstMemoryBlobStoreDAO);
+        doReturn(Mono.just(losingStream).delayElement(Duration.ofMillis(500)))
+            .when(slowBlobStoreDAO).readReactive(TEST_BUCKET_NAME, TEST_BLOB_ID);
+        RecordingMetricFactory metricFactory = new RecordingMetricFactory();
+        SecondaryBlobStoreDAO testee = hedgedTestee(slowBlobStoreDAO, metricFactory, HEDGED_READ_CONFIGURATION);
+        Mono.from(secondMemoryBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(testee.readReactive(TEST_BUCKET_NAME, TEST_BLOB_ID).block(Duration.ofSeconds(5)))
+            .hasSameContentAs(new ByteArrayInputStream(SHORT_BYTEARRAY));
+        assertThat(metricFactory.countFor(HedgedReader.SECOND_WINS_METRIC)).isEqualTo(1);
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    public void hedgedReadBytesShouldThrowWhenMissingInBothBlobStores() {
+        SecondaryBlobStoreDAO testee = hedgedTestee(firstMemoryBlobStoreDAO, new RecordingMetricFactory(), HEDGED_READ_CONFIGURATION);
+
+        assertThatThrownBy(() -> testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block())
+            .isInstanceOf(ObjectNotFoundException.class);
+    }
+
+    @Test
+    public void hedgedReadsShouldPreferTheSecondBlobStoreWhenMuchFaster() {
+        MemoryBlobStoreDAO slowBlobStoreDAO = spy(firstMemoryBlobStoreDAO);
+        doReturn(Mono.just(SHORT_BYTEARRAY).delayElement(Duration.ofSeconds(10)))
+            .when(slowBlobStoreDAO).readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID);
+        RecordingMetricFactory metricFactory = new RecordingMetricFactory();
+        SecondaryBlobStoreDAO testee = hedgedTestee(slowBlobStoreDAO, metricFactory, HEDGED_READ_CONFIGURATION);
+        Mono.from(secondMemoryBlobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        IntStream.range(0, 5).forEach(i -> testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block(Duration.ofSeconds(5)));
+
+        assertThat(testee.hedgedReader().get().preferredBlobStoreDAO()).isSameAs(secondMemoryBlobStoreDAO);
+        assertThat(metricFactory.countFor(HedgedReader.PREFERENCE_SWITCHES_METRIC)).isEqualTo(1);
+    }
+
+    @Test
+    public void hedgedReadsShouldNotPreferASlowerSecondBlobStore() {
+        // The first blob store answers right after the hedge delay: the hedged reads get cancelled soon after they started
+        MemoryBlobStoreDAO firstBlobStoreDAO = spy(firstMemoryBlobStoreDAO);
+        doReturn(Mono.just(SHORT_BYTEARRAY).delayElement(Duration.ofMillis(100)))
+            .when(firstBlobStoreDAO).readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID);
+        MemoryBlobStoreDAO slowBlobStoreDAO = spy(secondMemoryBlobStoreDAO);
+        doReturn(Mono.just(SHORT_BYTEARRAY).delayElement(Duration.ofSeconds(10)))
+            .when(slowBlobStoreDAO).readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID);
+        RecordingMetricFactory metricFactory = new RecordingMetricFactory();
+        SecondaryBlobStoreDAO testee = new SecondaryBlobStoreDAO(firstBlobStoreDAO, slowBlobStoreDAO, metricFactory,
+            SecondaryBlobStoreDAO.DEFAULT_IN_MEMORY_THRESHOLD, Optional.empty(),
+            HedgedReadConfiguration.enabled(0.95, Duration.ofMillis(90), Duration.ofMillis(90)));
+
+        IntStream.range(0, 5).forEach(i -> testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block(Duration.ofSeconds(5)));
+
+        assertThat(metricFactory.countFor(HedgedReader.HEDGED_READS_METRIC)).isPositive();
+        assertThat(testee.hedgedReader().get().preferredBlobStoreDAO()).isSameAs(firstBlobStoreDAO);
+        assertThat(metricFactory.countFor(HedgedReader.PREFERENCE_SWITCHES_METRIC)).isZero();
+    }
+
+    private SecondaryBlobStoreDAO hedgedTestee(BlobStoreDAO firstBlobStoreDAO, RecordingMetricFactory metricFactory, HedgedReadConfiguration configuration) {
+        return new SecondaryBlobStoreDAO(firstBlobStoreDAO, secondMemoryBlobStoreDAO, metricFactory,
+            SecondaryBlobStoreDAO.DEFAULT_IN_MEMORY_THRESHOLD, Optional.empty(), configuration);
+    }
+
     @Test
     public void deleteBlobShouldDeleteInBothBlobStores() {
         Mono.from(blobStoreDAO.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ByteSource.wrap(SHORT_BYTEARRAY))).block();
@@ -211,4 +429,10 @@ public class SecondaryBlobStoreDAOTest implements BlobStoreDAOContract {
         assertThatThrownBy(() -> Mono.from(store.deleteBucket(null)).block())
             .isInstanceOf(ObjectStoreException.class);
     }
+
+    private byte[] largeData() {
+        byte[] data = new byte[SecondaryBlobStoreDAO.DEFAULT_IN_MEMORY_THRESHOLD + 1024];
+        Arrays.fill(data, (byte) 'a');
+        return data;
+    }
 }
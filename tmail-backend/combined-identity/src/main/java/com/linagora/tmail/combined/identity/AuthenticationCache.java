@@ -0,0 +1,160 @@
+package com.linagora.tmail.combined.identity;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.apache.james.core.Username;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.user.api.UsersRepositoryException;
+import org.apache.james.util.MDCBuilder;
+import org.slf4j.MDC;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.primitives.Bytes;
+
+/**
+ * Node local cache of the LDAP credential verifications of the {@link CombinedUserDAO}.
+ *
+ * IMAP, SMTP and JMAP clients authenticate over and over with the same credentials: successful verifications are kept
+ * for a short time so that they do not each cost a LDAP bind.
+ *
+ * Failed verifications are kept too, so that a client retrying a wrong password is answered from memory for the negative
+ * time. Once the LDAP refused the same credentials {@code lockoutThreshold} times within the lockout time, they are
+ * refused from memory for the lockout time, so that such a client does not keep binding against the LDAP and trigger
+ * the lockout policy of the account. Retries answered from memory are neither counted nor extend these times.
+ *
+ * Credentials that could not be verified, for instance because the LDAP could not be reached, are not cached: the
+ * {@link CredentialVerifier} then throws.
+ *
+ * Passwords are never stored: entries are keyed by a slow salted hash of the password. The salt is drawn at startup and
+ * never leaves the memory of this node.
+ */
+public class AuthenticationCache {
+    @FunctionalInterface
+    public interface CredentialVerifier {
+        /**
+         * @return the verified user, or empty when the credentials were refused
+         * @throws UsersRepositoryException when the credentials could not be verified
+         */
+        Optional<Username> test(Username name, String password) throws UsersRepositoryException;
+    }
+
+    public static final String HIT_METRIC_PREFIX = "combined-users-authentication-cache-hit-";
+    public static final String NEGATIVE_HIT_METRIC_PREFIX = "combined-users-authentication-cache-negative-hit-";
+    public static final String MISS_METRIC_PREFIX = "combined-users-authentication-cache-miss-";
+    private static final String UNKNOWN_PROTOCOL = "unknown";
+
+    private static final String HASH_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int HASH_ITERATIONS = 10_000;
+    private static final int HASH_LENGTH = 256;
+    private static final int SALT_LENGTH = 16;
+
+    private record Key(Username username, String passwordHash) {
+    }
+
+    private record Failures(int count, long lastVerification) {
+    }
+
+    private final AuthenticationCacheConfiguration configuration;
+    private final MetricFactory metricFactory;
+    private final Ticker ticker;
+    private final byte[] salt;
+    private final Cache<Key, Username> authenticated;
+    private final Cache<Key, Failures> failures;
+
+    public AuthenticationCache(AuthenticationCacheConfiguration configuration, MetricFactory metricFactory) {
+        this(configuration, metricFactory, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    AuthenticationCache(AuthenticationCacheConfiguration configuration, MetricFactory metricFactory, Ticker ticker) {
+        this.configuration = configuration;
+        this.metricFactory = metricFactory;
+        this.ticker = ticker;
+        this.salt = new byte[SALT_LENGTH];
+        new SecureRandom().nextBytes(salt);
+        this.authenticated = Caffeine.newBuilder()
+            .maximumSize(configuration.size())
+            .expireAfterWrite(configuration.ttl())
+            .ticker(ticker)
+            .build();
+        // Only verifications write failures: retries answered from memory do not extend the lockout time
+        this.failures = Caffeine.newBuilder()
+            .maximumSize(configuration.size())
+            .expireAfterWrite(configuration.lockoutTtl())
+            .ticker(ticker)
+            .build();
+    }
+
+    public Optional<Username> test(Username name, String password, CredentialVerifier verifier) throws UsersRepositoryException {
+        if (Strings.isNullOrEmpty(password)) {
+            return verifier.test(name, password);
+        }
+
+        Key key = new Key(name, hash(name, password));
+        Username authenticatedUser = authenticated.getIfPresent(key);
+        if (authenticatedUser != null) {
+            count(HIT_METRIC_PREFIX);
+            return Optional.of(authenticatedUser);
+        }
+        if (isRefused(failures.getIfPresent(key))) {
+            count(NEGATIVE_HIT_METRIC_PREFIX);
+            return Optional.empty();
+        }
+
+        count(MISS_METRIC_PREFIX);
+        Optional<Username> result = verifier.test(name, password);
+        result.ifPresentOrElse(
+            user -> authenticated.put(key, user),
+            () -> failures.asMap().merge(key, new Failures(1, ticker.read()),
+                (previous, failure) -> new Failures(previous.count() + 1, failure.lastVerification())));
+        return result;
+    }
+
+    /**
+     * Forgets the verifications of this user, to be called whenever its credentials change.
+     */
+    public void invalidate(Username name) {
+        authenticated.asMap().keySet().removeIf(key -> key.username().equals(name));
+        failures.asMap().keySet().removeIf(key -> key.username().equals(name));
+    }
+
+    private void count(String metricPrefix) {
+        String protocol = Optional.ofNullable(MDC.get(MDCBuilder.PROTOCOL))
+            .orElse(UNKNOWN_PROTOCOL);
+        metricFactory.generate(metricPrefix + protocol).increment();
+    }
+
+    private String hash(Username name, String password) {
+        // the username is part of the salt so that users sharing a password do not share a hash
+        byte[] userSalt = Bytes.concat(salt, name.asString().getBytes(StandardCharsets.UTF_8));
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), userSalt, HASH_ITERATIONS, HASH_LENGTH);
+        try {
+            return Base64.getEncoder().encodeToString(SecretKeyFactory.getInstance(HASH_ALGORITHM)
+                .generateSecret(spec)
+                .getEncoded());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not hash credentials", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private boolean isRefused(Failures failures) {
+        if (failures == null) {
+            return false;
+        }
+        return failures.count() >= configuration.lockoutThreshold()
+            || ticker.read() - failures.lastVerification() < configuration.negativeTtl().toNanos();
+    }
+}
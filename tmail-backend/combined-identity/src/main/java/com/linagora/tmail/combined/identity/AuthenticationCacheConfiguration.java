@@ -0,0 +1,65 @@
+package com.linagora.tmail.combined.identity;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.james.util.DurationParser;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Retention of the {@link AuthenticationCache}.
+ *
+ * @param size maximum count of successful authentications, and of failed ones, kept in memory
+ * @param ttl time during which a successful authentication is kept
+ * @param negativeTtl time during which a failed authentication is kept
+ * @param lockoutThreshold count of failed authentications with the same credentials after which they are kept for {@code lockoutTtl}
+ * @param lockoutTtl time during which repeatedly failed authentications are kept
+ */
+public record AuthenticationCacheConfiguration(int size, Duration ttl, Duration negativeTtl, int lockoutThreshold, Duration lockoutTtl) {
+    private static final String ENABLED = "authenticationCache.enabled";
+    private static final String SIZE = "authenticationCache.size";
+    private static final String TTL = "authenticationCache.ttl";
+    private static final String NEGATIVE_TTL = "authenticationCache.negativeTtl";
+    private static final String LOCKOUT_THRESHOLD = "authenticationCache.lockoutThreshold";
+    private static final String LOCKOUT_TTL = "authenticationCache.lockoutTtl";
+
+    public static final int DEFAULT_SIZE = 10_000;
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(2);
+    public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(30);
+    public static final int DEFAULT_LOCKOUT_THRESHOLD = 5;
+    public static final Duration DEFAULT_LOCKOUT_TTL = Duration.ofMinutes(15);
+
+    public static final AuthenticationCacheConfiguration DEFAULT = new AuthenticationCacheConfiguration(DEFAULT_SIZE,
+        DEFAULT_TTL, DEFAULT_NEGATIVE_TTL, DEFAULT_LOCKOUT_THRESHOLD, DEFAULT_LOCKOUT_TTL);
+
+    /**
+     * @return empty when the cache is not enabled, which is the default
+     */
+    public static Optional<AuthenticationCacheConfiguration> from(HierarchicalConfiguration<ImmutableNode> usersRepositoryConfiguration) {
+        if (!usersRepositoryConfiguration.getBoolean(ENABLED, false)) {
+            return Optional.empty();
+        }
+        return Optional.of(new AuthenticationCacheConfiguration(
+            usersRepositoryConfiguration.getInt(SIZE, DEFAULT_SIZE),
+            readDuration(usersRepositoryConfiguration, TTL).orElse(DEFAULT_TTL),
+            readDuration(usersRepositoryConfiguration, NEGATIVE_TTL).orElse(DEFAULT_NEGATIVE_TTL),
+            usersRepositoryConfiguration.getInt(LOCKOUT_THRESHOLD, DEFAULT_LOCKOUT_THRESHOLD),
+            readDuration(usersRepositoryConfiguration, LOCKOUT_TTL).orElse(DEFAULT_LOCKOUT_TTL)));
+    }
+
+    private static Optional<Duration> readDuration(HierarchicalConfiguration<ImmutableNode> configuration, String key) {
+        return Optional.ofNullable(configuration.getString(key, null))
+            .map(DurationParser::parse);
+    }
+
+    public AuthenticationCacheConfiguration {
+        Preconditions.checkArgument(size > 0, "'%s' should be strictly positive", SIZE);
+        Preconditions.checkArgument(ttl.isPositive(), "'%s' should be strictly positive", TTL);
+        Preconditions.checkArgument(negativeTtl.isPositive(), "'%s' should be strictly positive", NEGATIVE_TTL);
+        Preconditions.checkArgument(lockoutThreshold > 0, "'%s' should be strictly positive", LOCKOUT_THRESHOLD);
+        Preconditions.checkArgument(lockoutTtl.isPositive(), "'%s' should be strictly positive", LOCKOUT_TTL);
+    }
+}
@@ -19,16 +19,25 @@ public class CombinedUserDAO implements UsersDAO {
 
     private final ReadOnlyLDAPUsersDAO readOnlyLDAPUsersDAO;
     private final CassandraUsersDAO cassandraUsersDAO;
+    private final Optional<AuthenticationCache> authenticationCache;
 
     @Inject
     public CombinedUserDAO(ReadOnlyLDAPUsersDAO readOnlyLDAPUsersDAO,
                            CassandraUsersDAO cassandraUsersDAO) {
+        this(readOnlyLDAPUsersDAO, cassandraUsersDAO, Optional.empty());
+    }
+
+    public CombinedUserDAO(ReadOnlyLDAPUsersDAO readOnlyLDAPUsersDAO,
+                           CassandraUsersDAO cassandraUsersDAO,
+                           Optional<AuthenticationCache> authenticationCache) {
         this.readOnlyLDAPUsersDAO = readOnlyLDAPUsersDAO;
         this.cassandraUsersDAO = cassandraUsersDAO;
+        this.authenticationCache = authenticationCache;
     }
 
     @Override
     public void addUser(Username username, String password) throws UsersRepositoryException {
+        invalidateAuthentications(username);
         if (readOnlyLDAPUsersDAO.contains(username)) {
             cassandraUsersDAO.addUser(username, password);
         } else {
@@ -38,11 +47,13 @@ public class CombinedUserDAO implements UsersDAO {
 
     @Override
     public void updateUser(User user) throws UsersRepositoryException {
+        invalidateAuthentications(user.getUserName());
         throw new UsersRepositoryException("updateUser method is unsupported.");
     }
 
     @Override
     public void removeUser(Username name) throws UsersRepositoryException {
+        invalidateAuthentications(name);
         if (!readOnlyLDAPUsersDAO.contains(name)) {
             cassandraUsersDAO.removeUser(name);
         } else {
@@ -81,6 +92,31 @@ public class CombinedUserDAO implements UsersDAO {
     }
 
     public Optional<Username> test(Username name, String password) throws UsersRepositoryException {
+        if (authenticationCache.isPresent()) {
+            return authenticationCache.get().test(name, password, this::testAgainstReachableLdap);
+        }
+        return testAgainstLdap(name, password);
+    }
+
+    // verifyPassword also answers false when the LDAP bind fails for another reason than wrong credentials: a refusal is
+    // only cached once the LDAP is known to answer, so that an outage does not lock users out
+    private Optional<Username> testAgainstReachableLdap(Username name, String password) throws UsersRepositoryException {
+        Optional<Username> result = testAgainstLdap(name, password);
+        if (result.isEmpty()) {
+            ensureLdapIsReachable(name);
+        }
+        return result;
+    }
+
+    private void ensureLdapIsReachable(Username name) throws UsersRepositoryException {
+        try {
+            readOnlyLDAPUsersDAO.getUserByName(name);
+        } catch (Exception e) {
+            throw new UsersRepositoryException("Could not reach the LDAP to verify the credentials of " + name.asString(), e);
+        }
+    }
+
+    private Optional<Username> testAgainstLdap(Username name, String password) throws UsersRepositoryException {
         return readOnlyLDAPUsersDAO.getUserByName(name)
                 .filter(user -> user.verifyPassword(password))
                 .map(User::getUserName)
@@ -89,4 +125,8 @@ public class CombinedUserDAO implements UsersDAO {
                     return Optional.empty();
                 });
     }
+
+    private void invalidateAuthentications(Username name) {
+        authenticationCache.ifPresent(cache -> cache.invalidate(name));
+    }
 }
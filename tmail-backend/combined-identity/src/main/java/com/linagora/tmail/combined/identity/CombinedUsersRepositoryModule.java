@@ -1,8 +1,12 @@
 package com.linagora.tmail.combined.identity;
 
+import java.util.Optional;
+
 import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.server.core.configuration.ConfigurationProvider;
 import org.apache.james.user.api.UsersRepository;
+import org.apache.james.user.cassandra.CassandraUsersDAO;
 import org.apache.james.user.ldap.LDAPConnectionFactory;
 import org.apache.james.user.ldap.LdapRepositoryConfiguration;
 import org.apache.james.user.ldap.ReadOnlyLDAPUsersDAO;
@@ -23,7 +27,6 @@ public class CombinedUsersRepositoryModule extends AbstractModule {
     @Override
     public void configure() {
         bind(ReadOnlyLDAPUsersDAO.class).in(Scopes.SINGLETON);
-        bind(CombinedUserDAO.class).in(Scopes.SINGLETON);
         bind(CombinedUsersRepository.class).in(Scopes.SINGLETON);
 
         bind(UsersDAO.class).to(CombinedUserDAO.class);
@@ -37,6 +40,15 @@ public class CombinedUsersRepositoryModule extends AbstractModule {
             configurationProvider.getConfiguration("usersrepository"));
     }
 
+    @Provides
+    @Singleton
+    public CombinedUserDAO provideCombinedUserDAO(ReadOnlyLDAPUsersDAO readOnlyLDAPUsersDAO, CassandraUsersDAO cassandraUsersDAO,
+                                                  ConfigurationProvider configurationProvider, MetricFactory metricFactory) throws ConfigurationException {
+        Optional<AuthenticationCache> authenticationCache = AuthenticationCacheConfiguration.from(configurationProvider.getConfiguration("usersrepository"))
+            .map(configuration -> new AuthenticationCache(configuration, metricFactory));
+        return new CombinedUserDAO(readOnlyLDAPUsersDAO, cassandraUsersDAO, authenticationCache);
+    }
+
     @Provides
     @Singleton
     public LDAPConnectionPool provideConfiguration(LdapRepositoryConfiguration configuration) throws LDAPException {
@@ -37,6 +37,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Module;
+import com.linagora.tmail.ldap.LdapGroupDirectoryModule;
 
 public class UsersRepositoryModuleChooser {
 
@@ -45,7 +46,7 @@ public class UsersRepositoryModuleChooser {
     public static List<Module> chooseModules(Implementation implementation) {
         return switch (implementation) {
             case LDAP -> ImmutableList.of(new LdapUsersRepositoryModule());
-            case COMBINED -> ImmutableList.of(new CombinedUsersRepositoryModule());
+            case COMBINED -> ImmutableList.of(new CombinedUsersRepositoryModule(), new LdapGroupDirectoryModule());
             case DEFAULT -> ImmutableList.of(new CassandraUsersRepositoryModule());
         };
     }
@@ -0,0 +1,56 @@
+package com.linagora.tmail.combined.identity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
+import org.junit.jupiter.api.Test;
+
+class AuthenticationCacheConfigurationTest {
+    @Test
+    void fromShouldReturnEmptyByDefault() {
+        assertThat(AuthenticationCacheConfiguration.from(new BaseHierarchicalConfiguration()))
+            .isEmpty();
+    }
+
+    @Test
+    void fromShouldReturnEmptyWhenDisabled() {
+        BaseHierarchicalConfiguration configuration = new BaseHierarchicalConfiguration();
+        configuration.addProperty("authenticationCache.enabled", "false");
+        configuration.addProperty("authenticationCache.ttl", "10m");
+
+        assertThat(AuthenticationCacheConfiguration.from(configuration))
+            .isEmpty();
+    }
+
+    @Test
+    void fromShouldReturnDefaultsWhenOnlyEnabled() {
+        BaseHierarchicalConfiguration configuration = new BaseHierarchicalConfiguration();
+        configuration.addProperty("authenticationCache.enabled", "true");
+
+        assertThat(AuthenticationCacheConfiguration.from(configuration))
+            .contains(AuthenticationCacheConfiguration.DEFAULT);
+    }
+
+    @Test
+    void fromShouldReadValues() {
+        BaseHierarchicalConfiguration configuration = new BaseHierarchicalConfiguration();
+        configuration.addProperty("authenticationCache.enabled", "true");
+        configuration.addProperty("authenticationCache.size", "500");
+        configuration.addProperty("authenticationCache.ttl", "1m");
+        configuration.addProperty("authenticationCache.negativeTtl", "10s");
+        configuration.addProperty("authenticationCache.lockoutThreshold", "3");
+        configuration.addProperty("authenticationCache.lockoutTtl", "30m");
+
+        assertThat(AuthenticationCacheConfiguration.from(configuration))
+            .contains(new AuthenticationCacheConfiguration(500, Duration.ofMinutes(1), Duration.ofSeconds(10), 3, Duration.ofMinutes(30)));
+    }
+
+    @Test
+    void shouldRejectNonPositiveLockoutThreshold() {
+        assertThatThrownBy(() -> new AuthenticationCacheConfiguration(500, Duration.ofMinutes(1), Duration.ofSeconds(10), 0, Duration.ofMinutes(30)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
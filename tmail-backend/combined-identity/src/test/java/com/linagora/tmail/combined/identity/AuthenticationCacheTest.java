@@ -0,0 +1,255 @@
+package com.linagora.tmail.combined.identity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.james.core.Username;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.user.api.UsersRepositoryException;
+import org.apache.james.util.MDCBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+class AuthenticationCacheTest {
+    private static final Username ALICE = Username.of("alice@linagora.com");
+    private static final String PASSWORD = "secret";
+    private static final String WRONG_PASSWORD = "wrong";
+    private static final Duration TTL = Duration.ofMinutes(2);
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(30);
+    private static final Duration LOCKOUT_TTL = Duration.ofMinutes(15);
+    private static final int LOCKOUT_THRESHOLD = 3;
+
+    private static class CountingVerifier implements AuthenticationCache.CredentialVerifier {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Optional<Username> test(Username name, String password) {
+            calls.incrementAndGet();
+            if (name.equals(ALICE) && password.equals(PASSWORD)) {
+                return Optional.of(name);
+            }
+            return Optional.empty();
+        }
+
+        int calls() {
+            return calls.get();
+        }
+    }
+
+    private AtomicLong time;
+    private RecordingMetricFactory metricFactory;
+    private CountingVerifier verifier;
+    private AuthenticationCache testee;
+
+    @BeforeEach
+    void setUp() {
+        time = new AtomicLong();
+        metricFactory = new RecordingMetricFactory();
+        verifier = new CountingVerifier();
+        testee = new AuthenticationCache(
+            new AuthenticationCacheConfiguration(100, TTL, NEGATIVE_TTL, LOCKOUT_THRESHOLD, LOCKOUT_TTL),
+            metricFactory, time::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    void testShouldReturnVerifiedUser() throws Exception {
+        assertThat(testee.test(ALICE, PASSWORD, verifier)).contains(ALICE);
+    }
+
+    @Test
+    void testShouldServeSuccessfulAuthenticationsFromMemory() throws Exception {
+        testee.test(ALICE, PASSWORD, verifier);
+
+        assertThat(testee.test(ALICE, PASSWORD, verifier)).contains(ALICE);
+        assertThat(verifier.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void testShouldNotAuthenticateAnotherPasswordOfACachedUser() throws Exception {
+        testee.test(ALICE, PASSWORD, verifier);
+
+        assertThat(testee.test(ALICE, WRONG_PASSWORD, verifier)).isEmpty();
+        assertThat(verifier.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void testShouldVerifyAgainSuccessfulAuthenticationsAfterTtl() throws Exception {
+        testee.test(ALICE, PASSWORD, verifier);
+
+        advance(TTL.plusSeconds(1));
+        testee.test(ALICE, PASSWORD, verifier);
+
+        assertThat(verifier.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void testShouldServeFailedAuthenticationsFromMemory() throws Exception {
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        assertThat(testee.test(ALICE, WRONG_PASSWORD, verifier)).isEmpty();
+        assertThat(verifier.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void testShouldNotLetAFailureHideTheRightPassword() throws Exception {
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        assertThat(testee.test(ALICE, PASSWORD, verifier)).contains(ALICE);
+    }
+
+    @Test
+    void testShouldVerifyAgainFailedAuthenticationsAfterNegativeTtl() throws Exception {
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        advance(NEGATIVE_TTL.plusSeconds(1));
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        assertThat(verifier.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void testShouldKeepRepeatedFailuresForTheLockoutTtl() throws Exception {
+        lockOut();
+
+        advance(NEGATIVE_TTL.plusSeconds(1));
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        assertThat(verifier.calls()).isEqualTo(LOCKOUT_THRESHOLD);
+    }
+
+    @Test
+    void testShouldVerifyAgainRepeatedFailuresAfterTheLockoutTtl() throws Exception {
+        lockOut();
+
+        advance(LOCKOUT_TTL);
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        assertThat(verifier.calls()).isEqualTo(LOCKOUT_THRESHOLD + 1);
+    }
+
+    @Test
+    void testShouldNotCountFailuresAnsweredFromMemory() throws Exception {
+        for (int i = 0; i < LOCKOUT_THRESHOLD * 2; i++) {
+            testee.test(ALICE, WRONG_PASSWORD, verifier);
+        }
+
+        advance(NEGATIVE_TTL.plusSeconds(1));
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        assertThat(verifier.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void testShouldNotCacheCredentialsThatCouldNotBeVerified() throws Exception {
+        AuthenticationCache.CredentialVerifier unreachableLdap = (name, password) -> {
+            throw new UsersRepositoryException("LDAP unreachable");
+        };
+        for (int i = 0; i < LOCKOUT_THRESHOLD; i++) {
+            assertThatThrownBy(() -> testee.test(ALICE, PASSWORD, unreachableLdap))
+                .isInstanceOf(UsersRepositoryException.class);
+        }
+
+        assertThat(testee.test(ALICE, PASSWORD, verifier)).contains(ALICE);
+        assertThat(verifier.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void testShouldNotExtendTheNegativeTtlWhileRetrying() throws Exception {
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        advance(NEGATIVE_TTL.minusSeconds(10));
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+        advance(Duration.ofSeconds(11));
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        assertThat(verifier.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void testShouldNotExtendTheLockoutWhileRetrying() throws Exception {
+        lockOut();
+
+        for (int i = 0; i < 3; i++) {
+            advance(Duration.ofMinutes(4));
+            testee.test(ALICE, WRONG_PASSWORD, verifier);
+        }
+        assertThat(verifier.calls()).isEqualTo(LOCKOUT_THRESHOLD);
+
+        advance(Duration.ofMinutes(3));
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        assertThat(verifier.calls()).isEqualTo(LOCKOUT_THRESHOLD + 1);
+    }
+
+    @Test
+    void testShouldNotCacheEmptyPasswords() throws Exception {
+        testee.test(ALICE, "", verifier);
+        testee.test(ALICE, "", verifier);
+
+        assertThat(verifier.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidateShouldForgetSuccessfulAuthentications() throws Exception {
+        testee.test(ALICE, PASSWORD, verifier);
+
+        testee.invalidate(ALICE);
+        testee.test(ALICE, PASSWORD, verifier);
+
+        assertThat(verifier.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidateShouldForgetFailedAuthentications() throws Exception {
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        testee.invalidate(ALICE);
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        assertThat(verifier.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void testShouldRecordMetricsPerProtocol() throws Exception {
+        MDC.put(MDCBuilder.PROTOCOL, "IMAP");
+        testee.test(ALICE, PASSWORD, verifier);
+        testee.test(ALICE, PASSWORD, verifier);
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+        testee.test(ALICE, WRONG_PASSWORD, verifier);
+
+        assertThat(metricFactory.countFor(AuthenticationCache.MISS_METRIC_PREFIX + "IMAP")).isEqualTo(2);
+        assertThat(metricFactory.countFor(AuthenticationCache.HIT_METRIC_PREFIX + "IMAP")).isEqualTo(1);
+        assertThat(metricFactory.countFor(AuthenticationCache.NEGATIVE_HIT_METRIC_PREFIX + "IMAP")).isEqualTo(1);
+    }
+
+    @Test
+    void testShouldRecordMetricsOfUnknownProtocol() throws Exception {
+        testee.test(ALICE, PASSWORD, verifier);
+
+        assertThat(metricFactory.countFor(AuthenticationCache.MISS_METRIC_PREFIX + "unknown")).isEqualTo(1);
+    }
+
+    // The LDAP refuses the credentials once per negative TTL, until the lockout threshold is reached
+    private void lockOut() throws Exception {
+        for (int i = 0; i < LOCKOUT_THRESHOLD; i++) {
+            testee.test(ALICE, WRONG_PASSWORD, verifier);
+            advance(NEGATIVE_TTL.plusSeconds(1));
+        }
+    }
+
+    private void advance(Duration duration) {
+        time.addAndGet(duration.toNanos());
+    }
+}
@@ -1,9 +1,15 @@
 package org.apache.james.events;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Function;
 
+import jakarta.annotation.PreDestroy;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.util.DurationParser;
 import org.apache.james.util.MDCStructuredLogger;
 import org.apache.james.util.ReactorUtils;
 import org.apache.james.util.StructuredLogger;
@@ -11,13 +17,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import io.lettuce.core.KeyScanArgs;
 import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.RedisCommandExecutionException;
 import io.lettuce.core.ScanCursor;
 import io.lettuce.core.api.reactive.RedisKeyReactiveCommands;
 import io.lettuce.core.api.reactive.RedisSetReactiveCommands;
 import io.lettuce.core.pubsub.api.reactive.RedisPubSubReactiveCommands;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -26,11 +37,17 @@ public class CleanRedisEventBusService {
         private final AtomicLong totalBindings;
         private final AtomicLong danglingBindings;
         private final AtomicLong cleanedBindings;
+        private volatile Checkpoint checkpoint;
 
         public Context() {
+            this(Checkpoint.INITIAL);
+        }
+
+        public Context(Checkpoint checkpoint) {
             this.totalBindings = new AtomicLong();
             this.cleanedBindings = new AtomicLong();
             this.danglingBindings = new AtomicLong();
+            this.checkpoint = checkpoint;
         }
 
         void increaseScannedBindingsCount() {
@@ -56,72 +73,247 @@ public class CleanRedisEventBusService {
         public long getCleanedBindings() {
             return cleanedBindings.get();
         }
+
+        /**
+         * Position right after the last fully processed SCAN page. Pass it to {@link #cleanUp(Checkpoint)} to resume
+         * an interrupted clean up.
+         */
+        public Checkpoint getCheckpoint() {
+            return checkpoint;
+        }
+    }
+
+    /**
+     * @param matchPatternIndex index of the SCAN MATCH pattern being processed, patterns being sorted alphabetically
+     * @param cursor the SCAN cursor to continue that pattern from. Cluster cursors are only valid within the same client.
+     */
+    public record Checkpoint(int matchPatternIndex, ScanCursor cursor) {
+        public static final Checkpoint INITIAL = new Checkpoint(0, ScanCursor.INITIAL);
+    }
+
+    /**
+     * @param interval pause between two passes of {@link #startContinuousCleanUp()}
+     */
+    /**
+     * @param interval pause between two passes of the continuous clean up. Empty, the default, disables it: every
+     *                 node would otherwise scan the whole keyspace, so it is meant to be enabled on a single node.
+     */
+    public record CleanupConfiguration(int scanCount, int deletionBatchSize, int keysPerSecond, Optional<Duration> interval) {
+        public static final int SCAN_COUNT_DEFAULT = 1000;
+        public static final int DELETION_BATCH_SIZE_DEFAULT = 100;
+        public static final int KEYS_PER_SECOND_DEFAULT = 1000;
+        public static final CleanupConfiguration DEFAULT = new CleanupConfiguration(SCAN_COUNT_DEFAULT, DELETION_BATCH_SIZE_DEFAULT, KEYS_PER_SECOND_DEFAULT, Optional.empty());
+
+        public static CleanupConfiguration from(Configuration configuration) {
+            return new CleanupConfiguration(
+                configuration.getInt("eventBus.redis.cleanup.scan.count", SCAN_COUNT_DEFAULT),
+                configuration.getInt("eventBus.redis.cleanup.deletion.batch.size", DELETION_BATCH_SIZE_DEFAULT),
+                configuration.getInt("eventBus.redis.cleanup.keys.per.second", KEYS_PER_SECOND_DEFAULT),
+                Optional.ofNullable(configuration.getString("eventBus.redis.cleanup.interval", null))
+                    .map(DurationParser::parse));
+        }
+
+        public CleanupConfiguration {
+            Preconditions.checkArgument(scanCount > 0, "'eventBus.redis.cleanup.scan.count' must be strictly positive");
+            Preconditions.checkArgument(deletionBatchSize > 0, "'eventBus.redis.cleanup.deletion.batch.size' must be strictly positive");
+            Preconditions.checkArgument(keysPerSecond > 0, "'eventBus.redis.cleanup.keys.per.second' must be strictly positive");
+            Preconditions.checkArgument(interval.map(Duration::isPositive).orElse(true), "'eventBus.redis.cleanup.interval' must be strictly positive");
+        }
+    }
+
+    private record Bindings(String registrationKey, List<String> channels) {
+        Optional<Bindings> dangling(Set<String> activeChannels) {
+            return Optional.of(new Bindings(registrationKey, channels.stream()
+                    .filter(channel -> !activeChannels.contains(channel))
+                    .toList()))
+                .filter(danglingBindings -> !danglingBindings.channels().isEmpty());
+        }
     }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CleanRedisEventBusService.class);
+    private static final String MATCH_ALL = "*";
 
     private final RedisSetReactiveCommands<String, String> redisSetCommands;
     private final RedisPubSubReactiveCommands<String, String> redisPubSubCommands;
     private final RedisKeyReactiveCommands<String, String> redisKeyCommands;
     private final RoutingKeyConverter routingKeyConverter;
+    private final RedisEventBusClientFactory redisEventBusClientFactory;
+    private final ImmutableList<String> matchPatterns;
+    private final CleanupConfiguration configuration;
     private Context context;
+    private volatile Checkpoint nextPassCheckpoint = Checkpoint.INITIAL;
+    private Disposable continuousCleanUp;
 
     public CleanRedisEventBusService(RedisEventBusClientFactory redisEventBusClientFactory,
                                      RoutingKeyConverter routingKeyConverter) {
+        this(redisEventBusClientFactory, routingKeyConverter, ImmutableList.of(MATCH_ALL), CleanupConfiguration.DEFAULT);
+    }
+
+    /**
+     * Only scans the Redis keys of the given registration key types, rather than every Set of the keyspace.
+     */
+    public CleanRedisEventBusService(RedisEventBusClientFactory redisEventBusClientFactory,
+                                     Set<RegistrationKey.Factory> registrationKeyFactories,
+                                     CleanupConfiguration configuration) {
+        this(redisEventBusClientFactory, new RoutingKeyConverter(registrationKeyFactories), matchPatterns(registrationKeyFactories), configuration);
+    }
+
+    private CleanRedisEventBusService(RedisEventBusClientFactory redisEventBusClientFactory, RoutingKeyConverter routingKeyConverter,
+                                      ImmutableList<String> matchPatterns, CleanupConfiguration configuration) {
         this.redisSetCommands = redisEventBusClientFactory.createRedisSetCommand();
         this.redisPubSubCommands = redisEventBusClientFactory.createRedisPubSubCommand();
         this.redisKeyCommands = redisEventBusClientFactory.createRedisKeyCommand();
         this.routingKeyConverter = routingKeyConverter;
+        this.redisEventBusClientFactory = redisEventBusClientFactory;
+        this.matchPatterns = matchPatterns;
+        this.configuration = configuration;
+    }
+
+    private static ImmutableList<String> matchPatterns(Set<RegistrationKey.Factory> registrationKeyFactories) {
+        // Routing keys are "<registration key class name>:<registration key value>"
+        return registrationKeyFactories.stream()
+            .map(factory -> factory.forClass().getName() + ":*")
+            .sorted()
+            .collect(ImmutableList.toImmutableList());
     }
 
     public Mono<Void> cleanUp() {
-        this.context = new Context();
+        return cleanUp(Checkpoint.INITIAL);
+    }
 
-        return listActiveRedisChannels()
-            .collectList()
-            .flatMap(activeChannels -> listRedisSetKeys()
-                .filter(this::isEventBusBindingKey)
-                .flatMap(key -> listElementsOfSet(key)
-                        .doOnNext(channel -> context.increaseScannedBindingsCount())
-                        .filter(channel -> !activeChannels.contains(channel))
-                        .collectList()
-                        .doOnNext(inactiveChannels -> context.increaseDanglingBindingsCount(inactiveChannels.size()))
-                        .flatMap(deleteBindingsToInactiveChannels(key)),
-                    ReactorUtils.DEFAULT_CONCURRENCY)
-                .then())
+    public Mono<Void> cleanUp(Checkpoint resumeFrom) {
+        this.context = new Context(resumeFrom);
+
+        return Flux.range(resumeFrom.matchPatternIndex(), matchPatterns.size() - resumeFrom.matchPatternIndex())
+            .concatMap(patternIndex -> cleanUp(patternIndex, startCursor(resumeFrom, patternIndex)))
+            .then()
             .doOnSuccess(any -> mdcLogWithContext()
                 .log(logger -> logger.info("Clean dangling eventbus bindings in Redis successfully")))
             .doOnError(e -> mdcLogWithContext()
                 .log(logger -> logger.error("Failed cleaning dangling eventbus bindings in Redis", e)));
     }
 
-    private Flux<String> listActiveRedisChannels() {
-        return redisPubSubCommands.pubsubChannels();
+    /**
+     * Cleans up the bindings over and over in the background, pausing for the configured interval between two passes.
+     * Does nothing when no interval is configured.
+     *
+     * Passes are not coordinated across nodes: only one node of the cluster should enable it, the others relying on
+     * it or on the webadmin task.
+     *
+     * A failed pass is resumed by the next one from its last checkpoint. The checkpoint is only kept in memory: SCAN
+     * cursors of a Redis cluster are bound to the client that issued them, so a restarted node starts over.
+     */
+    public void startContinuousCleanUp() {
+        configuration.interval().ifPresent(this::startContinuousCleanUp);
     }
 
-    private Flux<String> listRedisSetKeys() {
-        return recursiveScanCursors()
-            .flatMapIterable(KeyScanCursor::getKeys);
+    private void startContinuousCleanUp(Duration interval) {
+        continuousCleanUp = Mono.defer(() -> cleanUp(nextPassCheckpoint)
+                .doOnSuccess(any -> nextPassCheckpoint = Checkpoint.INITIAL)
+                .onErrorResume(e -> {
+                    nextPassCheckpoint = context.getCheckpoint();
+                    return Mono.empty();
+                }))
+            .then(Mono.delay(interval))
+            .repeat()
+            .subscribeOn(ReactorUtils.BLOCKING_CALL_WRAPPER)
+            .subscribe();
     }
 
-    private Flux<KeyScanCursor<String>> recursiveScanCursors() {
-        KeyScanArgs setType = KeyScanArgs.Builder.type("set");
-        return Flux.defer(() -> redisKeyCommands.scan(ScanCursor.INITIAL, setType))
-            .expand(nextCursor -> nextCursor.isFinished() ? Flux.empty() : redisKeyCommands.scan(nextCursor, setType));
+    @PreDestroy
+    public void stop() {
+        Optional.ofNullable(continuousCleanUp).ifPresent(Disposable::dispose);
+    }
+
+    private ScanCursor startCursor(Checkpoint resumeFrom, int patternIndex) {
+        if (patternIndex == resumeFrom.matchPatternIndex()) {
+            return resumeFrom.cursor();
+        }
+        return ScanCursor.INITIAL;
+    }
+
+    private Flux<Void> cleanUp(int patternIndex, ScanCursor cursor) {
+        KeyScanArgs scanArgs = KeyScanArgs.Builder.type("set")
+            .match(matchPatterns.get(patternIndex))
+            .limit(configuration.scanCount());
+
+        // Pages are processed one after the other so that the checkpoint always points after fully cleaned keys
+        return scanPages(cursor, scanArgs)
+            .concatMap(page -> cleanUp(page.getKeys())
+                .then(Mono.fromRunnable(() -> context.checkpoint = nextCheckpoint(patternIndex, page))));
+    }
+
+    private Flux<KeyScanCursor<String>> scanPages(ScanCursor cursor, KeyScanArgs scanArgs) {
+        return Flux.defer(() -> redisKeyCommands.scan(cursor, scanArgs))
+            .expand(nextCursor -> nextCursor.isFinished() ? Flux.empty() : redisKeyCommands.scan(nextCursor, scanArgs));
+    }
+
+    private Checkpoint nextCheckpoint(int patternIndex, KeyScanCursor<String> page) {
+        if (page.isFinished()) {
+            return new Checkpoint(patternIndex + 1, ScanCursor.INITIAL);
+        }
+        return new Checkpoint(patternIndex, page);
+    }
+
+    private Mono<Void> cleanUp(List<String> keys) {
+        List<String> bindingKeys = keys.stream()
+            .filter(this::isEventBusBindingKey)
+            .toList();
+
+        if (bindingKeys.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return Flux.fromIterable(bindingKeys)
+            .flatMap(key -> listElementsOfSet(key)
+                    .doOnNext(channel -> context.increaseScannedBindingsCount())
+                    .collectList()
+                    .map(channels -> new Bindings(key, channels)),
+                ReactorUtils.DEFAULT_CONCURRENCY)
+            .collectList()
+            .flatMapMany(this::removeDanglingBindings)
+            .then(throttle(bindingKeys.size()));
+    }
+
+    private Flux<Void> removeDanglingBindings(List<Bindings> bindings) {
+        // Active channels are listed for every page, once its bindings are read: a node subscribes to its channels
+        // before binding keys to them, thus bindings written by nodes started during a long pass are never seen as dangling
+        return listActiveRedisChannels()
+            .collect(ImmutableSet.toImmutableSet())
+            .flatMapMany(activeChannels -> Flux.fromIterable(bindings)
+                .flatMap(binding -> Mono.justOrEmpty(binding.dangling(activeChannels))))
+            .doOnNext(danglingBindings -> context.increaseDanglingBindingsCount(danglingBindings.channels().size()))
+            .buffer(configuration.deletionBatchSize())
+            .concatMap(this::deleteBindingsToInactiveChannels);
+    }
+
+    private Mono<Void> throttle(int processedKeys) {
+        if (processedKeys == 0) {
+            return Mono.empty();
+        }
+        return Mono.delay(Duration.ofMillis(processedKeys * 1000L / configuration.keysPerSecond())).then();
+    }
+
+    private Flux<String> listActiveRedisChannels() {
+        // Registration channels are shard channels when sharded Pub/Sub is enabled
+        return Flux.merge(redisPubSubCommands.pubsubChannels(),
+            redisEventBusClientFactory.listActiveShardChannels()
+                .onErrorResume(RedisCommandExecutionException.class, e -> {
+                    LOGGER.debug("Redis server does not support sharded Pub/Sub, ignoring shard channels", e);
+                    return Flux.empty();
+                }));
     }
 
     private Flux<String> listElementsOfSet(String registrationKey) {
         return redisSetCommands.smembers(registrationKey);
     }
 
-    private Function<List<String>, Mono<Long>> deleteBindingsToInactiveChannels(String registrationKey) {
-        return inactiveChannels -> {
-            if (inactiveChannels.isEmpty()) {
-                return Mono.empty();
-            }
-            return redisSetCommands.srem(registrationKey, inactiveChannels.toArray(new String[0]))
-                .doOnNext(context::increaseCleanedBindingsCount);
-        };
+    private Mono<Void> deleteBindingsToInactiveChannels(List<Bindings> batch) {
+        // Commands issued concurrently on the shared connection are pipelined by Lettuce: the whole batch costs a single round-trip
+        return Flux.fromIterable(batch)
+            .flatMap(danglingBindings -> redisSetCommands.srem(danglingBindings.registrationKey(), danglingBindings.channels().toArray(new String[0])), batch.size())
+            .doOnNext(context::increaseCleanedBindingsCount)
+            .then();
     }
 
     private StructuredLogger mdcLogWithContext() {
@@ -141,6 +333,11 @@ public class CleanRedisEventBusService {
         }
     }
 
+    @VisibleForTesting
+    ImmutableList<String> matchPatterns() {
+        return matchPatterns;
+    }
+
     @VisibleForTesting
     public Context getContext() {
         return context;
@@ -1,14 +1,188 @@
 package org.apache.james.events;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+
 import org.apache.commons.lang3.StringUtils;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+
 public record KeyChannelMessage(EventBusId eventBusId, String routingKey, String eventAsJson) {
+    /**
+     * Channel names are plain strings while channel messages are raw bytes.
+     */
+    public static final RedisCodec<String, byte[]> CODEC = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+
     public static final String REDIS_CHANNEL_MESSAGE_DELIMITER = "|||";
+    private static final byte[] DELIMITER_BYTES = REDIS_CHANNEL_MESSAGE_DELIMITER.getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Leading byte of {@link Format#BINARY} messages. It can not be mistaken with the first byte of a
+     * {@link Format#TEXT} message, which is an ASCII character of the eventBusId UUID.
+     */
+    public static final byte BINARY_FORMAT_VERSION = 1;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String EVENT_ID_FIELD = "eventId";
+    // James serializers wrap the event fields in an object named after the event type: {"Added":{"eventId":...}}
+    private static final int EVENT_ID_MAX_DEPTH = 2;
+
+    private static final int UUID_BYTES = 2 * Long.BYTES;
+    private static final int BINARY_HEADER_BYTES = 1 + UUID_BYTES + Integer.BYTES;
+
+    /**
+     * Readers always accept both formats. During a rolling upgrade keep writing {@link Format#TEXT} until every node
+     * understands {@link Format#BINARY}, then switch.
+     */
+    public enum Format {
+        // eventBusId|||routingKey|||json
+        TEXT,
+        // version (1 byte) | eventBusId (16 bytes) | routingKey length (4 bytes) | routingKey (UTF-8) | json (UTF-8)
+        BINARY;
+
+        public static Format parse(String value) {
+            return switch (value.trim().toLowerCase(Locale.US)) {
+                case "text" -> TEXT;
+                case "binary" -> BINARY;
+                default -> throw new IllegalArgumentException("Unknown Redis event bus channel message format: " + value);
+            };
+        }
+    }
 
     static KeyChannelMessage from(EventBusId eventBusId, RoutingKeyConverter.RoutingKey routingKey, String eventAsJson) {
         return new KeyChannelMessage(eventBusId, routingKey.asString(), eventAsJson);
     }
 
+    static byte[] encode(Format format, EventBusId eventBusId, RoutingKeyConverter.RoutingKey routingKey, byte[] eventAsJson) {
+        return switch (format) {
+            case TEXT -> from(eventBusId, routingKey, new String(eventAsJson, StandardCharsets.UTF_8))
+                .serialize()
+                .getBytes(StandardCharsets.UTF_8);
+            case BINARY -> encodeBinary(eventBusId, routingKey.asString(), eventAsJson);
+        };
+    }
+
+    private static byte[] encodeBinary(EventBusId eventBusId, String routingKey, byte[] eventAsJson) {
+        UUID eventBusUuid = UUID.fromString(eventBusId.asString());
+        byte[] routingKeyBytes = routingKey.getBytes(StandardCharsets.UTF_8);
+
+        return ByteBuffer.allocate(BINARY_HEADER_BYTES + routingKeyBytes.length + eventAsJson.length)
+            .put(BINARY_FORMAT_VERSION)
+            .putLong(eventBusUuid.getMostSignificantBits())
+            .putLong(eventBusUuid.getLeastSignificantBits())
+            .putInt(routingKeyBytes.length)
+            .put(routingKeyBytes)
+            .put(eventAsJson)
+            .array();
+    }
+
+    /**
+     * The routing information of a received channel message, the event itself being decoded only on demand.
+     */
+    record Envelope(EventBusId eventBusId, String routingKey, byte[] channelMessage, int eventOffset) {
+        String eventAsJson() {
+            return new String(channelMessage, eventOffset, channelMessage.length - eventOffset, StandardCharsets.UTF_8);
+        }
+
+        KeyChannelMessage toKeyChannelMessage() {
+            return new KeyChannelMessage(eventBusId, routingKey, eventAsJson());
+        }
+
+        /**
+         * Streams the event JSON up to its {@code eventId} field, without deserializing the event.
+         *
+         * @return empty when the event is not serialized as JSON or carries no event id
+         */
+        Optional<String> eventId() {
+            try (JsonParser parser = JSON_FACTORY.createParser(channelMessage, eventOffset, channelMessage.length - eventOffset)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return Optional.empty();
+                }
+                return findEventId(parser, 1);
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        }
+
+        private static Optional<String> findEventId(JsonParser parser, int depth) throws IOException {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (EVENT_ID_FIELD.equals(field) && value == JsonToken.VALUE_STRING) {
+                    return Optional.of(parser.getText());
+                }
+                if (value == JsonToken.START_OBJECT && depth < EVENT_ID_MAX_DEPTH) {
+                    Optional<String> eventId = findEventId(parser, depth + 1);
+                    if (eventId.isPresent()) {
+                        return eventId;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    static KeyChannelMessage parse(byte[] channelMessage) {
+        return peek(channelMessage).toKeyChannelMessage();
+    }
+
+    static Envelope peek(byte[] channelMessage) {
+        try {
+            if (channelMessage.length > 0 && channelMessage[0] == BINARY_FORMAT_VERSION) {
+                return peekBinary(channelMessage);
+            }
+            return peekText(channelMessage);
+        } catch (Exception e) {
+            throw new RuntimeException("Can not parse the Redis event bus keys channel message", e);
+        }
+    }
+
+    private static Envelope peekBinary(byte[] channelMessage) {
+        ByteBuffer buffer = ByteBuffer.wrap(channelMessage);
+        buffer.get();
+        EventBusId eventBusId = EventBusId.of(new UUID(buffer.getLong(), buffer.getLong()));
+        int routingKeyLength = buffer.getInt();
+        String routingKey = new String(channelMessage, buffer.position(), routingKeyLength, StandardCharsets.UTF_8);
+        int eventOffset = buffer.position() + routingKeyLength;
+        if (eventOffset > channelMessage.length) {
+            throw new IllegalArgumentException("Routing key length exceeds the message size");
+        }
+
+        return new Envelope(eventBusId, routingKey, channelMessage, eventOffset);
+    }
+
+    private static Envelope peekText(byte[] channelMessage) {
+        int eventBusIdEnd = indexOfDelimiter(channelMessage, 0);
+        int routingKeyEnd = indexOfDelimiter(channelMessage, eventBusIdEnd + DELIMITER_BYTES.length);
+        EventBusId eventBusId = EventBusId.of(new String(channelMessage, 0, eventBusIdEnd, StandardCharsets.UTF_8));
+        int routingKeyStart = eventBusIdEnd + DELIMITER_BYTES.length;
+        String routingKey = new String(channelMessage, routingKeyStart, routingKeyEnd - routingKeyStart, StandardCharsets.UTF_8);
+
+        return new Envelope(eventBusId, routingKey, channelMessage, routingKeyEnd + DELIMITER_BYTES.length);
+    }
+
+    private static int indexOfDelimiter(byte[] channelMessage, int from) {
+        for (int i = from; i <= channelMessage.length - DELIMITER_BYTES.length; i++) {
+            if (Arrays.equals(channelMessage, i, i + DELIMITER_BYTES.length, DELIMITER_BYTES, 0, DELIMITER_BYTES.length)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Missing delimiter");
+    }
+
     static KeyChannelMessage parse(String channelMessage) {
         try {
             int maxParts = 3;
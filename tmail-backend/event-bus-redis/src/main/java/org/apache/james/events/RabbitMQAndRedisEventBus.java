@@ -40,7 +40,7 @@ public class RabbitMQAndRedisEventBus implements EventBus, Startable {
     private final MetricFactory metricFactory;
     private final RedisEventBusClientFactory redisEventBusClientFactory;
     private final RedisSetReactiveCommands<String, String> redisSetReactiveCommands;
-    private final RedisPubSubReactiveCommands<String, String> redisPublisher;
+    private final RedisPubSubReactiveCommands<String, byte[]> redisPublisher;
 
     private volatile boolean isRunning;
     private volatile boolean isStopping;
@@ -71,7 +71,7 @@ public class RabbitMQAndRedisEventBus implements EventBus, Startable {
         this.metricFactory = metricFactory;
         this.redisEventBusClientFactory = redisEventBusClientFactory;
         this.redisSetReactiveCommands = redisEventBusClientFactory.createRedisSetCommand();
-        this.redisPublisher = redisEventBusClientFactory.createRedisPubSubCommand();
+        this.redisPublisher = redisEventBusClientFactory.createRedisBinaryPubSubCommand();
         this.isRunning = false;
         this.isStopping = false;
         this.redisEventBusConfiguration = redisEventBusConfiguration;
@@ -81,11 +81,13 @@ public class RabbitMQAndRedisEventBus implements EventBus, Startable {
         if (!isRunning && !isStopping) {
 
             LocalListenerRegistry localListenerRegistry = new LocalListenerRegistry();
+            RedisBindingsCache bindingsCache = new RedisBindingsCache(namingStrategy, redisEventBusConfiguration.bindingsCache(),
+                redisSetReactiveCommands, redisPublisher, metricFactory);
             keyRegistrationHandler = new RedisKeyRegistrationHandler(namingStrategy, eventBusId, eventSerializer, routingKeyConverter,
-                localListenerRegistry, listenerExecutor, retryBackoff, metricFactory, redisEventBusClientFactory, redisSetReactiveCommands, redisEventBusConfiguration);
+                localListenerRegistry, listenerExecutor, retryBackoff, metricFactory, redisEventBusClientFactory, redisSetReactiveCommands, bindingsCache, redisEventBusConfiguration);
             groupRegistrationHandler = new GroupRegistrationHandler(namingStrategy, eventSerializer, channelPool, sender, receiverProvider, retryBackoff, eventDeadLetters, listenerExecutor, eventBusId, configuration);
             eventDispatcher = new TMailEventDispatcher(namingStrategy, eventBusId, eventSerializer, sender, localListenerRegistry, listenerExecutor, eventDeadLetters, configuration,
-                redisPublisher, redisSetReactiveCommands, redisEventBusConfiguration);
+                redisPublisher, bindingsCache, redisEventBusConfiguration);
 
             eventDispatcher.start();
             keyRegistrationHandler.start();
@@ -98,11 +100,13 @@ public class RabbitMQAndRedisEventBus implements EventBus, Startable {
         if (!isRunning && !isStopping) {
 
             LocalListenerRegistry localListenerRegistry = new LocalListenerRegistry();
+            RedisBindingsCache bindingsCache = new RedisBindingsCache(namingStrategy, redisEventBusConfiguration.bindingsCache(),
+                redisSetReactiveCommands, redisPublisher, metricFactory);
             keyRegistrationHandler = new RedisKeyRegistrationHandler(namingStrategy, eventBusId, eventSerializer, routingKeyConverter,
-                localListenerRegistry, listenerExecutor, retryBackoff, metricFactory, redisEventBusClientFactory, redisSetReactiveCommands, redisEventBusConfiguration);
+                localListenerRegistry, listenerExecutor, retryBackoff, metricFactory, redisEventBusClientFactory, redisSetReactiveCommands, bindingsCache, redisEventBusConfiguration);
             groupRegistrationHandler = new GroupRegistrationHandler(namingStrategy, eventSerializer, channelPool, sender, receiverProvider, retryBackoff, eventDeadLetters, listenerExecutor, eventBusId, configuration);
             eventDispatcher = new TMailEventDispatcher(namingStrategy, eventBusId, eventSerializer, sender, localListenerRegistry, listenerExecutor, eventDeadLetters, configuration,
-                redisPublisher, redisSetReactiveCommands, redisEventBusConfiguration);
+                redisPublisher, bindingsCache, redisEventBusConfiguration);
 
             keyRegistrationHandler.declarePubSubChannel();
 
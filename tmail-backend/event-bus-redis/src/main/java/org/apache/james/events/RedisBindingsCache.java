@@ -0,0 +1,120 @@
+package org.apache.james.events;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.james.events.RoutingKeyConverter.RoutingKey;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableSet;
+
+import io.lettuce.core.api.reactive.RedisSetReactiveCommands;
+import io.lettuce.core.pubsub.api.reactive.RedisPubSubReactiveCommands;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Node-local cache of the registrationKey -> channel(s) bindings stored in Redis Sets.
+ *
+ * Entries are bounded in size and time, and get invalidated whenever any node binds or unbinds a key: the binder
+ * publishes the changed routing key on a dedicated invalidation channel that every node with the cache enabled
+ * subscribes to. The TTL bounds staleness should an invalidation message be lost (e.g. upon reconnection).
+ */
+class RedisBindingsCache {
+    static final String HIT_METRIC_NAME = "redis-bindings-cache-hit";
+    static final String MISS_METRIC_NAME = "redis-bindings-cache-miss";
+    static final String INVALIDATION_METRIC_NAME = "redis-bindings-cache-invalidation";
+    static final String STALE_METRIC_NAME = "redis-bindings-cache-stale";
+
+    static String invalidationChannel(NamingStrategy namingStrategy) {
+        return namingStrategy.getEventBusName().value() + "-bindings-invalidation";
+    }
+
+    private final RedisEventBusConfiguration.BindingsCacheConfiguration configuration;
+    private final RedisSetReactiveCommands<String, String> redisSetReactiveCommands;
+    private final RedisPubSubReactiveCommands<String, byte[]> redisPublisher;
+    private final String invalidationChannel;
+    private final AsyncCache<String, Set<String>> cache;
+    private final Metric hitMetric;
+    private final Metric missMetric;
+    private final Metric invalidationMetric;
+    private final Metric staleMetric;
+
+    RedisBindingsCache(NamingStrategy namingStrategy, RedisEventBusConfiguration.BindingsCacheConfiguration configuration,
+                       RedisSetReactiveCommands<String, String> redisSetReactiveCommands,
+                       RedisPubSubReactiveCommands<String, byte[]> redisPublisher,
+                       MetricFactory metricFactory) {
+        this.configuration = configuration;
+        this.redisSetReactiveCommands = redisSetReactiveCommands;
+        this.redisPublisher = redisPublisher;
+        this.invalidationChannel = invalidationChannel(namingStrategy);
+        this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(configuration.ttl())
+            .maximumSize(configuration.maximumSize())
+            .buildAsync();
+        this.hitMetric = metricFactory.generate(HIT_METRIC_NAME);
+        this.missMetric = metricFactory.generate(MISS_METRIC_NAME);
+        this.invalidationMetric = metricFactory.generate(INVALIDATION_METRIC_NAME);
+        this.staleMetric = metricFactory.generate(STALE_METRIC_NAME);
+    }
+
+    boolean isEnabled() {
+        return configuration.enabled();
+    }
+
+    String invalidationChannel() {
+        return invalidationChannel;
+    }
+
+    Flux<String> targetChannels(RoutingKey routingKey) {
+        if (!configuration.enabled()) {
+            return redisSetReactiveCommands.smembers(routingKey.asString());
+        }
+
+        CompletableFuture<Set<String>> cachedChannels = cache.getIfPresent(routingKey.asString());
+        if (cachedChannels != null) {
+            hitMetric.increment();
+            return Mono.fromFuture(cachedChannels)
+                .flatMapIterable(channels -> channels);
+        }
+
+        missMetric.increment();
+        return Mono.fromFuture(() -> cache.get(routingKey.asString(), (key, executor) -> redisSetReactiveCommands.smembers(key)
+                .collect(ImmutableSet.<String>toImmutableSet())
+                .toFuture()))
+            .flatMapIterable(channels -> channels);
+    }
+
+    /**
+     * Called by the binder once a binding had been added or removed in Redis. Nothing is published when the cache is
+     * disabled: it is meant to be enabled on every node of the cluster.
+     */
+    Mono<Void> notifyBindingChanged(RoutingKey routingKey) {
+        if (!configuration.enabled()) {
+            return Mono.empty();
+        }
+
+        return Mono.fromRunnable(() -> cache.synchronous().invalidate(routingKey.asString()))
+            .then(redisPublisher.publish(invalidationChannel, routingKey.asString().getBytes(StandardCharsets.UTF_8)))
+            .then();
+    }
+
+    void onInvalidationMessage(byte[] routingKey) {
+        invalidationMetric.increment();
+        cache.synchronous().invalidate(new String(routingKey, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A PUBLISH reached no subscriber: the binding we relied on points to a channel nobody listens to anymore.
+     */
+    void onDanglingChannel(RoutingKey routingKey) {
+        if (configuration.enabled()) {
+            staleMetric.increment();
+            cache.synchronous().invalidate(routingKey.asString());
+        }
+    }
+}
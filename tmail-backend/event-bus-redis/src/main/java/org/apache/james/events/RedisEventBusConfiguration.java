@@ -6,9 +6,32 @@ import java.util.Optional;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.james.util.DurationParser;
 
-public record RedisEventBusConfiguration(boolean failureIgnore, Duration durationTimeout) {
+import com.google.common.base.Preconditions;
+
+public record RedisEventBusConfiguration(boolean failureIgnore, Duration durationTimeout, BindingsCacheConfiguration bindingsCache,
+                                         KeyChannelMessage.Format channelMessageFormat, int channelShards, boolean shardedPubSub) {
+    public record BindingsCacheConfiguration(boolean enabled, Duration ttl, long maximumSize) {
+        public static final boolean ENABLED_DEFAULT = false;
+        public static final Duration TTL_DEFAULT = Duration.ofSeconds(10);
+        public static final long MAXIMUM_SIZE_DEFAULT = 100_000;
+        public static final BindingsCacheConfiguration DEFAULT = new BindingsCacheConfiguration(ENABLED_DEFAULT, TTL_DEFAULT, MAXIMUM_SIZE_DEFAULT);
+        public static final BindingsCacheConfiguration ENABLED = new BindingsCacheConfiguration(true, TTL_DEFAULT, MAXIMUM_SIZE_DEFAULT);
+
+        static BindingsCacheConfiguration from(Configuration configuration) {
+            return new BindingsCacheConfiguration(
+                configuration.getBoolean("eventBus.redis.bindings.cache.enabled", ENABLED_DEFAULT),
+                Optional.ofNullable(configuration.getString("eventBus.redis.bindings.cache.ttl"))
+                    .map(DurationParser::parse)
+                    .orElse(TTL_DEFAULT),
+                configuration.getLong("eventBus.redis.bindings.cache.maximumSize", MAXIMUM_SIZE_DEFAULT));
+        }
+    }
+
     public static final boolean FAILURE_IGNORE_DEFAULT = false;
     public static final Duration DURATION_TIMEOUT_DEFAULT = Duration.ofSeconds(10);
+    public static final KeyChannelMessage.Format CHANNEL_MESSAGE_FORMAT_DEFAULT = KeyChannelMessage.Format.TEXT;
+    public static final int CHANNEL_SHARDS_DEFAULT = 1;
+    public static final boolean SHARDED_PUB_SUB_DEFAULT = false;
     public static final RedisEventBusConfiguration DEFAULT = new RedisEventBusConfiguration(FAILURE_IGNORE_DEFAULT, DURATION_TIMEOUT_DEFAULT);
 
     public static RedisEventBusConfiguration from(Configuration configuration) {
@@ -16,6 +39,32 @@ public record RedisEventBusConfiguration(boolean failureIgnore, Duration duratio
             configuration.getBoolean("eventBus.redis.failure.ignore", FAILURE_IGNORE_DEFAULT),
             Optional.ofNullable(configuration.getString("eventBus.redis.timeout"))
                 .map(DurationParser::parse)
-                .orElse(DURATION_TIMEOUT_DEFAULT));
+                .orElse(DURATION_TIMEOUT_DEFAULT),
+            BindingsCacheConfiguration.from(configuration),
+            Optional.ofNullable(configuration.getString("eventBus.redis.channel.message.format"))
+                .map(KeyChannelMessage.Format::parse)
+                .orElse(CHANNEL_MESSAGE_FORMAT_DEFAULT),
+            configuration.getInt("eventBus.redis.channel.shards", CHANNEL_SHARDS_DEFAULT),
+            configuration.getBoolean("eventBus.redis.channel.sharded.pubsub", SHARDED_PUB_SUB_DEFAULT));
+    }
+
+    public RedisEventBusConfiguration {
+        Preconditions.checkArgument(channelShards > 0, "'eventBus.redis.channel.shards' must be strictly positive");
+    }
+
+    public RedisEventBusConfiguration(boolean failureIgnore, Duration durationTimeout) {
+        this(failureIgnore, durationTimeout, BindingsCacheConfiguration.DEFAULT, CHANNEL_MESSAGE_FORMAT_DEFAULT, CHANNEL_SHARDS_DEFAULT, SHARDED_PUB_SUB_DEFAULT);
+    }
+
+    public RedisEventBusConfiguration withBindingsCache(BindingsCacheConfiguration bindingsCache) {
+        return new RedisEventBusConfiguration(failureIgnore, durationTimeout, bindingsCache, channelMessageFormat, channelShards, shardedPubSub);
+    }
+
+    public RedisEventBusConfiguration withChannelMessageFormat(KeyChannelMessage.Format channelMessageFormat) {
+        return new RedisEventBusConfiguration(failureIgnore, durationTimeout, bindingsCache, channelMessageFormat, channelShards, shardedPubSub);
+    }
+
+    public RedisEventBusConfiguration withChannelShards(int channelShards, boolean shardedPubSub) {
+        return new RedisEventBusConfiguration(failureIgnore, durationTimeout, bindingsCache, channelMessageFormat, channelShards, shardedPubSub);
     }
 }
@@ -10,29 +10,34 @@ class RedisKeyRegistrationBinder {
     private static final Logger LOGGER = LoggerFactory.getLogger(RedisKeyRegistrationBinder.class);
 
     private final RedisSetReactiveCommands<String, String> redisSetReactiveCommands;
-    private final RegistrationQueueName registrationChannel;
+    private final RedisRegistrationChannels registrationChannels;
+    private final RedisBindingsCache bindingsCache;
 
     RedisKeyRegistrationBinder(RedisSetReactiveCommands<String, String> redisSetReactiveCommands,
-                               RegistrationQueueName registrationChannel) {
+                               RedisRegistrationChannels registrationChannels,
+                               RedisBindingsCache bindingsCache) {
         this.redisSetReactiveCommands = redisSetReactiveCommands;
-        this.registrationChannel = registrationChannel;
+        this.registrationChannels = registrationChannels;
+        this.bindingsCache = bindingsCache;
     }
 
     Mono<Void> bind(RegistrationKey key) {
         // Use Redis Set to store 1 registrationKey -> n channel(s) mapping in Redis
         RoutingKeyConverter.RoutingKey routingKey = RoutingKeyConverter.RoutingKey.of(key);
-        return redisSetReactiveCommands.sadd(routingKey.asString(), registrationChannel.asString())
+        String registrationChannel = registrationChannels.channelFor(routingKey);
+        return redisSetReactiveCommands.sadd(routingKey.asString(), registrationChannel)
             // the following log should be removed once we finished monitoring Redis event bus keys implementation
-            .doOnSuccess(l -> LOGGER.info("Registered {} key-channel mapping to Redis with key {} and channel {}", l, routingKey.asString(), registrationChannel.asString()))
-            .then();
+            .doOnSuccess(l -> LOGGER.info("Registered {} key-channel mapping to Redis with key {} and channel {}", l, routingKey.asString(), registrationChannel))
+            .then(Mono.defer(() -> bindingsCache.notifyBindingChanged(routingKey)));
     }
 
     Mono<Void> unbind(RegistrationKey key) {
         // delete the registrationKey -> channel mapping in Redis
         RoutingKeyConverter.RoutingKey routingKey = RoutingKeyConverter.RoutingKey.of(key);
-        return redisSetReactiveCommands.srem(routingKey.asString(), registrationChannel.asString())
+        String registrationChannel = registrationChannels.channelFor(routingKey);
+        return redisSetReactiveCommands.srem(routingKey.asString(), registrationChannel)
             // the following log should be removed once we finished monitoring Redis event bus keys implementation
-            .doOnSuccess(l -> LOGGER.info("Unregistered {} key-channel mapping to Redis with key {} and channel {}", l, routingKey.asString(), registrationChannel.asString()))
-            .then();
+            .doOnSuccess(l -> LOGGER.info("Unregistered {} key-channel mapping to Redis with key {} and channel {}", l, routingKey.asString(), registrationChannel))
+            .then(Mono.defer(() -> bindingsCache.notifyBindingChanged(routingKey)));
     }
 }
\ No newline at end of file
@@ -2,10 +2,13 @@ package org.apache.james.events;
 
 import static org.apache.james.events.TMailEventDispatcher.REDIS_ERROR_PREDICATE;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
+import org.apache.james.metrics.api.Metric;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.util.MDCBuilder;
 import org.apache.james.util.MDCStructuredLogger;
@@ -14,12 +17,15 @@ import org.apache.james.util.StructuredLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.ImmutableList;
 
 import io.lettuce.core.api.reactive.RedisSetReactiveCommands;
 import io.lettuce.core.pubsub.api.reactive.ChannelMessage;
 import io.lettuce.core.pubsub.api.reactive.RedisPubSubReactiveCommands;
 import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
@@ -28,26 +34,40 @@ import reactor.util.retry.Retry;
 
 class RedisKeyRegistrationHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(RedisKeyRegistrationHandler.class);
+    static final String SKIPPED_METRIC_NAME = "redis-key-handler-message-skipped";
+    static final String PARSED_METRIC_NAME = "redis-key-handler-message-parsed";
+    static final String DEDUPLICATED_METRIC_NAME = "redis-key-handler-message-deduplicated";
+    private static final Duration RECENT_EVENTS_WINDOW = Duration.ofSeconds(1);
+    private static final long RECENT_EVENTS_MAXIMUM_SIZE = 1024;
+
+    private record Subscriber(RedisPubSubReactiveCommands<String, byte[]> connection, ImmutableList<String> channels) {
+    }
 
     private final EventBusId eventBusId;
     private final LocalListenerRegistry localListenerRegistry;
     private final EventSerializer eventSerializer;
     private final RoutingKeyConverter routingKeyConverter;
-    private final RegistrationQueueName registrationChannel;
+    private final RedisRegistrationChannels registrationChannels;
     private final RedisKeyRegistrationBinder registrationBinder;
     private final ListenerExecutor listenerExecutor;
     private final RetryBackoffConfiguration retryBackoff;
-    private Optional<Disposable> receiverSubscriber;
+    private Disposable.Composite receiverSubscribers;
     private final MetricFactory metricFactory;
-    private final RedisPubSubReactiveCommands<String, String> redisSubscriber;
+    private final ImmutableList<Subscriber> redisSubscribers;
     private Scheduler scheduler;
     private final RedisEventBusConfiguration redisEventBusConfiguration;
+    private final RedisBindingsCache bindingsCache;
+    private final Cache<String, Event> recentEvents;
+    private final Metric skippedMetric;
+    private final Metric parsedMetric;
+    private final Metric deduplicatedMetric;
 
     RedisKeyRegistrationHandler(NamingStrategy namingStrategy, EventBusId eventBusId, EventSerializer eventSerializer,
                                 RoutingKeyConverter routingKeyConverter, LocalListenerRegistry localListenerRegistry,
                                 ListenerExecutor listenerExecutor, RetryBackoffConfiguration retryBackoff, MetricFactory metricFactory,
                                 RedisEventBusClientFactory redisEventBusClientFactory,
-                                RedisSetReactiveCommands<String, String> redisSetReactiveCommands, RedisEventBusConfiguration redisEventBusConfiguration) {
+                                RedisSetReactiveCommands<String, String> redisSetReactiveCommands, RedisBindingsCache bindingsCache,
+                                RedisEventBusConfiguration redisEventBusConfiguration) {
         this.eventBusId = eventBusId;
         this.eventSerializer = eventSerializer;
         this.routingKeyConverter = routingKeyConverter;
@@ -56,10 +76,33 @@ class RedisKeyRegistrationHandler {
         this.retryBackoff = retryBackoff;
         this.metricFactory = metricFactory;
         this.redisEventBusConfiguration = redisEventBusConfiguration;
-        this.registrationChannel = namingStrategy.queueName(eventBusId);
-        this.registrationBinder = new RedisKeyRegistrationBinder(redisSetReactiveCommands, registrationChannel);
-        this.receiverSubscriber = Optional.empty();
-        this.redisSubscriber = redisEventBusClientFactory.createRedisPubSubCommand();
+        this.registrationChannels = new RedisRegistrationChannels(namingStrategy.queueName(eventBusId), redisEventBusConfiguration.channelShards());
+        this.bindingsCache = bindingsCache;
+        this.registrationBinder = new RedisKeyRegistrationBinder(redisSetReactiveCommands, registrationChannels, bindingsCache);
+        this.receiverSubscribers = Disposables.composite();
+        this.redisSubscribers = createSubscribers(redisEventBusClientFactory);
+        this.recentEvents = Caffeine.newBuilder()
+            .expireAfterWrite(RECENT_EVENTS_WINDOW)
+            .maximumSize(RECENT_EVENTS_MAXIMUM_SIZE)
+            .build();
+        this.skippedMetric = metricFactory.generate(SKIPPED_METRIC_NAME);
+        this.parsedMetric = metricFactory.generate(PARSED_METRIC_NAME);
+        this.deduplicatedMetric = metricFactory.generate(DEDUPLICATED_METRIC_NAME);
+    }
+
+    private ImmutableList<Subscriber> createSubscribers(RedisEventBusClientFactory redisEventBusClientFactory) {
+        // One connection per registration channel so that decoding and handling of each shard do not contend on a single stream
+        List<String> channels = registrationChannels.all();
+        return IntStream.range(0, channels.size())
+            .mapToObj(shard -> new Subscriber(redisEventBusClientFactory.createRedisBinaryPubSubCommand(), subscribedChannels(shard, channels.get(shard))))
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    private ImmutableList<String> subscribedChannels(int shard, String registrationChannel) {
+        if (shard == 0 && bindingsCache.isEnabled()) {
+            return ImmutableList.of(registrationChannel, bindingsCache.invalidationChannel());
+        }
+        return ImmutableList.of(registrationChannel);
     }
 
     void start() {
@@ -67,14 +110,46 @@ class RedisKeyRegistrationHandler {
 
         declarePubSubChannel();
 
-        Disposable newSubscription = Mono.from(redisSubscriber.subscribe(registrationChannel.asString()))
-            .thenMany(redisSubscriber.observeChannels())
+        redisSubscribers.forEach(subscriber -> receiverSubscribers.add(subscribe(subscriber)
+            .thenMany(subscriber.connection().observeChannels())
             .flatMap(this::handleChannelMessage, EventBus.EXECUTION_RATE)
             .doOnError(throwable -> LOGGER.error(throwable.getMessage()))
             .subscribeOn(scheduler)
-            .subscribe();
+            .subscribe()));
+    }
+
+    private Mono<Void> subscribe(Subscriber subscriber) {
+        if (redisEventBusConfiguration.shardedPubSub()) {
+            // Bindings cache invalidations are broadcast to every node and thus stay on classic Pub/Sub
+            return Mono.from(subscriber.connection().ssubscribe(registrationChannels(subscriber)))
+                .then(otherChannels(subscriber)
+                    .map(channels -> Mono.from(subscriber.connection().subscribe(channels)))
+                    .orElse(Mono.empty()));
+        }
+        return Mono.from(subscriber.connection().subscribe(subscriber.channels().toArray(String[]::new)));
+    }
 
-        receiverSubscriber = Optional.of(newSubscription);
+    private Mono<Void> unsubscribe(Subscriber subscriber) {
+        if (redisEventBusConfiguration.shardedPubSub()) {
+            return Mono.from(subscriber.connection().sunsubscribe(registrationChannels(subscriber)))
+                .then(otherChannels(subscriber)
+                    .map(channels -> Mono.from(subscriber.connection().unsubscribe(channels)))
+                    .orElse(Mono.empty()));
+        }
+        return Mono.from(subscriber.connection().unsubscribe(subscriber.channels().toArray(String[]::new)));
+    }
+
+    private String[] registrationChannels(Subscriber subscriber) {
+        return subscriber.channels().stream()
+            .filter(registrationChannels.all()::contains)
+            .toArray(String[]::new);
+    }
+
+    private Optional<String[]> otherChannels(Subscriber subscriber) {
+        return Optional.of(subscriber.channels().stream()
+                .filter(Predicate.not(registrationChannels.all()::contains))
+                .toArray(String[]::new))
+            .filter(channels -> channels.length > 0);
     }
 
     void declarePubSubChannel() {
@@ -83,15 +158,16 @@ class RedisKeyRegistrationHandler {
 
     void stop() {
         // delete the Pub/Sub channel: Redis Channels are ephemeral and automatically expire when they have no more subscribers.
-        redisSubscriber.unsubscribe(registrationChannel.asString())
-            .timeout(redisEventBusConfiguration.durationTimeout())
-            .onErrorResume(REDIS_ERROR_PREDICATE.and(e -> redisEventBusConfiguration.failureIgnore()), e -> {
-                LOGGER.warn("Error while unsubscribing from channel", e);
-                return Mono.empty();
-            })
+        Flux.fromIterable(redisSubscribers)
+            .flatMap(subscriber -> unsubscribe(subscriber)
+                .timeout(redisEventBusConfiguration.durationTimeout())
+                .onErrorResume(REDIS_ERROR_PREDICATE.and(e -> redisEventBusConfiguration.failureIgnore()), e -> {
+                    LOGGER.warn("Error while unsubscribing from channel", e);
+                    return Mono.empty();
+                }))
+            .then()
             .block();
-        receiverSubscriber.filter(Predicate.not(Disposable::isDisposed))
-                .ifPresent(Disposable::dispose);
+        receiverSubscribers.dispose();
         Optional.ofNullable(scheduler).ifPresent(Scheduler::dispose);
     }
 
@@ -134,27 +210,32 @@ class RedisKeyRegistrationHandler {
         return Mono.empty();
     }
 
-    private Mono<Void> handleChannelMessage(ChannelMessage<String, String> channelMessage) {
-        // the following log should be removed once we finished monitoring Redis event bus keys implementation
-        LOGGER.info("Processing message body {} from Redis channel {}", channelMessage.getMessage(), channelMessage.getChannel());
+    private Mono<Void> handleChannelMessage(ChannelMessage<String, byte[]> channelMessage) {
+        if (bindingsCache.invalidationChannel().equals(channelMessage.getChannel())) {
+            bindingsCache.onInvalidationMessage(channelMessage.getMessage());
+            return Mono.empty();
+        }
 
         if (channelMessage.getMessage() == null) {
             return Mono.empty();
         }
 
-        KeyChannelMessage keyChannelMessage = KeyChannelMessage.parse(channelMessage.getMessage());
-        RegistrationKey registrationKey = routingKeyConverter.toRegistrationKey(keyChannelMessage.routingKey());
+        // Only the routing information is decoded here: the event is deserialized once we know a local listener needs it
+        KeyChannelMessage.Envelope envelope = KeyChannelMessage.peek(channelMessage.getMessage());
+        LOGGER.debug("Processing message for routing key {} from Redis channel {}", envelope.routingKey(), channelMessage.getChannel());
+        RegistrationKey registrationKey = routingKeyConverter.toRegistrationKey(envelope.routingKey());
 
         List<EventListener.ReactiveEventListener> listenersToCall = localListenerRegistry.getLocalListeners(registrationKey)
             .stream()
-            .filter(listener -> !isLocalSynchronousListeners(keyChannelMessage.eventBusId(), listener))
+            .filter(listener -> !isLocalSynchronousListeners(envelope.eventBusId(), listener))
             .collect(ImmutableList.toImmutableList());
 
         if (listenersToCall.isEmpty()) {
+            skippedMetric.increment();
             return Mono.empty();
         }
 
-        Event event = toEvent(keyChannelMessage.eventAsJson());
+        Event event = toEvent(envelope);
 
         return Flux.fromIterable(listenersToCall)
             .flatMap(listener -> executeListener(listener, event, registrationKey), EventBus.EXECUTION_RATE)
@@ -177,8 +258,21 @@ class RedisKeyRegistrationHandler {
             listener.getExecutionMode().equals(EventListener.ExecutionMode.SYNCHRONOUS);
     }
 
-    private Event toEvent(String eventAsJson) {
-        return eventSerializer.asEvent(eventAsJson);
+    private Event toEvent(KeyChannelMessage.Envelope envelope) {
+        // The same event is published once per routing key: when several keys of this node match, reuse the first deserialization.
+        // Events not serialized as JSON carry no readable event id: their payload is the only identity available.
+        String eventAsJson = envelope.eventAsJson();
+        String recentEventKey = envelope.eventId().orElse(eventAsJson);
+        Event recentEvent = recentEvents.getIfPresent(recentEventKey);
+        if (recentEvent != null) {
+            deduplicatedMetric.increment();
+            return recentEvent;
+        }
+
+        parsedMetric.increment();
+        Event event = eventSerializer.asEvent(eventAsJson);
+        recentEvents.put(recentEventKey, event);
+        return event;
     }
 
     private StructuredLogger structuredLogger(Event event, RegistrationKey key) {
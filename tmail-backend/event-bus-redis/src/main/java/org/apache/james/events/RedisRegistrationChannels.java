@@ -0,0 +1,39 @@
+package org.apache.james.events;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.james.events.RoutingKeyConverter.RoutingKey;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The Pub/Sub channels a node receives registration key messages on.
+ *
+ * With a single shard the node keeps its historical single channel. Otherwise, every routing key is bound to one of
+ * the node channels based on its hash, and each channel is consumed through its own Redis connection.
+ */
+class RedisRegistrationChannels {
+    private final ImmutableList<String> channels;
+
+    RedisRegistrationChannels(RegistrationQueueName registrationChannel, int shards) {
+        Preconditions.checkArgument(shards > 0, "The number of registration channel shards must be strictly positive");
+
+        if (shards == 1) {
+            this.channels = ImmutableList.of(registrationChannel.asString());
+        } else {
+            this.channels = IntStream.range(0, shards)
+                .mapToObj(shard -> registrationChannel.asString() + "-" + shard)
+                .collect(ImmutableList.toImmutableList());
+        }
+    }
+
+    String channelFor(RoutingKey routingKey) {
+        return channels.get(Math.floorMod(routingKey.asString().hashCode(), channels.size()));
+    }
+
+    List<String> all() {
+        return channels;
+    }
+}
@@ -13,6 +13,7 @@ import static org.apache.james.events.RabbitMQAndRedisEventBus.EVENT_BUS_ID;
 
 import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Predicate;
@@ -31,7 +32,11 @@ import com.google.common.collect.ImmutableSet;
 import com.rabbitmq.client.AMQP;
 
 import io.lettuce.core.RedisException;
-import io.lettuce.core.api.reactive.RedisSetReactiveCommands;
+import io.lettuce.core.output.IntegerOutput;
+import io.lettuce.core.protocol.AsyncCommand;
+import io.lettuce.core.protocol.Command;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
 import io.lettuce.core.pubsub.api.reactive.RedisPubSubReactiveCommands;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -44,6 +49,9 @@ import reactor.util.function.Tuples;
 import reactor.util.retry.Retry;
 
 public class TMailEventDispatcher {
+    private record Publication(RoutingKey routingKey, AsyncCommand<String, byte[], Long> command) {
+    }
+
     public static final Predicate<? super Throwable> REDIS_ERROR_PREDICATE = throwable -> throwable instanceof RedisException || throwable instanceof TimeoutException;
     private static final Logger LOGGER = LoggerFactory.getLogger(TMailEventDispatcher.class);
 
@@ -56,8 +64,8 @@ public class TMailEventDispatcher {
     private final EventDeadLetters deadLetters;
     private final RabbitMQConfiguration configuration;
     private final DispatchingFailureGroup dispatchingFailureGroup;
-    private final RedisPubSubReactiveCommands<String, String> redisPublisher;
-    private final RedisSetReactiveCommands<String, String> redisSetReactiveCommands;
+    private final RedisPubSubReactiveCommands<String, byte[]> redisPublisher;
+    private final RedisBindingsCache bindingsCache;
     private final EventBusId eventBusId;
     private final RedisEventBusConfiguration redisEventBusConfiguration;
 
@@ -65,8 +73,8 @@ public class TMailEventDispatcher {
                          LocalListenerRegistry localListenerRegistry,
                          ListenerExecutor listenerExecutor,
                          EventDeadLetters deadLetters, RabbitMQConfiguration configuration,
-                         RedisPubSubReactiveCommands<String, String> redisPubSubReactiveCommands,
-                         RedisSetReactiveCommands<String, String> redisSetReactiveCommands, RedisEventBusConfiguration redisEventBusConfiguration) {
+                         RedisPubSubReactiveCommands<String, byte[]> redisPubSubReactiveCommands,
+                         RedisBindingsCache bindingsCache, RedisEventBusConfiguration redisEventBusConfiguration) {
         this.namingStrategy = namingStrategy;
         this.eventSerializer = eventSerializer;
         this.sender = sender;
@@ -82,7 +90,7 @@ public class TMailEventDispatcher {
         this.configuration = configuration;
         this.dispatchingFailureGroup = new DispatchingFailureGroup(namingStrategy.getEventBusName());
         this.redisPublisher = redisPubSubReactiveCommands;
-        this.redisSetReactiveCommands = redisSetReactiveCommands;
+        this.bindingsCache = bindingsCache;
         this.eventBusId = eventBusId;
         this.redisEventBusConfiguration = redisEventBusConfiguration;
     }
@@ -148,10 +156,11 @@ public class TMailEventDispatcher {
     }
 
     private Mono<Void> dispatchToRemoteListeners(Event event, Set<RegistrationKey> keys) {
+        // Serialize once: the same bytes back both the RabbitMQ group message and the Redis key messages
         return Mono.fromCallable(() -> serializeEvent(event))
             .flatMap(serializedEvent -> Mono.zipDelayError(
                 remoteGroupsDispatch(serializedEvent, event),
-                remoteKeysDispatch(eventSerializer.toJson(event), keys)))
+                remoteKeysDispatch(serializedEvent, keys)))
             .then();
     }
 
@@ -174,32 +183,73 @@ public class TMailEventDispatcher {
         return Mono.empty();
     }
 
-    private Mono<Void> remoteKeysDispatch(String eventAsJson, Set<RegistrationKey> keys) {
-        return remoteDispatch(eventAsJson,
+    private Mono<Void> remoteKeysDispatch(byte[] serializedEvent, Set<RegistrationKey> keys) {
+        return remoteDispatch(serializedEvent,
             keys.stream()
                 .map(RoutingKey::of)
                 .collect(ImmutableList.toImmutableList()));
     }
 
-    private Mono<Void> remoteDispatch(String eventAsJson, Collection<RoutingKey> routingKeys) {
+    private Mono<Void> remoteDispatch(byte[] serializedEvent, Collection<RoutingKey> routingKeys) {
         if (routingKeys.isEmpty()) {
             return Mono.empty();
         }
 
         return Flux.fromIterable(routingKeys)
-            .flatMap(routingKey -> getTargetChannels(routingKey)
-                .flatMap(channel -> redisPublisher.publish(channel, KeyChannelMessage.from(eventBusId, routingKey, eventAsJson).serialize()))
+            .flatMap(routingKey -> bindingsCache.targetChannels(routingKey)
+                .collectList()
+                .flatMapIterable(channels -> toPublications(routingKey, channels, serializedEvent))
                 .timeout(redisEventBusConfiguration.durationTimeout())
                 .onErrorResume(REDIS_ERROR_PREDICATE.and(e -> redisEventBusConfiguration.failureIgnore()), e -> {
                     LOGGER.warn("Error while dispatching event to remote listeners", e);
                     return Flux.empty();
-                })
-                .then())
-            .then();
+                }))
+            .collectList()
+            .flatMap(this::publish);
+    }
+
+    private List<Publication> toPublications(RoutingKey routingKey, List<String> channels, byte[] serializedEvent) {
+        if (channels.isEmpty()) {
+            return ImmutableList.of();
+        }
+        // The channel message only depends on the routing key: build it once for all its target channels
+        byte[] message = KeyChannelMessage.encode(redisEventBusConfiguration.channelMessageFormat(), eventBusId, routingKey, serializedEvent);
+        return channels.stream()
+            .map(channel -> new Publication(routingKey, publishCommand(channel, message)))
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    private AsyncCommand<String, byte[], Long> publishCommand(String channel, byte[] message) {
+        CommandType publishCommand = redisEventBusConfiguration.shardedPubSub() ? CommandType.SPUBLISH : CommandType.PUBLISH;
+        return new AsyncCommand<>(new Command<>(publishCommand, new IntegerOutput<>(KeyChannelMessage.CODEC),
+            new CommandArgs<>(KeyChannelMessage.CODEC).addKey(channel).addValue(message)));
     }
 
-    private Flux<String> getTargetChannels(RoutingKey routingKey) {
-        return redisSetReactiveCommands.smembers(routingKey.asString());
+    private Mono<Void> publish(List<Publication> publications) {
+        if (publications.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return Mono.defer(() -> {
+                // Write all PUBLISH commands of this event to the connection at once: a single write and flush
+                redisPublisher.getStatefulConnection().dispatch(publications.stream()
+                    .map(Publication::command)
+                    .collect(ImmutableList.toImmutableList()));
+
+                return Flux.fromIterable(publications)
+                    .flatMap(publication -> Mono.fromFuture(publication.command())
+                        .doOnNext(receivers -> {
+                            if (receivers == 0) {
+                                bindingsCache.onDanglingChannel(publication.routingKey());
+                            }
+                        }))
+                    .then();
+            })
+            .timeout(redisEventBusConfiguration.durationTimeout())
+            .onErrorResume(REDIS_ERROR_PREDICATE.and(e -> redisEventBusConfiguration.failureIgnore()), e -> {
+                LOGGER.warn("Error while dispatching event to remote listeners", e);
+                return Mono.empty();
+            });
     }
 
     private Mono<Void> remoteDispatchWithAcks(byte[] serializedEvent) {
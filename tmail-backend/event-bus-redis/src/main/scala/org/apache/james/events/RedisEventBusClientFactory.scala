@@ -1,12 +1,16 @@
 package org.apache.james.events
 
+import io.lettuce.core.api.StatefulRedisConnection
 import io.lettuce.core.api.reactive.{RedisKeyReactiveCommands, RedisSetReactiveCommands}
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode
 import io.lettuce.core.cluster.RedisClusterClient
 import io.lettuce.core.pubsub.api.reactive.RedisPubSubReactiveCommands
 import io.lettuce.core.{AbstractRedisClient, RedisClient}
 import jakarta.annotation.PreDestroy
 import jakarta.inject.{Inject, Singleton}
 import org.apache.james.backends.redis.{ClusterRedisConfiguration, MasterReplicaRedisConfiguration, RedisClientFactory, RedisConfiguration, SentinelRedisConfiguration, StandaloneRedisConfiguration}
+import reactor.core.publisher.Flux
 
 class RedisEventBusClientFactory @Singleton() @Inject()
 (redisConfiguration: RedisConfiguration, redisClientFactory: RedisClientFactory) {
@@ -26,6 +30,11 @@ class RedisEventBusClientFactory @Singleton() @Inject()
     case clusterClient: RedisClusterClient => clusterClient.connectPubSub().reactive()
   }
 
+  def createRedisBinaryPubSubCommand(): RedisPubSubReactiveCommands[String, Array[Byte]] = rawRedisClient match {
+    case client: RedisClient => client.connectPubSub(KeyChannelMessage.CODEC).reactive()
+    case clusterClient: RedisClusterClient => clusterClient.connectPubSub(KeyChannelMessage.CODEC).reactive()
+  }
+
   def createRedisSetCommand(): RedisSetReactiveCommands[String, String] = rawRedisClient match {
     case client: RedisClient => client.connect().reactive()
     case clusterClient: RedisClusterClient => clusterClient.connect().reactive()
@@ -36,6 +45,19 @@ class RedisEventBusClientFactory @Singleton() @Inject()
     case clusterClient: RedisClusterClient => clusterClient.connect().reactive()
   }
 
+  private lazy val shardChannelsConnection: Either[StatefulRedisConnection[String, String], StatefulRedisClusterConnection[String, String]] = rawRedisClient match {
+    case client: RedisClient => Left(client.connect())
+    case clusterClient: RedisClusterClient => Right(clusterClient.connect())
+  }
+
+  // PUBSUB SHARDCHANNELS only reports the shard channels of the node it is sent to: ask every upstream node of a cluster
+  def listActiveShardChannels(): Flux[String] = shardChannelsConnection match {
+    case Left(connection) => connection.reactive().pubsubShardChannels()
+    case Right(clusterConnection) => Flux.fromIterable(clusterConnection.getPartitions)
+      .filter(node => node.is(RedisClusterNode.NodeFlag.UPSTREAM))
+      .flatMap(node => clusterConnection.getConnection(node.getNodeId).reactive().pubsubShardChannels())
+  }
+
   @PreDestroy
   def close(): Unit = {
     rawRedisClient.close()
@@ -3,7 +3,12 @@ package org.apache.james.events;
 import static org.apache.james.events.EventBusTestFixture.ALL_GROUPS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.awaitility.Awaitility.await;
+import static org.awaitility.Durations.TEN_SECONDS;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -19,6 +24,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import com.google.common.collect.ImmutableSet;
+
+import io.lettuce.core.ScanCursor;
 import io.lettuce.core.api.sync.RedisCommands;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -234,6 +242,129 @@ class CleanRedisEventBusServiceTest {
             .isEqualTo(500L);
     }
 
+    @Test
+    void matchPatternsShouldBeRegistrationKeyPrefixes() {
+        CleanRedisEventBusService prefixedService = newPrefixedService(CleanRedisEventBusService.CleanupConfiguration.DEFAULT);
+
+        assertThat(prefixedService.matchPatterns())
+            .containsExactly(EventBusTestFixture.TestRegistrationKey.class.getName() + ":*");
+    }
+
+    @Test
+    void prefixedCleanUpShouldCleanDanglingBindingsInSmallBatches(DockerRedis redis) {
+        redis.createClient().sadd("rspamdKey", "value1", "value2");
+        Flux.fromStream(IntStream.rangeClosed(1 ,250).boxed())
+            .flatMap(i -> Mono.fromRunnable(() -> registerEventBusBinding(eventBus1, i.toString())))
+            .then()
+            .block();
+        Flux.fromStream(IntStream.rangeClosed(1 ,250).boxed())
+            .flatMap(i -> Mono.fromRunnable(() -> registerEventBusBinding(eventBus2, i.toString())))
+            .then()
+            .block();
+        eventBus1.stop();
+
+        CleanRedisEventBusService prefixedService = newPrefixedService(new CleanRedisEventBusService.CleanupConfiguration(10, 7, 100_000, Optional.empty()));
+        prefixedService.cleanUp().block();
+
+        assertThat(prefixedService.getContext().getTotalBindings()).isEqualTo(500);
+        assertThat(prefixedService.getContext().getDanglingBindings()).isEqualTo(250);
+        assertThat(prefixedService.getContext().getCleanedBindings()).isEqualTo(250);
+        assertThat(redis.createClient().smembers("rspamdKey")).containsExactlyInAnyOrder("value1", "value2");
+    }
+
+    @Test
+    void completedCleanUpShouldCheckpointPastTheLastPattern() {
+        registerEventBusBinding(eventBus1, "registrationKey1");
+
+        CleanRedisEventBusService prefixedService = newPrefixedService(CleanRedisEventBusService.CleanupConfiguration.DEFAULT);
+        prefixedService.cleanUp().block();
+
+        assertThat(prefixedService.getContext().getCheckpoint())
+            .isEqualTo(new CleanRedisEventBusService.Checkpoint(1, ScanCursor.INITIAL));
+    }
+
+    @Test
+    void resumingFromACompletedCheckpointShouldNotScanAgain() {
+        registerEventBusBinding(eventBus1, "registrationKey1");
+        eventBus1.stop();
+
+        CleanRedisEventBusService prefixedService = newPrefixedService(CleanRedisEventBusService.CleanupConfiguration.DEFAULT);
+        prefixedService.cleanUp(new CleanRedisEventBusService.Checkpoint(1, ScanCursor.INITIAL)).block();
+
+        assertThat(prefixedService.getContext().getTotalBindings()).isZero();
+        assertThat(prefixedService.getContext().getCleanedBindings()).isZero();
+    }
+
+    @Test
+    void bindingsOfANodeStartedDuringAPassShouldBeKept(DockerRedis redis) throws Exception {
+        Flux.fromStream(IntStream.rangeClosed(1 ,100).boxed())
+            .flatMap(i -> Mono.fromRunnable(() -> registerEventBusBinding(eventBus1, "dangling" + i)))
+            .then()
+            .block();
+        eventBus1.stop();
+
+        // about two seconds long pass
+        CleanRedisEventBusService prefixedService = newPrefixedService(new CleanRedisEventBusService.CleanupConfiguration(10, 7, 50, Optional.empty()));
+        CompletableFuture<Void> pass = prefixedService.cleanUp().toFuture();
+
+        Thread.sleep(200);
+        RabbitMQAndRedisEventBus lateEventBus = newEventBus();
+        lateEventBus.start();
+        try {
+            IntStream.rangeClosed(1, 50).forEach(i -> registerEventBusBinding(lateEventBus, "late" + i));
+            pass.get();
+
+            RedisCommands<String, String> client = redis.createClient();
+            assertThat(IntStream.rangeClosed(1, 50)
+                .mapToObj(i -> RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey("late" + i)).asString())
+                .filter(routingKey -> client.smembers(routingKey).isEmpty()))
+                .isEmpty();
+            assertThat(prefixedService.getContext().getCleanedBindings()).isEqualTo(100);
+        } finally {
+            lateEventBus.stop();
+        }
+    }
+
+    @Test
+    void continuousCleanUpShouldCleanBindingsLeftAfterAPass(DockerRedis redis) {
+        CleanRedisEventBusService prefixedService = newPrefixedService(new CleanRedisEventBusService.CleanupConfiguration(10, 7, 100_000, Optional.of(Duration.ofMillis(100))));
+        prefixedService.startContinuousCleanUp();
+        try {
+            registerEventBusBinding(eventBus1, "registrationKey1");
+            eventBus1.stop();
+
+            String routingKey = RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey("registrationKey1")).asString();
+            RedisCommands<String, String> client = redis.createClient();
+            await().atMost(TEN_SECONDS)
+                .untilAsserted(() -> assertThat(client.smembers(routingKey)).isEmpty());
+        } finally {
+            prefixedService.stop();
+        }
+    }
+
+    @Test
+    void continuousCleanUpShouldBeDisabledByDefault(DockerRedis redis) throws Exception {
+        CleanRedisEventBusService prefixedService = newPrefixedService(CleanRedisEventBusService.CleanupConfiguration.DEFAULT);
+        prefixedService.startContinuousCleanUp();
+        try {
+            registerEventBusBinding(eventBus1, "registrationKey1");
+            eventBus1.stop();
+            Thread.sleep(500); // wait for a clean up pass to potentially happen
+
+            String routingKey = RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey("registrationKey1")).asString();
+            assertThat(redis.createClient().smembers(routingKey)).isNotEmpty();
+        } finally {
+            prefixedService.stop();
+        }
+    }
+
+    private CleanRedisEventBusService newPrefixedService(CleanRedisEventBusService.CleanupConfiguration configuration) {
+        return new CleanRedisEventBusService(
+            new RedisEventBusClientFactory(StandaloneRedisConfiguration.from(redisExtension.dockerRedis().redisURI().toString()), new RedisClientFactory(FileSystemImpl.forTesting())),
+            ImmutableSet.of(new EventBusTestFixture.TestRegistrationKeyFactory()),
+            configuration);
+    }
+
     private void registerEventBusBinding(RabbitMQAndRedisEventBus eventBus, String registrationKey) {
         // create 1 binding to the eventBus's channel
         Mono.from(eventBus.register(new EventCollector(), new EventBusTestFixture.TestRegistrationKey(registrationKey))).block();
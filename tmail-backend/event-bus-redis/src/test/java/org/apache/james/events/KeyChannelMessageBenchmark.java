@@ -0,0 +1,75 @@
+package org.apache.james.events;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.base.Strings;
+
+/**
+ * Compares encoding and decoding of the TEXT and BINARY Redis key channel message formats.
+ *
+ * Not part of the test suite: run the main method from the IDE. The GC profiler reports the allocation rate
+ * (gc.alloc.rate.norm is the number of bytes allocated per operation).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyChannelMessageBenchmark {
+    private static final EventBusId EVENT_BUS_ID = EventBusId.of(UUID.fromString("6e0dd59d-660e-4d9b-b22f-0354479f47b4"));
+    private static final RoutingKeyConverter.RoutingKey ROUTING_KEY = RoutingKeyConverter.RoutingKey.of(
+        new EventBusTestFixture.TestRegistrationKey("5d3b8b2a-7b8e-4d6c-9b0e-4d3f0c2a1b6e"));
+
+    @Param({"TEXT", "BINARY"})
+    public KeyChannelMessage.Format format;
+
+    @Param({"512", "16384"})
+    public int eventSize;
+
+    private byte[] eventAsJson;
+    private byte[] encodedMessage;
+
+    @Setup
+    public void setUp() {
+        eventAsJson = ("{\"eventId\":\"123\",\"payload\":\"" + Strings.repeat("a", eventSize) + "\"}")
+            .getBytes(StandardCharsets.UTF_8);
+        encodedMessage = KeyChannelMessage.encode(format, EVENT_BUS_ID, ROUTING_KEY, eventAsJson);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return KeyChannelMessage.encode(format, EVENT_BUS_ID, ROUTING_KEY, eventAsJson);
+    }
+
+    @Benchmark
+    public KeyChannelMessage decode() {
+        return KeyChannelMessage.parse(encodedMessage);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(KeyChannelMessageBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build())
+            .run();
+    }
+}
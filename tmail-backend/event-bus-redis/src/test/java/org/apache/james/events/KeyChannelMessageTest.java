@@ -4,9 +4,13 @@ import static org.apache.james.events.KeyChannelMessage.REDIS_CHANNEL_MESSAGE_DE
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 class KeyChannelMessageTest {
     private static final UUID UUID_1 = UUID.fromString("6e0dd59d-660e-4d9b-b22f-0354479f47b4");
@@ -38,4 +42,114 @@ class KeyChannelMessageTest {
         assertThatThrownBy(() -> KeyChannelMessage.parse(INVALID_CHANNEL_MESSAGE))
             .hasMessage("Can not parse the Redis event bus keys channel message");
     }
+
+    @Test
+    void textEncodingShouldMatchLegacySerialization() {
+        assertThat(KeyChannelMessage.encode(KeyChannelMessage.Format.TEXT, EVENT_BUS_ID, ROUTING_KEY, EVENT_AS_JSON.getBytes(StandardCharsets.UTF_8)))
+            .isEqualTo(VALID_CHANNEL_MESSAGE.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void binaryEncodingShouldStartWithFormatVersion() {
+        assertThat(KeyChannelMessage.encode(KeyChannelMessage.Format.BINARY, EVENT_BUS_ID, ROUTING_KEY, EVENT_AS_JSON.getBytes(StandardCharsets.UTF_8))[0])
+            .isEqualTo(KeyChannelMessage.BINARY_FORMAT_VERSION);
+    }
+
+    @ParameterizedTest
+    @EnumSource(KeyChannelMessage.Format.class)
+    void parseShouldDecodeEveryFormat(KeyChannelMessage.Format format) {
+        byte[] encoded = KeyChannelMessage.encode(format, EVENT_BUS_ID, ROUTING_KEY, EVENT_AS_JSON.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(KeyChannelMessage.parse(encoded))
+            .isEqualTo(new KeyChannelMessage(EVENT_BUS_ID, ROUTING_KEY.asString(), EVENT_AS_JSON));
+    }
+
+    @Test
+    void parseShouldPreserveNonAsciiCharactersInBinaryFormat() {
+        RoutingKeyConverter.RoutingKey routingKey = RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey("được"));
+        String eventAsJson = """
+            {"eventId": "123", "name": "Tiếng Việt"}""";
+        byte[] encoded = KeyChannelMessage.encode(KeyChannelMessage.Format.BINARY, EVENT_BUS_ID, routingKey, eventAsJson.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(KeyChannelMessage.parse(encoded))
+            .isEqualTo(new KeyChannelMessage(EVENT_BUS_ID, routingKey.asString(), eventAsJson));
+    }
+
+    @Test
+    void parseShouldFailWhenTruncatedBinaryMessage() {
+        byte[] encoded = KeyChannelMessage.encode(KeyChannelMessage.Format.BINARY, EVENT_BUS_ID, ROUTING_KEY, EVENT_AS_JSON.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> KeyChannelMessage.parse(Arrays.copyOf(encoded, 20)))
+            .hasMessage("Can not parse the Redis event bus keys channel message");
+    }
+
+    @ParameterizedTest
+    @EnumSource(KeyChannelMessage.Format.class)
+    void peekShouldExposeRoutingInformation(KeyChannelMessage.Format format) {
+        byte[] encoded = KeyChannelMessage.encode(format, EVENT_BUS_ID, ROUTING_KEY, EVENT_AS_JSON.getBytes(StandardCharsets.UTF_8));
+
+        KeyChannelMessage.Envelope envelope = KeyChannelMessage.peek(encoded);
+
+        assertThat(envelope.eventBusId()).isEqualTo(EVENT_BUS_ID);
+        assertThat(envelope.routingKey()).isEqualTo(ROUTING_KEY.asString());
+        assertThat(envelope.eventAsJson()).isEqualTo(EVENT_AS_JSON);
+    }
+
+    @Test
+    void peekShouldKeepDelimitersWithinTheEvent() {
+        String eventAsJson = "{\"subject\": \"a|||b\"}";
+        byte[] encoded = KeyChannelMessage.encode(KeyChannelMessage.Format.TEXT, EVENT_BUS_ID, ROUTING_KEY, eventAsJson.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(KeyChannelMessage.peek(encoded).eventAsJson()).isEqualTo(eventAsJson);
+    }
+
+    @Test
+    void peekShouldFailWhenMissingDelimiter() {
+        assertThatThrownBy(() -> KeyChannelMessage.peek(INVALID_CHANNEL_MESSAGE.getBytes(StandardCharsets.UTF_8)))
+            .hasMessage("Can not parse the Redis event bus keys channel message");
+    }
+
+    @Test
+    void formatParseShouldBeCaseInsensitive() {
+        assertThat(KeyChannelMessage.Format.parse("Binary")).isEqualTo(KeyChannelMessage.Format.BINARY);
+    }
+
+    @Test
+    void formatParseShouldFailWhenUnknownValue() {
+        assertThatThrownBy(() -> KeyChannelMessage.Format.parse("protobuf"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @EnumSource(KeyChannelMessage.Format.class)
+    void peekShouldReadTheEventIdOfTheEventTypeObject(KeyChannelMessage.Format format) {
+        String eventAsJson = """
+            {"Added":{"mailboxPath":{"namespace":"#private","name":"INBOX"},"eventId":"6e0dd59d-660e-4d9b-b22f-0354479f47b5"}}""";
+        byte[] encoded = KeyChannelMessage.encode(format, EVENT_BUS_ID, ROUTING_KEY, eventAsJson.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(KeyChannelMessage.peek(encoded).eventId())
+            .contains("6e0dd59d-660e-4d9b-b22f-0354479f47b5");
+    }
+
+    @Test
+    void peekShouldReadATopLevelEventId() {
+        assertThat(KeyChannelMessage.peek(VALID_CHANNEL_MESSAGE.getBytes(StandardCharsets.UTF_8)).eventId())
+            .contains("123");
+    }
+
+    @Test
+    void peekShouldNotReadNestedEventIds() {
+        String eventAsJson = """
+            {"Added":{"source":{"eventId":"nested"}}}""";
+        byte[] encoded = KeyChannelMessage.encode(KeyChannelMessage.Format.BINARY, EVENT_BUS_ID, ROUTING_KEY, eventAsJson.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(KeyChannelMessage.peek(encoded).eventId()).isEmpty();
+    }
+
+    @Test
+    void peekShouldNotReadEventIdOfNonJsonEvents() {
+        byte[] encoded = KeyChannelMessage.encode(KeyChannelMessage.Format.BINARY, EVENT_BUS_ID, ROUTING_KEY, "TestEvent&123&bob".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(KeyChannelMessage.peek(encoded).eventId()).isEmpty();
+    }
 }
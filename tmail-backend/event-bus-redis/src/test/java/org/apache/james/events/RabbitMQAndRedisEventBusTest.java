@@ -119,6 +119,7 @@ class RabbitMQAndRedisEventBusTest implements GroupContract.SingleEventBusGroupC
     private EventSerializer eventSerializer;
     private RoutingKeyConverter routingKeyConverter;
     private MemoryEventDeadLetters memoryEventDeadLetters;
+    private RecordingMetricFactory eventBus3MetricFactory;
 
     @Override
     public EnvironmentSpeedProfile getSpeedProfile() {
@@ -135,7 +136,8 @@ class RabbitMQAndRedisEventBusTest implements GroupContract.SingleEventBusGroupC
 
         eventBus = newEventBus();
         eventBus2 = newEventBus();
-        eventBus3 = newEventBus();
+        eventBus3MetricFactory = new RecordingMetricFactory();
+        eventBus3 = newEventBus(TEST_NAMING_STRATEGY, rabbitMQExtension.getSender(), rabbitMQExtension.getReceiverProvider(), eventBus3MetricFactory);
         eventBusWithKeyHandlerNotStarted = newEventBus();
 
         eventBus.start();
@@ -169,9 +171,14 @@ class RabbitMQAndRedisEventBusTest implements GroupContract.SingleEventBusGroupC
     }
 
     private RabbitMQAndRedisEventBus newEventBus(NamingStrategy namingStrategy, Sender sender, ReceiverProvider receiverProvider) throws Exception {
+        return newEventBus(namingStrategy, sender, receiverProvider, new RecordingMetricFactory());
+    }
+
+    private RabbitMQAndRedisEventBus newEventBus(NamingStrategy namingStrategy, Sender sender, ReceiverProvider receiverProvider,
+                                                 RecordingMetricFactory metricFactory) throws Exception {
         return new RabbitMQAndRedisEventBus(namingStrategy, sender, receiverProvider, eventSerializer,
             EventBusTestFixture.RETRY_BACKOFF_CONFIGURATION, routingKeyConverter,
-            memoryEventDeadLetters, new RecordingMetricFactory(),
+            memoryEventDeadLetters, metricFactory,
             rabbitMQExtension.getRabbitChannelPool(), EventBusId.random(), rabbitMQExtension.getRabbitMQ().getConfiguration(),
             redisEventBusClientFactory,
             RedisEventBusConfiguration.DEFAULT);
@@ -295,6 +302,56 @@ class RabbitMQAndRedisEventBusTest implements GroupContract.SingleEventBusGroupC
             .untilAsserted(() -> assertThat(listener.getEvents()).containsOnly(EVENT));
     }
 
+    @Test
+    void dispatchShouldPublishToEveryChannelOfEveryKey() {
+        RegistrationKey key2 = new EventBusTestFixture.TestRegistrationKey("b");
+        EventCollector listener1 = new EventCollector();
+        EventCollector listener2 = new EventCollector();
+        EventCollector listener3 = new EventCollector();
+        Mono.from(eventBus2.register(listener1, KEY_1)).block();
+        Mono.from(eventBus3.register(listener2, KEY_1)).block();
+        Mono.from(eventBus3.register(listener3, key2)).block();
+
+        eventBus.dispatch(EVENT, ImmutableSet.of(KEY_1, key2)).block();
+
+        await().timeout(TEN_SECONDS)
+            .untilAsserted(() -> SoftAssertions.assertSoftly(softly -> {
+                softly.assertThat(listener1.getEvents()).containsOnly(EVENT);
+                softly.assertThat(listener2.getEvents()).containsOnly(EVENT);
+                softly.assertThat(listener3.getEvents()).containsOnly(EVENT);
+            }));
+    }
+
+    @Test
+    void dispatchOnSeveralKeysOfANodeShouldDeserializeTheEventOnce() {
+        RegistrationKey key2 = new EventBusTestFixture.TestRegistrationKey("b");
+        EventCollector listener = new EventCollector();
+        Mono.from(eventBus3.register(listener, KEY_1)).block();
+        Mono.from(eventBus3.register(listener, key2)).block();
+
+        eventBus.dispatch(EVENT, ImmutableSet.of(KEY_1, key2)).block();
+
+        await().timeout(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(listener.getEvents()).hasSize(2));
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(eventBus3MetricFactory.countFor(RedisKeyRegistrationHandler.PARSED_METRIC_NAME)).isEqualTo(1);
+            softly.assertThat(eventBus3MetricFactory.countFor(RedisKeyRegistrationHandler.DEDUPLICATED_METRIC_NAME)).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void keyMessagesAlreadyHandledSynchronouslyShouldNotBeDeserialized() {
+        EventListener listener = newListener();
+        Mono.from(eventBus3.register(listener, KEY_1)).block();
+
+        eventBus3.dispatch(EVENT, KEY_1).block();
+
+        await().timeout(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(eventBus3MetricFactory.countFor(RedisKeyRegistrationHandler.SKIPPED_METRIC_NAME)).isEqualTo(1));
+        assertThat(eventBus3MetricFactory.countFor(RedisKeyRegistrationHandler.PARSED_METRIC_NAME)).isZero();
+        verify(listener).event(EVENT);
+    }
+
     @Test
     void deserializeEventCollectorGroup() throws Exception {
         assertThat(Group.deserialize("org.apache.james.events.EventCollector$EventCollectorGroup"))
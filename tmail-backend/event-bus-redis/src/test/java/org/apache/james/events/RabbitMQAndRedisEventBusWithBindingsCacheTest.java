@@ -0,0 +1,138 @@
+package org.apache.james.events;
+
+import static org.apache.james.events.EventBusTestFixture.EVENT;
+import static org.apache.james.events.EventBusTestFixture.KEY_1;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.awaitility.Durations.TEN_SECONDS;
+
+import java.util.stream.Stream;
+
+import org.apache.james.backends.rabbitmq.RabbitMQExtension;
+import org.apache.james.backends.redis.RedisClientFactory;
+import org.apache.james.backends.redis.RedisExtension;
+import org.apache.james.backends.redis.StandaloneRedisConfiguration;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.server.core.filesystem.FileSystemImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import reactor.core.publisher.Mono;
+import reactor.rabbitmq.ExchangeSpecification;
+import reactor.rabbitmq.QueueSpecification;
+
+class RabbitMQAndRedisEventBusWithBindingsCacheTest implements KeyContract.SingleEventBusKeyContract, KeyContract.MultipleEventBusKeyContract {
+    static EventBusName TEST_EVENT_BUS = new EventBusName("test");
+    static NamingStrategy TEST_NAMING_STRATEGY = new NamingStrategy(TEST_EVENT_BUS);
+    static RedisEventBusConfiguration CACHE_ENABLED_CONFIGURATION = RedisEventBusConfiguration.DEFAULT
+        .withBindingsCache(RedisEventBusConfiguration.BindingsCacheConfiguration.ENABLED);
+
+    @RegisterExtension
+    static RabbitMQExtension rabbitMQExtension = RabbitMQExtension.singletonRabbitMQ()
+        .isolationPolicy(RabbitMQExtension.IsolationPolicy.WEAK);
+
+    @RegisterExtension
+    static RedisExtension redisExtension = new RedisExtension();
+
+    private RedisEventBusClientFactory redisEventBusClientFactory;
+    private RecordingMetricFactory metricFactory;
+    private RabbitMQAndRedisEventBus eventBus;
+    private RabbitMQAndRedisEventBus eventBus2;
+
+    @Override
+    public EnvironmentSpeedProfile getSpeedProfile() {
+        return EnvironmentSpeedProfile.SLOW;
+    }
+
+    @Override
+    public EventBus eventBus() {
+        return eventBus;
+    }
+
+    @Override
+    public EventBus eventBus2() {
+        return eventBus2;
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisEventBusClientFactory = new RedisEventBusClientFactory(StandaloneRedisConfiguration.from(redisExtension.dockerRedis().redisURI().toString()),
+            new RedisClientFactory(FileSystemImpl.forTesting()));
+        metricFactory = new RecordingMetricFactory();
+
+        eventBus = newEventBus(metricFactory);
+        eventBus2 = newEventBus(new RecordingMetricFactory());
+
+        eventBus.start();
+        eventBus2.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventBus.stop();
+        eventBus2.stop();
+        Stream.concat(
+                EventBusTestFixture.ALL_GROUPS.stream(),
+                Stream.of(GroupRegistrationHandler.GROUP))
+            .map(TEST_NAMING_STRATEGY::workQueue)
+            .forEach(queueName -> rabbitMQExtension.getSender().delete(QueueSpecification.queue(queueName.asString())).block());
+        rabbitMQExtension.getSender()
+            .delete(ExchangeSpecification.exchange(TEST_NAMING_STRATEGY.exchange()))
+            .block();
+        rabbitMQExtension.getSender()
+            .delete(TEST_NAMING_STRATEGY.deadLetterQueue())
+            .block();
+        redisEventBusClientFactory.close();
+    }
+
+    private RabbitMQAndRedisEventBus newEventBus(RecordingMetricFactory metricFactory) {
+        return new RabbitMQAndRedisEventBus(TEST_NAMING_STRATEGY, rabbitMQExtension.getSender(), rabbitMQExtension.getReceiverProvider(),
+            new EventBusTestFixture.TestEventSerializer(),
+            EventBusTestFixture.RETRY_BACKOFF_CONFIGURATION, RoutingKeyConverter.forFactories(new EventBusTestFixture.TestRegistrationKeyFactory()),
+            new MemoryEventDeadLetters(), metricFactory,
+            rabbitMQExtension.getRabbitChannelPool(), EventBusId.random(), rabbitMQExtension.getRabbitMQ().getConfiguration(),
+            redisEventBusClientFactory,
+            CACHE_ENABLED_CONFIGURATION);
+    }
+
+    @Override
+    @Test
+    @Disabled("This test is failing by design as the different registration keys are handled by distinct messages")
+    public void dispatchShouldCallListenerOnceWhenSeveralKeysMatching() {
+    }
+
+    @Test
+    void dispatchShouldReuseCachedBindings() {
+        EventCollector listener = new EventCollector();
+        Mono.from(eventBus2.register(listener, KEY_1)).block();
+        await().timeout(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(metricFactory.countFor(RedisBindingsCache.INVALIDATION_METRIC_NAME)).isPositive());
+
+        eventBus.dispatch(EVENT, KEY_1).block();
+        eventBus.dispatch(EVENT, KEY_1).block();
+
+        await().timeout(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(listener.getEvents()).hasSize(2));
+        assertThat(metricFactory.countFor(RedisBindingsCache.MISS_METRIC_NAME)).isEqualTo(1);
+        assertThat(metricFactory.countFor(RedisBindingsCache.HIT_METRIC_NAME)).isEqualTo(1);
+    }
+
+    @Test
+    void registrationOnAnotherNodeShouldInvalidateCachedBindings() {
+        eventBus.dispatch(EVENT, KEY_1).block();
+
+        EventCollector listener = new EventCollector();
+        Mono.from(eventBus2.register(listener, KEY_1)).block();
+
+        await().timeout(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(metricFactory.countFor(RedisBindingsCache.INVALIDATION_METRIC_NAME)).isPositive());
+
+        eventBus.dispatch(EVENT, KEY_1).block();
+
+        await().timeout(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(listener.getEvents()).containsOnly(EVENT));
+    }
+}
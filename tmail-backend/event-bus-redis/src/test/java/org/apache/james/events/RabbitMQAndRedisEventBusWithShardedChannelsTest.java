@@ -0,0 +1,149 @@
+package org.apache.james.events;
+
+import static org.apache.james.events.EventBusTestFixture.EVENT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.awaitility.Durations.TEN_SECONDS;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.james.backends.rabbitmq.RabbitMQExtension;
+import org.apache.james.backends.redis.DockerRedis;
+import org.apache.james.backends.redis.RedisClientFactory;
+import org.apache.james.backends.redis.RedisExtension;
+import org.apache.james.backends.redis.StandaloneRedisConfiguration;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.server.core.filesystem.FileSystemImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import io.lettuce.core.api.sync.RedisCommands;
+import reactor.core.publisher.Mono;
+import reactor.rabbitmq.ExchangeSpecification;
+import reactor.rabbitmq.QueueSpecification;
+
+class RabbitMQAndRedisEventBusWithShardedChannelsTest implements KeyContract.SingleEventBusKeyContract, KeyContract.MultipleEventBusKeyContract {
+    static EventBusName TEST_EVENT_BUS = new EventBusName("test");
+    static NamingStrategy TEST_NAMING_STRATEGY = new NamingStrategy(TEST_EVENT_BUS);
+    static int CHANNEL_SHARDS = 4;
+    static RedisEventBusConfiguration SHARDED_CONFIGURATION = RedisEventBusConfiguration.DEFAULT
+        .withChannelShards(CHANNEL_SHARDS, RedisEventBusConfiguration.SHARDED_PUB_SUB_DEFAULT);
+
+    @RegisterExtension
+    static RabbitMQExtension rabbitMQExtension = RabbitMQExtension.singletonRabbitMQ()
+        .isolationPolicy(RabbitMQExtension.IsolationPolicy.WEAK);
+
+    @RegisterExtension
+    static RedisExtension redisExtension = new RedisExtension();
+
+    private RedisEventBusClientFactory redisEventBusClientFactory;
+    private RabbitMQAndRedisEventBus eventBus;
+    private RabbitMQAndRedisEventBus eventBus2;
+
+    @Override
+    public EnvironmentSpeedProfile getSpeedProfile() {
+        return EnvironmentSpeedProfile.SLOW;
+    }
+
+    @Override
+    public EventBus eventBus() {
+        return eventBus;
+    }
+
+    @Override
+    public EventBus eventBus2() {
+        return eventBus2;
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisEventBusClientFactory = new RedisEventBusClientFactory(StandaloneRedisConfiguration.from(redisExtension.dockerRedis().redisURI().toString()),
+            new RedisClientFactory(FileSystemImpl.forTesting()));
+
+        eventBus = newEventBus();
+        eventBus2 = newEventBus();
+
+        eventBus.start();
+        eventBus2.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventBus.stop();
+        eventBus2.stop();
+        Stream.concat(
+                EventBusTestFixture.ALL_GROUPS.stream(),
+                Stream.of(GroupRegistrationHandler.GROUP))
+            .map(TEST_NAMING_STRATEGY::workQueue)
+            .forEach(queueName -> rabbitMQExtension.getSender().delete(QueueSpecification.queue(queueName.asString())).block());
+        rabbitMQExtension.getSender()
+            .delete(ExchangeSpecification.exchange(TEST_NAMING_STRATEGY.exchange()))
+            .block();
+        rabbitMQExtension.getSender()
+            .delete(TEST_NAMING_STRATEGY.deadLetterQueue())
+            .block();
+        redisEventBusClientFactory.close();
+    }
+
+    private RabbitMQAndRedisEventBus newEventBus() {
+        return new RabbitMQAndRedisEventBus(TEST_NAMING_STRATEGY, rabbitMQExtension.getSender(), rabbitMQExtension.getReceiverProvider(),
+            new EventBusTestFixture.TestEventSerializer(),
+            EventBusTestFixture.RETRY_BACKOFF_CONFIGURATION, RoutingKeyConverter.forFactories(new EventBusTestFixture.TestRegistrationKeyFactory()),
+            new MemoryEventDeadLetters(), new RecordingMetricFactory(),
+            rabbitMQExtension.getRabbitChannelPool(), EventBusId.random(), rabbitMQExtension.getRabbitMQ().getConfiguration(),
+            redisEventBusClientFactory,
+            SHARDED_CONFIGURATION);
+    }
+
+    @Override
+    @Test
+    @Disabled("This test is failing by design as the different registration keys are handled by distinct messages")
+    public void dispatchShouldCallListenerOnceWhenSeveralKeysMatching() {
+    }
+
+    @Test
+    void registrationsShouldBeSpreadOverChannelShards(DockerRedis redis) {
+        ImmutableList<RegistrationKey> keys = registrationKeys(100);
+        keys.forEach(key -> Mono.from(eventBus2.register(new EventCollector(), key)).block());
+
+        RedisCommands<String, String> client = redis.createClient();
+        Set<String> boundChannels = keys.stream()
+            .flatMap(key -> client.smembers(RoutingKeyConverter.RoutingKey.of(key).asString()).stream())
+            .collect(ImmutableSet.toImmutableSet());
+
+        assertThat(boundChannels).hasSize(CHANNEL_SHARDS);
+    }
+
+    @Test
+    void dispatchShouldReachListenersOfEveryChannelShard() {
+        ImmutableList<RegistrationKey> keys = registrationKeys(20);
+        ImmutableList<EventCollector> listeners = keys.stream()
+            .map(key -> {
+                EventCollector listener = new EventCollector();
+                Mono.from(eventBus2.register(listener, key)).block();
+                return listener;
+            })
+            .collect(ImmutableList.toImmutableList());
+
+        eventBus.dispatch(EVENT, ImmutableSet.copyOf(keys)).block();
+
+        await().timeout(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(listeners).allSatisfy(listener -> assertThat(listener.getEvents()).containsOnly(EVENT)));
+    }
+
+    private ImmutableList<RegistrationKey> registrationKeys(int count) {
+        String prefix = UUID.randomUUID().toString();
+        return IntStream.range(0, count)
+            .mapToObj(i -> (RegistrationKey) new EventBusTestFixture.TestRegistrationKey(prefix + "-" + i))
+            .collect(ImmutableList.toImmutableList());
+    }
+}
@@ -0,0 +1,56 @@
+package org.apache.james.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+class RedisRegistrationChannelsTest {
+    private static final RegistrationQueueName REGISTRATION_CHANNEL = new NamingStrategy(new EventBusName("test")).queueName(EventBusId.random());
+    private static final RoutingKeyConverter.RoutingKey ROUTING_KEY = RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey("a"));
+
+    @Test
+    void singleShardShouldKeepTheRegistrationChannel() {
+        RedisRegistrationChannels channels = new RedisRegistrationChannels(REGISTRATION_CHANNEL, 1);
+
+        assertThat(channels.all()).containsExactly(REGISTRATION_CHANNEL.asString());
+        assertThat(channels.channelFor(ROUTING_KEY)).isEqualTo(REGISTRATION_CHANNEL.asString());
+    }
+
+    @Test
+    void severalShardsShouldDeclareOneChannelPerShard() {
+        RedisRegistrationChannels channels = new RedisRegistrationChannels(REGISTRATION_CHANNEL, 3);
+
+        assertThat(channels.all()).containsExactly(
+            REGISTRATION_CHANNEL.asString() + "-0",
+            REGISTRATION_CHANNEL.asString() + "-1",
+            REGISTRATION_CHANNEL.asString() + "-2");
+    }
+
+    @Test
+    void channelForShouldBeStable() {
+        RedisRegistrationChannels channels = new RedisRegistrationChannels(REGISTRATION_CHANNEL, 8);
+
+        assertThat(channels.channelFor(ROUTING_KEY)).isEqualTo(channels.channelFor(ROUTING_KEY));
+    }
+
+    @Test
+    void channelForShouldSpreadRoutingKeys() {
+        RedisRegistrationChannels channels = new RedisRegistrationChannels(REGISTRATION_CHANNEL, 4);
+
+        assertThat(IntStream.range(0, 1000)
+            .mapToObj(i -> channels.channelFor(RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey(String.valueOf(i)))))
+            .collect(ImmutableSet.toImmutableSet()))
+            .containsExactlyInAnyOrderElementsOf(channels.all());
+    }
+
+    @Test
+    void shouldRejectNonPositiveShards() {
+        assertThatThrownBy(() -> new RedisRegistrationChannels(REGISTRATION_CHANNEL, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
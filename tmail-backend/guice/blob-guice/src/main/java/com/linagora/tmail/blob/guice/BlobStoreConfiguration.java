@@ -14,13 +14,18 @@ import org.apache.james.utils.PropertiesProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linagora.tmail.blob.secondaryblobstore.HedgedReadConfiguration;
+import com.linagora.tmail.blob.secondaryblobstore.SecondaryReplicationConfiguration;
+
 import io.vavr.control.Try;
 
 public record BlobStoreConfiguration(boolean cacheEnabled,
                                      StorageStrategy storageStrategy,
                                      Optional<CryptoConfig> cryptoConfig,
                                      boolean singleSaveEnabled,
-                                     Optional<S3BlobStoreConfiguration> maybeSecondaryS3BlobStoreConfiguration) {
+                                     Optional<S3BlobStoreConfiguration> maybeSecondaryS3BlobStoreConfiguration,
+                                     SecondaryReplicationConfiguration secondaryReplicationConfiguration,
+                                     HedgedReadConfiguration hedgedReadConfiguration) {
     private static final Logger LOGGER = LoggerFactory.getLogger(BlobStoreConfiguration.class);
 
     @FunctionalInterface
@@ -90,7 +95,18 @@ public record BlobStoreConfiguration(boolean cacheEnabled,
 
     public static RequireCache builder() {
         return enableCache -> storageStrategy -> cryptoConfig -> enableSingleSave -> secondaryS3BlobStoreConfig ->
-            new BlobStoreConfiguration(enableCache, storageStrategy, cryptoConfig, enableSingleSave, secondaryS3BlobStoreConfig);
+            new BlobStoreConfiguration(enableCache, storageStrategy, cryptoConfig, enableSingleSave, secondaryS3BlobStoreConfig,
+                SecondaryReplicationConfiguration.SYNCHRONOUS, HedgedReadConfiguration.DISABLED);
+    }
+
+    public BlobStoreConfiguration secondaryReplication(SecondaryReplicationConfiguration secondaryReplicationConfiguration) {
+        return new BlobStoreConfiguration(cacheEnabled, storageStrategy, cryptoConfig, singleSaveEnabled,
+            maybeSecondaryS3BlobStoreConfiguration, secondaryReplicationConfiguration, hedgedReadConfiguration);
+    }
+
+    public BlobStoreConfiguration hedgedRead(HedgedReadConfiguration hedgedReadConfiguration) {
+        return new BlobStoreConfiguration(cacheEnabled, storageStrategy, cryptoConfig, singleSaveEnabled,
+            maybeSecondaryS3BlobStoreConfiguration, secondaryReplicationConfiguration, hedgedReadConfiguration);
     }
 
     static final String CACHE_ENABLE_PROPERTY = "cache.enable";
@@ -143,14 +159,18 @@ public record BlobStoreConfiguration(boolean cacheEnabled,
                 .deduplication()
                 .cryptoConfig(cryptoConfig)
                 .enableSingleSave(singleSaveEnabled)
-                .secondaryS3BlobStore(parseS3BlobStoreConfiguration(configuration));
+                .secondaryS3BlobStore(parseS3BlobStoreConfiguration(configuration))
+                .secondaryReplication(SecondaryReplicationConfigurationReader.from(configuration))
+                .hedgedRead(HedgedReadConfigurationReader.from(configuration));
         } else {
             return builder()
                 .enableCache(cacheEnabled)
                 .passthrough()
                 .cryptoConfig(cryptoConfig)
                 .enableSingleSave(singleSaveEnabled)
-                .secondaryS3BlobStore(parseS3BlobStoreConfiguration(configuration));
+                .secondaryS3BlobStore(parseS3BlobStoreConfiguration(configuration))
+                .secondaryReplication(SecondaryReplicationConfigurationReader.from(configuration))
+                .hedgedRead(HedgedReadConfigurationReader.from(configuration));
         }
     }
 
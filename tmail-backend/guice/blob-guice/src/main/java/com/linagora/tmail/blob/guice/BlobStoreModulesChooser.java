@@ -3,6 +3,8 @@ package com.linagora.tmail.blob.guice;
 import java.util.List;
 import java.util.Optional;
 
+import org.apache.james.backends.rabbitmq.RabbitMQConfiguration;
+import org.apache.james.backends.rabbitmq.ReceiverProvider;
 import org.apache.james.blob.aes.AESBlobStoreDAO;
 import org.apache.james.blob.aes.CryptoConfig;
 import org.apache.james.blob.api.BlobId;
@@ -28,6 +30,8 @@ import org.apache.james.modules.objectstorage.S3BucketModule;
 import org.apache.james.server.blob.deduplication.DeDuplicationBlobStore;
 import org.apache.james.server.blob.deduplication.PassThroughBlobStore;
 import org.apache.james.server.blob.deduplication.StorageStrategy;
+import org.apache.james.utils.InitializationOperation;
+import org.apache.james.utils.InitilizationOperationBuilder;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
@@ -38,15 +42,23 @@ import com.google.inject.Scopes;
 import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.ProvidesIntoSet;
 import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import com.linagora.tmail.blob.blobid.list.BlobIdList;
 import com.linagora.tmail.blob.blobid.list.SingleSaveBlobStoreDAO;
 import com.linagora.tmail.blob.blobid.list.SingleSaveBlobStoreModule;
+import com.linagora.tmail.blob.secondaryblobstore.HedgedReadConfiguration;
+import com.linagora.tmail.blob.secondaryblobstore.RabbitMQSecondaryReplicationQueue;
 import com.linagora.tmail.blob.secondaryblobstore.SecondaryBlobStoreDAO;
+import com.linagora.tmail.blob.secondaryblobstore.SecondaryReplicationConfiguration;
+import com.linagora.tmail.blob.secondaryblobstore.SecondaryReplicator;
+
+import reactor.rabbitmq.Sender;
 
 public class BlobStoreModulesChooser {
     public static final String INITIAL = "initial";
+    public static final String SECONDARY = "secondary";
     public static final String MAYBE_SECONDARY_BLOBSTORE = "maybe_secondary_blob_store_dao";
     public static final String MAYBE_ENCRYPTION_BLOBSTORE = "maybe_encryption_blob_store_dao";
     public static final String MAYBE_SINGLE_SAVE_BLOBSTORE = "maybe_single_save_blob_store_dao";
@@ -78,21 +90,89 @@ public class BlobStoreModulesChooser {
 
     static class SecondaryObjectStorageModule extends AbstractModule {
         private final S3BlobStoreConfiguration secondaryS3BlobStoreConfiguration;
+        private final SecondaryReplicationConfiguration secondaryReplicationConfiguration;
+        private final HedgedReadConfiguration hedgedReadConfiguration;
 
-        public SecondaryObjectStorageModule(S3BlobStoreConfiguration secondaryS3BlobStoreConfiguration) {
+        public SecondaryObjectStorageModule(S3BlobStoreConfiguration secondaryS3BlobStoreConfiguration,
+                                            SecondaryReplicationConfiguration secondaryReplicationConfiguration,
+                                            HedgedReadConfiguration hedgedReadConfiguration) {
             this.secondaryS3BlobStoreConfiguration = secondaryS3BlobStoreConfiguration;
+            this.secondaryReplicationConfiguration = secondaryReplicationConfiguration;
+            this.hedgedReadConfiguration = hedgedReadConfiguration;
+        }
+
+        @Override
+        protected void configure() {
+            bind(HedgedReadConfiguration.class).toInstance(hedgedReadConfiguration);
+            if (secondaryReplicationConfiguration.asynchronous()) {
+                install(new AsynchronousSecondaryReplicationModule(secondaryReplicationConfiguration));
+            } else {
+                install(new SynchronousSecondaryReplicationModule());
+            }
         }
 
+        @Provides
+        @Singleton
+        @Named(SECONDARY)
+        BlobStoreDAO provideSecondaryS3BlobStoreDAO(BlobId.Factory blobIdFactory,
+                                                    MetricFactory metricFactory,
+                                                    GaugeRegistry gaugeRegistry) {
+            S3ClientFactory s3SecondaryClientFactory = new S3ClientFactory(secondaryS3BlobStoreConfiguration, metricFactory, gaugeRegistry);
+            return new S3BlobStoreDAO(s3SecondaryClientFactory, secondaryS3BlobStoreConfiguration, blobIdFactory);
+        }
+    }
+
+    static class SynchronousSecondaryReplicationModule extends AbstractModule {
         @Provides
         @Singleton
         @Named(MAYBE_SECONDARY_BLOBSTORE)
         BlobStoreDAO provideSecondaryBlobStoreDAO(@Named(INITIAL) BlobStoreDAO firstBlobStoreDAO,
-                                                  BlobId.Factory blobIdFactory,
+                                                  @Named(SECONDARY) BlobStoreDAO secondaryBlobStoreDAO,
                                                   MetricFactory metricFactory,
-                                                  GaugeRegistry gaugeRegistry) {
-            S3ClientFactory s3SecondaryClientFactory = new S3ClientFactory(secondaryS3BlobStoreConfiguration, metricFactory, gaugeRegistry);
-            S3BlobStoreDAO secondaryBlobStoreDAO = new S3BlobStoreDAO(s3SecondaryClientFactory, secondaryS3BlobStoreConfiguration, blobIdFactory);
-            return new SecondaryBlobStoreDAO(firstBlobStoreDAO, secondaryBlobStoreDAO);
+                                                  HedgedReadConfiguration hedgedReadConfiguration) {
+            return new SecondaryBlobStoreDAO(firstBlobStoreDAO, secondaryBlobStoreDAO, metricFactory,
+                SecondaryBlobStoreDAO.DEFAULT_IN_MEMORY_THRESHOLD, Optional.empty(), hedgedReadConfiguration);
+        }
+    }
+
+    static class AsynchronousSecondaryReplicationModule extends AbstractModule {
+        private final SecondaryReplicationConfiguration secondaryReplicationConfiguration;
+
+        AsynchronousSecondaryReplicationModule(SecondaryReplicationConfiguration secondaryReplicationConfiguration) {
+            this.secondaryReplicationConfiguration = secondaryReplicationConfiguration;
+        }
+
+        @Provides
+        @Singleton
+        RabbitMQSecondaryReplicationQueue provideSecondaryReplicationQueue(@Named(INITIAL) BlobStoreDAO firstBlobStoreDAO,
+                                                                           @Named(SECONDARY) BlobStoreDAO secondaryBlobStoreDAO,
+                                                                           Sender sender,
+                                                                           ReceiverProvider receiverProvider,
+                                                                           RabbitMQConfiguration rabbitMQConfiguration,
+                                                                           BlobId.Factory blobIdFactory,
+                                                                           MetricFactory metricFactory) {
+            return new RabbitMQSecondaryReplicationQueue(sender, receiverProvider, rabbitMQConfiguration,
+                new SecondaryReplicator(firstBlobStoreDAO, secondaryBlobStoreDAO),
+                blobIdFactory, secondaryReplicationConfiguration, metricFactory);
+        }
+
+        @Provides
+        @Singleton
+        @Named(MAYBE_SECONDARY_BLOBSTORE)
+        BlobStoreDAO provideSecondaryBlobStoreDAO(@Named(INITIAL) BlobStoreDAO firstBlobStoreDAO,
+                                                  @Named(SECONDARY) BlobStoreDAO secondaryBlobStoreDAO,
+                                                  MetricFactory metricFactory,
+                                                  RabbitMQSecondaryReplicationQueue replicationQueue,
+                                                  HedgedReadConfiguration hedgedReadConfiguration) {
+            return new SecondaryBlobStoreDAO(firstBlobStoreDAO, secondaryBlobStoreDAO, metricFactory,
+                SecondaryBlobStoreDAO.DEFAULT_IN_MEMORY_THRESHOLD, Optional.of(replicationQueue), hedgedReadConfiguration);
+        }
+
+        @ProvidesIntoSet
+        InitializationOperation startSecondaryReplicationQueue(RabbitMQSecondaryReplicationQueue replicationQueue) {
+            return InitilizationOperationBuilder
+                .forClass(RabbitMQSecondaryReplicationQueue.class)
+                .init(replicationQueue::start);
         }
     }
 
@@ -151,9 +231,11 @@ public class BlobStoreModulesChooser {
         }
     }
 
-    public static Module chooseSecondaryObjectStorageModule(Optional<S3BlobStoreConfiguration> maybeS3BlobStoreConfiguration) {
+    public static Module chooseSecondaryObjectStorageModule(Optional<S3BlobStoreConfiguration> maybeS3BlobStoreConfiguration,
+                                                            SecondaryReplicationConfiguration secondaryReplicationConfiguration,
+                                                            HedgedReadConfiguration hedgedReadConfiguration) {
         return maybeS3BlobStoreConfiguration
-            .map(configuration -> (Module) new SecondaryObjectStorageModule(configuration))
+            .map(configuration -> (Module) new SecondaryObjectStorageModule(configuration, secondaryReplicationConfiguration, hedgedReadConfiguration))
             .orElse(new NoSecondaryObjectStorageModule());
     }
 
@@ -210,7 +292,9 @@ public class BlobStoreModulesChooser {
     public static List<Module> chooseModules(BlobStoreConfiguration blobStoreConfiguration) {
         return ImmutableList.<Module>builder()
             .add(new BaseObjectStorageModule())
-            .add(chooseSecondaryObjectStorageModule(blobStoreConfiguration.maybeSecondaryS3BlobStoreConfiguration()))
+            .add(chooseSecondaryObjectStorageModule(blobStoreConfiguration.maybeSecondaryS3BlobStoreConfiguration(),
+                blobStoreConfiguration.secondaryReplicationConfiguration(),
+                blobStoreConfiguration.hedgedReadConfiguration()))
             .add(chooseEncryptionModule(blobStoreConfiguration.cryptoConfig()))
             .add(chooseSaveDeclarationModule(blobStoreConfiguration.singleSaveEnabled()))
             .addAll(chooseStoragePolicyModule(blobStoreConfiguration.storageStrategy()))
@@ -0,0 +1,37 @@
+package com.linagora.tmail.blob.guice;
+
+import static com.linagora.tmail.blob.secondaryblobstore.HedgedReadConfiguration.DEFAULT_MAX_DELAY;
+import static com.linagora.tmail.blob.secondaryblobstore.HedgedReadConfiguration.DEFAULT_MIN_DELAY;
+import static com.linagora.tmail.blob.secondaryblobstore.HedgedReadConfiguration.DEFAULT_PERCENTILE;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.util.DurationParser;
+
+import com.linagora.tmail.blob.secondaryblobstore.HedgedReadConfiguration;
+
+public class HedgedReadConfigurationReader {
+    static final String HEDGED_READ_ENABLED = "objectstorage.s3.secondary.hedged.read.enabled";
+    static final String HEDGED_READ_PERCENTILE = "objectstorage.s3.secondary.hedged.read.percentile";
+    static final String HEDGED_READ_MIN_DELAY = "objectstorage.s3.secondary.hedged.read.min.delay";
+    static final String HEDGED_READ_MAX_DELAY = "objectstorage.s3.secondary.hedged.read.max.delay";
+
+    public static HedgedReadConfiguration from(Configuration configuration) {
+        if (!configuration.getBoolean(HEDGED_READ_ENABLED, false)) {
+            return HedgedReadConfiguration.DISABLED;
+        }
+        double percentile = configuration.getDouble(HEDGED_READ_PERCENTILE, DEFAULT_PERCENTILE);
+        Duration minDelay = parseDuration(configuration, HEDGED_READ_MIN_DELAY).orElse(DEFAULT_MIN_DELAY);
+        Duration maxDelay = parseDuration(configuration, HEDGED_READ_MAX_DELAY).orElse(DEFAULT_MAX_DELAY);
+
+        return HedgedReadConfiguration.enabled(percentile, minDelay, maxDelay);
+    }
+
+    private static Optional<Duration> parseDuration(Configuration configuration, String key) {
+        return Optional.ofNullable(configuration.getString(key, null))
+            .map(s -> DurationParser.parse(s, ChronoUnit.MILLIS));
+    }
+}
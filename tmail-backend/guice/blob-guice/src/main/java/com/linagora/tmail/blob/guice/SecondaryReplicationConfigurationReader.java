@@ -0,0 +1,34 @@
+package com.linagora.tmail.blob.guice;
+
+import static com.linagora.tmail.blob.secondaryblobstore.SecondaryReplicationConfiguration.DEFAULT_CONCURRENCY;
+import static com.linagora.tmail.blob.secondaryblobstore.SecondaryReplicationConfiguration.DEFAULT_MAX_RETRIES;
+import static com.linagora.tmail.blob.secondaryblobstore.SecondaryReplicationConfiguration.DEFAULT_RETRY_BACKOFF;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.util.DurationParser;
+
+import com.linagora.tmail.blob.secondaryblobstore.SecondaryReplicationConfiguration;
+
+public class SecondaryReplicationConfigurationReader {
+    static final String REPLICATION_ASYNC_ENABLED = "objectstorage.s3.secondary.replication.async.enabled";
+    static final String REPLICATION_MAX_RETRIES = "objectstorage.s3.secondary.replication.max.retries";
+    static final String REPLICATION_RETRY_BACKOFF = "objectstorage.s3.secondary.replication.retry.backoff";
+    static final String REPLICATION_CONCURRENCY = "objectstorage.s3.secondary.replication.concurrency";
+
+    public static SecondaryReplicationConfiguration from(Configuration configuration) {
+        if (!configuration.getBoolean(REPLICATION_ASYNC_ENABLED, false)) {
+            return SecondaryReplicationConfiguration.SYNCHRONOUS;
+        }
+        int maxRetries = configuration.getInt(REPLICATION_MAX_RETRIES, DEFAULT_MAX_RETRIES);
+        Duration retryBackoff = Optional.ofNullable(configuration.getString(REPLICATION_RETRY_BACKOFF, null))
+            .map(s -> DurationParser.parse(s, ChronoUnit.SECONDS))
+            .orElse(DEFAULT_RETRY_BACKOFF);
+        int concurrency = configuration.getInt(REPLICATION_CONCURRENCY, DEFAULT_CONCURRENCY);
+
+        return SecondaryReplicationConfiguration.asynchronous(maxRetries, retryBackoff, concurrency);
+    }
+}
@@ -0,0 +1,81 @@
+package com.linagora.tmail.event;
+
+import jakarta.inject.Named;
+
+import org.apache.james.backends.rabbitmq.RabbitMQConfiguration;
+import org.apache.james.backends.rabbitmq.ReactorRabbitMQChannelPool;
+import org.apache.james.backends.rabbitmq.ReceiverProvider;
+import org.apache.james.events.EventBus;
+import org.apache.james.events.EventBusId;
+import org.apache.james.events.EventBusName;
+import org.apache.james.events.EventDeadLetters;
+import org.apache.james.events.NamingStrategy;
+import org.apache.james.events.RabbitMQEventBus;
+import org.apache.james.events.RetryBackoffConfiguration;
+import org.apache.james.events.RoutingKeyConverter;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.utils.InitializationOperation;
+import org.apache.james.utils.InitilizationOperationBuilder;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.multibindings.ProvidesIntoSet;
+import com.google.inject.name.Names;
+import com.linagora.tmail.encrypted.KeystoreChangedListener;
+import com.linagora.tmail.encrypted.KeystoreEventSerializer;
+import com.linagora.tmail.encrypted.KeystoreInjectKeys;
+import com.linagora.tmail.encrypted.KeystoreRegistrationKey;
+import com.linagora.tmail.encrypted.KeystoreRegistrationKeyFactory;
+
+import reactor.core.publisher.Mono;
+import reactor.rabbitmq.Sender;
+
+public class DistributedKeystoreEventModule extends AbstractModule {
+    public static final NamingStrategy KEYSTORE_NAMING_STRATEGY = new NamingStrategy(new EventBusName("keystoreEvent"));
+
+    @Override
+    protected void configure() {
+        bind(EventBusId.class).annotatedWith(Names.named(KeystoreInjectKeys.KEYSTORE)).toInstance(EventBusId.random());
+    }
+
+    @ProvidesIntoSet
+    InitializationOperation registerKeystoreChangedListener(@Named(KeystoreInjectKeys.KEYSTORE) RabbitMQEventBus instance,
+                                                            KeystoreChangedListener keystoreChangedListener) {
+        return InitilizationOperationBuilder
+            .forClass(RabbitMQEventBus.class)
+            .init(() -> {
+                instance.start();
+                Mono.from(instance.register(keystoreChangedListener, new KeystoreRegistrationKey())).block();
+            });
+    }
+
+    @Provides
+    @Singleton
+    @Named(KeystoreInjectKeys.KEYSTORE)
+    RabbitMQEventBus provideKeystoreEventBus(Sender sender, ReceiverProvider receiverProvider,
+                                             KeystoreEventSerializer eventSerializer,
+                                             RetryBackoffConfiguration retryBackoffConfiguration,
+                                             EventDeadLetters eventDeadLetters,
+                                             MetricFactory metricFactory, ReactorRabbitMQChannelPool channelPool,
+                                             @Named(KeystoreInjectKeys.KEYSTORE) EventBusId eventBusId,
+                                             RabbitMQConfiguration configuration) {
+        return new RabbitMQEventBus(
+            KEYSTORE_NAMING_STRATEGY,
+            sender, receiverProvider, eventSerializer, retryBackoffConfiguration, new RoutingKeyConverter(ImmutableSet.of(new KeystoreRegistrationKeyFactory())),
+            eventDeadLetters, metricFactory, channelPool, eventBusId, configuration);
+    }
+
+    @Provides
+    @Singleton
+    @Named(KeystoreInjectKeys.KEYSTORE)
+    EventBus provideKeystoreEventBus(@Named(KeystoreInjectKeys.KEYSTORE) RabbitMQEventBus eventBus) {
+        return eventBus;
+    }
+
+    @ProvidesIntoSet
+    EventBus registerEventBus(@Named(KeystoreInjectKeys.KEYSTORE) EventBus eventBus) {
+        return eventBus;
+    }
+}
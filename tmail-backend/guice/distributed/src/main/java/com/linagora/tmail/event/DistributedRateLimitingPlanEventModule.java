@@ -0,0 +1,74 @@
+package com.linagora.tmail.event;
+
+import jakarta.inject.Named;
+
+import org.apache.james.backends.rabbitmq.RabbitMQConfiguration;
+import org.apache.james.backends.rabbitmq.ReactorRabbitMQChannelPool;
+import org.apache.james.backends.rabbitmq.ReceiverProvider;
+import org.apache.james.events.EventBus;
+import org.apache.james.events.EventBusId;
+import org.apache.james.events.EventBusName;
+import org.apache.james.events.EventDeadLetters;
+import org.apache.james.events.NamingStrategy;
+import org.apache.james.events.RabbitMQEventBus;
+import org.apache.james.events.RetryBackoffConfiguration;
+import org.apache.james.events.RoutingKeyConverter;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.utils.InitializationOperation;
+import org.apache.james.utils.InitilizationOperationBuilder;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.multibindings.ProvidesIntoSet;
+import com.google.inject.name.Names;
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanEventSerializer;
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanInjectKeys;
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanRegistrationKeyFactory;
+
+import reactor.rabbitmq.Sender;
+
+public class DistributedRateLimitingPlanEventModule extends AbstractModule {
+    public static final NamingStrategy RATE_LIMITING_PLAN_NAMING_STRATEGY = new NamingStrategy(new EventBusName("rateLimitingPlanEvent"));
+
+    @Override
+    protected void configure() {
+        bind(EventBusId.class).annotatedWith(Names.named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN)).toInstance(EventBusId.random());
+    }
+
+    @ProvidesIntoSet
+    InitializationOperation startRateLimitingPlanEventBus(@Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN) RabbitMQEventBus instance) {
+        return InitilizationOperationBuilder
+            .forClass(RabbitMQEventBus.class)
+            .init(instance::start);
+    }
+
+    @Provides
+    @Singleton
+    @Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN)
+    RabbitMQEventBus provideRateLimitingPlanEventBus(Sender sender, ReceiverProvider receiverProvider,
+                                                     RateLimitingPlanEventSerializer eventSerializer,
+                                                     RetryBackoffConfiguration retryBackoffConfiguration,
+                                                     EventDeadLetters eventDeadLetters,
+                                                     MetricFactory metricFactory, ReactorRabbitMQChannelPool channelPool,
+                                                     @Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN) EventBusId eventBusId,
+                                                     RabbitMQConfiguration configuration) {
+        return new RabbitMQEventBus(
+            RATE_LIMITING_PLAN_NAMING_STRATEGY,
+            sender, receiverProvider, eventSerializer, retryBackoffConfiguration, new RoutingKeyConverter(ImmutableSet.of(new RateLimitingPlanRegistrationKeyFactory())),
+            eventDeadLetters, metricFactory, channelPool, eventBusId, configuration);
+    }
+
+    @Provides
+    @Singleton
+    @Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN)
+    EventBus provideRateLimitingPlanEventBus(@Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN) RabbitMQEventBus eventBus) {
+        return eventBus;
+    }
+
+    @ProvidesIntoSet
+    EventBus registerEventBus(@Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN) EventBus eventBus) {
+        return eventBus;
+    }
+}
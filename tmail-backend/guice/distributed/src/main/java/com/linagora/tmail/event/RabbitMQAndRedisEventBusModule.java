@@ -1,9 +1,12 @@
 package com.linagora.tmail.event;
 
 import static com.linagora.tmail.event.DistributedEmailAddressContactEventModule.EMAIL_ADDRESS_CONTACT_NAMING_STRATEGY;
+import static com.linagora.tmail.event.DistributedKeystoreEventModule.KEYSTORE_NAMING_STRATEGY;
+import static com.linagora.tmail.event.DistributedRateLimitingPlanEventModule.RATE_LIMITING_PLAN_NAMING_STRATEGY;
 import static org.apache.james.events.NamingStrategy.JMAP_NAMING_STRATEGY;
 
 import java.io.FileNotFoundException;
+import java.util.Set;
 
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
@@ -21,6 +24,7 @@ import org.apache.james.events.EventDeadLetters;
 import org.apache.james.events.RabbitMQAndRedisEventBus;
 import org.apache.james.events.RedisEventBusClientFactory;
 import org.apache.james.events.RedisEventBusConfiguration;
+import org.apache.james.events.RegistrationKey;
 import org.apache.james.events.RetryBackoffConfiguration;
 import org.apache.james.events.RoutingKeyConverter;
 import org.apache.james.jmap.InjectionKeys;
@@ -28,7 +32,6 @@ import org.apache.james.jmap.change.Factory;
 import org.apache.james.jmap.change.JmapEventSerializer;
 import org.apache.james.jmap.pushsubscription.PushListener;
 import org.apache.james.metrics.api.MetricFactory;
-import org.apache.james.util.ReactorUtils;
 import org.apache.james.utils.InitializationOperation;
 import org.apache.james.utils.InitilizationOperationBuilder;
 import org.apache.james.utils.PropertiesProvider;
@@ -39,11 +42,21 @@ import com.google.common.collect.ImmutableSet;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
+import com.linagora.tmail.encrypted.KeystoreChangedListener;
+import com.linagora.tmail.encrypted.KeystoreEventSerializer;
+import com.linagora.tmail.encrypted.KeystoreInjectKeys;
+import com.linagora.tmail.encrypted.KeystoreRegistrationKey;
+import com.linagora.tmail.encrypted.KeystoreRegistrationKeyFactory;
 import com.linagora.tmail.james.jmap.EmailAddressContactInjectKeys;
 import com.linagora.tmail.james.jmap.contact.EmailAddressContactListener;
 import com.linagora.tmail.james.jmap.contact.TmailJmapEventSerializer;
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanEventSerializer;
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanInjectKeys;
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanRegistrationKeyFactory;
 
+import reactor.core.publisher.Mono;
 import reactor.rabbitmq.Sender;
 
 public class RabbitMQAndRedisEventBusModule extends AbstractModule {
@@ -54,6 +67,11 @@ public class RabbitMQAndRedisEventBusModule extends AbstractModule {
         bind(EventBus.class).to(RabbitMQAndRedisEventBus.class);
 
         bind(RabbitMQAndRedisEventBus.class).in(Scopes.SINGLETON);
+
+        // Lets the Redis bindings cleanup scan the rate limiting plan and keystore event bus keys too
+        Multibinder<RegistrationKey.Factory> registrationKeyFactories = Multibinder.newSetBinder(binder(), RegistrationKey.Factory.class);
+        registrationKeyFactories.addBinding().to(RateLimitingPlanRegistrationKeyFactory.class);
+        registrationKeyFactories.addBinding().to(KeystoreRegistrationKeyFactory.class);
     }
 
     @Provides
@@ -85,17 +103,21 @@ public class RabbitMQAndRedisEventBusModule extends AbstractModule {
             eventDeadLetters, metricFactory, channelPool, eventBusId, configuration, redisEventBusClientFactory, redisEventBusConfiguration);
     }
 
+    @Provides
+    @Singleton
+    CleanRedisEventBusService cleanRedisEventBusService(RedisEventBusClientFactory redisEventBusClientFactory,
+                                                        Set<RegistrationKey.Factory> registrationKeyFactories,
+                                                        CleanRedisEventBusService.CleanupConfiguration cleanupConfiguration) {
+        return new CleanRedisEventBusService(redisEventBusClientFactory, registrationKeyFactories, cleanupConfiguration);
+    }
+
     @ProvidesIntoSet
-    InitializationOperation workQueue(RabbitMQAndRedisEventBus instance,
-                                      RedisEventBusClientFactory redisEventBusClientFactory,
-                                      RoutingKeyConverter routingKeyConverter) {
+    InitializationOperation workQueue(RabbitMQAndRedisEventBus instance, CleanRedisEventBusService cleanRedisEventBusService) {
         return InitilizationOperationBuilder
             .forClass(RabbitMQAndRedisEventBus.class)
             .init(() -> {
                 instance.start();
-                new CleanRedisEventBusService(redisEventBusClientFactory, routingKeyConverter).cleanUp()
-                    .subscribeOn(ReactorUtils.BLOCKING_CALL_WRAPPER)
-                    .subscribe();
+                cleanRedisEventBusService.startContinuousCleanUp();
             });
     }
 
@@ -152,6 +174,74 @@ public class RabbitMQAndRedisEventBusModule extends AbstractModule {
             });
     }
 
+    @Provides
+    @Singleton
+    @Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN)
+    RabbitMQAndRedisEventBus provideRateLimitingPlanEventBus(Sender sender, ReceiverProvider receiverProvider,
+                                                             RateLimitingPlanEventSerializer eventSerializer,
+                                                             RetryBackoffConfiguration retryBackoffConfiguration,
+                                                             EventDeadLetters eventDeadLetters,
+                                                             MetricFactory metricFactory, ReactorRabbitMQChannelPool channelPool,
+                                                             @Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN) EventBusId eventBusId,
+                                                             RabbitMQConfiguration configuration,
+                                                             RedisEventBusClientFactory redisEventBusClientFactory,
+                                                             RedisEventBusConfiguration redisEventBusConfiguration) {
+        return new RabbitMQAndRedisEventBus(
+            RATE_LIMITING_PLAN_NAMING_STRATEGY,
+            sender, receiverProvider, eventSerializer, retryBackoffConfiguration, new RoutingKeyConverter(ImmutableSet.of(new RateLimitingPlanRegistrationKeyFactory())),
+            eventDeadLetters, metricFactory, channelPool, eventBusId, configuration, redisEventBusClientFactory, redisEventBusConfiguration);
+    }
+
+    @Provides
+    @Singleton
+    @Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN)
+    EventBus provideRateLimitingPlanEventBus(@Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN) RabbitMQAndRedisEventBus eventBus) {
+        return eventBus;
+    }
+
+    @ProvidesIntoSet
+    InitializationOperation startRateLimitingPlanEventBus(@Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN) RabbitMQAndRedisEventBus instance) {
+        return InitilizationOperationBuilder
+            .forClass(RabbitMQAndRedisEventBus.class)
+            .init(instance::start);
+    }
+
+    @Provides
+    @Singleton
+    @Named(KeystoreInjectKeys.KEYSTORE)
+    RabbitMQAndRedisEventBus provideKeystoreEventBus(Sender sender, ReceiverProvider receiverProvider,
+                                                     KeystoreEventSerializer eventSerializer,
+                                                     RetryBackoffConfiguration retryBackoffConfiguration,
+                                                     EventDeadLetters eventDeadLetters,
+                                                     MetricFactory metricFactory, ReactorRabbitMQChannelPool channelPool,
+                                                     @Named(KeystoreInjectKeys.KEYSTORE) EventBusId eventBusId,
+                                                     RabbitMQConfiguration configuration,
+                                                     RedisEventBusClientFactory redisEventBusClientFactory,
+                                                     RedisEventBusConfiguration redisEventBusConfiguration) {
+        return new RabbitMQAndRedisEventBus(
+            KEYSTORE_NAMING_STRATEGY,
+            sender, receiverProvider, eventSerializer, retryBackoffConfiguration, new RoutingKeyConverter(ImmutableSet.of(new KeystoreRegistrationKeyFactory())),
+            eventDeadLetters, metricFactory, channelPool, eventBusId, configuration, redisEventBusClientFactory, redisEventBusConfiguration);
+    }
+
+    @Provides
+    @Singleton
+    @Named(KeystoreInjectKeys.KEYSTORE)
+    EventBus provideKeystoreEventBus(@Named(KeystoreInjectKeys.KEYSTORE) RabbitMQAndRedisEventBus eventBus) {
+        return eventBus;
+    }
+
+    @ProvidesIntoSet
+    InitializationOperation registerKeystoreChangedListener(@Named(KeystoreInjectKeys.KEYSTORE) RabbitMQAndRedisEventBus instance,
+                                                            KeystoreChangedListener keystoreChangedListener) {
+        return InitilizationOperationBuilder
+            .forClass(RabbitMQAndRedisEventBus.class)
+            .init(() -> {
+                instance.start();
+                Mono.from(instance.register(keystoreChangedListener, new KeystoreRegistrationKey())).block();
+            });
+    }
+
     @Provides
     @Singleton
     RedisEventBusConfiguration redisEventBusConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
@@ -163,4 +253,14 @@ public class RabbitMQAndRedisEventBusModule extends AbstractModule {
             return RedisEventBusConfiguration.DEFAULT;
         }
     }
+
+    @Provides
+    @Singleton
+    CleanRedisEventBusService.CleanupConfiguration cleanupConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
+        try {
+            return CleanRedisEventBusService.CleanupConfiguration.from(propertiesProvider.getConfiguration("redis"));
+        } catch (FileNotFoundException e) {
+            return CleanRedisEventBusService.CleanupConfiguration.DEFAULT;
+        }
+    }
 }
@@ -2,13 +2,27 @@ package com.linagora.tmail.encrypted;
 
 import java.io.FileNotFoundException;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.james.server.core.filesystem.FileSystemImpl;
 import org.apache.james.utils.PropertiesProvider;
 
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.linagora.tmail.pgp.Compression;
+
 public class MailboxConfiguration {
+    static final String ENCRYPTION_ENABLE_PROPERTY = "gpg.encryption.enable";
+    static final String ENCRYPTION_THREADS_PROPERTY = "gpg.encryption.threads";
+    static final String ENCRYPTION_QUEUE_SIZE_PROPERTY = "gpg.encryption.queue.size";
+    static final String COMPRESSION_LEVEL_PROPERTY = "gpg.encryption.compression.level";
+    static final String COMPRESSION_SKIPPED_MIME_TYPES_PROPERTY = "gpg.encryption.compression.skipped.mime.types";
+    static final String BINARY_ATTACHMENTS_PROPERTY = "gpg.encryption.attachments.binary";
+
     public static MailboxConfiguration parse(org.apache.james.server.core.configuration.Configuration configuration) throws ConfigurationException {
         PropertiesProvider propertiesProvider = new PropertiesProvider(new FileSystemImpl(configuration.directories()),
             configuration.configurationPath());
@@ -19,31 +33,81 @@ public class MailboxConfiguration {
     public static MailboxConfiguration parse(PropertiesProvider propertiesProvider) throws ConfigurationException {
         try {
             Configuration configuration = propertiesProvider.getConfiguration("mailbox");
-            return new MailboxConfiguration(configuration.getBoolean("gpg.encryption.enable", false));
+            return new MailboxConfiguration(configuration.getBoolean(ENCRYPTION_ENABLE_PROPERTY, false),
+                configuration.getInt(ENCRYPTION_THREADS_PROPERTY, EncryptionExecutor.DEFAULT_THREADS()),
+                configuration.getInt(ENCRYPTION_QUEUE_SIZE_PROPERTY, EncryptionExecutor.DEFAULT_QUEUE_SIZE()),
+                parseCompression(configuration),
+                configuration.getBoolean(BINARY_ATTACHMENTS_PROPERTY, false));
         } catch (FileNotFoundException e) {
             return new MailboxConfiguration(false);
         }
     }
 
+    private static Compression parseCompression(Configuration configuration) {
+        int level = configuration.getInt(COMPRESSION_LEVEL_PROPERTY, Compression.DEFAULT_LEVEL);
+        Set<String> skippedMimeTypes = Optional.ofNullable(configuration.getString(COMPRESSION_SKIPPED_MIME_TYPES_PROPERTY, null))
+            .map(value -> ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(value)))
+            .orElse(Compression.DEFAULT_SKIPPED_MIME_TYPES);
+        return Compression.of(level, skippedMimeTypes);
+    }
+
     private final boolean enableEncryption;
+    private final int encryptionThreads;
+    private final int encryptionQueueSize;
+    private final Compression compression;
+    private final boolean binaryAttachments;
 
     public MailboxConfiguration(boolean enableEncryption) {
+        this(enableEncryption, EncryptionExecutor.DEFAULT_THREADS(), EncryptionExecutor.DEFAULT_QUEUE_SIZE(), Compression.DEFAULT, false);
+    }
+
+    public MailboxConfiguration(boolean enableEncryption, int encryptionThreads, int encryptionQueueSize, Compression compression, boolean binaryAttachments) {
+        Preconditions.checkArgument(encryptionThreads > 0, "'%s' should be strictly positive", ENCRYPTION_THREADS_PROPERTY);
+        Preconditions.checkArgument(encryptionQueueSize > 0, "'%s' should be strictly positive", ENCRYPTION_QUEUE_SIZE_PROPERTY);
         this.enableEncryption = enableEncryption;
+        this.encryptionThreads = encryptionThreads;
+        this.encryptionQueueSize = encryptionQueueSize;
+        this.compression = compression;
+        this.binaryAttachments = binaryAttachments;
     }
 
     public boolean isEncryptionEnabled() {
         return enableEncryption;
     }
 
+    public int getEncryptionThreads() {
+        return encryptionThreads;
+    }
+
+    public int getEncryptionQueueSize() {
+        return encryptionQueueSize;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public boolean isBinaryAttachmentsEnabled() {
+        return binaryAttachments;
+    }
+
+    public EncryptionConfiguration getEncryptionConfiguration() {
+        return new EncryptionConfiguration(compression, binaryAttachments);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hashCode(enableEncryption);
+        return Objects.hash(enableEncryption, encryptionThreads, encryptionQueueSize, compression, binaryAttachments);
     }
 
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof MailboxConfiguration other) {
-            return other.enableEncryption == this.enableEncryption;
+            return other.enableEncryption == this.enableEncryption
+                && other.encryptionThreads == this.encryptionThreads
+                && other.encryptionQueueSize == this.encryptionQueueSize
+                && Objects.equals(other.compression, this.compression)
+                && other.binaryAttachments == this.binaryAttachments;
         }
         return false;
     }
@@ -30,8 +30,11 @@ object EncryptHelper {
     new String(stream.toByteArray, StandardCharsets.UTF_8)
   }
 
-  def decrypt(encryptedPayload: String): String = {
-    val decryptedPayload: Array[Byte] = DECRYPTER.decrypt(new ByteArrayInputStream(encryptedPayload.getBytes))
+  def decrypt(encryptedPayload: String): String =
+    decrypt(encryptedPayload.getBytes)
+
+  def decrypt(encryptedPayload: Array[Byte]): String = {
+    val decryptedPayload: Array[Byte] = DECRYPTER.decrypt(new ByteArrayInputStream(encryptedPayload))
       .readAllBytes()
     new String(decryptedPayload, StandardCharsets.UTF_8)
   }
@@ -467,10 +467,31 @@ trait LinagoraEncryptedEmailFastViewGetMethodContract {
     .`then`()
       .extract()
       .body()
-      .asString()
+      .asByteArray()
+
+    assertThat(decrypt(attachment))
+      .isEqualTo("This is a beautiful banana.\n")
+  }
+
+  @Test
+  def encryptedAttachmentsShouldBeDownloadedArmoredByDefault(server: GuiceJamesServer): Unit = {
+    val messageId: MessageId = server.getProbe(classOf[MailboxProbeImpl])
+      .appendMessage(BOB.asString(),
+        BOB_INBOX_PATH,
+        AppendCommand.from(ClassLoaderUtils.getSystemResourceAsSharedStream("emailWithTextAttachment.eml")))
+      .getMessageId
 
-    println(attachment)
+    val attachment = `given`
+      .basePath("/download")
+    .when()
+      .get(s"$ACCOUNT_ID/encryptedAttachment_${messageId.serialize()}_0")
+    .`then`()
+      .extract()
+      .body()
+      .asString()
 
+    assertThat(attachment)
+      .startsWith("-----BEGIN PGP MESSAGE-----")
     assertThat(decrypt(attachment))
       .isEqualTo("This is a beautiful banana.\n")
   }
@@ -733,9 +754,7 @@ trait LinagoraEncryptedEmailFastViewGetMethodContract {
     .`then`()
       .extract()
       .body()
-      .asString()
-
-    println(attachment)
+      .asByteArray()
 
     assertThat(decrypt(attachment))
       .isEqualTo("This is a beautiful banana.\n")
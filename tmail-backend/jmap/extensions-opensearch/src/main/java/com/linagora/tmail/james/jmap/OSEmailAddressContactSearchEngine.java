@@ -10,6 +10,7 @@ import static com.linagora.tmail.james.jmap.ContactMappingFactory.SURNAME;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import jakarta.inject.Inject;
@@ -24,15 +25,25 @@ import org.apache.james.core.Domain;
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.Username;
 import org.apache.james.jmap.api.model.AccountId;
+import org.apache.james.metrics.api.GaugeRegistry;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
 import org.apache.james.util.FunctionalUtils;
 import org.opensearch.client.opensearch._types.FieldValue;
 import org.opensearch.client.opensearch._types.Time;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
 import org.opensearch.client.opensearch._types.query_dsl.QueryBuilders;
+import org.opensearch.client.opensearch._types.query_dsl.TermsQueryField;
+import org.opensearch.client.opensearch.core.BulkRequest;
 import org.opensearch.client.opensearch.core.GetRequest;
 import org.opensearch.client.opensearch.core.GetResponse;
 import org.opensearch.client.opensearch.core.SearchRequest;
+import org.opensearch.client.opensearch.core.bulk.BulkOperation;
+import org.opensearch.client.opensearch.core.bulk.IndexOperation;
+import org.opensearch.client.opensearch.core.search.FieldCollapse;
 import org.opensearch.client.opensearch.core.search.Hit;
+import org.opensearch.client.opensearch.core.search.SourceConfig;
+import org.opensearch.client.opensearch.core.search.SourceFilter;
+import org.opensearch.client.opensearch.core.search.TrackHits;
 import org.reactivestreams.Publisher;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -41,6 +52,8 @@ import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.github.fge.lambdas.Throwing;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.linagora.tmail.james.jmap.contact.AccountContact;
 import com.linagora.tmail.james.jmap.contact.ContactFields;
 import com.linagora.tmail.james.jmap.contact.ContactNotFoundException;
 import com.linagora.tmail.james.jmap.contact.EmailAddressContact;
@@ -48,51 +61,160 @@ import com.linagora.tmail.james.jmap.contact.EmailAddressContactSearchEngine;
 import com.linagora.tmail.james.jmap.dto.DomainContactDocument;
 import com.linagora.tmail.james.jmap.dto.UserContactDocument;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import scala.collection.immutable.Seq;
+import scala.jdk.javaapi.CollectionConverters;
 
 public class OSEmailAddressContactSearchEngine implements EmailAddressContactSearchEngine {
     private static final String DELIMITER = ":";
     private static final Time TIMEOUT = new Time.Builder().time("1m").build();
 
     private static final List<String> ALL_SEARCH_FIELDS = List.of(EMAIL, FIRSTNAME, SURNAME);
+    private static final List<String> CONTACT_FIELDS = List.of(CONTACT_ID, EMAIL, FIRSTNAME, SURNAME);
+    private static final int MAX_RESULT_WINDOW = 10000;
+
+    private record DomainContactKey(String contactId, String domain) {
+    }
+
     private final OpenSearchIndexer userContactIndexer;
     private final OpenSearchIndexer domainContactIndexer;
     private final ReactorOpenSearchClient client;
     private final OpenSearchContactConfiguration configuration;
     private final ObjectMapper mapper;
+    private final RecentContactsFilter recentContactsFilter;
 
     @Inject
-    public OSEmailAddressContactSearchEngine(ReactorOpenSearchClient client, OpenSearchContactConfiguration contactConfiguration) {
+    public OSEmailAddressContactSearchEngine(ReactorOpenSearchClient client, OpenSearchContactConfiguration contactConfiguration,
+                                             GaugeRegistry gaugeRegistry) {
         this.client = client;
         this.userContactIndexer = new OpenSearchIndexer(client, contactConfiguration.getUserContactWriteAliasName());
         this.domainContactIndexer = new OpenSearchIndexer(client, contactConfiguration.getDomainContactWriteAliasName());
         this.configuration = contactConfiguration;
         this.mapper = new ObjectMapper().registerModule(new GuavaModule()).registerModule(new Jdk8Module());
+        this.recentContactsFilter = new RecentContactsFilter(contactConfiguration, gaugeRegistry);
+    }
+
+    public OSEmailAddressContactSearchEngine(ReactorOpenSearchClient client, OpenSearchContactConfiguration contactConfiguration) {
+        this(client, contactConfiguration, new NoopGaugeRegistry());
     }
 
     @Override
     public Publisher<EmailAddressContact> index(AccountId accountId, ContactFields fields) {
         EmailAddressContact emailAddressContact = EmailAddressContact.of(fields);
+        if (recentContactsFilter.isRecentlyIndexed(accountId, fields)) {
+            return Mono.just(emailAddressContact);
+        }
+
+        AccountContact accountContact = new AccountContact(accountId, fields);
+        return existingDomainContacts(ImmutableList.of(accountContact))
+            .filter(existingDomainContacts -> !existingDomainContacts.contains(domainContactKey(accountContact)))
+            .flatMap(any -> Mono.fromCallable(() -> mapper.writeValueAsString(new UserContactDocument(accountId, emailAddressContact)))
+                .flatMap(content -> userContactIndexer.index(computeUserContactDocumentId(accountId, fields.address()), content,
+                    RoutingKey.fromString(fields.address().asString())))
+                .doOnNext(indexResponse -> recentContactsFilter.recordIndexed(accountId, fields)))
+            .thenReturn(emailAddressContact);
+    }
+
+    /**
+     * Looks up the contacts already known as domain contacts with a single search, then indexes the others with a
+     * single bulk request. The duplicate lookup is the one of the single contact indexing.
+     */
+    @Override
+    public Publisher<Void> index(Seq<AccountContact> contacts) {
+        List<AccountContact> accountContacts = CollectionConverters.asJava(contacts).stream()
+            .filter(contact -> !recentContactsFilter.isRecentlyIndexed(contact.accountId(), contact.fields()))
+            .collect(ImmutableList.toImmutableList());
+        if (accountContacts.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return existingDomainContacts(accountContacts)
+            .map(existingDomainContacts -> accountContacts.stream()
+                .filter(contact -> !existingDomainContacts.contains(domainContactKey(contact)))
+                .collect(ImmutableList.toImmutableList()))
+            .filter(userContacts -> !userContacts.isEmpty())
+            .flatMap(this::bulkIndex);
+    }
+
+    private Mono<Void> bulkIndex(List<AccountContact> userContacts) {
+        List<BulkOperation> operations = userContacts.stream()
+            .map(this::toIndexOperation)
+            .collect(ImmutableList.toImmutableList());
+
+        return Throwing.supplier(() -> client.bulk(new BulkRequest.Builder()
+                .operations(operations)
+                .build())).sneakyThrow()
+            .get()
+            .flatMap(bulkResponse -> {
+                if (bulkResponse.errors()) {
+                    return Mono.error(new RuntimeException("Failed to index some of the " + userContacts.size() + " contacts of the batch"));
+                }
+                return Mono.empty();
+            })
+            .then(Mono.fromRunnable(() -> userContacts.forEach(contact -> recentContactsFilter.recordIndexed(contact.accountId(), contact.fields()))));
+    }
+
+    /**
+     * Exact lookup on the contactId and domain keyword fields: the analyzed email field only holds ngrams, which can not
+     * match an address longer than the maximum ngram.
+     */
+    private Mono<Set<DomainContactKey>> existingDomainContacts(List<AccountContact> accountContacts) {
+        List<FieldValue> contactIds = accountContacts.stream()
+            .map(contact -> EmailAddressContact.of(contact.fields()).id().toString())
+            .distinct()
+            .map(contactId -> new FieldValue.Builder().stringValue(contactId).build())
+            .collect(ImmutableList.toImmutableList());
+        List<FieldValue> domains = accountContacts.stream()
+            .flatMap(contact -> Username.of(contact.accountId().getIdentifier()).getDomainPart().stream())
+            .map(Domain::asString)
+            .distinct()
+            .map(domain -> new FieldValue.Builder().stringValue(domain).build())
+            .collect(ImmutableList.toImmutableList());
+        if (domains.isEmpty()) {
+            return Mono.just(ImmutableSet.of());
+        }
 
-        SearchRequest checkDuplicatedContactOnDomainIndexRequest = new SearchRequest.Builder()
+        SearchRequest request = new SearchRequest.Builder()
             .index(configuration.getDomainContactReadAliasName().getValue())
+            .size(Math.min(contactIds.size() * domains.size(), MAX_RESULT_WINDOW))
+            .source(new SourceConfig.Builder()
+                .filter(new SourceFilter.Builder().includes(CONTACT_ID, DOMAIN).build())
+                .build())
             .query(QueryBuilders.bool()
-                .must(QueryBuilders.multiMatch().fields(EMAIL).query(fields.address().asString()).build()._toQuery())
-                .should(QueryBuilders.term().field(DOMAIN).value(new FieldValue.Builder().stringValue(Username.of(accountId.getIdentifier()).getDomainPart()
-                    .map(Domain::asString)
-                    .orElse("")).build()).build()._toQuery())
-                .minimumShouldMatch("1")
+                .filter(QueryBuilders.terms().field(CONTACT_ID)
+                    .terms(new TermsQueryField.Builder().value(contactIds).build())
+                    .build()._toQuery())
+                .filter(QueryBuilders.terms().field(DOMAIN)
+                    .terms(new TermsQueryField.Builder().value(domains).build())
+                    .build()._toQuery())
                 .build()._toQuery())
             .build();
 
-        return Throwing.supplier(() -> client.search(checkDuplicatedContactOnDomainIndexRequest)).sneakyThrow()
+        return Throwing.supplier(() -> client.search(request)).sneakyThrow()
             .get()
-            .map(searchResponse -> searchResponse.hits().total().value())
-            .filter(hits -> hits == 0)
-            .flatMap(any -> Mono.fromCallable(() -> mapper.writeValueAsString(new UserContactDocument(accountId, emailAddressContact)))
-                .flatMap(content -> userContactIndexer.index(computeUserContactDocumentId(accountId, fields.address()), content,
-                    RoutingKey.fromString(fields.address().asString()))))
-            .thenReturn(emailAddressContact);
+            .flatMapMany(searchResponse -> Flux.fromIterable(searchResponse.hits().hits()))
+            .map(hit -> new DomainContactKey(hit.source().get(CONTACT_ID).asText(), hit.source().get(DOMAIN).asText()))
+            .collect(ImmutableSet.toImmutableSet());
+    }
+
+    private DomainContactKey domainContactKey(AccountContact contact) {
+        return new DomainContactKey(EmailAddressContact.of(contact.fields()).id().toString(),
+            Username.of(contact.accountId().getIdentifier()).getDomainPart()
+                .map(Domain::asString)
+                .orElse(""));
+    }
+
+    private BulkOperation toIndexOperation(AccountContact contact) {
+        EmailAddressContact emailAddressContact = EmailAddressContact.of(contact.fields());
+        return new BulkOperation.Builder()
+            .index(new IndexOperation.Builder<UserContactDocument>()
+                .index(configuration.getUserContactWriteAliasName().getValue())
+                .id(computeUserContactDocumentId(contact.accountId(), contact.fields().address()).asString())
+                .routing(contact.fields().address().asString())
+                .document(new UserContactDocument(contact.accountId(), emailAddressContact))
+                .build())
+            .build();
     }
 
     @Override
@@ -119,7 +241,8 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
         return userContactIndexer.delete(
                 List.of(computeUserContactDocumentId(accountId, address)),
                 RoutingKey.fromString(address.asString()))
-            .then();
+            .then()
+            .doFinally(any -> recentContactsFilter.invalidate(accountId, address));
     }
 
     @Override
@@ -130,11 +253,20 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
             .then();
     }
 
+    /**
+     * The contact id is computed from the address: collapsing on it lets OpenSearch return a contact known both as a
+     * personal and as a domain contact only once.
+     */
     @Override
     public Publisher<EmailAddressContact> autoComplete(AccountId accountId, String part, int limit) {
         SearchRequest request = new SearchRequest.Builder()
             .index(configuration.getUserContactReadAliasName().getValue(), configuration.getDomainContactReadAliasName().getValue())
             .size(limit)
+            .trackTotalHits(new TrackHits.Builder().enabled(false).build())
+            .source(new SourceConfig.Builder()
+                .filter(new SourceFilter.Builder().includes(CONTACT_FIELDS).build())
+                .build())
+            .collapse(new FieldCollapse.Builder().field(CONTACT_ID).build())
             .query(buildAutoCompleteQuery(accountId, part))
             .build();
 
@@ -155,8 +287,8 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
             .orElse(QueryBuilders.multiMatch().fields(ALL_SEARCH_FIELDS)
                 .query(part).build()._toQuery());
 
-        return QueryBuilders.bool()
-            .must(partQuery)
+        // Filter context: the owner clauses do not take part in the scoring and OpenSearch can cache them
+        Query ownerQuery = QueryBuilders.bool()
             .should(QueryBuilders.term().field(ACCOUNT_ID)
                 .value(new FieldValue.Builder().stringValue(accountId.getIdentifier()).build())
                 .build()._toQuery())
@@ -167,6 +299,11 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
                 .build()._toQuery())
             .minimumShouldMatch("1")
             .build()._toQuery();
+
+        return QueryBuilders.bool()
+            .must(partQuery)
+            .filter(ownerQuery)
+            .build()._toQuery();
     }
 
     @Override
@@ -1,5 +1,6 @@
 package com.linagora.tmail.james.jmap;
 
+import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -7,6 +8,7 @@ import org.apache.commons.configuration2.Configuration;
 import org.apache.james.backends.opensearch.IndexName;
 import org.apache.james.backends.opensearch.ReadAliasName;
 import org.apache.james.backends.opensearch.WriteAliasName;
+import org.apache.james.util.DurationParser;
 
 public class OpenSearchContactConfiguration {
 
@@ -19,6 +21,10 @@ public class OpenSearchContactConfiguration {
         private Optional<WriteAliasName> domainContactWriteAliasName;
         private Optional<Integer> maxNgramDiff;
         private Optional<Integer> minNgram;
+        private Optional<Integer> recentContactsCacheSize;
+        private Optional<Duration> recentContactsCacheExpiration;
+        private Optional<Duration> autocompleteCacheExpiration;
+        private Optional<Integer> autocompleteCacheSize;
 
         Builder() {
             userContactIndexName = Optional.empty();
@@ -29,6 +35,10 @@ public class OpenSearchContactConfiguration {
             domainContactWriteAliasName = Optional.empty();
             maxNgramDiff = Optional.empty();
             minNgram = Optional.empty();
+            recentContactsCacheSize = Optional.empty();
+            recentContactsCacheExpiration = Optional.empty();
+            autocompleteCacheExpiration = Optional.empty();
+            autocompleteCacheSize = Optional.empty();
         }
 
         Builder userContactIndexName(Optional<IndexName> userContactIndexName) {
@@ -71,6 +81,26 @@ public class OpenSearchContactConfiguration {
             return this;
         }
 
+        Builder recentContactsCacheSize(Optional<Integer> recentContactsCacheSize) {
+            this.recentContactsCacheSize = recentContactsCacheSize;
+            return this;
+        }
+
+        Builder recentContactsCacheExpiration(Optional<Duration> recentContactsCacheExpiration) {
+            this.recentContactsCacheExpiration = recentContactsCacheExpiration;
+            return this;
+        }
+
+        Builder autocompleteCacheExpiration(Optional<Duration> autocompleteCacheExpiration) {
+            this.autocompleteCacheExpiration = autocompleteCacheExpiration;
+            return this;
+        }
+
+        Builder autocompleteCacheSize(Optional<Integer> autocompleteCacheSize) {
+            this.autocompleteCacheSize = autocompleteCacheSize;
+            return this;
+        }
+
         public OpenSearchContactConfiguration build() {
             return new OpenSearchContactConfiguration(
                 userContactIndexName.orElse(DEFAULT_INDEX_USER_CONTACT_NAME),
@@ -80,7 +110,11 @@ public class OpenSearchContactConfiguration {
                 domainContactReadAliasName.orElse(DEFAULT_ALIAS_READ_DOMAIN_CONTACT_NAME),
                 domainContactWriteAliasName.orElse(DEFAULT_ALIAS_WRITE_DOMAIN_CONTACT_NAME),
                 maxNgramDiff.orElse(DEFAULT_MAX_NGRAM_DIFF),
-                minNgram.orElse(DEFAULT_MIN_NGRAM));
+                minNgram.orElse(DEFAULT_MIN_NGRAM),
+                recentContactsCacheSize.orElse(DEFAULT_RECENT_CONTACTS_CACHE_SIZE),
+                recentContactsCacheExpiration.orElse(DEFAULT_RECENT_CONTACTS_CACHE_EXPIRATION),
+                autocompleteCacheExpiration,
+                autocompleteCacheSize.orElse(DEFAULT_AUTOCOMPLETE_CACHE_SIZE));
         }
     }
 
@@ -96,6 +130,10 @@ public class OpenSearchContactConfiguration {
     private static final String OPENSEARCH_ALIAS_WRITE_DOMAIN_CONTACT_NAME = "opensearch.alias.write.contact.domain.name";
     private static final String OPENSEARCH_INDEX_CONTACT_MAX_NGRAM_DIFF = "opensearch.index.contact.max.ngram.diff";
     private static final String OPENSEARCH_INDEX_CONTACT_MIN_NGRAM = "opensearch.index.contact.min.ngram";
+    private static final String OPENSEARCH_CONTACT_RECENT_CACHE_SIZE = "opensearch.contact.recent.cache.size";
+    private static final String OPENSEARCH_CONTACT_RECENT_CACHE_EXPIRATION = "opensearch.contact.recent.cache.expiration";
+    private static final String OPENSEARCH_CONTACT_AUTOCOMPLETE_CACHE_EXPIRATION = "opensearch.contact.autocomplete.cache.expiration";
+    private static final String OPENSEARCH_CONTACT_AUTOCOMPLETE_CACHE_SIZE = "opensearch.contact.autocomplete.cache.size";
 
     public static final IndexName DEFAULT_INDEX_USER_CONTACT_NAME = new IndexName("user_contact");
     public static final IndexName DEFAULT_INDEX_DOMAIN_CONTACT_NAME = new IndexName("domain_contact");
@@ -105,6 +143,9 @@ public class OpenSearchContactConfiguration {
     public static final ReadAliasName DEFAULT_ALIAS_READ_DOMAIN_CONTACT_NAME = new ReadAliasName("domain_contact_read_alias");
     public static final Integer DEFAULT_MAX_NGRAM_DIFF = 27;
     public static final Integer DEFAULT_MIN_NGRAM = 2;
+    public static final Integer DEFAULT_RECENT_CONTACTS_CACHE_SIZE = 100_000;
+    public static final Duration DEFAULT_RECENT_CONTACTS_CACHE_EXPIRATION = Duration.ofHours(1);
+    public static final Integer DEFAULT_AUTOCOMPLETE_CACHE_SIZE = 10_000;
 
     public static final OpenSearchContactConfiguration DEFAULT_CONFIGURATION = builder().build();
 
@@ -118,6 +159,10 @@ public class OpenSearchContactConfiguration {
             .domainContactWriteAliasName(computeDomainContactWriteAlias(configuration))
             .maxNgramDiff(computeMaxNgramDiff(configuration))
             .minNgram(computeMinNgram(configuration))
+            .recentContactsCacheSize(computeRecentContactsCacheSize(configuration))
+            .recentContactsCacheExpiration(computeRecentContactsCacheExpiration(configuration))
+            .autocompleteCacheExpiration(computeAutocompleteCacheExpiration(configuration))
+            .autocompleteCacheSize(computeAutocompleteCacheSize(configuration))
             .build();
     }
 
@@ -159,6 +204,24 @@ public class OpenSearchContactConfiguration {
         return Optional.ofNullable(configuration.getInteger(OPENSEARCH_INDEX_CONTACT_MIN_NGRAM, null));
     }
 
+    static Optional<Integer> computeRecentContactsCacheSize(Configuration configuration) {
+        return Optional.ofNullable(configuration.getInteger(OPENSEARCH_CONTACT_RECENT_CACHE_SIZE, null));
+    }
+
+    static Optional<Duration> computeRecentContactsCacheExpiration(Configuration configuration) {
+        return Optional.ofNullable(configuration.getString(OPENSEARCH_CONTACT_RECENT_CACHE_EXPIRATION, null))
+            .map(DurationParser::parse);
+    }
+
+    static Optional<Duration> computeAutocompleteCacheExpiration(Configuration configuration) {
+        return Optional.ofNullable(configuration.getString(OPENSEARCH_CONTACT_AUTOCOMPLETE_CACHE_EXPIRATION, null))
+            .map(DurationParser::parse);
+    }
+
+    static Optional<Integer> computeAutocompleteCacheSize(Configuration configuration) {
+        return Optional.ofNullable(configuration.getInteger(OPENSEARCH_CONTACT_AUTOCOMPLETE_CACHE_SIZE, null));
+    }
+
     private final IndexName userContactIndexName;
     private final IndexName domainContactIndexName;
     private final ReadAliasName userContactReadAliasName;
@@ -167,10 +230,15 @@ public class OpenSearchContactConfiguration {
     private final WriteAliasName domainContactWriteAliasName;
     private final int maxNgramDiff;
     private final int minNgram;
+    private final int recentContactsCacheSize;
+    private final Duration recentContactsCacheExpiration;
+    private final Optional<Duration> autocompleteCacheExpiration;
+    private final int autocompleteCacheSize;
 
     private OpenSearchContactConfiguration(IndexName userContactIndexName, IndexName domainContactIndexName, ReadAliasName userContactReadAliasName,
                                            WriteAliasName userContactWriteAliasName, ReadAliasName domainContactReadAliasName, WriteAliasName domainContactWriteAliasName,
-                                           int maxNgramDiff, int minNgram) {
+                                           int maxNgramDiff, int minNgram, int recentContactsCacheSize, Duration recentContactsCacheExpiration,
+                                           Optional<Duration> autocompleteCacheExpiration, int autocompleteCacheSize) {
         this.userContactIndexName = userContactIndexName;
         this.domainContactIndexName = domainContactIndexName;
         this.userContactReadAliasName = userContactReadAliasName;
@@ -179,6 +247,10 @@ public class OpenSearchContactConfiguration {
         this.domainContactWriteAliasName = domainContactWriteAliasName;
         this.maxNgramDiff = maxNgramDiff;
         this.minNgram = minNgram;
+        this.recentContactsCacheSize = recentContactsCacheSize;
+        this.recentContactsCacheExpiration = recentContactsCacheExpiration;
+        this.autocompleteCacheExpiration = autocompleteCacheExpiration;
+        this.autocompleteCacheSize = autocompleteCacheSize;
     }
 
     public IndexName getUserContactIndexName() {
@@ -213,6 +285,22 @@ public class OpenSearchContactConfiguration {
         return minNgram;
     }
 
+    public int getRecentContactsCacheSize() {
+        return recentContactsCacheSize;
+    }
+
+    public Duration getRecentContactsCacheExpiration() {
+        return recentContactsCacheExpiration;
+    }
+
+    public Optional<Duration> getAutocompleteCacheExpiration() {
+        return autocompleteCacheExpiration;
+    }
+
+    public int getAutocompleteCacheSize() {
+        return autocompleteCacheSize;
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (o instanceof OpenSearchContactConfiguration that) {
@@ -223,7 +311,11 @@ public class OpenSearchContactConfiguration {
                 && Objects.equals(this.domainContactReadAliasName, that.domainContactReadAliasName)
                 && Objects.equals(this.domainContactWriteAliasName, that.domainContactWriteAliasName)
                 && Objects.equals(this.maxNgramDiff, that.maxNgramDiff)
-                && Objects.equals(this.minNgram, that.minNgram);
+                && Objects.equals(this.minNgram, that.minNgram)
+                && Objects.equals(this.recentContactsCacheSize, that.recentContactsCacheSize)
+                && Objects.equals(this.recentContactsCacheExpiration, that.recentContactsCacheExpiration)
+                && Objects.equals(this.autocompleteCacheExpiration, that.autocompleteCacheExpiration)
+                && Objects.equals(this.autocompleteCacheSize, that.autocompleteCacheSize);
         }
         return false;
     }
@@ -231,6 +323,7 @@ public class OpenSearchContactConfiguration {
     @Override
     public final int hashCode() {
         return Objects.hash(userContactIndexName, domainContactIndexName, userContactReadAliasName, userContactWriteAliasName,
-            domainContactReadAliasName, domainContactWriteAliasName, maxNgramDiff, minNgram);
+            domainContactReadAliasName, domainContactWriteAliasName, maxNgramDiff, minNgram, recentContactsCacheSize, recentContactsCacheExpiration,
+            autocompleteCacheExpiration, autocompleteCacheSize);
     }
 }
@@ -0,0 +1,56 @@
+package com.linagora.tmail.james.jmap;
+
+import java.util.UUID;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.jmap.api.model.AccountId;
+import org.apache.james.metrics.api.GaugeRegistry;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.linagora.tmail.james.jmap.contact.ContactFields;
+import com.linagora.tmail.james.jmap.contact.EmailAddressContact;
+
+/**
+ * Node local memory of the user contacts recently indexed (or found to be domain contacts), keyed by account and
+ * contact id. Indexing again a contact with the very same fields can then be skipped without querying OpenSearch.
+ *
+ * The memory is bounded in size and entries expire, so that a contact deleted by another node eventually gets
+ * indexed again.
+ */
+public class RecentContactsFilter {
+    private record Key(AccountId accountId, UUID contactId) {
+    }
+
+    private final Cache<Key, ContactFields> recentContacts;
+
+    public RecentContactsFilter(OpenSearchContactConfiguration configuration, GaugeRegistry gaugeRegistry) {
+        this.recentContacts = Caffeine.newBuilder()
+            .maximumSize(configuration.getRecentContactsCacheSize())
+            .expireAfterWrite(configuration.getRecentContactsCacheExpiration())
+            .recordStats()
+            .build();
+
+        gaugeRegistry.register("contact.recent.cache.hitRate", () -> recentContacts.stats().hitRate())
+            .register("contact.recent.cache.hitCount", () -> recentContacts.stats().hitCount())
+            .register("contact.recent.cache.missCount", () -> recentContacts.stats().missCount())
+            .register("contact.recent.cache.size", recentContacts::estimatedSize);
+    }
+
+    public boolean isRecentlyIndexed(AccountId accountId, ContactFields fields) {
+        ContactFields indexedFields = recentContacts.getIfPresent(key(accountId, fields.address()));
+        return fields.equals(indexedFields);
+    }
+
+    public void recordIndexed(AccountId accountId, ContactFields fields) {
+        recentContacts.put(key(accountId, fields.address()), fields);
+    }
+
+    public void invalidate(AccountId accountId, MailAddress address) {
+        recentContacts.invalidate(key(accountId, address));
+    }
+
+    private Key key(AccountId accountId, MailAddress address) {
+        return new Key(accountId, EmailAddressContact.computeId(address));
+    }
+}
@@ -10,6 +10,7 @@ import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.james.backends.opensearch.OpenSearchConfiguration;
 import org.apache.james.backends.opensearch.ReactorOpenSearchClient;
 import org.apache.james.lifecycle.api.Startable;
+import org.apache.james.metrics.api.GaugeRegistry;
 import org.apache.james.user.api.DeleteUserDataTaskStep;
 import org.apache.james.user.api.UsernameChangeTaskStep;
 import org.apache.james.utils.InitializationOperation;
@@ -25,6 +26,7 @@ import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
 import com.linagora.tmail.james.jmap.OSEmailAddressContactSearchEngine;
 import com.linagora.tmail.james.jmap.OpenSearchContactConfiguration;
+import com.linagora.tmail.james.jmap.contact.CachingEmailAddressContactSearchEngine;
 import com.linagora.tmail.james.jmap.contact.ContactUserDeletionTaskStep;
 import com.linagora.tmail.james.jmap.contact.ContactUsernameChangeTaskStep;
 import com.linagora.tmail.james.jmap.contact.EmailAddressContactSearchEngine;
@@ -58,8 +60,6 @@ public class OSContactAutoCompleteModule extends AbstractModule {
     protected void configure() {
         bind(OSEmailAddressContactSearchEngine.class).in(Scopes.SINGLETON);
 
-        bind(EmailAddressContactSearchEngine.class).to(OSEmailAddressContactSearchEngine.class);
-
         Multibinder.newSetBinder(binder(), UsernameChangeTaskStep.class)
             .addBinding()
             .to(ContactUsernameChangeTaskStep.class);
@@ -80,6 +80,18 @@ public class OSContactAutoCompleteModule extends AbstractModule {
         }
     }
 
+    @Provides
+    @Singleton
+    EmailAddressContactSearchEngine provideEmailAddressContactSearchEngine(OSEmailAddressContactSearchEngine searchEngine,
+                                                                           OpenSearchContactConfiguration contactConfiguration,
+                                                                           GaugeRegistry gaugeRegistry) {
+        return contactConfiguration.getAutocompleteCacheExpiration()
+            .<EmailAddressContactSearchEngine>map(expiration -> new CachingEmailAddressContactSearchEngine(searchEngine, expiration,
+                contactConfiguration.getAutocompleteCacheSize(), contactConfiguration.getMinNgram(),
+                contactConfiguration.getMinNgram() + contactConfiguration.getMaxNgramDiff(), gaugeRegistry))
+            .orElse(searchEngine);
+    }
+
     @ProvidesIntoSet
     InitializationOperation createIndex(ContactIndexCreator instance) {
         return InitilizationOperationBuilder
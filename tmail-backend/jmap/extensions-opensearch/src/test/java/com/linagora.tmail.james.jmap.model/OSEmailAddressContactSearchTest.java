@@ -4,16 +4,27 @@ import static com.linagora.tmail.james.jmap.OpenSearchContactConfiguration.DEFAU
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Durations.ONE_HUNDRED_MILLISECONDS;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
+import org.apache.james.backends.opensearch.DocumentId;
 import org.apache.james.backends.opensearch.DockerOpenSearchExtension;
 import org.apache.james.backends.opensearch.IndexCreationFactory;
 import org.apache.james.backends.opensearch.OpenSearchConfiguration;
+import org.apache.james.backends.opensearch.OpenSearchIndexer;
 import org.apache.james.backends.opensearch.ReactorOpenSearchClient;
+import org.apache.james.backends.opensearch.RoutingKey;
+import org.apache.james.core.Domain;
+import org.apache.james.core.MailAddress;
+import org.apache.james.core.Username;
+import org.apache.james.jmap.api.model.AccountId;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
 import org.awaitility.Awaitility;
 import org.awaitility.Durations;
 import org.awaitility.core.ConditionFactory;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.opensearch.client.opensearch._types.FieldValue;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
@@ -22,11 +33,18 @@ import org.opensearch.client.opensearch.core.SearchRequest;
 
 import com.linagora.tmail.james.jmap.ContactMappingFactory;
 import com.linagora.tmail.james.jmap.OSEmailAddressContactSearchEngine;
+import com.linagora.tmail.james.jmap.contact.CachingEmailAddressContactSearchEngine;
+import com.linagora.tmail.james.jmap.contact.ContactFields;
+import com.linagora.tmail.james.jmap.contact.EmailAddressContact;
 import com.linagora.tmail.james.jmap.contact.EmailAddressContactSearchEngine;
 import com.linagora.tmail.james.jmap.contact.EmailAddressContactSearchEngineContract;
+import com.linagora.tmail.james.jmap.contact.MatchAllQuery;
 import com.linagora.tmail.james.jmap.contact.MatchQuery;
 import com.linagora.tmail.james.jmap.contact.QueryType;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 public class OSEmailAddressContactSearchTest implements EmailAddressContactSearchEngineContract {
     private static final ConditionFactory CALMLY_AWAIT = Awaitility
         .with().pollInterval(ONE_HUNDRED_MILLISECONDS)
@@ -50,6 +68,117 @@ public class OSEmailAddressContactSearchTest implements EmailAddressContactSearc
         searchEngine = new OSEmailAddressContactSearchEngine(client, DEFAULT_CONFIGURATION);
     }
 
+    @Test
+    void indexShouldSkipRecentlyIndexedContact() throws Exception {
+        AccountId accountId = AccountId.fromUsername(Username.of("bob@linagora.com"));
+        ContactFields contact = new ContactFields(new MailAddress("nobita@other.com"), "John", "Carpenter");
+        Mono.from(searchEngine.index(accountId, contact)).block();
+        awaitDocumentsIndexed(new MatchAllQuery(), 1);
+
+        // Bypasses the search engine: only a new OpenSearch round trip would index the contact again
+        deleteUserContactDocument(accountId, contact.address());
+        awaitDocumentsIndexed(new MatchAllQuery(), 0);
+        Mono.from(searchEngine.index(accountId, contact)).block();
+        Thread.sleep(500); // wait for the contact to be potentially indexed by OS
+
+        awaitDocumentsIndexed(new MatchAllQuery(), 0);
+    }
+
+    @Test
+    void indexShouldIndexAgainADeletedContact() throws Exception {
+        AccountId accountId = AccountId.fromUsername(Username.of("bob@linagora.com"));
+        ContactFields contact = new ContactFields(new MailAddress("nobita@other.com"), "John", "Carpenter");
+        Mono.from(searchEngine.index(accountId, contact)).block();
+        awaitDocumentsIndexed(new MatchAllQuery(), 1);
+        Mono.from(searchEngine.delete(accountId, contact.address())).block();
+        awaitDocumentsIndexed(new MatchAllQuery(), 0);
+
+        Mono.from(searchEngine.index(accountId, contact)).block();
+
+        awaitDocumentsIndexed(new MatchAllQuery(), 1);
+    }
+
+    @Test
+    void indexShouldIndexAContactSkippedAsADomainContactOnceTheDomainContactIsDeleted() throws Exception {
+        AccountId accountId = AccountId.fromUsername(Username.of("bob@linagora.com"));
+        ContactFields contact = new ContactFields(new MailAddress("nobita@linagora.com"), "John", "Carpenter");
+        Mono.from(searchEngine.index(Domain.of("linagora.com"), contact)).block();
+        awaitDocumentsIndexed(new MatchAllQuery(), 1);
+        Mono.from(searchEngine.index(accountId, contact)).block();
+        Mono.from(searchEngine.delete(Domain.of("linagora.com"), contact.address())).block();
+        awaitDocumentsIndexed(new MatchAllQuery(), 0);
+
+        Mono.from(searchEngine.index(accountId, contact)).block();
+
+        awaitDocumentsIndexed(new MatchAllQuery(), 1);
+    }
+
+    @Test
+    void cachedAutoCompleteShouldNotBeNarrowedFromAPartShorterThanTheMinimumNgram() throws Exception {
+        AccountId accountId = AccountId.fromUsername(Username.of("bob@linagora.com"));
+        ContactFields contact = new ContactFields(new MailAddress("nobita@other.com"), "John", "Carpenter");
+        EmailAddressContactSearchEngine cachingSearchEngine = cachingSearchEngine();
+        Mono.from(cachingSearchEngine.index(accountId, contact)).block();
+        awaitDocumentsIndexed(new MatchAllQuery(), 1);
+
+        // OpenSearch matches nothing for a single character
+        autoComplete(cachingSearchEngine, accountId, "n");
+
+        assertThat(autoComplete(cachingSearchEngine, accountId, "no")).containsExactly(contact);
+    }
+
+    @Test
+    void cachedAutoCompleteShouldMatchOpenSearchForAPartLongerThanTheMaximumNgram() throws Exception {
+        AccountId accountId = AccountId.fromUsername(Username.of("bob@linagora.com"));
+        ContactFields contact = new ContactFields(new MailAddress("nobita.nobi.from.the.future@other.com"), "John", "Carpenter");
+        EmailAddressContactSearchEngine cachingSearchEngine = cachingSearchEngine();
+        Mono.from(cachingSearchEngine.index(accountId, contact)).block();
+        awaitDocumentsIndexed(new MatchAllQuery(), 1);
+        autoComplete(cachingSearchEngine, accountId, "nobita");
+
+        String longPart = contact.address().asString();
+        assertThat(longPart.length()).isGreaterThan(DEFAULT_CONFIGURATION.getMinNgram() + DEFAULT_CONFIGURATION.getMaxNgramDiff());
+        assertThat(autoComplete(cachingSearchEngine, accountId, longPart))
+            .isEqualTo(autoComplete(searchEngine, accountId, longPart));
+    }
+
+    @Test
+    void cachedAutoCompleteShouldMatchOpenSearchForAccentedParts() throws Exception {
+        AccountId accountId = AccountId.fromUsername(Username.of("bob@linagora.com"));
+        ContactFields frenchContact = new ContactFields(new MailAddress("dchloe@other.com"), "Dené", "Chloé");
+        ContactFields asciiContact = new ContactFields(new MailAddress("jcarpenter@other.com"), "Jose", "Carpenter");
+        EmailAddressContactSearchEngine cachingSearchEngine = cachingSearchEngine();
+        Mono.from(cachingSearchEngine.index(accountId, frenchContact)).block();
+        Mono.from(cachingSearchEngine.index(accountId, asciiContact)).block();
+        awaitDocumentsIndexed(new MatchAllQuery(), 2);
+        autoComplete(cachingSearchEngine, accountId, "de");
+        autoComplete(cachingSearchEngine, accountId, "jo");
+
+        for (String part : List.of("dene", "dené", "jose", "josé")) {
+            assertThat(autoComplete(cachingSearchEngine, accountId, part))
+                .as(part)
+                .isEqualTo(autoComplete(searchEngine, accountId, part));
+        }
+    }
+
+    private EmailAddressContactSearchEngine cachingSearchEngine() {
+        return new CachingEmailAddressContactSearchEngine(searchEngine, Duration.ofMinutes(1), 1000, DEFAULT_CONFIGURATION.getMinNgram(),
+            DEFAULT_CONFIGURATION.getMinNgram() + DEFAULT_CONFIGURATION.getMaxNgramDiff(), new NoopGaugeRegistry());
+    }
+
+    private List<ContactFields> autoComplete(EmailAddressContactSearchEngine engine, AccountId accountId, String part) {
+        return Flux.from(engine.autoComplete(accountId, part, 256))
+            .map(EmailAddressContact::fields)
+            .collectList()
+            .block();
+    }
+
+    private void deleteUserContactDocument(AccountId accountId, MailAddress address) {
+        new OpenSearchIndexer(client, DEFAULT_CONFIGURATION.getUserContactWriteAliasName())
+            .delete(List.of(DocumentId.fromString(accountId.getIdentifier() + ":" + address.asString())), RoutingKey.fromString(address.asString()))
+            .block();
+    }
+
     @Override
     public EmailAddressContactSearchEngine testee() {
         return searchEngine;
@@ -0,0 +1,149 @@
+package com.linagora.tmail.james.jmap;
+
+import static com.linagora.tmail.james.jmap.OpenSearchContactConfiguration.DEFAULT_CONFIGURATION;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.james.backends.opensearch.DockerOpenSearchSingleton;
+import org.apache.james.backends.opensearch.IndexCreationFactory;
+import org.apache.james.backends.opensearch.OpenSearchConfiguration;
+import org.apache.james.backends.opensearch.ReactorOpenSearchClient;
+import org.apache.james.core.Domain;
+import org.apache.james.core.MailAddress;
+import org.apache.james.core.Username;
+import org.apache.james.jmap.api.model.AccountId;
+import org.awaitility.Awaitility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.opensearch.client.opensearch._types.query_dsl.QueryBuilders;
+import org.opensearch.client.opensearch.core.SearchRequest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.linagora.tmail.james.jmap.contact.AccountContact;
+import com.linagora.tmail.james.jmap.contact.ContactFields;
+import com.linagora.tmail.james.jmap.contact.EmailAddressContact;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import scala.jdk.javaapi.CollectionConverters;
+
+/**
+ * Measures the autocomplete latency against an OpenSearch container, one benchmark parameter per keystroke of the
+ * typed name. The sample time mode reports the p50 and p99 latencies of each keystroke.
+ *
+ * Not part of the test suite: run the main method from the IDE, with docker available.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OSEmailAddressContactAutoCompleteBenchmark {
+    private static final Domain DOMAIN = Domain.of("linagora.com");
+    private static final AccountId ACCOUNT_ID = AccountId.fromUsername(Username.of("bob@linagora.com"));
+    private static final List<String> FIRSTNAMES = ImmutableList.of("John", "Marie", "Alice", "Robert", "Sophie", "Thomas",
+        "Julie", "Nicolas", "Emma", "Lucas", "Camille", "Hugo", "Chloe", "Louis", "Lea", "Arthur");
+    private static final List<String> SURNAMES = ImmutableList.of("Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard",
+        "Petit", "Durand", "Leroy", "Moreau", "Simon", "Laurent", "Lefebvre", "Michel", "Garcia", "David");
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"10000", "100000"})
+    public int contactCount;
+
+    // The successive keystrokes of a user typing "marie.durand"
+    @Param({"m", "ma", "mar", "mari", "marie", "marie.", "marie.d", "marie.du", "marie.dur", "marie.durand"})
+    public String part;
+
+    @Param({"10"})
+    public int limit;
+
+    private ReactorOpenSearchClient client;
+    private OSEmailAddressContactSearchEngine searchEngine;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        client = DockerOpenSearchSingleton.INSTANCE.clientProvider().get();
+        ContactMappingFactory contactMappingFactory = new ContactMappingFactory(OpenSearchConfiguration.DEFAULT_CONFIGURATION, DEFAULT_CONFIGURATION);
+        new IndexCreationFactory(OpenSearchConfiguration.DEFAULT_CONFIGURATION)
+            .useIndex(DEFAULT_CONFIGURATION.getUserContactIndexName())
+            .addAlias(DEFAULT_CONFIGURATION.getUserContactReadAliasName())
+            .addAlias(DEFAULT_CONFIGURATION.getUserContactWriteAliasName())
+            .createIndexAndAliases(client, Optional.of(contactMappingFactory.generalContactIndicesSetting()), Optional.of(contactMappingFactory.userContactMappingContent()));
+        new IndexCreationFactory(OpenSearchConfiguration.DEFAULT_CONFIGURATION)
+            .useIndex(DEFAULT_CONFIGURATION.getDomainContactIndexName())
+            .addAlias(DEFAULT_CONFIGURATION.getDomainContactReadAliasName())
+            .addAlias(DEFAULT_CONFIGURATION.getDomainContactWriteAliasName())
+            .createIndexAndAliases(client, Optional.of(contactMappingFactory.generalContactIndicesSetting()), Optional.of(contactMappingFactory.domainContactMappingContent()));
+        searchEngine = new OSEmailAddressContactSearchEngine(client, DEFAULT_CONFIGURATION);
+
+        // Nine personal contacts out of ten, the others being domain contacts
+        ImmutableList.Builder<AccountContact> personalContacts = ImmutableList.builder();
+        ImmutableList.Builder<ContactFields> domainContacts = ImmutableList.builder();
+        for (int i = 0; i < contactCount; i++) {
+            String firstname = FIRSTNAMES.get(i % FIRSTNAMES.size());
+            String surname = SURNAMES.get((i / FIRSTNAMES.size()) % SURNAMES.size());
+            ContactFields fields = new ContactFields(new MailAddress(firstname.toLowerCase() + "." + surname.toLowerCase() + i + "@domain" + (i % 100) + ".com"),
+                firstname, surname);
+            if (i % 10 == 0) {
+                domainContacts.add(fields);
+            } else {
+                personalContacts.add(new AccountContact(ACCOUNT_ID, fields));
+            }
+        }
+
+        Flux.fromIterable(Lists.partition(personalContacts.build(), BATCH_SIZE))
+            .concatMap(batch -> Mono.from(searchEngine.index(CollectionConverters.asScala(batch).toSeq())))
+            .then()
+            .block();
+        Flux.fromIterable(domainContacts.build())
+            .flatMap(fields -> Mono.from(searchEngine.index(DOMAIN, fields)), 16)
+            .then()
+            .block();
+
+        Awaitility.await().atMost(Duration.ofMinutes(2))
+            .until(() -> client.search(new SearchRequest.Builder()
+                    .index(DEFAULT_CONFIGURATION.getUserContactIndexName().getValue(), DEFAULT_CONFIGURATION.getDomainContactIndexName().getValue())
+                    .query(QueryBuilders.matchAll().build()._toQuery())
+                    .build())
+                .block()
+                .hits().total().value() == contactCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DockerOpenSearchSingleton.INSTANCE.cleanUpData();
+    }
+
+    @Benchmark
+    public List<EmailAddressContact> autoComplete() {
+        return Flux.from(searchEngine.autoComplete(ACCOUNT_ID, part, limit))
+            .collectList()
+            .block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(OSEmailAddressContactAutoCompleteBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+}
@@ -0,0 +1,196 @@
+package com.linagora.tmail.james.jmap.contact
+
+import java.text.Normalizer
+import java.time.Duration
+import java.util.Locale
+import java.util.concurrent.atomic.AtomicLong
+
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import com.linagora.tmail.james.jmap.contact.CachingEmailAddressContactSearchEngine.{AutoCompleteKey, AutoCompleteResult, Generation, NO_DOMAIN_GENERATION, fold}
+import org.apache.james.core.{Domain, MailAddress, Username}
+import org.apache.james.jmap.api.model.AccountId
+import org.apache.james.metrics.api.GaugeRegistry
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.jdk.OptionConverters._
+
+object CachingEmailAddressContactSearchEngine {
+  private val NO_DOMAIN_GENERATION: Long = 0L
+
+  private[contact] case class Generation(account: Long, domain: Long)
+
+  private[contact] case class AutoCompleteKey(accountId: AccountId, generation: Generation, part: String)
+
+  private[contact] case class AutoCompleteResult(limit: Int, contacts: Seq[EmailAddressContact]) {
+    // Fewer contacts than the limit: this is every contact matching the part
+    def isComplete: Boolean = contacts.size < limit
+
+    def canAnswer(requestedLimit: Int): Boolean = isComplete || requestedLimit <= limit
+  }
+
+  private[contact] def fold(value: String): String =
+    Normalizer.normalize(value, Normalizer.Form.NFD)
+      .replaceAll("\\p{M}", "")
+}
+
+/**
+ * Node local, short lived cache of the autocomplete results of the underlying search engine.
+ *
+ * Clients autocomplete on each keystroke: when the result of a shorter prefix is cached and complete (not truncated by
+ * its limit), the result of a longer part is computed by filtering it. The filtering mimics the contact mappings:
+ * prefix match on the name words, substring match on the address. Results are keyed on the part exactly as sent to the
+ * underlying search engine: the name words are indexed both as is and ascii folded, but the part is never folded.
+ *
+ * This only holds for parts the ngrams of the mappings can match: shorter than `minNgram` they match nothing, and
+ * longer than `maxNgram` they match no address nor name word. Such parts are passed through to the underlying search
+ * engine, and only prefixes of at least `minNgram` characters get narrowed.
+ *
+ * Indexing, updating or deleting a contact bumps the generation of the impacted account or domain: the cached results of
+ * the previous generation are no longer looked up, and get evicted by expiration or size. Changes done on other nodes
+ * are only seen once the cached results expired.
+ */
+class CachingEmailAddressContactSearchEngine(underlying: EmailAddressContactSearchEngine,
+                                             expiration: Duration,
+                                             maximumSize: Long,
+                                             minNgram: Int,
+                                             maxNgram: Int,
+                                             gaugeRegistry: GaugeRegistry) extends EmailAddressContactSearchEngine {
+  private val results: Cache[AutoCompleteKey, AutoCompleteResult] = Caffeine.newBuilder()
+    .expireAfterWrite(expiration)
+    .maximumSize(maximumSize)
+    .build()
+  private val generationCounter: AtomicLong = new AtomicLong()
+  private val accountGenerations: Cache[AccountId, java.lang.Long] = Caffeine.newBuilder()
+    .expireAfterAccess(expiration)
+    .maximumSize(maximumSize)
+    .build()
+  private val domainGenerations: Cache[Domain, java.lang.Long] = Caffeine.newBuilder()
+    .expireAfterAccess(expiration)
+    .maximumSize(maximumSize)
+    .build()
+  private val hitCount: AtomicLong = new AtomicLong()
+  private val narrowedCount: AtomicLong = new AtomicLong()
+  private val missCount: AtomicLong = new AtomicLong()
+
+  gaugeRegistry.register("contact.autocomplete.cache.hitRate", () => hitRate())
+    .register("contact.autocomplete.cache.hitCount", () => hitCount.get())
+    .register("contact.autocomplete.cache.narrowedCount", () => narrowedCount.get())
+    .register("contact.autocomplete.cache.missCount", () => missCount.get())
+    .register("contact.autocomplete.cache.size", () => results.estimatedSize())
+
+  private def hitRate(): Double = {
+    val hits: Long = hitCount.get() + narrowedCount.get()
+    val total: Long = hits + missCount.get()
+    if (total == 0) 0d else hits.toDouble / total
+  }
+
+  override def autoComplete(accountId: AccountId, part: String, limit: Int): Publisher[EmailAddressContact] =
+    SFlux.defer(() => {
+      val key: AutoCompleteKey = AutoCompleteKey(accountId, generation(accountId), part)
+
+      val cached: Option[Seq[EmailAddressContact]] = if (isCacheable(key.part)) cachedResult(key, limit) else None
+
+      cached
+        .map(contacts => SFlux.fromIterable(contacts))
+        .getOrElse(SFlux.fromPublisher(underlying.autoComplete(accountId, part, limit))
+          .collectSeq()
+          .doOnNext(contacts => {
+            missCount.incrementAndGet()
+            if (isCacheable(key.part)) {
+              results.put(key, AutoCompleteResult(limit, contacts))
+            }
+          })
+          .flatMapMany(contacts => SFlux.fromIterable(contacts)))
+    })
+
+  private def cachedResult(key: AutoCompleteKey, limit: Int): Option[Seq[EmailAddressContact]] =
+    Option(results.getIfPresent(key))
+      .filter(_.canAnswer(limit))
+      .map(result => {
+        hitCount.incrementAndGet()
+        result.contacts.take(limit)
+      })
+      .orElse(narrowedResult(key, limit))
+
+  private def narrowedResult(key: AutoCompleteKey, limit: Int): Option[Seq[EmailAddressContact]] =
+    if (key.part.exists(Character.isWhitespace)) {
+      // Several words are matched independently: a longer part can match more contacts
+      None
+    } else {
+      (key.part.length - 1 to minNgram by -1).iterator
+        .flatMap(length => Option(results.getIfPresent(key.copy(part = key.part.substring(0, length)))))
+        .find(_.isComplete)
+        .map(shorterPrefixResult => {
+          val narrowed: AutoCompleteResult = AutoCompleteResult(limit, shorterPrefixResult.contacts.filter(matches(key.part)).take(limit))
+          results.put(key, narrowed)
+          narrowedCount.incrementAndGet()
+          narrowed.contacts
+        })
+    }
+
+  private def isCacheable(part: String): Boolean =
+    part.length >= minNgram && part.length <= maxNgram
+
+  private def matches(part: String)(contact: EmailAddressContact): Boolean = {
+    val lowerCasePart: String = part.toLowerCase(Locale.US)
+    contact.fields.address.asString().toLowerCase(Locale.US).contains(lowerCasePart) ||
+      (!lowerCasePart.contains("@") && Seq(contact.fields.firstname, contact.fields.surname)
+        .flatMap(name => name.toLowerCase(Locale.US).split("\\s+"))
+        .exists(word => word.startsWith(lowerCasePart) || fold(word).startsWith(lowerCasePart)))
+  }
+
+  private def generation(accountId: AccountId): Generation =
+    Generation(
+      account = accountGenerations.get(accountId, _ => generationCounter.incrementAndGet()),
+      domain = domain(accountId)
+        .map(domain => domainGenerations.get(domain, _ => generationCounter.incrementAndGet()).longValue())
+        .getOrElse(NO_DOMAIN_GENERATION))
+
+  private def domain(accountId: AccountId): Option[Domain] =
+    Username.of(accountId.getIdentifier).getDomainPart.toScala
+
+  private def invalidate(accountId: AccountId): Unit =
+    accountGenerations.put(accountId, generationCounter.incrementAndGet())
+
+  private def invalidate(domain: Domain): Unit =
+    domainGenerations.put(domain, generationCounter.incrementAndGet())
+
+  override def index(accountId: AccountId, fields: ContactFields): Publisher[EmailAddressContact] =
+    SMono.fromPublisher(underlying.index(accountId, fields))
+      .doOnTerminate(() => invalidate(accountId))
+
+  override def index(domain: Domain, fields: ContactFields): Publisher[EmailAddressContact] =
+    SMono.fromPublisher(underlying.index(domain, fields))
+      .doOnTerminate(() => invalidate(domain))
+
+  override def index(contacts: Seq[AccountContact]): Publisher[Void] =
+    SMono.fromPublisher(underlying.index(contacts))
+      .doOnTerminate(() => contacts.map(_.accountId).distinct.foreach(accountId => invalidate(accountId)))
+
+  override def update(accountId: AccountId, updatedFields: ContactFields): Publisher[EmailAddressContact] =
+    SMono.fromPublisher(underlying.update(accountId, updatedFields))
+      .doOnTerminate(() => invalidate(accountId))
+
+  override def update(domain: Domain, updatedFields: ContactFields): Publisher[EmailAddressContact] =
+    SMono.fromPublisher(underlying.update(domain, updatedFields))
+      .doOnTerminate(() => invalidate(domain))
+
+  override def delete(accountId: AccountId, mailAddress: MailAddress): Publisher[Void] =
+    SMono.fromPublisher(underlying.delete(accountId, mailAddress))
+      .doOnTerminate(() => invalidate(accountId))
+
+  override def delete(domain: Domain, mailAddress: MailAddress): Publisher[Void] =
+    SMono.fromPublisher(underlying.delete(domain, mailAddress))
+      .doOnTerminate(() => invalidate(domain))
+
+  override def list(accountId: AccountId): Publisher[EmailAddressContact] = underlying.list(accountId)
+
+  override def list(domain: Domain): Publisher[EmailAddressContact] = underlying.list(domain)
+
+  override def listDomainsContacts(): Publisher[EmailAddressContact] = underlying.listDomainsContacts()
+
+  override def get(accountId: AccountId, mailAddress: MailAddress): Publisher[EmailAddressContact] = underlying.get(accountId, mailAddress)
+
+  override def get(domain: Domain, mailAddress: MailAddress): Publisher[EmailAddressContact] = underlying.get(domain, mailAddress)
+}
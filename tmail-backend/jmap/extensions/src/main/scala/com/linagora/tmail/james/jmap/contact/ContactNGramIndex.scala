@@ -0,0 +1,89 @@
+package com.linagora.tmail.james.jmap.contact
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.{Comparator, Set => JavaSet}
+
+import com.google.common.collect.{ImmutableList, Ordering}
+import com.linagora.tmail.james.jmap.contact.ContactNGramIndex.{GRAM_LENGTH, IndexedContact, ORDERING, grams}
+import org.apache.james.core.MailAddress
+
+import scala.jdk.CollectionConverters._
+
+private[contact] object ContactNGramIndex {
+  val GRAM_LENGTH: Int = 3
+
+  private case class IndexedContact(contact: EmailAddressContact, address: String, lowerCaseFields: Seq[String]) {
+    def matches(lowerCasePart: String): Boolean = lowerCaseFields.exists(_.contains(lowerCasePart))
+  }
+
+  private object IndexedContact {
+    def of(contact: EmailAddressContact): IndexedContact = IndexedContact(contact, contact.fields.address.asString(),
+      Seq(contact.fields.address.asString().toLowerCase, contact.fields.firstname.toLowerCase, contact.fields.surname.toLowerCase))
+  }
+
+  private val ORDERING: Ordering[IndexedContact] = Ordering.from(Comparator.comparing[IndexedContact, String](_.address))
+
+  private def grams(lowerCaseValue: String): Iterator[String] =
+    if (lowerCaseValue.length < GRAM_LENGTH) {
+      Iterator.empty
+    } else {
+      lowerCaseValue.sliding(GRAM_LENGTH)
+    }
+}
+
+/**
+ * The contacts of an account or of a domain, with a trigram index over their lower cased address, first name and surname.
+ *
+ * Searching a part of at least three characters only checks the contacts holding all of its trigrams. Shorter
+ * parts fall back to checking every contact. Only the `limit` first contacts by address are then kept, without sorting
+ * all the matches.
+ */
+private[contact] class ContactNGramIndex {
+  private val contacts: ConcurrentHashMap[MailAddress, IndexedContact] = new ConcurrentHashMap()
+  private val postings: ConcurrentHashMap[String, JavaSet[MailAddress]] = new ConcurrentHashMap()
+
+  def put(contact: EmailAddressContact): Unit = synchronized {
+    val indexedContact: IndexedContact = IndexedContact.of(contact)
+    Option(contacts.put(contact.fields.address, indexedContact))
+      .foreach(unindex)
+    indexedContact.lowerCaseFields.iterator
+      .flatMap(grams)
+      .foreach(gram => postings.computeIfAbsent(gram, _ => ConcurrentHashMap.newKeySet()).add(contact.fields.address))
+  }
+
+  def remove(mailAddress: MailAddress): Unit = synchronized {
+    Option(contacts.remove(mailAddress))
+      .foreach(unindex)
+  }
+
+  private def unindex(indexedContact: IndexedContact): Unit =
+    indexedContact.lowerCaseFields.iterator
+      .flatMap(grams)
+      .foreach(gram => postings.computeIfPresent(gram, (_, addresses) => {
+        addresses.remove(indexedContact.contact.fields.address)
+        if (addresses.isEmpty) null else addresses
+      }))
+
+  def values(): ImmutableList[EmailAddressContact] =
+    ImmutableList.copyOf(contacts.values().asScala.map(_.contact).asJava)
+
+  def search(lowerCasePart: String, limit: Int): Seq[EmailAddressContact] =
+    ORDERING.leastOf(candidates(lowerCasePart).filter(_.matches(lowerCasePart)).asJava, limit)
+      .asScala
+      .map(_.contact)
+      .toSeq
+
+  private def candidates(lowerCasePart: String): Iterator[IndexedContact] =
+    if (lowerCasePart.length < GRAM_LENGTH) {
+      contacts.values().iterator().asScala
+    } else {
+      val partPostings: Seq[JavaSet[MailAddress]] = grams(lowerCasePart).distinct
+        .map(gram => postings.getOrDefault(gram, JavaSet.of()))
+        .toSeq
+      val smallestPosting: JavaSet[MailAddress] = partPostings.minBy(_.size())
+
+      smallestPosting.iterator().asScala
+        .filter(address => partPostings.forall(_.contains(address)))
+        .flatMap(address => Option(contacts.get(address)))
+    }
+}
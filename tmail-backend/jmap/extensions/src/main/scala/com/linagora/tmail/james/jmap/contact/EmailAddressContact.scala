@@ -2,8 +2,9 @@ package com.linagora.tmail.james.jmap.contact
 
 import java.nio.charset.StandardCharsets
 import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
 
-import com.google.common.collect.{HashBasedTable, ImmutableList, Table, Tables}
+import com.google.common.collect.ImmutableList
 import com.google.inject.multibindings.Multibinder
 import com.google.inject.{AbstractModule, Scopes}
 import org.apache.james.core.{Domain, MailAddress, Username}
@@ -14,7 +15,7 @@ import org.apache.james.user.api.{DeleteUserDataTaskStep, UsernameChangeTaskStep
 import org.reactivestreams.Publisher
 import reactor.core.scala.publisher.{SFlux, SMono}
 
-import scala.jdk.CollectionConverters.CollectionHasAsScala
+import scala.jdk.CollectionConverters._
 import scala.jdk.OptionConverters._
 
 case class InMemoryEmailAddressContactSearchEngineModule() extends AbstractModule {
@@ -33,7 +34,7 @@ case class InMemoryEmailAddressContactSearchEngineModule() extends AbstractModul
 }
 
 object EmailAddressContact {
-  private def computeId(mailAddress: MailAddress): UUID = UUID.nameUUIDFromBytes(mailAddress.asString().getBytes(StandardCharsets.UTF_8))
+  def computeId(mailAddress: MailAddress): UUID = UUID.nameUUIDFromBytes(mailAddress.asString().getBytes(StandardCharsets.UTF_8))
 
   def of(fields: ContactFields): EmailAddressContact = EmailAddressContact(computeId(fields.address), fields)
 }
@@ -45,6 +46,8 @@ case class ContactFields(address: MailAddress, firstname: String = "", surname:
     address.asString().contains(part) || firstname.contains(part) || surname.contains(part)
 }
 
+case class AccountContact(accountId: AccountId, fields: ContactFields)
+
 case class ContactNotFoundException(mailAddress: MailAddress) extends RuntimeException {
   override def getMessage: String = s"The contact ${mailAddress.asString()} can not be found"
 }
@@ -54,6 +57,15 @@ trait EmailAddressContactSearchEngine {
 
   def index(domain: Domain, fields: ContactFields): Publisher[EmailAddressContact]
 
+  /**
+   * Indexes the contacts of several accounts at once. Implementations backed by a remote index should override it to
+   * save round trips.
+   */
+  def index(contacts: Seq[AccountContact]): Publisher[Void] =
+    SFlux.fromIterable(contacts)
+      .concatMap(contact => index(contact.accountId, contact.fields))
+      .`then`()
+
   def update(accountId: AccountId, updatedFields: ContactFields): Publisher[EmailAddressContact]
 
   def update(domain: Domain, updatedFields: ContactFields): Publisher[EmailAddressContact]
@@ -87,51 +99,64 @@ case class TmailContactUserAddedEvent(eventId: EventId, username: Username, cont
   override def getEventId: EventId = eventId
 }
 
+case class TmailContactUserBatchAddedEvent(eventId: EventId, username: Username, contacts: Seq[ContactFields]) extends TmailContactUserEvent {
+  override def getUsername: Username = username
+
+  override def isNoop: Boolean = contacts.isEmpty
+
+  override def getEventId: EventId = eventId
+}
+
 class InMemoryEmailAddressContactSearchEngine extends EmailAddressContactSearchEngine {
-  private val userContactList: Table[AccountId, MailAddress, EmailAddressContact] = Tables.synchronizedTable(HashBasedTable.create())
-  private val domainContactList: Table[Domain, MailAddress, EmailAddressContact] = Tables.synchronizedTable(HashBasedTable.create())
+  private val userContactList: ConcurrentHashMap[AccountId, ContactNGramIndex] = new ConcurrentHashMap()
+  private val domainContactList: ConcurrentHashMap[Domain, ContactNGramIndex] = new ConcurrentHashMap()
 
   override def index(accountId: AccountId, fields: ContactFields): Publisher[EmailAddressContact] =
     index(accountId, EmailAddressContact.of(fields))
 
   private def index(accountId: AccountId, addressContact: EmailAddressContact) =
-    SFlux.fromIterable(domainContactList.values().asScala)
-      .filter(contact => contact.fields.address.equals(addressContact.fields.address))
-      .count()
-      .map(hits => hits == 0)
-      .flatMap(_ => SMono.fromCallable(() => userContactList.put(accountId, addressContact.fields.address, addressContact)))
+    SMono.fromCallable(() => userContactList.computeIfAbsent(accountId, _ => new ContactNGramIndex()).put(addressContact))
       .`then`(SMono.just(addressContact))
 
   override def index(domain: Domain, fields: ContactFields): Publisher[EmailAddressContact] =
     index(domain, EmailAddressContact.of(fields))
 
   private def index(domain: Domain, addressContact: EmailAddressContact): Publisher[EmailAddressContact] =
-    SMono.fromCallable(() => domainContactList.put(domain, addressContact.fields.address, addressContact))
+    SMono.fromCallable(() => domainContactList.computeIfAbsent(domain, _ => new ContactNGramIndex()).put(addressContact))
       .`then`(SMono.just(addressContact))
 
   override def update(accountId: AccountId, updatedFields: ContactFields): Publisher[EmailAddressContact] =
-    SMono.fromCallable(() => userContactList.put(accountId, updatedFields.address, EmailAddressContact.of(updatedFields)))
+    index(accountId, EmailAddressContact.of(updatedFields))
 
   override def update(domain: Domain, updatedFields: ContactFields): Publisher[EmailAddressContact] =
-    SMono.fromCallable(() => domainContactList.put(domain, updatedFields.address, EmailAddressContact.of(updatedFields)))
+    index(domain, EmailAddressContact.of(updatedFields))
 
   override def delete(accountId: AccountId, mailAddress: MailAddress): Publisher[Void] =
-    SMono.fromCallable(() => userContactList.remove(accountId, mailAddress))
+    SMono.fromCallable(() => Option(userContactList.get(accountId)).foreach(_.remove(mailAddress)))
       .`then`()
 
   override def delete(domain: Domain, mailAddress: MailAddress): Publisher[Void] =
-    SMono.fromCallable(() => domainContactList.remove(domain, mailAddress))
+    SMono.fromCallable(() => Option(domainContactList.get(domain)).foreach(_.remove(mailAddress)))
       .`then`()
 
   override def autoComplete(accountId: AccountId, part: String, limit: Int): Publisher[EmailAddressContact] = {
     val maybeDomain: Option[Domain] = Username.of(accountId.getIdentifier).getDomainPart.toScala
-    SFlux.concat(
-      maybeDomain.map(domain => SFlux.fromIterable(domainContactList.row(domain).values().asScala)).getOrElse(SFlux.empty),
-      SFlux.fromIterable(userContactList.row(accountId).values().asScala))
-      .filter(lowerCaseContact(_).fields.contains(part.toLowerCase))
-      .sort(Ordering.by[EmailAddressContact, String](contact => contact.fields.address.asString))
-      .distinct(_.id)
-      .take(limit)
+    SMono.fromCallable(() => {
+      val lowerCasePart: String = part.toLowerCase
+      // Each index only returns its `limit` first contacts: merging them is enough to get the overall `limit` first ones
+      val domainContacts: Seq[EmailAddressContact] = maybeDomain.flatMap(domain => Option(domainContactList.get(domain)))
+        .map(_.search(lowerCasePart, limit))
+        .getOrElse(Seq())
+      val userContacts: Seq[EmailAddressContact] = Option(userContactList.get(accountId))
+        .map(_.search(lowerCasePart, limit))
+        .getOrElse(Seq())
+
+      (domainContacts ++ userContacts)
+        .sortBy(_.fields.address.asString)
+        .distinctBy(_.id)
+        .take(limit)
+    })
+      .flatMapMany(contacts => SFlux.fromIterable(contacts))
       .map(lowerCaseEmailAddress)
   }
 
@@ -143,23 +168,29 @@ class InMemoryEmailAddressContactSearchEngine extends EmailAddressContactSearchE
     EmailAddressContact(contact.id, ContactFields(address = new MailAddress(contact.fields.address.asString().toLowerCase),
       firstname = contact.fields.firstname, surname = contact.fields.surname))
 
+  private def contacts(accountId: AccountId): ImmutableList[EmailAddressContact] =
+    Option(userContactList.get(accountId)).map(_.values()).getOrElse(ImmutableList.of())
+
+  private def contacts(domain: Domain): ImmutableList[EmailAddressContact] =
+    Option(domainContactList.get(domain)).map(_.values()).getOrElse(ImmutableList.of())
+
   override def list(accountId: AccountId): Publisher[EmailAddressContact] =
-    SFlux.fromIterable(ImmutableList.copyOf(userContactList.row(accountId).values()).asScala)
+    SFlux.fromIterable(contacts(accountId).asScala)
 
   override def list(domain: Domain): Publisher[EmailAddressContact] =
-    SFlux.fromIterable(ImmutableList.copyOf(domainContactList.row(domain).values()).asScala)
+    SFlux.fromIterable(contacts(domain).asScala)
 
   override def listDomainsContacts(): Publisher[EmailAddressContact] =
-    SFlux.fromIterable(ImmutableList.copyOf(domainContactList.values()).asScala)
+    SFlux.fromIterable(domainContactList.values().asScala.toSeq.flatMap(_.values().asScala))
 
   override def get(accountId: AccountId, mailAddress: MailAddress): Publisher[EmailAddressContact] =
-    SFlux.fromIterable(ImmutableList.copyOf(userContactList.row(accountId).values()).asScala)
+    SFlux.fromIterable(contacts(accountId).asScala)
       .filter(lowerCaseContact(_).fields.address.equals(mailAddress))
       .singleOrEmpty()
       .switchIfEmpty(SMono.error(ContactNotFoundException(mailAddress)))
 
   override def get(domain: Domain, mailAddress: MailAddress): Publisher[EmailAddressContact] =
-    SFlux.fromIterable(ImmutableList.copyOf(domainContactList.row(domain).values()).asScala)
+    SFlux.fromIterable(contacts(domain).asScala)
       .filter(lowerCaseContact(_).fields.address.equals(mailAddress))
       .singleOrEmpty()
       .switchIfEmpty(SMono.error(ContactNotFoundException(mailAddress)))
@@ -1,31 +1,98 @@
 package com.linagora.tmail.james.jmap.contact
 
+import java.time.Duration
+import java.util.{List => JavaList}
+
+import com.linagora.tmail.james.jmap.contact.EmailAddressContactListener.{BATCH_COUNT_METRIC, BATCH_SIZE_METRIC, BATCH_WINDOW, FLUSH_CONCURRENCY, FLUSH_METRIC, MAX_BATCH_SIZE, PendingContacts}
+import jakarta.annotation.PreDestroy
 import jakarta.inject.Inject
 import org.apache.james.events.EventListener.ReactiveGroupEventListener
 import org.apache.james.events.{Event, Group}
 import org.apache.james.jmap.api.model.AccountId
+import org.apache.james.metrics.api.{Metric, MetricFactory, NoopMetricFactory}
 import org.reactivestreams.Publisher
 import org.slf4j.{Logger, LoggerFactory}
+import reactor.core.Disposable
+import reactor.core.publisher.{Mono, Sinks}
 import reactor.core.scala.publisher.SMono
 
-class EmailAddressContactListener @Inject()(contactSearchEngine: EmailAddressContactSearchEngine) extends ReactiveGroupEventListener {
+import scala.jdk.CollectionConverters._
+
+object EmailAddressContactListener {
+  val BATCH_WINDOW: Duration = Duration.ofMillis(50)
+  val MAX_BATCH_SIZE: Int = 256
+  val FLUSH_CONCURRENCY: Int = 4
+
+  val BATCH_SIZE_METRIC: String = "tmail-contact-indexing-batch-size"
+  val BATCH_COUNT_METRIC: String = "tmail-contact-indexing-batch-count"
+  val FLUSH_METRIC: String = "tmail-contact-indexing-flush"
+
+  private[contact] case class PendingContacts(contacts: Seq[AccountContact], indexed: Sinks.One[Void])
+}
+
+/**
+ * Contacts of the events received within a short window are coalesced, then indexed as a single batch. Each event
+ * completes once the batch holding its contacts got indexed.
+ */
+class EmailAddressContactListener @Inject()(contactSearchEngine: EmailAddressContactSearchEngine,
+                                            metricFactory: MetricFactory) extends ReactiveGroupEventListener {
   private val LOGGER: Logger = LoggerFactory.getLogger(classOf[EmailAddressContactListener])
 
+  private val batchSizeMetric: Metric = metricFactory.generate(BATCH_SIZE_METRIC)
+  private val batchCountMetric: Metric = metricFactory.generate(BATCH_COUNT_METRIC)
+  private val pendingContacts: Sinks.Many[PendingContacts] = Sinks.many().unicast().onBackpressureBuffer()
+
+  private val batching: Disposable = pendingContacts.asFlux()
+    .bufferTimeout(MAX_BATCH_SIZE, BATCH_WINDOW)
+    .onBackpressureBuffer()
+    .flatMap(flush, FLUSH_CONCURRENCY)
+    .subscribe()
+
+  def this(contactSearchEngine: EmailAddressContactSearchEngine) = {
+    this(contactSearchEngine, new NoopMetricFactory)
+  }
+
+  @PreDestroy
+  def dispose(): Unit = batching.dispose()
+
   override def getDefaultGroup: Group = EmailAddressContactListenerGroup()
 
   override def reactiveEvent(event: Event): Publisher[Void] = {
     event match {
-      case contactEvent: TmailContactUserAddedEvent => handlerContactUserAddedEvent(contactEvent)
+      case contactEvent: TmailContactUserAddedEvent =>
+        enqueue(Seq(AccountContact(AccountId.fromUsername(contactEvent.username), contactEvent.contact)))
+      case batchEvent: TmailContactUserBatchAddedEvent =>
+        val accountId: AccountId = AccountId.fromUsername(batchEvent.username)
+        enqueue(batchEvent.contacts.map(contact => AccountContact(accountId, contact)))
       case _ => SMono.empty
     }
   }
 
-  override def isHandling(event: Event): Boolean = event.isInstanceOf[TmailContactUserAddedEvent]
+  override def isHandling(event: Event): Boolean = event match {
+    case _: TmailContactUserAddedEvent => true
+    case batchEvent: TmailContactUserBatchAddedEvent => batchEvent.contacts.nonEmpty
+    case _ => false
+  }
 
-  private def handlerContactUserAddedEvent(event: TmailContactUserAddedEvent): Publisher[Void] =
-    SMono.fromPublisher(contactSearchEngine.index(AccountId.fromUsername(event.username), event.contact))
-      .doOnError(error => LOGGER.error("Error when indexing the new contact.", error))
-      .`then`()
+  private def enqueue(contacts: Seq[AccountContact]): Publisher[Void] =
+    SMono.defer(() => {
+      val pending: PendingContacts = PendingContacts(contacts, Sinks.one())
+      pendingContacts.emitNext(pending, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)))
+      SMono.fromPublisher(pending.indexed.asMono())
+    })
+      .doOnError(error => LOGGER.error("Error when indexing the new contacts.", error))
+
+  private def flush(batch: JavaList[PendingContacts]): Mono[Void] = {
+    val contacts: Seq[AccountContact] = batch.asScala.flatMap(_.contacts).distinct.toSeq
+
+    Mono.defer(() => Mono.from(metricFactory.decoratePublisherWithTimerMetric(FLUSH_METRIC, contactSearchEngine.index(contacts))))
+      .doOnSubscribe(_ => {
+        batchCountMetric.increment()
+        batchSizeMetric.add(contacts.size)
+      })
+      .`then`(Mono.fromRunnable[Void](() => batch.forEach(pending => pending.indexed.tryEmitEmpty())))
+      .onErrorResume(error => Mono.fromRunnable[Void](() => batch.forEach(pending => pending.indexed.tryEmitError(error))))
+  }
 }
 
-case class EmailAddressContactListenerGroup() extends Group {}
\ No newline at end of file
+case class EmailAddressContactListenerGroup() extends Group {}
@@ -1,6 +1,9 @@
 package com.linagora.tmail.james.jmap.contact
 
+import java.util.{List => JavaList}
+
 import com.fasterxml.jackson.annotation.JsonProperty
+import com.google.common.collect.ImmutableList
 import jakarta.inject.Inject
 import org.apache.james.core.{MailAddress, Username}
 import org.apache.james.events.Event.EventId
@@ -8,19 +11,22 @@ import org.apache.james.events.{Event, EventSerializer}
 import org.apache.james.jmap.change.{EventDTO, EventDTOModule}
 import org.apache.james.json.JsonGenericSerializer
 
+import scala.jdk.CollectionConverters._
+
 case class TmailJmapEventSerializer @Inject()() extends EventSerializer {
-  private val genericSerializer: JsonGenericSerializer[TmailContactUserAddedEvent, TmailContactUserAddedEventDTO] =
-    JsonGenericSerializer.forModules(TmailContactUserAddedEventDTOFactory.dtoModule)
+  private val genericSerializer: JsonGenericSerializer[TmailContactUserEvent, EventDTO] =
+    JsonGenericSerializer.forModules[TmailContactUserEvent, EventDTO](TmailContactUserAddedEventDTOFactory.dtoModule,
+      TmailContactUserBatchAddedEventDTOFactory.dtoModule)
       .withoutNestedType()
 
   override def toJson(event: Event): String = event match {
-    case tmailContactUserAddedEvent: TmailContactUserAddedEvent => genericSerializer.serialize(tmailContactUserAddedEvent)
+    case tmailContactUserEvent: TmailContactUserEvent => genericSerializer.serialize(tmailContactUserEvent)
   }
 
   override def asEvent(serialized: String): Event = genericSerializer.deserialize(serialized)
 
   override def toJsonBytes(event: Event): Array[Byte] = event match {
-    case tmailContactUserAddedEvent: TmailContactUserAddedEvent => genericSerializer.serializeToBytes(tmailContactUserAddedEvent)
+    case tmailContactUserEvent: TmailContactUserEvent => genericSerializer.serializeToBytes(tmailContactUserEvent)
   }
 
   override def fromBytes(serialized: Array[Byte]): Event = genericSerializer.deserializeFromBytes(serialized)
@@ -58,4 +64,43 @@ object TmailContactUserAddedEventDTOFactory {
       getContactAddress = event.contact.address.asString(),
       getContactFirstname = event.contact.firstname,
       getContactSurname = event.contact.surname)
-}
\ No newline at end of file
+}
+
+case class ContactFieldsDTO(@JsonProperty("address") getAddress: String,
+                            @JsonProperty("firstname") getFirstname: String,
+                            @JsonProperty("surname") getSurname: String) {
+  def toContactFields: ContactFields = ContactFields(address = new MailAddress(getAddress), firstname = getFirstname, surname = getSurname)
+}
+
+object ContactFieldsDTO {
+  def from(contact: ContactFields): ContactFieldsDTO = ContactFieldsDTO(contact.address.asString(), contact.firstname, contact.surname)
+}
+
+case class TmailContactUserBatchAddedEventDTO(@JsonProperty("type") getType: String,
+                                              @JsonProperty("eventId") getEventId: String,
+                                              @JsonProperty("username") getUsername: String,
+                                              @JsonProperty("contacts") getContacts: JavaList[ContactFieldsDTO]) extends EventDTO {
+
+  def toDomainObject(): TmailContactUserBatchAddedEvent =
+    TmailContactUserBatchAddedEvent(
+      eventId = EventId.of(getEventId),
+      username = Username.of(getUsername),
+      contacts = getContacts.asScala.map(_.toContactFields).toSeq)
+}
+
+object TmailContactUserBatchAddedEventDTOFactory {
+  val dtoModule: EventDTOModule[TmailContactUserBatchAddedEvent, TmailContactUserBatchAddedEventDTO] =
+    EventDTOModule.forEvent(classOf[TmailContactUserBatchAddedEvent])
+      .convertToDTO(classOf[TmailContactUserBatchAddedEventDTO])
+      .toDomainObjectConverter(_.toDomainObject())
+      .toDTOConverter((event, _) => toDTO(event))
+      .typeName(classOf[TmailContactUserBatchAddedEvent].getCanonicalName)
+      .withFactory(EventDTOModule.apply)
+
+  def toDTO(event: TmailContactUserBatchAddedEvent): TmailContactUserBatchAddedEventDTO =
+    TmailContactUserBatchAddedEventDTO(
+      getType = classOf[TmailContactUserBatchAddedEvent].getCanonicalName,
+      getEventId = event.getEventId.getId.toString,
+      getUsername = event.username.asString(),
+      getContacts = ImmutableList.copyOf(event.contacts.map(ContactFieldsDTO.from).asJava))
+}
@@ -1,8 +1,9 @@
 package com.linagora.tmail.james.jmap.method
 
-import java.io.{ByteArrayInputStream, InputStream}
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, InputStream}
 
-import com.linagora.tmail.encrypted.{EncryptedAttachmentBlobId, EncryptedEmailContentStore}
+import com.linagora.tmail.encrypted.{EncryptedAttachmentBlobId, EncryptedContentFormat, EncryptedEmailContentStore, StoredEncryptedAttachment}
+import com.linagora.tmail.pgp.Encrypter
 import jakarta.inject.Inject
 import org.apache.james.blob.api.BlobStore
 import org.apache.james.blob.api.BlobStore.StoragePolicy
@@ -16,8 +17,16 @@ import reactor.core.scala.publisher.SMono
 
 import scala.util.{Success, Try}
 
-case class EncryptedAttachmentBlob(blobId: BlobId, bytes: Array[Byte]) extends Blob {
-  override def contentType: ContentType = ContentType.of("application/pgp")
+object EncryptedAttachmentBlob {
+  private val ARMORED_CONTENT_TYPE: ContentType = ContentType.of("application/pgp")
+  private val BINARY_CONTENT_TYPE: ContentType = ContentType.of("application/pgp-encrypted")
+
+  def armored(blobId: BlobId, bytes: Array[Byte]): EncryptedAttachmentBlob = EncryptedAttachmentBlob(blobId, bytes, ARMORED_CONTENT_TYPE)
+
+  def binary(blobId: BlobId, bytes: Array[Byte]): EncryptedAttachmentBlob = EncryptedAttachmentBlob(blobId, bytes, BINARY_CONTENT_TYPE)
+}
+
+case class EncryptedAttachmentBlob(blobId: BlobId, bytes: Array[Byte], contentType: ContentType) extends Blob {
 
   override def size: Try[Size] = Success(Size.sanitizeSize(bytes.length))
 
@@ -31,8 +40,22 @@ class EncryptedAttachmentBlobResolver @Inject()(encryptedEmailContentStore: Encr
     EncryptedAttachmentBlobId.parse(messageIdFactory, blobId.value.value)
       .fold(_ => NonApplicable,
         encryptedId => Applicable(
-          SMono(encryptedEmailContentStore.retrieveAttachmentContent(encryptedId.messageId, encryptedId.position))
-            .flatMap((blobStoreId: org.apache.james.blob.api.BlobId) =>
-              SMono(blobStore.readBytes(blobStore.getDefaultBucketName, blobStoreId, StoragePolicy.LOW_COST)))
-            .map(bytes => EncryptedAttachmentBlob(blobId, bytes))))
+          SMono(encryptedEmailContentStore.retrieveAttachment(encryptedId.messageId, encryptedId.position))
+            .flatMap((attachment: StoredEncryptedAttachment) =>
+              SMono(blobStore.readBytes(blobStore.getDefaultBucketName, attachment.blobId, StoragePolicy.LOW_COST))
+                .map(bytes => asBlob(blobId, encryptedId, attachment.format, bytes)))))
+
+  // Attachments are downloaded ASCII armored unless the client asks for the binary content, with the `_binary` blobId suffix
+  private def asBlob(blobId: BlobId, encryptedId: EncryptedAttachmentBlobId, format: EncryptedContentFormat, bytes: Array[Byte]): EncryptedAttachmentBlob =
+    format match {
+      case EncryptedContentFormat.ARMORED => EncryptedAttachmentBlob.armored(blobId, bytes)
+      case EncryptedContentFormat.BINARY if encryptedId.binary => EncryptedAttachmentBlob.binary(blobId, bytes)
+      case EncryptedContentFormat.BINARY => EncryptedAttachmentBlob.armored(blobId, armor(bytes))
+    }
+
+  private def armor(bytes: Array[Byte]): Array[Byte] = {
+    val stream: ByteArrayOutputStream = new ByteArrayOutputStream
+    Encrypter.armor(new ByteArrayInputStream(bytes), stream)
+    stream.toByteArray
+  }
 }
@@ -0,0 +1,93 @@
+package com.linagora.tmail.james.jmap.contact;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.james.core.Domain;
+import org.apache.james.core.MailAddress;
+import org.apache.james.core.Username;
+import org.apache.james.jmap.api.model.AccountId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Measures the autocomplete latency of the memory contact search engine. Half of the contacts are domain contacts,
+ * the other half personal contacts of the searching account.
+ *
+ * Not part of the test suite: run the main method from the IDE. The 1M contacts setup needs a few GB of heap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class InMemoryEmailAddressContactSearchEngineBenchmark {
+    private static final Domain DOMAIN = Domain.of("linagora.com");
+    private static final AccountId ACCOUNT_ID = AccountId.fromUsername(Username.of("bob@linagora.com"));
+    private static final List<String> FIRSTNAMES = ImmutableList.of("John", "Marie", "Alice", "Robert", "Sophie", "Thomas",
+        "Julie", "Nicolas", "Emma", "Lucas", "Camille", "Hugo", "Chloe", "Louis", "Lea", "Arthur");
+    private static final List<String> SURNAMES = ImmutableList.of("Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard",
+        "Petit", "Durand", "Leroy", "Moreau", "Simon", "Laurent", "Lefebvre", "Michel", "Garcia", "David");
+
+    @Param({"10000", "100000", "1000000"})
+    public int contactCount;
+
+    // A short part scanning every contact, a common name and a selective address part
+    @Param({"ma", "marie", "durand4242"})
+    public String part;
+
+    @Param({"10"})
+    public int limit;
+
+    private InMemoryEmailAddressContactSearchEngine searchEngine;
+
+    @Setup
+    public void setUp() throws Exception {
+        searchEngine = new InMemoryEmailAddressContactSearchEngine();
+        for (int i = 0; i < contactCount; i++) {
+            String firstname = FIRSTNAMES.get(i % FIRSTNAMES.size());
+            String surname = SURNAMES.get((i / FIRSTNAMES.size()) % SURNAMES.size());
+            MailAddress address = new MailAddress(firstname.toLowerCase() + "." + surname.toLowerCase() + i + "@domain" + (i % 100) + ".com");
+            ContactFields fields = new ContactFields(address, firstname, surname);
+            if (i % 2 == 0) {
+                Mono.from(searchEngine.index(DOMAIN, fields)).block();
+            } else {
+                Mono.from(searchEngine.index(ACCOUNT_ID, fields)).block();
+            }
+        }
+    }
+
+    @Benchmark
+    public List<EmailAddressContact> autoComplete() {
+        return Flux.from(searchEngine.autoComplete(ACCOUNT_ID, part, limit))
+            .collectList()
+            .block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(InMemoryEmailAddressContactSearchEngineBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build())
+            .run();
+    }
+}
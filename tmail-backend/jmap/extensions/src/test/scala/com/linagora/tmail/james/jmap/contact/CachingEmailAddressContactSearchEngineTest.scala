@@ -0,0 +1,141 @@
+package com.linagora.tmail.james.jmap.contact
+
+import java.time.Duration
+
+import com.linagora.tmail.james.jmap.contact.CachingEmailAddressContactSearchEngineTest.{MAX_NGRAM, MIN_NGRAM}
+import org.apache.james.core.{Domain, MailAddress, Username}
+import org.apache.james.jmap.api.model.AccountId
+import org.apache.james.metrics.api.NoopGaugeRegistry
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.{BeforeEach, Disabled, Test}
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.jdk.CollectionConverters._
+
+object CachingEmailAddressContactSearchEngineTest {
+  private val MIN_NGRAM: Int = 2
+  private val MAX_NGRAM: Int = 29
+}
+
+class CachingEmailAddressContactSearchEngineTest extends EmailAddressContactSearchEngineContract {
+  private val domain: Domain = Domain.of("linagora.com")
+  private val accountId: AccountId = AccountId.fromUsername(Username.fromLocalPartWithDomain("bob", domain))
+  private val contactA: ContactFields = ContactFields(new MailAddress("nobita@linagora.com"), "John", "Carpenter")
+  private val contactB: ContactFields = ContactFields(new MailAddress("nobito@linagora.com"), "Marie", "Carpenter")
+
+  var underlying: InMemoryEmailAddressContactSearchEngine = _
+  var cachingSearchEngine: CachingEmailAddressContactSearchEngine = _
+
+  override def testee(): EmailAddressContactSearchEngine = cachingSearchEngine
+
+  @BeforeEach
+  def beforeEach(): Unit = {
+    underlying = new InMemoryEmailAddressContactSearchEngine()
+    cachingSearchEngine = new CachingEmailAddressContactSearchEngine(underlying, Duration.ofMinutes(1), 1000, MIN_NGRAM, MAX_NGRAM, new NoopGaugeRegistry)
+  }
+
+  override def awaitDocumentsIndexed(query: QueryType, documentCount: Long): Unit = {
+  }
+
+  @Test
+  @Disabled("Memory does not need to support language special characters normalization")
+  override def searchASCIICharactersShouldReturnMatchedFrenchName(): Unit = {
+  }
+
+  private def autoComplete(part: String, limit: Int = 256): java.util.List[ContactFields] =
+    SFlux.fromPublisher(testee().autoComplete(accountId, part, limit)).map(_.fields).collectSeq().block().asJava
+
+  @Test
+  def autoCompleteShouldServeCachedResults(): Unit = {
+    SMono(underlying.index(accountId, contactA)).block()
+    autoComplete("nob")
+
+    // Bypasses the cache: only a new call to the underlying search engine would return it
+    SMono(underlying.index(accountId, contactB)).block()
+
+    assertThat(autoComplete("nob")).containsExactly(contactA)
+  }
+
+  @Test
+  def autoCompleteShouldFilterTheCompleteResultOfAShorterPrefix(): Unit = {
+    SMono(underlying.index(accountId, contactA)).block()
+    SMono(underlying.index(accountId, contactB)).block()
+    autoComplete("nob")
+
+    SMono(underlying.index(accountId, ContactFields(new MailAddress("nobitas@linagora.com")))).block()
+
+    assertThat(autoComplete("nobita")).containsExactly(contactA)
+  }
+
+  @Test
+  def autoCompleteShouldNotFilterATruncatedResultOfAShorterPrefix(): Unit = {
+    SMono(underlying.index(accountId, contactA)).block()
+    SMono(underlying.index(accountId, contactB)).block()
+    autoComplete("nob", 1)
+
+    assertThat(autoComplete("nobito")).containsExactly(contactB)
+  }
+
+  @Test
+  def autoCompleteShouldNotFilterTheResultOfAPrefixShorterThanTheMinimumNgram(): Unit = {
+    SMono(underlying.index(accountId, contactA)).block()
+    autoComplete("n")
+
+    SMono(underlying.index(accountId, contactB)).block()
+
+    assertThat(autoComplete("no")).containsExactlyInAnyOrder(contactA, contactB)
+  }
+
+  @Test
+  def autoCompleteShouldNotFilterForAPartLongerThanTheMaximumNgram(): Unit = {
+    cachingSearchEngine = new CachingEmailAddressContactSearchEngine(underlying, Duration.ofMinutes(1), 1000, MIN_NGRAM, 5, new NoopGaugeRegistry)
+    SMono(underlying.index(accountId, contactA)).block()
+    autoComplete("nob")
+
+    val contactC: ContactFields = ContactFields(new MailAddress("nobitas@linagora.com"))
+    SMono(underlying.index(accountId, contactC)).block()
+
+    assertThat(autoComplete("nobita")).containsExactlyInAnyOrder(contactA, contactC)
+  }
+
+  @Test
+  def autoCompleteShouldAnswerASmallerLimitFromCache(): Unit = {
+    SMono(underlying.index(accountId, contactA)).block()
+    SMono(underlying.index(accountId, contactB)).block()
+    autoComplete("nob", 2)
+
+    SMono(underlying.delete(accountId, contactA.address)).block()
+
+    assertThat(autoComplete("nob", 1)).containsExactly(contactA)
+  }
+
+  @Test
+  def indexShouldInvalidateTheResultsOfTheAccount(): Unit = {
+    SMono(testee().index(accountId, contactA)).block()
+    autoComplete("nob")
+
+    SMono(testee().index(accountId, contactB)).block()
+
+    assertThat(autoComplete("nob")).containsExactlyInAnyOrder(contactA, contactB)
+  }
+
+  @Test
+  def domainIndexShouldInvalidateTheResultsOfTheDomainAccounts(): Unit = {
+    SMono(testee().index(accountId, contactA)).block()
+    autoComplete("nob")
+
+    SMono(testee().index(domain, contactB)).block()
+
+    assertThat(autoComplete("nob")).containsExactlyInAnyOrder(contactA, contactB)
+  }
+
+  @Test
+  def deleteShouldInvalidateTheResultsOfTheAccount(): Unit = {
+    SMono(testee().index(accountId, contactA)).block()
+    autoComplete("nob")
+
+    SMono(testee().delete(accountId, contactA.address)).block()
+
+    assertThat(autoComplete("nob")).isEmpty()
+  }
+}
@@ -1,7 +1,9 @@
 package com.linagora.tmail.james.jmap.contact
 
-import com.linagora.tmail.james.jmap.contact.EmailAddressContactListenerIntegrationTest.{ACCOUNT_ID, CONTACT, CONTACT_ADDED_EVENT}
+import com.linagora.tmail.james.jmap.contact.EmailAddressContactListener.{BATCH_COUNT_METRIC, BATCH_SIZE_METRIC}
+import com.linagora.tmail.james.jmap.contact.EmailAddressContactListenerIntegrationTest.{ACCOUNT_ID, CONTACT, CONTACT_2, CONTACT_ADDED_EVENT, CONTACTS_ADDED_EVENT}
 import org.apache.james.core.MailAddress
+import org.apache.james.events.Event.EventId
 import org.apache.james.events.EventBusTestFixture.{EVENT_ID, NO_KEYS, USERNAME}
 import org.apache.james.events.delivery.InVmEventDelivery
 import org.apache.james.events.{EventBus, InVMEventBus, MemoryEventDeadLetters, RetryBackoffConfiguration}
@@ -9,7 +11,7 @@ import org.apache.james.jmap.api.model.AccountId
 import org.apache.james.metrics.tests.RecordingMetricFactory
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.{BeforeEach, Test}
-import reactor.core.scala.publisher.SFlux
+import reactor.core.scala.publisher.{SFlux, SMono}
 
 import scala.jdk.CollectionConverters._
 
@@ -21,18 +23,25 @@ object EmailAddressContactListenerIntegrationTest {
     eventId = EVENT_ID,
     username = USERNAME,
     contact = CONTACT)
+  val CONTACT_2: ContactFields = ContactFields(new MailAddress("contact2@linagora.com"), "FirstName2", "Last Name 2")
+  val CONTACTS_ADDED_EVENT: TmailContactUserBatchAddedEvent = TmailContactUserBatchAddedEvent(
+    eventId = EventId.random(),
+    username = USERNAME,
+    contacts = Seq(CONTACT, CONTACT_2))
 }
 
 class EmailAddressContactListenerIntegrationTest {
 
   var eventBus: EventBus = _
   var searchEngine: EmailAddressContactSearchEngine = _
+  var metricFactory: RecordingMetricFactory = _
 
   @BeforeEach
   def beforeEach(): Unit = {
     searchEngine = new InMemoryEmailAddressContactSearchEngine
+    metricFactory = new RecordingMetricFactory
     eventBus = new InVMEventBus(new InVmEventDelivery(new RecordingMetricFactory), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters())
-    eventBus.register(new EmailAddressContactListener(searchEngine))
+    eventBus.register(new EmailAddressContactListener(searchEngine, metricFactory))
   }
 
   @Test
@@ -54,4 +63,34 @@ class EmailAddressContactListenerIntegrationTest {
       .containsExactlyInAnyOrder(CONTACT)
   }
 
+  @Test
+  def shouldIndexAllContactsOfABatchEvent(): Unit = {
+    eventBus.dispatch(CONTACTS_ADDED_EVENT, NO_KEYS).block()
+    assertThat(SFlux.fromPublisher(searchEngine.autoComplete(ACCOUNT_ID, "contact"))
+      .map(_.fields)
+      .collectSeq().block().asJava)
+      .containsExactlyInAnyOrder(CONTACT, CONTACT_2)
+  }
+
+  @Test
+  def shouldCoalesceContactsOfConcurrentEvents(): Unit = {
+    SFlux.just(CONTACT_ADDED_EVENT, CONTACTS_ADDED_EVENT)
+      .flatMap(event => SMono.fromPublisher(eventBus.dispatch(event, NO_KEYS)))
+      .`then`()
+      .block()
+
+    assertThat(SFlux.fromPublisher(searchEngine.autoComplete(ACCOUNT_ID, "contact"))
+      .map(_.fields)
+      .collectSeq().block().asJava)
+      .containsExactlyInAnyOrder(CONTACT, CONTACT_2)
+    assertThat(metricFactory.countFor(BATCH_COUNT_METRIC)).isEqualTo(1)
+    assertThat(metricFactory.countFor(BATCH_SIZE_METRIC)).isEqualTo(2)
+  }
+
+  @Test
+  def batchEventShouldRoundTrip(): Unit = {
+    val serializer: TmailJmapEventSerializer = TmailJmapEventSerializer()
+
+    assertThat(serializer.fromBytes(serializer.toJsonBytes(CONTACTS_ADDED_EVENT))).isEqualTo(CONTACTS_ADDED_EVENT)
+  }
 }
@@ -2,7 +2,7 @@ package com.linagora.tmail.james.jmap.contact
 
 import java.util.stream.IntStream
 
-import com.linagora.tmail.james.jmap.contact.EmailAddressContactSearchEngineContract.{accountId, accountIdB, bigContactsNumber, contactEmptyNameFieldsA, contactEmptyNameFieldsB, contactFieldsA, contactFieldsB, contactFieldsFrench, domain, firstnameB, mailAddressA, otherContactEmptyNameFields, otherContactFields, otherContactFieldsWithUppercaseEmail, otherMailAddress, surnameB}
+import com.linagora.tmail.james.jmap.contact.EmailAddressContactSearchEngineContract.{accountId, accountIdB, bigContactsNumber, contactEmptyNameFieldsA, contactEmptyNameFieldsB, contactFieldsA, contactFieldsASCII, contactFieldsB, contactFieldsFrench, domain, firstnameB, mailAddressA, otherContactEmptyNameFields, otherContactFields, otherContactFieldsWithUppercaseEmail, otherMailAddress, surnameB}
 import org.apache.james.core.{Domain, MailAddress, Username}
 import org.apache.james.jmap.api.model.AccountId
 import org.assertj.core.api.Assertions.{assertThat, assertThatCode, assertThatThrownBy}
@@ -45,6 +45,7 @@ object EmailAddressContactSearchEngineContract {
   private val firstnameFrench: String = "Dené"
   private val surnameFrench: String = "Chloé"
   private val contactFieldsFrench: ContactFields = ContactFields(mailAddressRene, firstnameFrench, surnameFrench)
+  private val contactFieldsASCII: ContactFields = ContactFields(new MailAddress("jcarpenter@other.com"), "Jose", "Carpenter")
 
   private val bigContactsNumber: Int = 1000
 }
@@ -120,6 +121,21 @@ trait EmailAddressContactSearchEngineContract {
     awaitDocumentsIndexed(MatchAllQuery(), 1)
   }
 
+  @Test
+  def givenDomainContactXWithALongAddressExistedThenIndexShouldNotIndexDuplicatedUserContactX(): Unit = {
+    // Longer than the maximum ngram of the email field
+    val mailAddress: MailAddress = new MailAddress("nobita.nobi.from.the.future@linagora.com")
+    val contactFields: ContactFields = ContactFields(mailAddress, "John", "Carpenter")
+
+    SMono(testee().index(domain, contactFields)).block()
+    awaitDocumentsIndexed(MatchAllQuery(), 1)
+
+    SMono(testee().index(accountId, contactFields)).block()
+    Thread.sleep(500) // wait for the duplicated contact to be potentially indexed by ES
+
+    awaitDocumentsIndexed(MatchAllQuery(), 1)
+  }
+
   @Test
   def searchASCIICharactersShouldReturnMatchedFrenchName(): Unit = {
     SMono(testee().index(accountId, contactFieldsFrench)).block()
@@ -144,6 +160,20 @@ trait EmailAddressContactSearchEngineContract {
       .containsExactlyInAnyOrder(contactFieldsFrench)
   }
 
+  @Test
+  def searchFrenchCharactersShouldNotReturnMatchedASCIIName(): Unit = {
+    SMono(testee().index(accountId, contactFieldsASCII)).block()
+
+    awaitDocumentsIndexed(MatchAllQuery(), 1)
+
+    assertThat(SFlux.fromPublisher(testee().autoComplete(accountId, "jos")).asJava().map(_.fields).collectList().block())
+      .containsExactlyInAnyOrder(contactFieldsASCII)
+    assertThat(SFlux.fromPublisher(testee().autoComplete(accountId, "josé")).asJava().map(_.fields).collectList().block())
+      .isEmpty()
+    assertThat(SFlux.fromPublisher(testee().autoComplete(accountId, "jose")).asJava().map(_.fields).collectList().block())
+      .containsExactlyInAnyOrder(contactFieldsASCII)
+  }
+
   @Test
   def indexShouldReturnMatched(): Unit = {
     SMono(testee().index(accountId, contactEmptyNameFieldsA)).block()
@@ -166,6 +196,41 @@ trait EmailAddressContactSearchEngineContract {
       .isEmpty()
   }
 
+  @Test
+  def batchIndexShouldIndexTheContactsOfEachAccount(): Unit = {
+    SMono(testee().index(Seq(AccountContact(accountId, contactFieldsA), AccountContact(accountIdB, contactFieldsB)))).block()
+
+    awaitDocumentsIndexed(MatchAllQuery(), 2)
+
+    SoftAssertions.assertSoftly(softly => {
+      softly.assertThat(SFlux.fromPublisher(testee().autoComplete(accountId, "nob")).asJava().map(_.fields).collectList().block())
+        .containsExactlyInAnyOrder(contactFieldsA)
+      softly.assertThat(SFlux.fromPublisher(testee().autoComplete(accountIdB, "nob")).asJava().map(_.fields).collectList().block())
+        .containsExactlyInAnyOrder(contactFieldsB)
+    })
+  }
+
+  @Test
+  def givenDomainContactXExistedThenBatchIndexShouldOnlyIndexTheOtherUserContacts(): Unit = {
+    val mailAddress: MailAddress = new MailAddress("nobita@linagora.com")
+    val contactFields: ContactFields = ContactFields(mailAddress, "John", "Carpenter")
+    val duplicatedContactFields: ContactFields = ContactFields(mailAddress, "John Carpenter", "")
+
+    SMono(testee().index(domain, contactFields)).block()
+    awaitDocumentsIndexed(MatchAllQuery(), 1)
+
+    SMono(testee().index(Seq(AccountContact(accountId, duplicatedContactFields), AccountContact(accountId, otherContactFields)))).block()
+    Thread.sleep(500) // wait for the duplicated contact to be potentially indexed by ES
+
+    awaitDocumentsIndexed(MatchAllQuery(), 2)
+  }
+
+  @Test
+  def batchIndexShouldAcceptNoContact(): Unit = {
+    assertThatCode(() => SMono(testee().index(Seq())).block())
+      .doesNotThrowAnyException()
+  }
+
   @Test
   def indexShouldReturnEmpty(): Unit = {
     assertThat(SFlux.fromPublisher(testee().autoComplete(accountId, "any")).asJava().collectList().block())
@@ -1,8 +1,17 @@
 package com.linagora.tmail.james.jmap.contact
 
+import org.apache.james.core.{Domain, MailAddress, Username}
+import org.apache.james.jmap.api.model.AccountId
+import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.{BeforeEach, Disabled, Test}
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.jdk.CollectionConverters._
 
 class MemoryEmailAddressContactSearchEngineTest extends EmailAddressContactSearchEngineContract {
+  private val domain: Domain = Domain.of("linagora.com")
+  private val accountId: AccountId = AccountId.fromUsername(Username.fromLocalPartWithDomain("bob", domain))
+
   var inMemoryEmailAddressContactSearchEngine: InMemoryEmailAddressContactSearchEngine = _
 
   override def testee(): EmailAddressContactSearchEngine = inMemoryEmailAddressContactSearchEngine
@@ -19,4 +28,33 @@ class MemoryEmailAddressContactSearchEngineTest extends EmailAddressContactSearc
   @Disabled("Memory does not need to support language special characters normalization")
   override def searchASCIICharactersShouldReturnMatchedFrenchName(): Unit = {
   }
+
+  @Test
+  def autoCompleteShouldReturnTheFirstContactsByAddressAcrossDomainAndPersonalContacts(): Unit = {
+    (1 to 9).foreach(i => SMono(testee().index(domain, ContactFields(new MailAddress(s"marie$i@linagora.com"), "Marie"))).block())
+    (1 to 9).foreach(i => SMono(testee().index(accountId, ContactFields(new MailAddress(s"marie$i@other.com"), "Marie"))).block())
+
+    assertThat(SFlux.fromPublisher(testee().autoComplete(accountId, "marie", 4)).map(_.fields.address.asString()).collectSeq().block().asJava)
+      .containsExactly("marie1@linagora.com", "marie1@other.com", "marie2@linagora.com", "marie2@other.com")
+  }
+
+  @Test
+  def autoCompleteShouldNotMatchTheOldFieldsOfAnUpdatedContact(): Unit = {
+    val mailAddress: MailAddress = new MailAddress("nobita@linagora.com")
+    SMono(testee().index(accountId, ContactFields(mailAddress, "John", "Carpenter"))).block()
+    SMono(testee().update(accountId, ContactFields(mailAddress, "Marie", "Dubois"))).block()
+
+    assertThat(SFlux.fromPublisher(testee().autoComplete(accountId, "carp")).collectSeq().block().asJava)
+      .isEmpty()
+  }
+
+  @Test
+  def autoCompleteShouldNotMatchDeletedContacts(): Unit = {
+    val mailAddress: MailAddress = new MailAddress("nobita@linagora.com")
+    SMono(testee().index(accountId, ContactFields(mailAddress, "John", "Carpenter"))).block()
+    SMono(testee().delete(accountId, mailAddress)).block()
+
+    assertThat(SFlux.fromPublisher(testee().autoComplete(accountId, "nobita")).collectSeq().block().asJava)
+      .isEmpty()
+  }
 }
@@ -0,0 +1,18 @@
+package com.linagora.tmail.ldap;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Where and how the LDAP groups are searched.
+ *
+ * @param baseDN the base DN to use within group search. EG: ou=lists,dc=linagora,dc=com
+ * @param groupObjectClass the object class of the groups. EG: groupofnames
+ * @param mailAttribute the attribute holding the mail address of a group
+ */
+public record GroupQuery(String baseDN, String groupObjectClass, String mailAttribute) {
+    public GroupQuery {
+        Preconditions.checkNotNull(baseDN, "'baseDN' is compulsory");
+        Preconditions.checkNotNull(groupObjectClass, "'groupObjectClass' is compulsory");
+        Preconditions.checkNotNull(mailAttribute, "'mailAttribute' is compulsory");
+    }
+}
@@ -0,0 +1,40 @@
+package com.linagora.tmail.ldap;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableList;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+
+/**
+ * A LDAP group found for a mail address.
+ *
+ * The entry only holds the mail attribute of the group, its members, its owners and its business category.
+ */
+public record LdapGroup(SearchResultEntry entry) {
+    public static final String MEMBER_ATTRIBUTE = "member";
+    public static final String OWNER_ATTRIBUTE = "owner";
+    public static final String BUSINESS_CATEGORY_ATTRIBUTE = "businessCategory";
+
+    public String dn() {
+        return entry.getDN();
+    }
+
+    public List<String> members() {
+        return values(MEMBER_ATTRIBUTE);
+    }
+
+    public List<String> owners() {
+        return values(OWNER_ATTRIBUTE);
+    }
+
+    public Optional<String> attributeValue(String attribute) {
+        return Optional.ofNullable(entry.getAttributeValue(attribute));
+    }
+
+    private List<String> values(String attribute) {
+        return Optional.ofNullable(entry.getAttributeValues(attribute))
+            .map(ImmutableList::copyOf)
+            .orElse(ImmutableList.of());
+    }
+}
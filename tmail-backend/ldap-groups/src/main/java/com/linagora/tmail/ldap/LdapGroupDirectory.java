@@ -0,0 +1,153 @@
+package com.linagora.tmail.ldap;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.metrics.api.GaugeRegistry;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.api.NoopMetricFactory;
+import org.apache.james.metrics.api.TimeMetric;
+import org.apache.james.user.ldap.LdapRepositoryConfiguration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.fge.lambdas.Throwing;
+import com.google.common.annotations.VisibleForTesting;
+import com.unboundid.ldap.sdk.Filter;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchScope;
+
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Resolves mail addresses to the LDAP groups backing mailing lists.
+ *
+ * The SMTP RCPT handler, the matcher and the mailet dealing with LDAP lists all look up the very same addresses for a
+ * given mail: this node local cache makes them share a single LDAP search.
+ *
+ * Addresses that are not groups are cached too, for a shorter time, as most recipients are not lists. Groups still
+ * being looked up are reloaded in the background once older than the refresh delay, so that hot lists never expire
+ * on the mail path.
+ */
+@Singleton
+public class LdapGroupDirectory {
+    public static final String LDAP_SEARCH_TIMER = "ldap-groups-search";
+
+    private record Key(GroupQuery query, MailAddress address) {
+    }
+
+    private final LDAPConnectionPool ldapConnectionPool;
+    private final Optional<Filter> userExtraFilter;
+    private final MetricFactory metricFactory;
+    private final LoadingCache<Key, Optional<LdapGroup>> groups;
+
+    @Inject
+    public LdapGroupDirectory(LDAPConnectionPool ldapConnectionPool, LdapRepositoryConfiguration ldapConfiguration,
+                              LdapGroupDirectoryConfiguration configuration, MetricFactory metricFactory,
+                              GaugeRegistry gaugeRegistry) {
+        this.ldapConnectionPool = ldapConnectionPool;
+        this.userExtraFilter = Optional.ofNullable(ldapConfiguration.getFilter())
+            .map(Throwing.function(Filter::create).sneakyThrow());
+        this.metricFactory = metricFactory;
+        // LDAP searches are blocking: refreshes should not run on the common fork join pool
+        this.groups = Caffeine.newBuilder()
+            .maximumSize(configuration.cacheSize())
+            .expireAfter(expiry(configuration))
+            .refreshAfterWrite(configuration.refreshAfter())
+            .executor(task -> Schedulers.boundedElastic().schedule(task))
+            .recordStats()
+            .build(this::search);
+
+        gaugeRegistry.register("ldap.groups.cache.hitRate", () -> groups.stats().hitRate())
+            .register("ldap.groups.cache.hitCount", () -> groups.stats().hitCount())
+            .register("ldap.groups.cache.missCount", () -> groups.stats().missCount())
+            .register("ldap.groups.cache.size", groups::estimatedSize);
+    }
+
+    @VisibleForTesting
+    public LdapGroupDirectory(LDAPConnectionPool ldapConnectionPool, LdapRepositoryConfiguration ldapConfiguration) {
+        this(ldapConnectionPool, ldapConfiguration, LdapGroupDirectoryConfiguration.DEFAULT, new NoopMetricFactory(), new NoopGaugeRegistry());
+    }
+
+    public Optional<LdapGroup> lookup(GroupQuery query, MailAddress address) throws LDAPException {
+        try {
+            return groups.get(new Key(query, address));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof LDAPException ldapException) {
+                throw ldapException;
+            }
+            throw e;
+        }
+    }
+
+    public void flush() {
+        groups.invalidateAll();
+    }
+
+    public void flush(MailAddress address) {
+        groups.asMap().keySet().removeIf(key -> key.address().equals(address));
+    }
+
+    private Optional<LdapGroup> search(Key key) throws LDAPException {
+        TimeMetric timeMetric = metricFactory.timer(LDAP_SEARCH_TIMER);
+        try {
+            SearchResult searchResult = ldapConnectionPool.search(key.query().baseDN(),
+                SearchScope.SUB,
+                createFilter(key),
+                key.query().mailAttribute(), LdapGroup.MEMBER_ATTRIBUTE, LdapGroup.OWNER_ATTRIBUTE, LdapGroup.BUSINESS_CATEGORY_ATTRIBUTE);
+
+            return searchResult.getSearchEntries().stream()
+                .findFirst()
+                .map(LdapGroup::new);
+        } catch (LDAPException e) {
+            if (e.getResultCode().equals(ResultCode.NO_SUCH_OBJECT)) {
+                return Optional.empty();
+            }
+            throw e;
+        } finally {
+            timeMetric.stopAndPublish();
+        }
+    }
+
+    private Filter createFilter(Key key) {
+        Filter objectClassFilter = Filter.createEqualityFilter("objectClass", key.query().groupObjectClass());
+        Filter specificGroupFilter = Filter.createEqualityFilter(key.query().mailAttribute(), key.address().asString());
+        return userExtraFilter
+            .map(extraFilter -> Filter.createANDFilter(objectClassFilter, specificGroupFilter, extraFilter))
+            .orElseGet(() -> Filter.createANDFilter(objectClassFilter, specificGroupFilter));
+    }
+
+    private static Expiry<Key, Optional<LdapGroup>> expiry(LdapGroupDirectoryConfiguration configuration) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(Key key, Optional<LdapGroup> group, long currentTime) {
+                return ttl(group);
+            }
+
+            @Override
+            public long expireAfterUpdate(Key key, Optional<LdapGroup> group, long currentTime, long currentDuration) {
+                return ttl(group);
+            }
+
+            @Override
+            public long expireAfterRead(Key key, Optional<LdapGroup> group, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+
+            private long ttl(Optional<LdapGroup> group) {
+                return group.map(any -> configuration.ttl())
+                    .orElse(configuration.negativeTtl())
+                    .toNanos();
+            }
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package com.linagora.tmail.ldap;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.util.DurationParser;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Retention of the {@link LdapGroupDirectory} cache.
+ *
+ * @param cacheSize maximum count of addresses kept in the cache, groups and non groups alike
+ * @param ttl time during which a group found in the LDAP is kept
+ * @param negativeTtl time during which an address known not to be a group is kept
+ * @param refreshAfter age after which a group still being looked up is reloaded in the background, before it expires
+ */
+public record LdapGroupDirectoryConfiguration(int cacheSize, Duration ttl, Duration negativeTtl, Duration refreshAfter) {
+    private static final String CACHE_SIZE = "ldap.groups.cache.size";
+    private static final String TTL = "ldap.groups.cache.ttl";
+    private static final String NEGATIVE_TTL = "ldap.groups.cache.negative.ttl";
+    private static final String REFRESH_AFTER = "ldap.groups.cache.refresh.after";
+
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_REFRESH_AFTER = Duration.ofMinutes(1);
+
+    public static final LdapGroupDirectoryConfiguration DEFAULT = new LdapGroupDirectoryConfiguration(DEFAULT_CACHE_SIZE,
+        DEFAULT_TTL, DEFAULT_NEGATIVE_TTL, DEFAULT_REFRESH_AFTER);
+
+    public static LdapGroupDirectoryConfiguration fromProperties(Configuration configuration) {
+        return new LdapGroupDirectoryConfiguration(
+            configuration.getInt(CACHE_SIZE, DEFAULT_CACHE_SIZE),
+            readDuration(configuration, TTL).orElse(DEFAULT_TTL),
+            readDuration(configuration, NEGATIVE_TTL).orElse(DEFAULT_NEGATIVE_TTL),
+            readDuration(configuration, REFRESH_AFTER).orElse(DEFAULT_REFRESH_AFTER));
+    }
+
+    private static Optional<Duration> readDuration(Configuration configuration, String key) {
+        return Optional.ofNullable(configuration.getString(key, null))
+            .map(DurationParser::parse);
+    }
+
+    public LdapGroupDirectoryConfiguration {
+        Preconditions.checkArgument(cacheSize > 0, "'%s' should be strictly positive", CACHE_SIZE);
+        Preconditions.checkArgument(ttl.isPositive(), "'%s' should be strictly positive", TTL);
+        Preconditions.checkArgument(negativeTtl.isPositive(), "'%s' should be strictly positive", NEGATIVE_TTL);
+        Preconditions.checkArgument(refreshAfter.isPositive() && refreshAfter.compareTo(ttl) < 0,
+            "'%s' should be strictly positive and shorter than '%s'", REFRESH_AFTER, TTL);
+    }
+}
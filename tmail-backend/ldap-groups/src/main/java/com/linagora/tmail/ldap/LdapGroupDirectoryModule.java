@@ -0,0 +1,34 @@
+package com.linagora.tmail.ldap;
+
+import java.io.FileNotFoundException;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.james.utils.PropertiesProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Scopes;
+import com.google.inject.Singleton;
+
+public class LdapGroupDirectoryModule extends AbstractModule {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LdapGroupDirectoryModule.class);
+    private static final String CONFIGURATION_NAME = "ldap-groups";
+
+    @Override
+    protected void configure() {
+        bind(LdapGroupDirectory.class).in(Scopes.SINGLETON);
+    }
+
+    @Provides
+    @Singleton
+    LdapGroupDirectoryConfiguration provideConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
+        try {
+            return LdapGroupDirectoryConfiguration.fromProperties(propertiesProvider.getConfiguration(CONFIGURATION_NAME));
+        } catch (FileNotFoundException e) {
+            LOGGER.info("Could not find {} configuration file. Using default LDAP groups cache configuration", CONFIGURATION_NAME);
+            return LdapGroupDirectoryConfiguration.DEFAULT;
+        }
+    }
+}
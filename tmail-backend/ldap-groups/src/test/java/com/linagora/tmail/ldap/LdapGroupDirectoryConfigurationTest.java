@@ -0,0 +1,41 @@
+package com.linagora.tmail.ldap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.junit.jupiter.api.Test;
+
+class LdapGroupDirectoryConfigurationTest {
+    @Test
+    void fromPropertiesShouldReturnDefaultsWhenEmpty() {
+        assertThat(LdapGroupDirectoryConfiguration.fromProperties(new PropertiesConfiguration()))
+            .isEqualTo(LdapGroupDirectoryConfiguration.DEFAULT);
+    }
+
+    @Test
+    void fromPropertiesShouldReadValues() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("ldap.groups.cache.size", "500");
+        configuration.addProperty("ldap.groups.cache.ttl", "10m");
+        configuration.addProperty("ldap.groups.cache.negative.ttl", "5s");
+        configuration.addProperty("ldap.groups.cache.refresh.after", "2m");
+
+        assertThat(LdapGroupDirectoryConfiguration.fromProperties(configuration))
+            .isEqualTo(new LdapGroupDirectoryConfiguration(500, Duration.ofMinutes(10), Duration.ofSeconds(5), Duration.ofMinutes(2)));
+    }
+
+    @Test
+    void shouldRejectRefreshAfterLongerThanTtl() {
+        assertThatThrownBy(() -> new LdapGroupDirectoryConfiguration(500, Duration.ofMinutes(1), Duration.ofSeconds(5), Duration.ofMinutes(2)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectNonPositiveCacheSize() {
+        assertThatThrownBy(() -> new LdapGroupDirectoryConfiguration(0, Duration.ofMinutes(5), Duration.ofSeconds(5), Duration.ofMinutes(1)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
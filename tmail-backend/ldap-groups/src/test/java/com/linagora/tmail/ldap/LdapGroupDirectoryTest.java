@@ -0,0 +1,137 @@
+package com.linagora.tmail.ldap;
+
+import static org.apache.james.user.ldap.DockerLdapSingleton.ADMIN;
+import static org.apache.james.user.ldap.DockerLdapSingleton.ADMIN_PASSWORD;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.plist.PropertyListConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.james.core.MailAddress;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.user.ldap.DockerLdapSingleton;
+import org.apache.james.user.ldap.LDAPConnectionFactory;
+import org.apache.james.user.ldap.LdapGenericContainer;
+import org.apache.james.user.ldap.LdapRepositoryConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LdapGroupDirectoryTest {
+    static LdapGenericContainer ldapContainer = DockerLdapSingleton.ldapContainer;
+
+    static final GroupQuery QUERY = new GroupQuery("ou=lists,dc=james,dc=org", "groupofnames", "description");
+
+    @BeforeAll
+    static void setUpAll() {
+        ldapContainer.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        ldapContainer.stop();
+    }
+
+    private RecordingMetricFactory metricFactory;
+    private LdapGroupDirectory testee;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LdapRepositoryConfiguration configuration = LdapRepositoryConfiguration.from(ldapRepositoryConfiguration(ldapContainer));
+        metricFactory = new RecordingMetricFactory();
+        testee = new LdapGroupDirectory(new LDAPConnectionFactory(configuration).getLdapConnectionPool(), configuration,
+            LdapGroupDirectoryConfiguration.DEFAULT, metricFactory, new NoopGaugeRegistry());
+    }
+
+    @Test
+    void lookupShouldReturnTheGroup() throws Exception {
+        assertThat(testee.lookup(QUERY, new MailAddress("mygroup@lists.james.org")))
+            .hasValueSatisfying(group -> {
+                assertThat(group.dn()).containsIgnoringCase("ou=lists");
+                assertThat(group.members()).isNotEmpty();
+            });
+    }
+
+    @Test
+    void lookupShouldReturnEmptyWhenNotAGroup() throws Exception {
+        assertThat(testee.lookup(QUERY, new MailAddress("notfound@lists.james.org")))
+            .isEmpty();
+    }
+
+    @Test
+    void lookupShouldReturnEmptyWhenBaseDNDoesNotExist() throws Exception {
+        GroupQuery query = new GroupQuery("ou=notfound,dc=james,dc=org", "groupofnames", "description");
+
+        assertThat(testee.lookup(query, new MailAddress("mygroup@lists.james.org")))
+            .isEmpty();
+    }
+
+    @Test
+    void lookupShouldCacheGroups() throws Exception {
+        testee.lookup(QUERY, new MailAddress("mygroup@lists.james.org"));
+        testee.lookup(QUERY, new MailAddress("mygroup@lists.james.org"));
+
+        assertThat(metricFactory.executionTimesFor(LdapGroupDirectory.LDAP_SEARCH_TIMER))
+            .hasSize(1);
+    }
+
+    @Test
+    void lookupShouldCacheAddressesThatAreNotGroups() throws Exception {
+        testee.lookup(QUERY, new MailAddress("notfound@lists.james.org"));
+        testee.lookup(QUERY, new MailAddress("notfound@lists.james.org"));
+
+        assertThat(metricFactory.executionTimesFor(LdapGroupDirectory.LDAP_SEARCH_TIMER))
+            .hasSize(1);
+    }
+
+    @Test
+    void lookupShouldNotShareEntriesAcrossQueries() throws Exception {
+        GroupQuery otherQuery = new GroupQuery("ou=notfound,dc=james,dc=org", "groupofnames", "description");
+
+        testee.lookup(QUERY, new MailAddress("mygroup@lists.james.org"));
+
+        assertThat(testee.lookup(otherQuery, new MailAddress("mygroup@lists.james.org")))
+            .isEmpty();
+    }
+
+    @Test
+    void flushShouldDropCachedEntries() throws Exception {
+        testee.lookup(QUERY, new MailAddress("mygroup@lists.james.org"));
+
+        testee.flush();
+        testee.lookup(QUERY, new MailAddress("mygroup@lists.james.org"));
+
+        assertThat(metricFactory.executionTimesFor(LdapGroupDirectory.LDAP_SEARCH_TIMER))
+            .hasSize(2);
+    }
+
+    @Test
+    void flushAddressShouldDropCachedEntriesOfThisAddress() throws Exception {
+        testee.lookup(QUERY, new MailAddress("mygroup@lists.james.org"));
+        testee.lookup(QUERY, new MailAddress("notfound@lists.james.org"));
+
+        testee.flush(new MailAddress("mygroup@lists.james.org"));
+        testee.lookup(QUERY, new MailAddress("mygroup@lists.james.org"));
+        testee.lookup(QUERY, new MailAddress("notfound@lists.james.org"));
+
+        assertThat(metricFactory.executionTimesFor(LdapGroupDirectory.LDAP_SEARCH_TIMER))
+            .hasSize(3);
+    }
+
+    static HierarchicalConfiguration<ImmutableNode> ldapRepositoryConfiguration(LdapGenericContainer ldapContainer) {
+        PropertyListConfiguration configuration = new PropertyListConfiguration();
+        configuration.addProperty("[@ldapHost]", ldapContainer.getLdapHost());
+        configuration.addProperty("[@principal]", "cn=admin,dc=james,dc=org");
+        configuration.addProperty("[@credentials]", ADMIN_PASSWORD);
+        configuration.addProperty("[@userBase]", "ou=people,dc=james,dc=org");
+        configuration.addProperty("[@userObjectClass]", "inetOrgPerson");
+        configuration.addProperty("[@connectionTimeout]", "2000");
+        configuration.addProperty("[@readTimeout]", "2000");
+        configuration.addProperty("[@userIdAttribute]", "mail");
+        configuration.addProperty("supportsVirtualHosting", true);
+        configuration.addProperty("[@administratorId]", ADMIN.asString());
+        return configuration;
+    }
+}
@@ -1,26 +1,32 @@
 package com.linagora.tmail.encrypted
 
-import java.io.ByteArrayOutputStream
+import java.io.{ByteArrayOutputStream, OutputStream}
 import java.nio.charset.StandardCharsets
+import java.util.Optional
 import java.util.concurrent.atomic.AtomicInteger
 
 import com.google.common.io.ByteSource
-import com.linagora.tmail.encrypted.EncryptedAttachmentBlobId.prefix
+import com.linagora.tmail.encrypted.EncryptedAttachmentBlobId.{binarySuffix, prefix}
 import com.linagora.tmail.pgp.Encrypter
 import org.apache.james.jmap.api.model.Preview
 import org.apache.james.mailbox.model.{MessageId, ParsedAttachment}
+import org.bouncycastle.bcpg.ArmoredOutputStream
 
 import scala.jdk.OptionConverters._
-import scala.util.Try
+import scala.util.{Try, Using}
 
-class EncryptedEmailContentFactory(encrypter: Encrypter) {
+/**
+ * @param attachmentFormat the format attachment contents are stored in. Defaults to ASCII armored.
+ */
+class EncryptedEmailContentFactory(encrypter: Encrypter, attachmentFormat: EncryptedContentFormat = EncryptedContentFormat.ARMORED) {
 
   def encrypt(clearEmailContent: ClearEmailContent, messageId: MessageId): EncryptedEmailContent =
     EncryptedEmailContent(encryptedPreview = encryptPreview(clearEmailContent.preview),
       encryptedHtml = encrypt(clearEmailContent.html),
       hasAttachment = clearEmailContent.hasAttachment,
       encryptedAttachmentMetadata = encryptAttachmentMetadata(clearEmailContent.attachments, messageId),
-      encryptedAttachmentContents = encryptAttachmentContent(clearEmailContent.attachments))
+      encryptedAttachmentContents = encryptAttachmentContent(clearEmailContent.attachments),
+      format = attachmentFormat)
 
   private def encryptPreview(preview: Preview): String =
     encrypt(preview.getValue)
@@ -32,17 +38,31 @@ class EncryptedEmailContentFactory(encrypter: Encrypter) {
         val position: AtomicInteger = new AtomicInteger(0)
         Some(encrypt(AttachmentMetaDataSerializer
           .serializeList(parsedAttachments
-            .map(parsedAttachment => AttachmentMetadata.fromJava(parsedAttachment, position.getAndIncrement(), messageId)))
+            .map(parsedAttachment => AttachmentMetadata.fromJava(parsedAttachment, position.getAndIncrement(), messageId, attachmentFormat)))
           .toString()))
     }
   }
 
-  private def encryptAttachmentContent(parsedAttachments: List[ParsedAttachment]): List[String] =
+  private def encryptAttachmentContent(parsedAttachments: List[ParsedAttachment]): List[Array[Byte]] =
     parsedAttachments match {
       case Nil | List() => List.empty
-      case _ => parsedAttachments.map(parsedAttachment => encrypt(parsedAttachment.getContent))
+      case _ => parsedAttachments.map(encryptAttachment)
     }
 
+  private def encryptAttachment(parsedAttachment: ParsedAttachment): Array[Byte] = {
+    val stream: ByteArrayOutputStream = new ByteArrayOutputStream
+    attachmentFormat match {
+      case EncryptedContentFormat.ARMORED => Using.resource(new ArmoredOutputStream(stream))(armored =>
+        encryptBinary(parsedAttachment, armored))
+      case EncryptedContentFormat.BINARY => encryptBinary(parsedAttachment, stream)
+    }
+    stream.toByteArray
+  }
+
+  private def encryptBinary(parsedAttachment: ParsedAttachment, output: OutputStream): Unit =
+    Using.resource(parsedAttachment.getContent.openStream())(clear =>
+      encrypter.encryptBinary(clear, output, Optional.of(parsedAttachment.getContentType.asString())))
+
   private def encrypt(byteSource: ByteSource): String = {
     val stream: ByteArrayOutputStream = new ByteArrayOutputStream
     encrypter.encrypt(byteSource, stream)
@@ -53,17 +73,54 @@ class EncryptedEmailContentFactory(encrypter: Encrypter) {
     encrypt(ByteSource.wrap(value.getBytes(StandardCharsets.UTF_8)))
 }
 
+object EncryptedContentFormat {
+  /** Attachment contents stored as ASCII armored OpenPGP messages, the default. */
+  case object ARMORED extends EncryptedContentFormat {
+    override val version: Int = 1
+  }
+
+  /** Attachment contents stored as binary OpenPGP messages, armored when downloaded unless the client asks for binary. */
+  case object BINARY extends EncryptedContentFormat {
+    override val version: Int = 2
+  }
+
+  /** Stored contents lacking a format version predate the binary format. */
+  val LEGACY: EncryptedContentFormat = ARMORED
+
+  def fromVersion(version: Int): Either[IllegalArgumentException, EncryptedContentFormat] =
+    version match {
+      case ARMORED.version => Right(ARMORED)
+      case BINARY.version => Right(BINARY)
+      case _ => Left(new IllegalArgumentException(s"Unknown encrypted content format version $version"))
+    }
+}
+
+sealed trait EncryptedContentFormat {
+  def version: Int
+}
+
+/**
+ * Preview, html and attachment metadata are always ASCII armored: they are served as JSON strings.
+ *
+ * The format of the attachment contents is given by `format`.
+ */
 case class EncryptedEmailContent(encryptedPreview: String,
                                  encryptedHtml: String,
                                  hasAttachment: Boolean,
                                  encryptedAttachmentMetadata: Option[String],
-                                 encryptedAttachmentContents: List[String])
+                                 encryptedAttachmentContents: List[Array[Byte]],
+                                 format: EncryptedContentFormat = EncryptedContentFormat.ARMORED)
 
 object AttachmentMetadata {
-  def fromJava(parsedAttachment: ParsedAttachment, position: Int, messageId: MessageId): AttachmentMetadata =
+  def fromJava(parsedAttachment: ParsedAttachment, position: Int, messageId: MessageId,
+               format: EncryptedContentFormat = EncryptedContentFormat.ARMORED): AttachmentMetadata =
     AttachmentMetadata(
       position = position,
       blobId = EncryptedAttachmentBlobId(messageId, position).serialize,
+      binaryBlobId = format match {
+        case EncryptedContentFormat.ARMORED => None
+        case EncryptedContentFormat.BINARY => Some(EncryptedAttachmentBlobId(messageId, position).asBinary.serialize)
+      },
       name = parsedAttachment.getName.toScala,
       contentType = parsedAttachment.getContentType.asString(),
       cid = parsedAttachment.getCid
@@ -75,17 +132,20 @@ object AttachmentMetadata {
 
 object EncryptedAttachmentBlobId {
   private val prefix: String = "encryptedAttachment_"
+  private val binarySuffix: String = "_binary"
 
   def parse(messageIdFactory: MessageId.Factory, string: String): Either[IllegalArgumentException, EncryptedAttachmentBlobId] =
     if (string.startsWith(prefix)) {
-      val positionIndex = string.lastIndexOf('_')
+      val binary = string.endsWith(binarySuffix)
+      val unsuffixed = if (binary) string.dropRight(binarySuffix.length) else string
+      val positionIndex = unsuffixed.lastIndexOf('_')
 
       val aTry: Try[EncryptedAttachmentBlobId] = for {
-        position <- Try(string.substring(positionIndex + 1).toInt)
+        position <- Try(unsuffixed.substring(positionIndex + 1).toInt)
           .filter(i => i >= 0)
-        messageId <- Try(messageIdFactory.fromString(string.substring(prefix.length, positionIndex)))
+        messageId <- Try(messageIdFactory.fromString(unsuffixed.substring(prefix.length, positionIndex)))
       } yield {
-        EncryptedAttachmentBlobId(messageId, position)
+        EncryptedAttachmentBlobId(messageId, position, binary)
       }
       aTry.toEither
         .left.map(new IllegalArgumentException(_))
@@ -94,14 +154,26 @@ object EncryptedAttachmentBlobId {
     }
 }
 
-case class EncryptedAttachmentBlobId(messageId: MessageId, position: Int) {
+/**
+ * @param binary whether the client asks for the binary attachment content rather than the ASCII armored one.
+ *               Only attachments stored in the [[EncryptedContentFormat.BINARY]] format can be downloaded as binary.
+ */
+case class EncryptedAttachmentBlobId(messageId: MessageId, position: Int, binary: Boolean = false) {
   def serialize: String = {
-    s"$prefix${messageId.serialize()}_$position"
+    val suffix = if (binary) binarySuffix else ""
+    s"$prefix${messageId.serialize()}_$position$suffix"
   }
+
+  def asBinary: EncryptedAttachmentBlobId = copy(binary = true)
 }
 
+/**
+ * @param blobId       downloads the ASCII armored attachment content.
+ * @param binaryBlobId downloads the binary attachment content, when it is stored as binary.
+ */
 case class AttachmentMetadata(position: Int,
                               blobId: String,
+                              binaryBlobId: Option[String] = None,
                               name: Option[String],
                               contentType: String,
                               cid: Option[String],
@@ -3,9 +3,11 @@ package com.linagora.tmail.encrypted
 import org.apache.james.blob.api.BlobId
 import org.apache.james.mailbox.model.MessageId
 import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.SMono
 
 object EncryptedEmailContentStore {
   val POSITION_NUMBER_START_AT: Int = 0
+  val ATTACHMENT_SAVE_CONCURRENCY: Int = 4
 }
 
 trait EncryptedEmailContentStore {
@@ -17,9 +19,15 @@ trait EncryptedEmailContentStore {
 
   def retrieveDetailedView(messageId: MessageId): Publisher[EncryptedEmailDetailedView]
 
-  def retrieveAttachmentContent(messageId: MessageId, position: Int): Publisher[BlobId]
+  def retrieveAttachment(messageId: MessageId, position: Int): Publisher[StoredEncryptedAttachment]
+
+  def retrieveAttachmentContent(messageId: MessageId, position: Int): Publisher[BlobId] =
+    SMono(retrieveAttachment(messageId, position))
+      .map(_.blobId)
 }
 
+case class StoredEncryptedAttachment(blobId: BlobId, format: EncryptedContentFormat)
+
 case class MessageNotFoundException(messageId: MessageId) extends RuntimeException
 
 case class AttachmentNotFoundException(messageId: MessageId, position: Int) extends RuntimeException
@@ -14,9 +14,11 @@ import reactor.core.publisher.Flux
 import reactor.core.scala.publisher.SMono
 
 class EncryptedMailboxManager @Inject()(mailboxManager: MailboxManager,
-                                        keystoreManager: KeystoreManager,
+                                        publicKeyCache: PublicKeyCache,
                                         clearEmailContentFactory: ClearEmailContentFactory,
-                                        encryptedEmailContentStore: EncryptedEmailContentStore) extends MailboxManager {
+                                        encryptedEmailContentStore: EncryptedEmailContentStore,
+                                        encryptionExecutor: EncryptionExecutor,
+                                        encryptionConfiguration: EncryptionConfiguration) extends MailboxManager {
 
   override def getMailbox(mailbox: Mailbox, session: MailboxSession): MessageManager = mailboxManager.getMailbox(mailbox, session)
 
@@ -28,9 +30,9 @@ class EncryptedMailboxManager @Inject()(mailboxManager: MailboxManager,
 
   override def getSupportedSearchCapabilities: util.EnumSet[SearchCapabilities] = mailboxManager.getSupportedSearchCapabilities
 
-  override def getMailbox(mailboxPath: MailboxPath, session: MailboxSession): MessageManager = new EncryptedMessageManager(mailboxManager.getMailbox(mailboxPath, session), keystoreManager, clearEmailContentFactory, encryptedEmailContentStore)
+  override def getMailbox(mailboxPath: MailboxPath, session: MailboxSession): MessageManager = new EncryptedMessageManager(mailboxManager.getMailbox(mailboxPath, session), publicKeyCache, clearEmailContentFactory, encryptedEmailContentStore, encryptionExecutor, encryptionConfiguration)
 
-  override def getMailbox(mailboxId: MailboxId, session: MailboxSession): MessageManager = new EncryptedMessageManager(mailboxManager.getMailbox(mailboxId, session), keystoreManager, clearEmailContentFactory, encryptedEmailContentStore)
+  override def getMailbox(mailboxId: MailboxId, session: MailboxSession): MessageManager = new EncryptedMessageManager(mailboxManager.getMailbox(mailboxId, session), publicKeyCache, clearEmailContentFactory, encryptedEmailContentStore, encryptionExecutor, encryptionConfiguration)
 
   override def createMailbox(mailboxPath: MailboxPath, mailboxSession: MailboxSession): Optional[MailboxId] =
     mailboxManager.createMailbox(mailboxPath, mailboxSession)
@@ -138,11 +140,11 @@ class EncryptedMailboxManager @Inject()(mailboxManager: MailboxManager,
 
   override def getMailboxReactive(mailboxId: MailboxId, session: MailboxSession): Publisher[MessageManager] =
     SMono.fromPublisher(mailboxManager.getMailboxReactive(mailboxId, session))
-      .map(messageManager => new EncryptedMessageManager(messageManager, keystoreManager, clearEmailContentFactory, encryptedEmailContentStore))
+      .map(messageManager => new EncryptedMessageManager(messageManager, publicKeyCache, clearEmailContentFactory, encryptedEmailContentStore, encryptionExecutor, encryptionConfiguration))
 
   override def getMailboxReactive(mailboxPath: MailboxPath, session: MailboxSession): Publisher[MessageManager] =
     SMono.fromPublisher(mailboxManager.getMailboxReactive(mailboxPath, session))
-      .map(messageManager => new EncryptedMessageManager(messageManager, keystoreManager, clearEmailContentFactory, encryptedEmailContentStore))
+      .map(messageManager => new EncryptedMessageManager(messageManager, publicKeyCache, clearEmailContentFactory, encryptedEmailContentStore, encryptionExecutor, encryptionConfiguration))
 
   override def hasRight(mailbox: Mailbox, right: MailboxACL.Right, session: MailboxSession): Boolean = mailboxManager.hasRight(mailbox, right, session)
 
@@ -4,26 +4,36 @@ import java.io.InputStream
 import java.util
 import java.util.Date
 
-import com.linagora.tmail.pgp.Encrypter
+import com.linagora.tmail.pgp.EncryptedMessage
 import jakarta.inject.Inject
 import jakarta.mail.Flags
 import org.apache.james.mailbox.MessageManager.{AppendCommand, AppendResult, MailboxMetaData}
-import org.apache.james.mailbox.model.{ComposedMessageIdWithMetaData, FetchGroup, Mailbox, MailboxACL, MailboxConstants, MailboxCounters, MailboxId, MailboxPath, MessageRange, MessageResultIterator, SearchQuery}
+import org.apache.james.mailbox.model.{ComposedMessageIdWithMetaData, Content, FetchGroup, Mailbox, MailboxACL, MailboxConstants, MailboxCounters, MailboxId, MailboxPath, MessageRange, MessageResultIterator, SearchQuery}
 import org.apache.james.mailbox.{MailboxManager, MailboxSession, MessageManager, MessageUid}
 import org.apache.james.mime4j.codec.DecodeMonitor
 import org.apache.james.mime4j.dom.Message
 import org.apache.james.mime4j.dom.field.ContentTypeField
 import org.apache.james.mime4j.message.DefaultMessageBuilder
 import org.apache.james.mime4j.stream.MimeConfig
+import org.bouncycastle.openpgp.PGPPublicKey
 import org.reactivestreams.Publisher
-import reactor.core.scala.publisher.{SFlux, SMono}
+import reactor.core.scala.publisher.SMono
 
-import scala.jdk.CollectionConverters._
+/**
+ * Streams the spill-backed encrypted message to the underlying mailbox.
+ */
+private case class EncryptedMessageContent(encryptedMessage: EncryptedMessage) extends Content {
+  override def getInputStream: InputStream = encryptedMessage.asByteSource().openStream()
+
+  override def size(): Long = encryptedMessage.size()
+}
 
 class EncryptedMessageManager @Inject()(messageManager: MessageManager,
-                                        keystoreManager: KeystoreManager,
+                                        publicKeyCache: PublicKeyCache,
                                         clearEmailContentFactory: ClearEmailContentFactory,
-                                        encryptedEmailContentStore: EncryptedEmailContentStore) extends MessageManager {
+                                        encryptedEmailContentStore: EncryptedEmailContentStore,
+                                        encryptionExecutor: EncryptionExecutor,
+                                        encryptionConfiguration: EncryptionConfiguration) extends MessageManager {
 
   override def getMessageCount(mailboxSession: MailboxSession): Long = messageManager.getMessageCount(mailboxSession)
 
@@ -72,43 +82,48 @@ class EncryptedMessageManager @Inject()(messageManager: MessageManager,
   override def getResolvedAcl(mailboxSession: MailboxSession): MailboxACL = messageManager.getResolvedAcl(mailboxSession)
 
   private def append(appendCommand: AppendCommand, session: MailboxSession): SMono[AppendResult] =
-    SFlux.fromPublisher(keystoreManager.listPublicKeys(session.getUser))
-      .collectSeq()
+    publicKeyCache.publicKeys(session.getUser)
       .flatMap(keys => {
         if (keys.isEmpty || !getMailboxPath.getNamespace.equals(MailboxConstants.USER_NAMESPACE)) {
           SMono.fromPublisher(messageManager.appendMessageReactive(appendCommand, session))
         } else {
-          val messageBuilder: DefaultMessageBuilder = new DefaultMessageBuilder()
-          messageBuilder.setMimeEntityConfig(MimeConfig.PERMISSIVE)
-          messageBuilder.setDecodeMonitor(DecodeMonitor.SILENT)
-          val clearMessage: Message = messageBuilder.parseMessage(appendCommand.getMsgIn.getInputStream)
-          if (isMessageEncrypted(clearMessage)) {
-            SMono.fromPublisher(messageManager.appendMessageReactive(appendCommand, session))
-          } else {
-            clearEmailContentFactory.from(clearMessage)
-              .fold(e => SMono.error(e),
-                clearContent => storeEncryptedMessage(session, keys, clearMessage, clearContent))
-          }
+          encryptionExecutor.parse(() => parseMessage(appendCommand))
+            .flatMap(clearMessage => {
+              if (isMessageEncrypted(clearMessage)) {
+                SMono.fromPublisher(messageManager.appendMessageReactive(appendCommand, session))
+              } else {
+                encryptionExecutor.parse(() => clearEmailContentFactory.from(clearMessage).get)
+                  .flatMap(clearContent => storeEncryptedMessage(session, keys, clearMessage, clearContent))
+              }
+            })
         }
       })
 
+  private def parseMessage(appendCommand: AppendCommand): Message = {
+    val messageBuilder: DefaultMessageBuilder = new DefaultMessageBuilder()
+    messageBuilder.setMimeEntityConfig(MimeConfig.PERMISSIVE)
+    messageBuilder.setDecodeMonitor(DecodeMonitor.SILENT)
+    messageBuilder.parseMessage(appendCommand.getMsgIn.getInputStream)
+  }
+
   private def isMessageEncrypted(message: Message): Boolean =
     Option(message.getHeader.getField("Content-Type").asInstanceOf[ContentTypeField])
       .exists(field => field.getMediaType.equals("multipart") && field.getSubType.equals("encrypted"))
 
   private def storeEncryptedMessage(session: MailboxSession,
-                                    keys: Seq[PublicKey],
+                                    keys: Seq[PGPPublicKey],
                                     clearMessage: Message,
                                     clearContent: ClearEmailContent): SMono[AppendResult] = {
-    val encrypter = Encrypter.forKeys(keys.map(key => key.key).asJava)
-    val encryptedMessage: Message = encrypter
-      .encrypt(clearMessage)
+    val encrypter = encryptionConfiguration.encrypter(keys)
 
-    SMono.fromPublisher(messageManager.appendMessageReactive(AppendCommand.from(encryptedMessage), session))
+    encryptionExecutor.encrypt(() => encrypter.encryptMessage(clearMessage))
+      .flatMap(encryptedMessage => encryptionExecutor.store(messageManager.appendMessageReactive(AppendCommand.builder()
+          .build(EncryptedMessageContent(encryptedMessage)), session))
+        .doFinally(_ => encryptedMessage.close()))
       .flatMap(appendResult => {
         val messageId = appendResult.getId.getMessageId
-        val encryptedEmailContent = new EncryptedEmailContentFactory(encrypter).encrypt(clearContent, messageId)
-        SMono(encryptedEmailContentStore.store(messageId, encryptedEmailContent))
+        encryptionExecutor.encrypt(() => encryptionConfiguration.contentFactory(encrypter).encrypt(clearContent, messageId))
+          .flatMap(encryptedEmailContent => encryptionExecutor.store(encryptedEmailContentStore.store(messageId, encryptedEmailContent)))
           .`then`(SMono.just(appendResult))
       })
   }
@@ -0,0 +1,23 @@
+package com.linagora.tmail.encrypted
+
+import com.linagora.tmail.pgp.{Compression, Encrypter}
+import org.bouncycastle.openpgp.PGPPublicKey
+
+import scala.jdk.CollectionConverters._
+
+object EncryptionConfiguration {
+  val DEFAULT: EncryptionConfiguration = EncryptionConfiguration(Compression.DEFAULT, binaryAttachments = false)
+}
+
+/**
+ * How the encrypted mailbox encrypts messages: encrypters apply the given `compression`, and encrypted email contents
+ * store their attachments as binary OpenPGP data when `binaryAttachments` is set, ASCII armored otherwise.
+ */
+case class EncryptionConfiguration(compression: Compression, binaryAttachments: Boolean) {
+  private val attachmentFormat: EncryptedContentFormat =
+    if (binaryAttachments) EncryptedContentFormat.BINARY else EncryptedContentFormat.ARMORED
+
+  def encrypter(publicKeys: Seq[PGPPublicKey]): Encrypter = Encrypter.forPublicKeys(publicKeys.asJava, compression)
+
+  def contentFactory(encrypter: Encrypter): EncryptedEmailContentFactory = new EncryptedEmailContentFactory(encrypter, attachmentFormat)
+}
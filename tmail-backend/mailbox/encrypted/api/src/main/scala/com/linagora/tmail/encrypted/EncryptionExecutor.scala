@@ -0,0 +1,62 @@
+package com.linagora.tmail.encrypted
+
+import java.util.concurrent.RejectedExecutionException
+
+import com.linagora.tmail.encrypted.EncryptionExecutor.{DEFAULT_QUEUE_SIZE, DEFAULT_THREADS, ENCRYPT_TIMER, PARSE_TIMER, STORE_TIMER, THREAD_NAME}
+import jakarta.annotation.PreDestroy
+import org.apache.james.metrics.api.MetricFactory
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.SMono
+import reactor.core.scheduler.{Scheduler, Schedulers}
+
+object EncryptionExecutor {
+  val DEFAULT_THREADS: Int = Runtime.getRuntime.availableProcessors()
+  val DEFAULT_QUEUE_SIZE: Int = 1000
+
+  val PARSE_TIMER: String = "encrypted-mailbox-parse"
+  val ENCRYPT_TIMER: String = "encrypted-mailbox-encrypt"
+  val STORE_TIMER: String = "encrypted-mailbox-store"
+
+  private val THREAD_NAME: String = "pgp-encryption"
+  private val THREAD_TTL_SECONDS: Int = 60
+
+  def apply(metricFactory: MetricFactory): EncryptionExecutor =
+    new EncryptionExecutor(DEFAULT_THREADS, DEFAULT_QUEUE_SIZE, metricFactory)
+}
+
+/**
+ * Runs the CPU intensive steps of the encrypted mailbox (message parsing, PGP encryption) on a dedicated scheduler,
+ * away from the threads of the reactive pipelines.
+ *
+ * At most `threads` steps run concurrently and about `queueSize` steps wait for a thread: further steps are rejected
+ * with an [[EncryptionOverloadedException]], which makes the caller (eg. the mail delivery) retry later. The scheduler
+ * bounds the pending steps of each of its `threads` workers, so `queueSize` is split among them, rounded up.
+ */
+class EncryptionExecutor(threads: Int, queueSize: Int, metricFactory: MetricFactory) {
+  require(threads > 0, "'threads' should be strictly positive")
+  require(queueSize > 0, "'queueSize' should be strictly positive")
+
+  private val scheduler: Scheduler = Schedulers.newBoundedElastic(threads, Math.ceilDiv(queueSize, threads), THREAD_NAME,
+    EncryptionExecutor.THREAD_TTL_SECONDS, true)
+
+  def parse[T](operation: () => T): SMono[T] = run(PARSE_TIMER, operation)
+
+  def encrypt[T](operation: () => T): SMono[T] = run(ENCRYPT_TIMER, operation)
+
+  def store[T](publisher: Publisher[T]): SMono[T] =
+    SMono.fromPublisher(metricFactory.decoratePublisherWithTimerMetric(STORE_TIMER, publisher))
+
+  private def run[T](timerName: String, operation: () => T): SMono[T] =
+    SMono.fromCallable(() => metricFactory.runPublishingTimerMetric(timerName, () => operation()))
+      .subscribeOn(scheduler)
+      .onErrorMap {
+        case e: RejectedExecutionException => new EncryptionOverloadedException(e)
+        case e => e
+      }
+
+  @PreDestroy
+  def dispose(): Unit = scheduler.dispose()
+}
+
+class EncryptionOverloadedException(cause: Throwable)
+  extends RuntimeException("Too many pending encryptions, the encryption queue is full", cause)
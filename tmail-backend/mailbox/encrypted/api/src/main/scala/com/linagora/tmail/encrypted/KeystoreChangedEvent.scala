@@ -0,0 +1,83 @@
+package com.linagora.tmail.encrypted
+
+import java.nio.charset.StandardCharsets
+
+import com.google.common.collect.ImmutableSet
+import jakarta.inject.{Inject, Named}
+import org.apache.james.core.Username
+import org.apache.james.events.Event.EventId
+import org.apache.james.events.{Event, EventBus, EventListener, EventSerializer, RegistrationKey}
+import org.reactivestreams.Publisher
+import play.api.libs.json.{JsValue, Json}
+import reactor.core.publisher.Mono
+
+case class KeystoreChangedEvent(eventId: EventId, username: Username) extends Event {
+  override def getUsername: Username = username
+
+  override def isNoop: Boolean = false
+
+  override def getEventId: EventId = eventId
+}
+
+object KeystoreRegistrationKey {
+  val KEY: String = "keystore-changes"
+}
+
+/**
+ * Every node registers its [[KeystoreChangedListener]] on this single key, so that a keystore change dispatched
+ * on it is broadcast to the whole cluster.
+ */
+case class KeystoreRegistrationKey() extends RegistrationKey {
+  override def asString(): String = KeystoreRegistrationKey.KEY
+}
+
+class KeystoreRegistrationKeyFactory extends RegistrationKey.Factory {
+  override def forClass(): Class[_ <: RegistrationKey] = classOf[KeystoreRegistrationKey]
+
+  override def fromString(asString: String): RegistrationKey = asString match {
+    case KeystoreRegistrationKey.KEY => KeystoreRegistrationKey()
+    case _ => throw new IllegalArgumentException(s"Unknown keystore registration key $asString")
+  }
+}
+
+class KeystoreEventSerializer @Inject()() extends EventSerializer {
+  private val TYPE: String = classOf[KeystoreChangedEvent].getCanonicalName
+
+  override def toJson(event: Event): String = event match {
+    case keystoreChangedEvent: KeystoreChangedEvent => Json.stringify(Json.obj(
+      "type" -> TYPE,
+      "eventId" -> keystoreChangedEvent.eventId.getId.toString,
+      "username" -> keystoreChangedEvent.username.asString()))
+  }
+
+  override def toJsonBytes(event: Event): Array[Byte] = toJson(event).getBytes(StandardCharsets.UTF_8)
+
+  override def fromBytes(serialized: Array[Byte]): Event = asEvent(new String(serialized, StandardCharsets.UTF_8))
+
+  override def asEvent(serialized: String): Event = {
+    val json: JsValue = Json.parse(serialized)
+    if (!(json \ "type").asOpt[String].contains(TYPE)) {
+      throw new IllegalArgumentException(s"Unknown keystore event: $serialized")
+    }
+    KeystoreChangedEvent(
+      eventId = EventId.of((json \ "eventId").as[String]),
+      username = Username.of((json \ "username").as[String]))
+  }
+}
+
+class KeystoreChangedListener @Inject()(publicKeyCache: PublicKeyCache) extends EventListener.ReactiveEventListener {
+  override def reactiveEvent(event: Event): Publisher[Void] = event match {
+    case keystoreChangedEvent: KeystoreChangedEvent => Mono.fromRunnable[Void](() => publicKeyCache.invalidate(keystoreChangedEvent.username))
+    case _ => Mono.empty()
+  }
+
+  override def isHandling(event: Event): Boolean = event.isInstanceOf[KeystoreChangedEvent]
+}
+
+/**
+ * Drops the cached public keys of a user from every node. The local node is notified by the event bus too.
+ */
+class KeystoreChangeNotifier @Inject()(@Named(KeystoreInjectKeys.KEYSTORE) eventBus: EventBus) {
+  def notifyKeystoreChanged(username: Username): Publisher[Void] =
+    eventBus.dispatch(KeystoreChangedEvent(EventId.random(), username), ImmutableSet.of[RegistrationKey](KeystoreRegistrationKey()))
+}
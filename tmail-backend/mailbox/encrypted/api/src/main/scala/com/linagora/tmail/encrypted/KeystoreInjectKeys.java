@@ -0,0 +1,5 @@
+package com.linagora.tmail.encrypted;
+
+public interface KeystoreInjectKeys {
+    String KEYSTORE = "KEYSTORE_INJECTION";
+}
@@ -0,0 +1,30 @@
+package com.linagora.tmail.encrypted
+
+import org.apache.james.core.Username
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.SMono
+
+/**
+ * Notifies the whole cluster of every change of the keystore of a user, wherever it comes from (JMAP Keystore/set,
+ * username change and user deletion tasks...), so that [[PublicKeyCache]] entries get dropped.
+ */
+class NotifyingKeystoreManager(keystoreManager: KeystoreManager, notifier: KeystoreChangeNotifier) extends KeystoreManager {
+  override def save(username: Username, payload: Array[Byte]): Publisher[KeyId] =
+    SMono.fromPublisher(keystoreManager.save(username, payload))
+      .flatMap(keyId => notifyChange(username).`then`(SMono.just(keyId)))
+
+  override def listPublicKeys(username: Username): Publisher[PublicKey] = keystoreManager.listPublicKeys(username)
+
+  override def retrieveKey(username: Username, id: KeyId): Publisher[PublicKey] = keystoreManager.retrieveKey(username, id)
+
+  override def delete(username: Username, id: KeyId): Publisher[Void] =
+    SMono.fromPublisher(keystoreManager.delete(username, id))
+      .`then`(notifyChange(username))
+
+  override def deleteAll(username: Username): Publisher[Void] =
+    SMono.fromPublisher(keystoreManager.deleteAll(username))
+      .`then`(notifyChange(username))
+
+  private def notifyChange(username: Username): SMono[Void] =
+    SMono.fromPublisher(notifier.notifyKeystoreChanged(username))
+}
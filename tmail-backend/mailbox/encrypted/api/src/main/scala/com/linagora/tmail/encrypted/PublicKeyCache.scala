@@ -0,0 +1,52 @@
+package com.linagora.tmail.encrypted
+
+import java.io.ByteArrayInputStream
+import java.time.Duration
+import java.util.concurrent.Executor
+
+import com.github.benmanes.caffeine.cache.{AsyncCacheLoader, AsyncLoadingCache, Caffeine}
+import com.linagora.tmail.encrypted.PublicKeyCache.{DEFAULT_EXPIRATION, DEFAULT_MAXIMUM_SIZE}
+import com.linagora.tmail.pgp.Encrypter
+import jakarta.inject.{Inject, Singleton}
+import org.apache.james.core.Username
+import org.bouncycastle.openpgp.PGPPublicKey
+import reactor.core.scala.publisher.{SFlux, SMono}
+import reactor.core.scheduler.Schedulers
+
+import scala.jdk.FutureConverters._
+
+object PublicKeyCache {
+  val DEFAULT_MAXIMUM_SIZE: Long = 10000
+  val DEFAULT_EXPIRATION: Duration = Duration.ofHours(1)
+}
+
+/**
+ * Keeps the parsed public keys of users around, so that appending to an encrypted mailbox neither reads the keystore
+ * nor parses armored keys.
+ *
+ * Keystore changes drop the entry of the user on every node, see [[KeystoreChangedListener]]. The expiration bounds
+ * the staleness of entries should a notification get lost.
+ */
+@Singleton
+class PublicKeyCache(keystoreManager: KeystoreManager, maximumSize: Long, expiration: Duration) {
+
+  @Inject
+  def this(keystoreManager: KeystoreManager) = this(keystoreManager, DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRATION)
+
+  private val loader: AsyncCacheLoader[Username, Seq[PGPPublicKey]] =
+    (username: Username, executor: Executor) => SFlux.fromPublisher(keystoreManager.listPublicKeys(username))
+      .map(publicKey => Encrypter.readPublicKey(new ByteArrayInputStream(publicKey.key)))
+      .collectSeq()
+      .subscribeOn(Schedulers.fromExecutor(executor))
+      .toFuture
+
+  private val cache: AsyncLoadingCache[Username, Seq[PGPPublicKey]] = Caffeine.newBuilder()
+    .maximumSize(maximumSize)
+    .expireAfterWrite(expiration)
+    .buildAsync[Username, Seq[PGPPublicKey]](loader)
+
+  def publicKeys(username: Username): SMono[Seq[PGPPublicKey]] =
+    SMono.fromFuture(cache.get(username).asScala)
+
+  def invalidate(username: Username): Unit = cache.synchronous().invalidate(username)
+}
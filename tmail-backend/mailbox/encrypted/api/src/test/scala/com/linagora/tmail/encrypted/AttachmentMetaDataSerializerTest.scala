@@ -33,6 +33,35 @@ class AttachmentMetaDataSerializerTest {
     assertThat(actualValue).isEqualTo(expectedValue)
   }
 
+  @Test
+  def serializeShouldIncludeBinaryBlobIdWhenPresent(): Unit = {
+    val attachmentMetadata: AttachmentMetadata = AttachmentMetadata(
+      position = 1,
+      blobId = "encryptedAttachment_123_3",
+      binaryBlobId = Some("encryptedAttachment_123_3_binary"),
+      name = Some("name1"),
+      contentType = "Content2",
+      cid = Some("cid2"),
+      isLine = true,
+      size = 9999)
+
+    val actualValue: JsValue = AttachmentMetaDataSerializer.serialize(attachmentMetadata)
+    val expectedValue: JsValue = Json.parse(
+      """
+        |{
+        |  "position" : 1,
+        |  "blobId" : "encryptedAttachment_123_3",
+        |  "binaryBlobId" : "encryptedAttachment_123_3_binary",
+        |  "name" : "name1",
+        |  "contentType" : "Content2",
+        |  "cid" : "cid2",
+        |  "isLine" : true,
+        |  "size" : 9999
+        |}""".stripMargin)
+
+    assertThat(actualValue).isEqualTo(expectedValue)
+  }
+
   @Test
   def serializeListShouldSuccess(): Unit = {
     val attachmentMetadata1: AttachmentMetadata = AttachmentMetadata(
@@ -3,7 +3,7 @@ package com.linagora.tmail.encrypted
 import java.io.ByteArrayInputStream
 import java.nio.charset.StandardCharsets
 
-import com.linagora.tmail.encrypted.EncryptedEmailContentStoreContract.{ENCRYPTED_EMAIL_CONTENT, ENCRYPTED_EMAIL_CONTENT_NO_ATTACHMENT, POSITION_NUMBER_START_AT}
+import com.linagora.tmail.encrypted.EncryptedEmailContentStoreContract.{BINARY_ENCRYPTED_EMAIL_CONTENT, ENCRYPTED_EMAIL_CONTENT, ENCRYPTED_EMAIL_CONTENT_NO_ATTACHMENT, POSITION_NUMBER_START_AT}
 import org.apache.james.blob.api.{BlobId, BlobStore, BucketName, ObjectStoreException}
 import org.apache.james.mailbox.model.MessageId
 import org.assertj.core.api.Assertions.{assertThat, assertThatCode, assertThatThrownBy}
@@ -23,7 +23,9 @@ object EncryptedEmailContentStoreContract {
     encryptedHtml = "encryptedHtml1",
     hasAttachment = true,
     encryptedAttachmentMetadata = Some("encryptedAttachmentMetadata1"),
-    encryptedAttachmentContents = List("encryptedAttachmentContents1"))
+    encryptedAttachmentContents = List("encryptedAttachmentContents1".getBytes(StandardCharsets.UTF_8)))
+
+  val BINARY_ENCRYPTED_EMAIL_CONTENT: EncryptedEmailContent = ENCRYPTED_EMAIL_CONTENT.copy(format = EncryptedContentFormat.BINARY)
 
   private lazy val POSITION_NUMBER_START_AT: Int = 0
 }
@@ -151,9 +153,9 @@ trait EncryptedEmailContentStoreContract {
       encryptedHtml = "encryptedHtml1",
       hasAttachment = true,
       encryptedAttachmentMetadata = Some("encryptedAttachmentMetadata1"),
-      encryptedAttachmentContents = List("encryptedAttachmentContents1",
-        "encryptedAttachmentContents2",
-        "encryptedAttachmentContents3"))
+      encryptedAttachmentContents = List("encryptedAttachmentContents1".getBytes(StandardCharsets.UTF_8),
+        "encryptedAttachmentContents2".getBytes(StandardCharsets.UTF_8),
+        "encryptedAttachmentContents3".getBytes(StandardCharsets.UTF_8)))
 
     val messageId: MessageId = randomMessageId
     SMono.fromPublisher(testee.store(messageId, emailContent)).block()
@@ -171,9 +173,7 @@ trait EncryptedEmailContentStoreContract {
     SMono.fromPublisher(testee.store(messageId, ENCRYPTED_EMAIL_CONTENT)).block()
     val blobId: BlobId = SMono.fromPublisher(testee.retrieveAttachmentContent(messageId, POSITION_NUMBER_START_AT)).block()
     assertThat(blobStore.read(bucketName, blobId))
-      .hasSameContentAs(new ByteArrayInputStream(ENCRYPTED_EMAIL_CONTENT.encryptedAttachmentContents
-        .head
-        .getBytes(StandardCharsets.UTF_8)))
+      .hasSameContentAs(new ByteArrayInputStream(ENCRYPTED_EMAIL_CONTENT.encryptedAttachmentContents.head))
   }
 
   @Test
@@ -184,7 +184,7 @@ trait EncryptedEmailContentStoreContract {
       encryptedHtml = "encryptedHtml1",
       hasAttachment = true,
       encryptedAttachmentMetadata = Some("encryptedAttachmentMetadata1"),
-      encryptedAttachmentContents = List("encryptedAttachmentContents1"))
+      encryptedAttachmentContents = List("encryptedAttachmentContents1".getBytes(StandardCharsets.UTF_8)))
 
     SMono.fromPublisher(testee.store(messageId, encryptedEmailContent)).block()
 
@@ -203,7 +203,7 @@ trait EncryptedEmailContentStoreContract {
       encryptedHtml = "encryptedHtml1",
       hasAttachment = true,
       encryptedAttachmentMetadata = Some("encryptedAttachmentMetadata1"),
-      encryptedAttachmentContents = List("encryptedAttachmentContents1", "encryptedAttachmentContents2", "encryptedAttachmentContents3"))
+      encryptedAttachmentContents = List("encryptedAttachmentContents1".getBytes(StandardCharsets.UTF_8), "encryptedAttachmentContents2".getBytes(StandardCharsets.UTF_8), "encryptedAttachmentContents3".getBytes(StandardCharsets.UTF_8)))
 
     SMono.fromPublisher(testee.store(messageId, encryptedEmailContent)).block()
     val blobId0: BlobId = SMono.fromPublisher(testee.retrieveAttachmentContent(messageId, 0)).block()
@@ -214,7 +214,44 @@ trait EncryptedEmailContentStoreContract {
       new String(SMono.fromPublisher(blobStore.readBytes(bucketName, blobId0)).block(), StandardCharsets.UTF_8),
       new String(SMono.fromPublisher(blobStore.readBytes(bucketName, blobId1)).block(), StandardCharsets.UTF_8),
       new String(SMono.fromPublisher(blobStore.readBytes(bucketName, blobId2)).block(), StandardCharsets.UTF_8)))
-      .isEqualTo(encryptedEmailContent.encryptedAttachmentContents)
+      .isEqualTo(encryptedEmailContent.encryptedAttachmentContents
+        .map(content => new String(content, StandardCharsets.UTF_8)))
+  }
+
+  @Test
+  def retrieveAttachmentShouldReturnArmoredFormatByDefault(): Unit = {
+    val messageId: MessageId = randomMessageId
+    SMono.fromPublisher(testee.store(messageId, ENCRYPTED_EMAIL_CONTENT)).block()
+
+    assertThat(SMono.fromPublisher(testee.retrieveAttachment(messageId, POSITION_NUMBER_START_AT)).block().format)
+      .isEqualTo(EncryptedContentFormat.ARMORED)
+  }
+
+  @Test
+  def retrieveAttachmentShouldReturnBinaryFormatWhenStoredBinary(): Unit = {
+    val messageId: MessageId = randomMessageId
+    SMono.fromPublisher(testee.store(messageId, BINARY_ENCRYPTED_EMAIL_CONTENT)).block()
+
+    assertThat(SMono.fromPublisher(testee.retrieveAttachment(messageId, POSITION_NUMBER_START_AT)).block().format)
+      .isEqualTo(EncryptedContentFormat.BINARY)
+  }
+
+  @Test
+  def retrieveAttachmentShouldReturnTheStoredBlobId(): Unit = {
+    val messageId: MessageId = randomMessageId
+    SMono.fromPublisher(testee.store(messageId, ENCRYPTED_EMAIL_CONTENT)).block()
+
+    assertThat(SMono.fromPublisher(testee.retrieveAttachment(messageId, POSITION_NUMBER_START_AT)).block().blobId)
+      .isEqualTo(SMono.fromPublisher(testee.retrieveAttachmentContent(messageId, POSITION_NUMBER_START_AT)).block())
+  }
+
+  @Test
+  def retrieveAttachmentShouldThrowWhenPositionNotFound(): Unit = {
+    val messageId: MessageId = randomMessageId
+    SMono.fromPublisher(testee.store(messageId, ENCRYPTED_EMAIL_CONTENT)).block()
+
+    assertThatThrownBy(() => SMono.fromPublisher(testee.retrieveAttachment(messageId, 10)).block())
+      .isInstanceOf(classOf[AttachmentNotFoundException])
   }
 
   @Test
@@ -52,6 +52,7 @@ class EncryptedEmailContentTest {
     .getResourceAsStream("gpg.private"),
     "123456".toCharArray)
   val testee: EncryptedEmailContentFactory = new EncryptedEmailContentFactory(encrypter)
+  val binaryTestee: EncryptedEmailContentFactory = new EncryptedEmailContentFactory(encrypter, EncryptedContentFormat.BINARY)
 
   @Test
   def encryptedPreviewShouldEncrypt(): Unit = {
@@ -306,8 +307,111 @@ class EncryptedEmailContentTest {
       .isEqualTo(clearAttachmentContents)
   }
 
-  private def decrypt(encryptedPayload: String): String = {
-    val decryptedPayload: Array[Byte] = decrypter.decrypt(new ByteArrayInputStream(encryptedPayload.getBytes))
+  @Test
+  def encryptShouldUseTheArmoredFormatByDefault(): Unit = {
+    assertThat(testee.encrypt(CLEAR_EMAIL_CONTENT, MESSAGE_ID).format)
+      .isEqualTo(EncryptedContentFormat.ARMORED)
+  }
+
+  @Test
+  def encryptShouldUseTheConfiguredFormat(): Unit = {
+    assertThat(binaryTestee.encrypt(CLEAR_EMAIL_CONTENT, MESSAGE_ID).format)
+      .isEqualTo(EncryptedContentFormat.BINARY)
+  }
+
+  @Test
+  def encryptedAttachmentContentsShouldBeArmoredByDefault(): Unit = {
+    val encryptedEmailContent: EncryptedEmailContent = testee.encrypt(CLEAR_EMAIL_CONTENT, MESSAGE_ID)
+
+    assertThat(new String(encryptedEmailContent.encryptedAttachmentContents.head, StandardCharsets.UTF_8))
+      .startsWith("-----BEGIN PGP MESSAGE-----")
+  }
+
+  @Test
+  def encryptedAttachmentContentsShouldNotBeArmoredWhenBinary(): Unit = {
+    val encryptedEmailContent: EncryptedEmailContent = binaryTestee.encrypt(CLEAR_EMAIL_CONTENT, MESSAGE_ID)
+
+    assertThat(new String(encryptedEmailContent.encryptedAttachmentContents.head, StandardCharsets.UTF_8))
+      .doesNotContain("-----BEGIN PGP MESSAGE-----")
+    assertThat(decrypt(encryptedEmailContent.encryptedAttachmentContents.head))
+      .isEqualTo("payload123321")
+  }
+
+  @Test
+  def encryptedPreviewShouldBeArmored(): Unit = {
+    assertThat(binaryTestee.encrypt(CLEAR_EMAIL_CONTENT, MESSAGE_ID).encryptedPreview)
+      .startsWith("-----BEGIN PGP MESSAGE-----")
+  }
+
+  @Test
+  def attachmentMetadataShouldNotAdvertiseBinaryBlobIdByDefault(): Unit = {
+    val encryptedEmailContent: EncryptedEmailContent = testee.encrypt(CLEAR_EMAIL_CONTENT, MESSAGE_ID)
+
+    assertThatJson(decrypt(encryptedEmailContent.encryptedAttachmentMetadata.get))
+      .inPath("[0].binaryBlobId")
+      .isAbsent()
+  }
+
+  @Test
+  def attachmentMetadataShouldAdvertiseBinaryBlobIdWhenBinary(): Unit = {
+    val encryptedEmailContent: EncryptedEmailContent = binaryTestee.encrypt(CLEAR_EMAIL_CONTENT, MESSAGE_ID)
+
+    assertThatJson(decrypt(encryptedEmailContent.encryptedAttachmentMetadata.get))
+      .when(Option.IGNORING_EXTRA_FIELDS)
+      .isEqualTo(
+        """[
+          |    {
+          |        "blobId": "encryptedAttachment_123_0",
+          |        "binaryBlobId": "encryptedAttachment_123_0_binary"
+          |    }
+          |]""".stripMargin)
+  }
+
+  @Test
+  def parseShouldSucceedWhenBinary(): Unit = {
+    assertThat(EncryptedAttachmentBlobId.parse(new InMemoryMessageId.Factory(), "encryptedAttachment_1_2_binary"))
+      .isEqualTo(Right(EncryptedAttachmentBlobId(InMemoryMessageId.of(1), 2, binary = true)))
+  }
+
+  @Test
+  def parseShouldFailWhenBinaryWithoutPosition(): Unit = {
+    assertThat(EncryptedAttachmentBlobId.parse(new InMemoryMessageId.Factory(), "encryptedAttachment_1_binary").toOption.toJava)
+      .isEmpty
+  }
+
+  @Test
+  def serializeShouldAppendTheBinarySuffix(): Unit = {
+    assertThat(EncryptedAttachmentBlobId(InMemoryMessageId.of(1), 2).asBinary.serialize)
+      .isEqualTo("encryptedAttachment_1_2_binary")
+  }
+
+  @Test
+  def parseShouldRevertSerialize(): Unit = {
+    val blobId: EncryptedAttachmentBlobId = EncryptedAttachmentBlobId(InMemoryMessageId.of(1), 2, binary = true)
+
+    assertThat(EncryptedAttachmentBlobId.parse(new InMemoryMessageId.Factory(), blobId.serialize))
+      .isEqualTo(Right(blobId))
+  }
+
+  @Test
+  def fromVersionShouldRevertVersion(): Unit = {
+    assertThat(EncryptedContentFormat.fromVersion(EncryptedContentFormat.BINARY.version))
+      .isEqualTo(Right(EncryptedContentFormat.BINARY))
+    assertThat(EncryptedContentFormat.fromVersion(EncryptedContentFormat.ARMORED.version))
+      .isEqualTo(Right(EncryptedContentFormat.ARMORED))
+  }
+
+  @Test
+  def fromVersionShouldFailWhenUnknownVersion(): Unit = {
+    assertThat(EncryptedContentFormat.fromVersion(42).isLeft)
+      .isTrue
+  }
+
+  private def decrypt(encryptedPayload: String): String =
+    decrypt(encryptedPayload.getBytes)
+
+  private def decrypt(encryptedPayload: Array[Byte]): String = {
+    val decryptedPayload: Array[Byte] = decrypter.decrypt(new ByteArrayInputStream(encryptedPayload))
       .readAllBytes()
     new String(decryptedPayload, StandardCharsets.UTF_8)
   }
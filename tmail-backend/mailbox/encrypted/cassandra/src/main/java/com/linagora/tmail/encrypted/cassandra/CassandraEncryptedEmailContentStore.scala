@@ -4,14 +4,14 @@ import java.lang
 
 import com.google.inject.multibindings.Multibinder
 import com.google.inject.{AbstractModule, Scopes}
-import com.linagora.tmail.encrypted.EncryptedEmailContentStore.POSITION_NUMBER_START_AT
+import com.linagora.tmail.encrypted.EncryptedEmailContentStore.{ATTACHMENT_SAVE_CONCURRENCY, POSITION_NUMBER_START_AT}
 import com.linagora.tmail.encrypted.cassandra.CassandraEncryptedEmailContentStore.DEFAULT_STORAGE_POLICY
 import com.linagora.tmail.encrypted.cassandra.table.CassandraEncryptedEmailStoreModule
-import com.linagora.tmail.encrypted.{AttachmentNotFoundException, EncryptedEmailContent, EncryptedEmailContentStore, EncryptedEmailDetailedView, EncryptedEmailFastView, MessageNotFoundException}
+import com.linagora.tmail.encrypted.{AttachmentNotFoundException, EncryptedEmailContent, EncryptedEmailContentStore, EncryptedEmailDetailedView, EncryptedEmailFastView, MessageNotFoundException, StoredEncryptedAttachment}
 import jakarta.inject.Inject
 import org.apache.james.backends.cassandra.components.CassandraModule
 import org.apache.james.blob.api.BlobStore.StoragePolicy
-import org.apache.james.blob.api.{BlobId, BlobStore, BucketName}
+import org.apache.james.blob.api.{BlobStore, BucketName}
 import org.apache.james.mailbox.cassandra.ids.CassandraMessageId
 import org.apache.james.mailbox.model.MessageId
 import org.reactivestreams.Publisher
@@ -39,12 +39,14 @@ class CassandraEncryptedEmailContentStore @Inject()(blobStore: BlobStore,
 
   override def store(messageId: MessageId, encryptedEmailContent: EncryptedEmailContent): Publisher[Unit] =
     SFlux.fromIterable(encryptedEmailContent.encryptedAttachmentContents)
-      .concatMap(encryptedAttachmentContent => SMono.fromPublisher(blobStore.save(bucketName, encryptedAttachmentContent, DEFAULT_STORAGE_POLICY)))
+      .flatMapSequential(encryptedAttachmentContent => SMono.fromPublisher(blobStore.save(bucketName, encryptedAttachmentContent, DEFAULT_STORAGE_POLICY)),
+        ATTACHMENT_SAVE_CONCURRENCY)
       .index()
       .collectMap(positionBlobId => positionBlobId._1.intValue + POSITION_NUMBER_START_AT, positionBlobId => positionBlobId._2)
       .flatMap(positionBlobIdMap => encryptedEmailDAO.insert(messageId.asInstanceOf[CassandraMessageId],
         EncryptedEmailDetailedView.from(messageId, encryptedEmailContent),
-        positionBlobIdMap))
+        positionBlobIdMap,
+        encryptedEmailContent.format))
 
   override def delete(messageId: MessageId): Publisher[Unit] =
     deleteBlobStore(messageId)
@@ -60,12 +62,8 @@ class CassandraEncryptedEmailContentStore @Inject()(blobStore: BlobStore,
     encryptedEmailDAO.get(messageId.asInstanceOf[CassandraMessageId])
       .switchIfEmpty(SMono.error(MessageNotFoundException(messageId)))
 
-  override def retrieveAttachmentContent(messageId: MessageId, position: Int): Publisher[BlobId] =
-    encryptedEmailDAO.getBlobId(messageId.asInstanceOf[CassandraMessageId], position)
-      .onErrorMap {
-        case _: NullPointerException => AttachmentNotFoundException(messageId, position)
-        case error => error
-      }
+  override def retrieveAttachment(messageId: MessageId, position: Int): Publisher[StoredEncryptedAttachment] =
+    encryptedEmailDAO.getAttachment(messageId.asInstanceOf[CassandraMessageId], position)
       .switchIfEmpty(SMono.error(AttachmentNotFoundException(messageId, position)))
 
   private def deleteBlobStore(messageId: MessageId): SFlux[lang.Boolean] =
@@ -8,8 +8,8 @@ import com.datastax.oss.driver.api.core.`type`.codec.TypeCodec
 import com.datastax.oss.driver.api.core.`type`.codec.registry.CodecRegistry
 import com.datastax.oss.driver.api.core.cql.{PreparedStatement, Row}
 import com.datastax.oss.driver.api.querybuilder.QueryBuilder.{bindMarker, deleteFrom, insertInto, selectFrom}
-import com.linagora.tmail.encrypted.cassandra.table.EncryptedEmailTable.{ENCRYPTED_ATTACHMENT_METADATA, ENCRYPTED_HTML, ENCRYPTED_PREVIEW, HAS_ATTACHMENT, MESSAGE_ID, POSITION_BLOB_ID_MAPPING, TABLE_NAME}
-import com.linagora.tmail.encrypted.{EncryptedAttachmentMetadata, EncryptedEmailDetailedView, EncryptedHtml, EncryptedPreview}
+import com.linagora.tmail.encrypted.cassandra.table.EncryptedEmailTable.{ENCRYPTED_ATTACHMENT_METADATA, ENCRYPTED_HTML, ENCRYPTED_PREVIEW, FORMAT_VERSION, HAS_ATTACHMENT, MESSAGE_ID, POSITION_BLOB_ID_MAPPING, TABLE_NAME}
+import com.linagora.tmail.encrypted.{EncryptedAttachmentMetadata, EncryptedContentFormat, EncryptedEmailDetailedView, EncryptedHtml, EncryptedPreview, StoredEncryptedAttachment}
 import jakarta.inject.Inject
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor
 import org.apache.james.blob.api.{BlobId, BlobReferenceSource}
@@ -32,6 +32,7 @@ class CassandraEncryptedEmailDAO @Inject()(session: CqlSession, blobIdFactory: B
     .value(HAS_ATTACHMENT, bindMarker(HAS_ATTACHMENT))
     .value(ENCRYPTED_ATTACHMENT_METADATA, bindMarker(ENCRYPTED_ATTACHMENT_METADATA))
     .value(POSITION_BLOB_ID_MAPPING, bindMarker(POSITION_BLOB_ID_MAPPING))
+    .value(FORMAT_VERSION, bindMarker(FORMAT_VERSION))
     .build())
 
   private val listBlobIdsStatement: PreparedStatement = session.prepare(
@@ -47,7 +48,8 @@ class CassandraEncryptedEmailDAO @Inject()(session: CqlSession, blobIdFactory: B
     .whereColumn(MESSAGE_ID).isEqualTo(bindMarker(MESSAGE_ID))
     .build())
 
-  def insert(cassandraMessageId: CassandraMessageId, encryptedEmailDetailed: EncryptedEmailDetailedView, positionBlobIdMapping: Map[Int, BlobId]): SMono[Unit] =
+  def insert(cassandraMessageId: CassandraMessageId, encryptedEmailDetailed: EncryptedEmailDetailedView, positionBlobIdMapping: Map[Int, BlobId],
+             format: EncryptedContentFormat): SMono[Unit] =
     SMono.fromPublisher(executor.executeVoid(insertStatement.bind()
       .setUuid(MESSAGE_ID, cassandraMessageId.get())
       .setString(ENCRYPTED_PREVIEW, encryptedEmailDetailed.encryptedPreview.value)
@@ -58,7 +60,8 @@ class CassandraEncryptedEmailDAO @Inject()(session: CqlSession, blobIdFactory: B
         .orNull)
       .setMap(POSITION_BLOB_ID_MAPPING, positionBlobIdMapping
         .map(mapping => Integer.valueOf(mapping._1) -> mapping._2.asString())
-        .asJava, classOf[Integer], classOf[String])))
+        .asJava, classOf[Integer], classOf[String])
+      .setInt(FORMAT_VERSION, format.version)))
       .`then`()
 
   def get(cassandraMessageId: CassandraMessageId): SMono[EncryptedEmailDetailedView] =
@@ -71,10 +74,12 @@ class CassandraEncryptedEmailDAO @Inject()(session: CqlSession, blobIdFactory: B
       .setUuid(MESSAGE_ID, cassandraMessageId.get())))
       .`then`()
 
-  def getBlobId(cassandraMessageId: CassandraMessageId, position: Int): SMono[BlobId] =
-    getMapOfPositionBlobId(cassandraMessageId)
-      .map(positionBlobIdMapping => positionBlobIdMapping.get(position))
-      .map(blobIdFactory.parse)
+  def getAttachment(cassandraMessageId: CassandraMessageId, position: Int): SMono[StoredEncryptedAttachment] =
+    SMono.fromPublisher(executor.executeSingleRow(selectStatement.bind()
+      .setUuid(MESSAGE_ID, cassandraMessageId.get())))
+      .flatMap(row => SMono.justOrEmpty(Option(row.get(POSITION_BLOB_ID_MAPPING, MAP_OF_POSITION_BLOBID_CODEC))
+          .flatMap(positionBlobIdMapping => Option(positionBlobIdMapping.get(position))))
+        .map(blobId => StoredEncryptedAttachment(blobIdFactory.parse(blobId), readFormat(row))))
 
   def getBlobIds(cassandraMessageId: CassandraMessageId): SFlux[BlobId] =
     getMapOfPositionBlobId(cassandraMessageId)
@@ -97,6 +102,14 @@ class CassandraEncryptedEmailDAO @Inject()(session: CqlSession, blobIdFactory: B
       encryptedAttachmentMetadata = Option(row.getString(ENCRYPTED_ATTACHMENT_METADATA))
         .map(value => EncryptedAttachmentMetadata(value)))
 
+  private def readFormat(row: Row): EncryptedContentFormat =
+    if (row.isNull(FORMAT_VERSION)) {
+      EncryptedContentFormat.LEGACY
+    } else {
+      EncryptedContentFormat.fromVersion(row.getInt(FORMAT_VERSION))
+        .fold(e => throw e, format => format)
+    }
+
   private def getMapOfPositionBlobId(cassandraMessageId: CassandraMessageId): SMono[util.Map[Integer, String]] =
     SMono.fromPublisher(executor.executeSingleRow(selectStatement.bind()
       .setUuid(MESSAGE_ID, cassandraMessageId.get())))
@@ -4,9 +4,9 @@ import java.io.ByteArrayInputStream
 
 import com.google.common.io.BaseEncoding
 import com.google.inject.multibindings.Multibinder
-import com.google.inject.{AbstractModule, Scopes}
+import com.google.inject.{AbstractModule, Provides, Scopes, Singleton}
 import com.linagora.tmail.encrypted.cassandra.table.CassandraKeystoreModule
-import com.linagora.tmail.encrypted.{KeyId, KeystoreManager, PGPKeysUserDeletionTaskStep, PGPKeysUsernameChangeTaskStep, PublicKey}
+import com.linagora.tmail.encrypted.{KeyId, KeystoreChangeNotifier, KeystoreManager, NotifyingKeystoreManager, PGPKeysUserDeletionTaskStep, PGPKeysUsernameChangeTaskStep, PublicKey}
 import com.linagora.tmail.pgp.Encrypter
 import jakarta.inject.Inject
 import org.apache.james.backends.cassandra.components.CassandraModule
@@ -22,8 +22,6 @@ case class KeystoreCassandraModule() extends AbstractModule {
     bind(classOf[CassandraKeystoreManager]).in(Scopes.SINGLETON)
     bind(classOf[CassandraKeystoreDAO]).in(Scopes.SINGLETON)
 
-    bind(classOf[KeystoreManager]).to(classOf[CassandraKeystoreManager])
-
     Multibinder.newSetBinder(binder, classOf[CassandraModule])
       .addBinding()
       .toInstance(CassandraKeystoreModule.MODULE)
@@ -36,6 +34,11 @@ case class KeystoreCassandraModule() extends AbstractModule {
       .addBinding()
       .to(classOf[PGPKeysUserDeletionTaskStep])
   }
+
+  @Provides
+  @Singleton
+  def provideKeystoreManager(keystoreManager: CassandraKeystoreManager, notifier: KeystoreChangeNotifier): KeystoreManager =
+    new NotifyingKeystoreManager(keystoreManager, notifier)
 }
 
 class CassandraKeystoreManager @Inject()(cassandraKeystoreDAO: CassandraKeystoreDAO) extends KeystoreManager {
@@ -16,7 +16,8 @@ object CassandraEncryptedEmailStoreModule {
       .withColumn(EncryptedEmailTable.ENCRYPTED_HTML, DataTypes.TEXT)
       .withColumn(EncryptedEmailTable.HAS_ATTACHMENT, DataTypes.BOOLEAN)
       .withColumn(EncryptedEmailTable.ENCRYPTED_ATTACHMENT_METADATA, DataTypes.TEXT)
-      .withColumn(EncryptedEmailTable.POSITION_BLOB_ID_MAPPING, DataTypes.frozenMapOf(DataTypes.INT, DataTypes.TEXT)))
+      .withColumn(EncryptedEmailTable.POSITION_BLOB_ID_MAPPING, DataTypes.frozenMapOf(DataTypes.INT, DataTypes.TEXT))
+      .withColumn(EncryptedEmailTable.FORMAT_VERSION, DataTypes.INT))
     .build
 }
 
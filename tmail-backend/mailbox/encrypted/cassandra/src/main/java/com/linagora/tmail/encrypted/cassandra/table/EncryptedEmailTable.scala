@@ -8,4 +8,5 @@ object EncryptedEmailTable {
   val HAS_ATTACHMENT: String = "has_attachment"
   val ENCRYPTED_ATTACHMENT_METADATA: String = "encrypted_attachment_metadata"
   val POSITION_BLOB_ID_MAPPING: String = "position_blob_id_mapping"
+  val FORMAT_VERSION: String = "format_version"
 }
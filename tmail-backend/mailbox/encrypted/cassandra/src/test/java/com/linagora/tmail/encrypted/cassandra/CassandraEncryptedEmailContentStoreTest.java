@@ -1,5 +1,7 @@
 package com.linagora.tmail.encrypted.cassandra;
 
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.literal;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.update;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import org.apache.james.backends.cassandra.CassandraCluster;
@@ -19,10 +21,12 @@ import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import com.linagora.tmail.encrypted.EncryptedContentFormat$;
 import com.linagora.tmail.encrypted.EncryptedEmailContentStore;
 import com.linagora.tmail.encrypted.EncryptedEmailContentStoreContract;
 import com.linagora.tmail.encrypted.EncryptedEmailContentStoreContract$;
 import com.linagora.tmail.encrypted.cassandra.table.CassandraEncryptedEmailStoreModule;
+import com.linagora.tmail.encrypted.cassandra.table.EncryptedEmailTable;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -34,6 +38,7 @@ public class CassandraEncryptedEmailContentStoreTest implements EncryptedEmailCo
     private CassandraEncryptedEmailDAO cassandraEncryptedEmailDAO;
     private CassandraEncryptedEmailContentStore cassandraEncryptedEmailContentStore;
     private EncryptedEmailBlobReferenceSource blobReferenceSource;
+    private CassandraCluster cassandra;
 
     @RegisterExtension
     static CassandraClusterExtension cassandraCluster = new CassandraClusterExtension(
@@ -57,6 +62,7 @@ public class CassandraEncryptedEmailContentStoreTest implements EncryptedEmailCo
 
     @BeforeEach
     void setUp(CassandraCluster cassandra) {
+        this.cassandra = cassandra;
         blobStore = new MetricableBlobStore(metricsTestExtension.getMetricFactory(), MemoryBlobStoreFactory.builder()
             .blobIdFactory(BLOB_ID_FACTORY)
             .defaultBucketName()
@@ -101,4 +107,19 @@ public class CassandraEncryptedEmailContentStoreTest implements EncryptedEmailCo
         assertThat(Flux.from(blobReferenceSource.listReferencedBlobs()).collectList().block())
             .hasSize(1);
     }
+
+    @Test
+    public void retrieveAttachmentShouldReadRowsWithoutFormatVersionAsArmored() {
+        CassandraMessageId messageId = messageIdFactory.generate();
+        Mono.from(testee()
+            .store(messageId, EncryptedEmailContentStoreContract$.MODULE$.BINARY_ENCRYPTED_EMAIL_CONTENT()))
+            .block();
+        cassandra.getConf().execute(update(EncryptedEmailTable.TABLE_NAME())
+            .setColumn(EncryptedEmailTable.FORMAT_VERSION(), literal(null))
+            .whereColumn(EncryptedEmailTable.MESSAGE_ID()).isEqualTo(literal(messageId.get()))
+            .build());
+
+        assertThat(Mono.from(testee().retrieveAttachment(messageId, 0)).block().format())
+            .isEqualTo(EncryptedContentFormat$.MODULE$.ARMORED());
+    }
 }
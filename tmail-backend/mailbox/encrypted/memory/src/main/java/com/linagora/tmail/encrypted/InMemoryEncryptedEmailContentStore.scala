@@ -1,11 +1,10 @@
 package com.linagora.tmail.encrypted
 
 import java.lang
-import java.nio.charset.StandardCharsets
 
 import com.google.common.base.Preconditions
 import com.google.inject.{AbstractModule, Provides, Singleton}
-import com.linagora.tmail.encrypted.EncryptedEmailContentStore.POSITION_NUMBER_START_AT
+import com.linagora.tmail.encrypted.EncryptedEmailContentStore.{ATTACHMENT_SAVE_CONCURRENCY, POSITION_NUMBER_START_AT}
 import jakarta.inject.Inject
 import org.apache.james.blob.api.BlobStore.StoragePolicy
 import org.apache.james.blob.api.{BlobId, BlobStore}
@@ -50,15 +49,19 @@ class InMemoryEncryptedEmailContentStore @Inject()(blobStore: BlobStore,
       .map(encryptedEmailContent => EncryptedEmailDetailedView.from(messageId, encryptedEmailContent)))
       .switchIfEmpty(SMono.error(MessageNotFoundException(messageId)))
 
-  override def retrieveAttachmentContent(messageId: MessageId, position: Int): Publisher[BlobId] =
-    SMono.justOrEmpty(messageIdBlobIdStore.get(messageId)
-      .flatMap(positionBlobIdMap => positionBlobIdMap.get(position)))
+  override def retrieveAttachment(messageId: MessageId, position: Int): Publisher[StoredEncryptedAttachment] =
+    SMono.justOrEmpty(for {
+      positionBlobIdMap <- messageIdBlobIdStore.get(messageId)
+      blobId <- positionBlobIdMap.get(position)
+      encryptedEmailContent <- emailContentStore.get(messageId)
+    } yield StoredEncryptedAttachment(blobId, encryptedEmailContent.format))
       .switchIfEmpty(SMono.error(AttachmentNotFoundException(messageId, position)))
 
-  private def storeAttachment(messageId: MessageId, encryptedAttachmentContents: List[String]): SMono[Unit] = {
+  private def storeAttachment(messageId: MessageId, encryptedAttachmentContents: List[Array[Byte]]): SMono[Unit] = {
     Preconditions.checkNotNull(encryptedAttachmentContents)
     SFlux.fromIterable(encryptedAttachmentContents)
-      .concatMap(attachmentContent => SMono.fromPublisher(blobStore.save(blobStore.getDefaultBucketName, attachmentContent.getBytes(StandardCharsets.UTF_8), StoragePolicy.LOW_COST)))
+      .flatMapSequential(attachmentContent => SMono.fromPublisher(blobStore.save(blobStore.getDefaultBucketName, attachmentContent, StoragePolicy.LOW_COST)),
+        ATTACHMENT_SAVE_CONCURRENCY)
       .index()
       .collectMap(positionBlobId => positionBlobId._1.intValue + POSITION_NUMBER_START_AT, positionBlobId => positionBlobId._2)
       .map(positionBlobIdMap => messageIdBlobIdStore.put(messageId, positionBlobIdMap))
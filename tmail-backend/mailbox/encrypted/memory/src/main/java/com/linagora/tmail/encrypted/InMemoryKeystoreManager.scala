@@ -3,12 +3,17 @@ package com.linagora.tmail.encrypted
 import java.io.ByteArrayInputStream
 
 import com.google.common.io.BaseEncoding
-import com.google.inject.multibindings.Multibinder
-import com.google.inject.{AbstractModule, Scopes}
+import com.google.inject.multibindings.{Multibinder, ProvidesIntoSet}
+import com.google.inject.name.Named
+import com.google.inject.{AbstractModule, Provides, Scopes, Singleton}
 import com.linagora.tmail.pgp.Encrypter
 import org.apache.james.core.Username
+import org.apache.james.events.EventBus
+import org.apache.james.lifecycle.api.Startable
 import org.apache.james.user.api.{DeleteUserDataTaskStep, UsernameChangeTaskStep}
+import org.apache.james.utils.{InitializationOperation, InitilizationOperationBuilder}
 import org.reactivestreams.Publisher
+import reactor.core.publisher.Mono
 import reactor.core.scala.publisher.{SFlux, SMono}
 
 import scala.util.Try
@@ -17,7 +22,6 @@ case class KeystoreMemoryModule() extends AbstractModule {
   override def configure(): Unit = {
     bind(classOf[InMemoryKeystoreManager]).in(Scopes.SINGLETON)
 
-    bind(classOf[KeystoreManager]).to(classOf[InMemoryKeystoreManager])
     Multibinder.newSetBinder(binder(), classOf[UsernameChangeTaskStep])
       .addBinding()
       .to(classOf[PGPKeysUsernameChangeTaskStep])
@@ -26,8 +30,26 @@ case class KeystoreMemoryModule() extends AbstractModule {
       .addBinding()
       .to(classOf[PGPKeysUserDeletionTaskStep])
   }
+
+  @Provides
+  @Singleton
+  def provideKeystoreManager(keystoreManager: InMemoryKeystoreManager, notifier: KeystoreChangeNotifier): KeystoreManager =
+    new NotifyingKeystoreManager(keystoreManager, notifier)
+
+  @ProvidesIntoSet
+  def registerKeystoreChangedListener(@Named(KeystoreInjectKeys.KEYSTORE) eventBus: EventBus,
+                                      keystoreChangedListener: KeystoreChangedListener): InitializationOperation =
+    InitilizationOperationBuilder.forClass(classOf[KeystoreEventLoader])
+      .init(() => Mono.from(eventBus.register(keystoreChangedListener, KeystoreRegistrationKey())).block())
+
+  @Provides
+  @Singleton
+  @Named(KeystoreInjectKeys.KEYSTORE)
+  def provideInVMEventBus(eventBus: EventBus): EventBus = eventBus
 }
 
+class KeystoreEventLoader extends Startable
+
 class InMemoryKeystoreManager (keystore: scala.collection.concurrent.Map[Username, Set[PublicKey]]) extends KeystoreManager {
 
   def this() = this(keystore = scala.collection.concurrent.TrieMap())
@@ -14,6 +14,11 @@ import org.apache.james.blob.api.BlobId;
 import org.apache.james.blob.api.BucketName;
 import org.apache.james.blob.api.PlainBlobId;
 import org.apache.james.blob.memory.MemoryBlobStoreDAO;
+import org.apache.james.events.EventBus;
+import org.apache.james.events.InVMEventBus;
+import org.apache.james.events.MemoryEventDeadLetters;
+import org.apache.james.events.RetryBackoffConfiguration;
+import org.apache.james.events.delivery.InVmEventDelivery;
 import org.apache.james.jmap.api.model.Preview;
 import org.apache.james.jmap.utils.JsoupHtmlTextExtractor;
 import org.apache.james.mailbox.MailboxManager;
@@ -27,6 +32,8 @@ import org.apache.james.mailbox.model.MessageRange;
 import org.apache.james.mailbox.model.MessageResult;
 import org.apache.james.mailbox.model.MessageResultIterator;
 import org.apache.james.mailbox.store.mail.model.impl.MessageParser;
+import org.apache.james.metrics.api.NoopMetricFactory;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
 import org.apache.james.mime4j.dom.Body;
 import org.apache.james.mime4j.dom.Message;
 import org.apache.james.mime4j.dom.Multipart;
@@ -35,6 +42,7 @@ import org.apache.james.mime4j.message.DefaultMessageWriter;
 import org.apache.james.server.blob.deduplication.DeDuplicationBlobStore;
 import org.apache.james.util.ClassLoaderUtils;
 import org.apache.james.util.mime.MessageContentExtractor;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -48,11 +56,14 @@ public class InMemoryEncryptedMessageManagerTest {
     private MailboxManager mailboxManager;
     private MessageManager messageManager;
     private KeystoreManager keystoreManager;
+    private PublicKeyCache publicKeyCache;
     private MailboxSession session;
     private MailboxPath path;
     private Message message;
     private InMemoryEncryptedEmailContentStore emailContentStore;
     private DeDuplicationBlobStore blobStore;
+    private RecordingMetricFactory metricFactory;
+    private EncryptionExecutor encryptionExecutor;
 
     @BeforeAll
     static void setUpAll() throws Exception {
@@ -60,6 +71,11 @@ public class InMemoryEncryptedMessageManagerTest {
         Security.addProvider((Provider) Class.forName(bouncyCastleProviderClassName).getDeclaredConstructor().newInstance());
     }
 
+    @AfterEach
+    void tearDown() {
+        encryptionExecutor.dispose();
+    }
+
     @BeforeEach
     void setUp() throws Exception {
         mailboxManager = InMemoryIntegrationResources.defaultResources().getMailboxManager();
@@ -68,13 +84,18 @@ public class InMemoryEncryptedMessageManagerTest {
         MailboxId mailboxId = mailboxManager.createMailbox(path, session).get();
         messageManager = mailboxManager.getMailbox(mailboxId, session);
 
-        keystoreManager = new InMemoryKeystoreManager();
+        EventBus eventBus = new InVMEventBus(new InVmEventDelivery(new NoopMetricFactory()), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters());
+        keystoreManager = new NotifyingKeystoreManager(new InMemoryKeystoreManager(), new KeystoreChangeNotifier(eventBus));
+        publicKeyCache = new PublicKeyCache(keystoreManager);
+        Mono.from(eventBus.register(new KeystoreChangedListener(publicKeyCache), new KeystoreRegistrationKey())).block();
+        metricFactory = new RecordingMetricFactory();
+        encryptionExecutor = EncryptionExecutor.apply(metricFactory);
         MessageContentExtractor messageContentExtractor = new MessageContentExtractor();
         blobStore = new DeDuplicationBlobStore(new MemoryBlobStoreDAO(), BucketName.DEFAULT, new PlainBlobId.Factory());
         emailContentStore = new InMemoryEncryptedEmailContentStore(blobStore);
-        testee = new EncryptedMessageManager(messageManager, keystoreManager,
+        testee = new EncryptedMessageManager(messageManager, publicKeyCache,
             new ClearEmailContentFactory(new MessageParser(), messageContentExtractor, new Preview.Factory(messageContentExtractor, new JsoupHtmlTextExtractor())),
-            emailContentStore);
+            emailContentStore, encryptionExecutor, EncryptionConfiguration.DEFAULT());
 
         message = Message.Builder
             .of()
@@ -252,6 +273,35 @@ public class InMemoryEncryptedMessageManagerTest {
             .contains("testmail");
     }
 
+    @Test
+    void commandAppendShouldEncryptWithKeysSavedAfterAPreviousAppend() throws Exception {
+        testee.appendMessage(MessageManager.AppendCommand.from(message), session);
+        byte[] keyBytes = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+        Mono.from(keystoreManager.save(BOB, keyBytes)).block();
+
+        testee.appendMessage(MessageManager.AppendCommand.from(message), session);
+
+        MessageResultIterator messages = mailboxManager.getMailbox(path, session)
+            .getMessages(MessageRange.all(), FetchGroup.BODY_CONTENT, session);
+        messages.next();
+        MessageResult result = messages.next();
+
+        assertThat(new String(result.getBody().getInputStream().readAllBytes(), StandardCharsets.UTF_8))
+            .doesNotContain("testmail");
+    }
+
+    @Test
+    void commandAppendShouldTimeTheEncryptionPhases() throws Exception {
+        byte[] keyBytes = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+        Mono.from(keystoreManager.save(BOB, keyBytes)).block();
+
+        testee.appendMessage(MessageManager.AppendCommand.from(message), session);
+
+        assertThat(metricFactory.executionTimesFor(EncryptionExecutor.PARSE_TIMER())).isNotEmpty();
+        assertThat(metricFactory.executionTimesFor(EncryptionExecutor.ENCRYPT_TIMER())).isNotEmpty();
+        assertThat(metricFactory.executionTimesFor(EncryptionExecutor.STORE_TIMER())).isNotEmpty();
+    }
+
     @Test
     void commandAppendShouldNotEncryptWhenNameSpaceIsNotPrivate() throws Exception {
         byte[] keyBytes = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
@@ -262,9 +312,9 @@ public class InMemoryEncryptedMessageManagerTest {
         messageManager = mailboxManager.getMailbox(mailboxId, session);
 
         MessageContentExtractor messageContentExtractor = new MessageContentExtractor();
-        EncryptedMessageManager testee = new EncryptedMessageManager(messageManager, keystoreManager,
+        EncryptedMessageManager testee = new EncryptedMessageManager(messageManager, publicKeyCache,
             new ClearEmailContentFactory(new MessageParser(), messageContentExtractor, new Preview.Factory(messageContentExtractor, new JsoupHtmlTextExtractor())),
-            emailContentStore);
+            emailContentStore, encryptionExecutor, EncryptionConfiguration.DEFAULT());
 
         testee.appendMessage(MessageManager.AppendCommand.from(message), session);
 
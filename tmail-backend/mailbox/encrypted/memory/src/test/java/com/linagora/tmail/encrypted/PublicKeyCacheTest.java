@@ -0,0 +1,113 @@
+package com.linagora.tmail.encrypted;
+
+import static org.apache.james.jmap.JMAPTestingConstants.ALICE;
+import static org.apache.james.jmap.JMAPTestingConstants.BOB;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.james.events.Event;
+import org.apache.james.events.EventBus;
+import org.apache.james.events.InVMEventBus;
+import org.apache.james.events.MemoryEventDeadLetters;
+import org.apache.james.events.RetryBackoffConfiguration;
+import org.apache.james.events.delivery.InVmEventDelivery;
+import org.apache.james.metrics.api.NoopMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+class PublicKeyCacheTest {
+    private InMemoryKeystoreManager inMemoryKeystoreManager;
+    private KeystoreManager keystoreManager;
+    private PublicKeyCache testee;
+    private byte[] keyBytes;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        EventBus eventBus = new InVMEventBus(new InVmEventDelivery(new NoopMetricFactory()), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters());
+        inMemoryKeystoreManager = new InMemoryKeystoreManager();
+        keystoreManager = new NotifyingKeystoreManager(inMemoryKeystoreManager, new KeystoreChangeNotifier(eventBus));
+        testee = new PublicKeyCache(keystoreManager);
+        Mono.from(eventBus.register(new KeystoreChangedListener(testee), new KeystoreRegistrationKey())).block();
+        keyBytes = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+    }
+
+    @Test
+    void publicKeysShouldBeEmptyWhenNoKeys() {
+        assertThat(testee.publicKeys(BOB).block().isEmpty()).isTrue();
+    }
+
+    @Test
+    void publicKeysShouldReturnParsedKeys() {
+        Mono.from(keystoreManager.save(BOB, keyBytes)).block();
+
+        assertThat(testee.publicKeys(BOB).block().size()).isEqualTo(1);
+    }
+
+    @Test
+    void publicKeysShouldNotReadTheKeystoreAgain() {
+        testee.publicKeys(BOB).block();
+
+        // Bypasses the notification: only a keystore read would expose this key
+        Mono.from(inMemoryKeystoreManager.save(BOB, keyBytes)).block();
+
+        assertThat(testee.publicKeys(BOB).block().isEmpty()).isTrue();
+    }
+
+    @Test
+    void invalidateShouldDropCachedKeys() {
+        testee.publicKeys(BOB).block();
+        Mono.from(inMemoryKeystoreManager.save(BOB, keyBytes)).block();
+
+        testee.invalidate(BOB);
+
+        assertThat(testee.publicKeys(BOB).block().size()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateShouldNotDropCachedKeysOfOtherUsers() {
+        testee.publicKeys(ALICE).block();
+        Mono.from(inMemoryKeystoreManager.save(ALICE, keyBytes)).block();
+
+        testee.invalidate(BOB);
+
+        assertThat(testee.publicKeys(ALICE).block().isEmpty()).isTrue();
+    }
+
+    @Test
+    void savingAKeyShouldDropCachedKeys() {
+        testee.publicKeys(BOB).block();
+
+        Mono.from(keystoreManager.save(BOB, keyBytes)).block();
+
+        assertThat(testee.publicKeys(BOB).block().size()).isEqualTo(1);
+    }
+
+    @Test
+    void deletingAKeyShouldDropCachedKeys() {
+        KeyId keyId = Mono.from(keystoreManager.save(BOB, keyBytes)).block();
+        testee.publicKeys(BOB).block();
+
+        Mono.from(keystoreManager.delete(BOB, keyId)).block();
+
+        assertThat(testee.publicKeys(BOB).block().isEmpty()).isTrue();
+    }
+
+    @Test
+    void deletingAllKeysShouldDropCachedKeys() {
+        Mono.from(keystoreManager.save(BOB, keyBytes)).block();
+        testee.publicKeys(BOB).block();
+
+        Mono.from(keystoreManager.deleteAll(BOB)).block();
+
+        assertThat(testee.publicKeys(BOB).block().isEmpty()).isTrue();
+    }
+
+    @Test
+    void keystoreChangedEventShouldRoundTrip() {
+        KeystoreEventSerializer serializer = new KeystoreEventSerializer();
+        Event event = new KeystoreChangedEvent(Event.EventId.random(), BOB);
+
+        assertThat(serializer.fromBytes(serializer.toJsonBytes(event))).isEqualTo(event);
+    }
+}
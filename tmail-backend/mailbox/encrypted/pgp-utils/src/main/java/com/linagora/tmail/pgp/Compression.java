@@ -0,0 +1,81 @@
+package com.linagora.tmail.pgp;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import org.bouncycastle.bcpg.CompressionAlgorithmTags;
+import org.bouncycastle.openpgp.PGPCompressedDataGenerator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Compression applied before encryption.
+ *
+ * Compressing already compressed content (images, videos, archives...) costs CPU for no size gain: content with one
+ * of the {@code skippedMimeTypes} is not compressed. A MIME type ending with {@code *} matches every MIME type
+ * starting with it, eg. {@code video/*}.
+ *
+ * @param level the ZIP compression level, from 1 (fastest) to 9 (smallest). 0 disables compression.
+ */
+public record Compression(int level, ImmutableSet<String> skippedMimeTypes) {
+    public static final int NO_COMPRESSION = Deflater.NO_COMPRESSION;
+    public static final int DEFAULT_LEVEL = 6;
+    public static final ImmutableSet<String> DEFAULT_SKIPPED_MIME_TYPES = ImmutableSet.of(
+        "image/jpeg", "image/png", "image/gif", "image/webp", "image/heic",
+        "video/*", "audio/*",
+        "application/zip", "application/gzip", "application/x-gzip", "application/x-bzip2", "application/x-xz",
+        "application/x-7z-compressed", "application/x-rar-compressed", "application/vnd.rar", "application/zstd",
+        "application/pdf", "application/pgp-encrypted", "application/pkcs7-mime",
+        "application/vnd.openxmlformats-officedocument.*", "application/vnd.oasis.opendocument.*");
+
+    public static final Compression DEFAULT = new Compression(DEFAULT_LEVEL, DEFAULT_SKIPPED_MIME_TYPES);
+    public static final Compression DISABLED = new Compression(NO_COMPRESSION, ImmutableSet.of());
+
+    public static Compression of(int level, Set<String> skippedMimeTypes) {
+        return new Compression(level, skippedMimeTypes.stream()
+            .map(Compression::normalize)
+            .collect(ImmutableSet.toImmutableSet()));
+    }
+
+    private static String normalize(String mimeType) {
+        int parametersIndex = mimeType.indexOf(';');
+        String withoutParameters = parametersIndex < 0 ? mimeType : mimeType.substring(0, parametersIndex);
+        return withoutParameters.trim().toLowerCase(Locale.US);
+    }
+
+    public Compression {
+        Preconditions.checkArgument(level >= NO_COMPRESSION && level <= Deflater.BEST_COMPRESSION,
+            "Compression level should be between %s and %s", NO_COMPRESSION, Deflater.BEST_COMPRESSION);
+        Preconditions.checkNotNull(skippedMimeTypes);
+    }
+
+    public boolean shouldCompress(Optional<String> mimeType) {
+        return level != NO_COMPRESSION
+            && mimeType.map(Compression::normalize)
+                .map(type -> !isSkipped(type))
+                .orElse(true);
+    }
+
+    private boolean isSkipped(String mimeType) {
+        return skippedMimeTypes.stream()
+            .anyMatch(skipped -> {
+                if (skipped.endsWith("*")) {
+                    return mimeType.startsWith(skipped.substring(0, skipped.length() - 1));
+                }
+                return mimeType.equals(skipped);
+            });
+    }
+
+    /**
+     * Skipped compression still produces an (uncompressed) compressed data packet, as some OpenPGP clients expect it.
+     */
+    PGPCompressedDataGenerator generator(Optional<String> mimeType) {
+        if (shouldCompress(mimeType)) {
+            return new PGPCompressedDataGenerator(CompressionAlgorithmTags.ZIP, level);
+        }
+        return new PGPCompressedDataGenerator(CompressionAlgorithmTags.UNCOMPRESSED);
+    }
+}
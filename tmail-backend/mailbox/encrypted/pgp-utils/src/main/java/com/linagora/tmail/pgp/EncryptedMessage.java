@@ -0,0 +1,33 @@
+package com.linagora.tmail.pgp;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.FileBackedOutputStream;
+
+/**
+ * An encrypted RFC-3156 message, kept in memory when small and spilled to a temporary file otherwise.
+ *
+ * Closing it deletes the temporary file: the content can no longer be read afterward.
+ */
+public class EncryptedMessage implements Closeable {
+    private final FileBackedOutputStream content;
+
+    EncryptedMessage(FileBackedOutputStream content) {
+        this.content = content;
+    }
+
+    public ByteSource asByteSource() {
+        return content.asByteSource();
+    }
+
+    public long size() throws IOException {
+        return content.asByteSource().size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        content.reset();
+    }
+}
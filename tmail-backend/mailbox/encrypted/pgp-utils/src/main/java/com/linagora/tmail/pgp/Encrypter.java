@@ -2,13 +2,16 @@ package com.linagora.tmail.pgp;
 
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Optional;
 
+import org.apache.james.mime4j.dom.BinaryBody;
 import org.apache.james.mime4j.dom.Header;
 import org.apache.james.mime4j.dom.Message;
 import org.apache.james.mime4j.dom.Multipart;
@@ -18,10 +21,9 @@ import org.apache.james.mime4j.message.DefaultMessageBuilder;
 import org.apache.james.mime4j.message.DefaultMessageWriter;
 import org.apache.james.mime4j.stream.NameValuePair;
 import org.bouncycastle.bcpg.ArmoredOutputStream;
-import org.bouncycastle.openpgp.PGPCompressedData;
-import org.bouncycastle.openpgp.PGPCompressedDataGenerator;
 import org.bouncycastle.openpgp.PGPEncryptedData;
 import org.bouncycastle.openpgp.PGPEncryptedDataGenerator;
+import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPLiteralData;
 import org.bouncycastle.openpgp.PGPLiteralDataGenerator;
 import org.bouncycastle.openpgp.PGPPublicKey;
@@ -39,24 +41,62 @@ import com.google.common.io.FileBackedOutputStream;
 
 public class Encrypter {
     private static final int FILE_THRESHOLD = 100 * 1024;
+    private static final int BUFFER_SIZE = 100 * 1024;
+
+    @FunctionalInterface
+    private interface ClearContent {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    private record EncryptedPayload(FileBackedOutputStream content) implements AutoCloseable {
+        @Override
+        public void close() throws IOException {
+            content.reset();
+        }
+    }
+
+    private static class ByteSourceBody extends BinaryBody {
+        private final ByteSource byteSource;
+
+        ByteSourceBody(ByteSource byteSource) {
+            this.byteSource = byteSource;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return byteSource.openStream();
+        }
+    }
 
     public static Encrypter forKeys(Collection<byte[]> armoredKeys) {
-        return new Encrypter(createEncryptor(armoredKeys));
+        return forPublicKeys(armoredKeys.stream()
+            .map(ByteArrayInputStream::new)
+            .map(Throwing.function(Encrypter::readPublicKey))
+            .collect(ImmutableList.toImmutableList()));
     }
 
     public static Encrypter forKeys(byte[]... armoredKeys) {
         return forKeys(ImmutableList.copyOf(armoredKeys));
     }
 
-    private static PGPEncryptedDataGenerator createEncryptor(Collection<byte[]> armoredKeys) {
+    /**
+     * Skips the parsing of armored keys, for callers keeping the parsed keys around.
+     */
+    public static Encrypter forPublicKeys(Collection<PGPPublicKey> publicKeys) {
+        return forPublicKeys(publicKeys, Compression.DEFAULT);
+    }
+
+    public static Encrypter forPublicKeys(Collection<PGPPublicKey> publicKeys, Compression compression) {
+        return new Encrypter(createEncryptor(publicKeys), compression);
+    }
+
+    private static PGPEncryptedDataGenerator createEncryptor(Collection<PGPPublicKey> publicKeys) {
         PGPEncryptedDataGenerator pgpEncryptedDataGenerator = new PGPEncryptedDataGenerator(new JcePGPDataEncryptorBuilder(PGPEncryptedData.AES_128)
             .setSecureRandom(new SecureRandom())
             .setProvider("BC")
             .setWithIntegrityPacket(true));
 
-        armoredKeys.stream()
-            .map(ByteArrayInputStream::new)
-            .map(Throwing.function(Encrypter::readPublicKey))
+        publicKeys.stream()
             .map(JcePublicKeyKeyEncryptionMethodGenerator::new)
             .forEach(pgpEncryptedDataGenerator::addMethod);
         return pgpEncryptedDataGenerator;
@@ -75,63 +115,128 @@ public class Encrypter {
     }
 
     private final PGPEncryptedDataGenerator pgpEncryptedDataGenerator;
+    private final Compression compression;
 
-    private Encrypter(PGPEncryptedDataGenerator pgpEncryptedDataGenerator) {
+    private Encrypter(PGPEncryptedDataGenerator pgpEncryptedDataGenerator, Compression compression) {
         this.pgpEncryptedDataGenerator = pgpEncryptedDataGenerator;
+        this.compression = compression;
+    }
+
+    /**
+     * ASCII armors binary OpenPGP data, for instance data written by {@link #encryptBinary(ByteSource, OutputStream)}.
+     * The result is equivalent to the output of {@link #encrypt(ByteSource, OutputStream)}.
+     */
+    public static void armor(InputStream binary, OutputStream output) throws IOException {
+        try (ArmoredOutputStream armoredOutputStream = new ArmoredOutputStream(output)) {
+            binary.transferTo(armoredOutputStream);
+        }
     }
 
     public void encrypt(ByteSource byteSource, OutputStream output) throws Exception {
-        PGPCompressedDataGenerator compressor = new PGPCompressedDataGenerator(PGPCompressedData.ZIP);
+        try (ArmoredOutputStream armoredOutputStream = new ArmoredOutputStream(output)) {
+            encryptBinary(byteSource, armoredOutputStream);
+        }
+    }
+
+    /**
+     * Writes binary OpenPGP data, about 25% smaller than its ASCII armored counterpart.
+     *
+     * The output stream is left open.
+     */
+    public void encryptBinary(ByteSource byteSource, OutputStream output) throws Exception {
+        try (InputStream clear = byteSource.openStream()) {
+            encryptBinary(clear, output, Optional.empty());
+        }
+    }
+
+    /**
+     * Streams binary OpenPGP data: the clear content is never held in memory as a whole.
+     *
+     * Content of a MIME type skipped by the {@link Compression} is not compressed. The streams are left open.
+     */
+    public void encryptBinary(InputStream clear, OutputStream output, Optional<String> mimeType) throws IOException {
+        encryptBinary(clear::transferTo, output, mimeType);
+    }
+
+    private void encryptBinary(ClearContent clearContent, OutputStream output, Optional<String> mimeType) throws IOException {
         PGPLiteralDataGenerator literalDataGenerator = new PGPLiteralDataGenerator();
 
-        try (ArmoredOutputStream armoredOutputStream = new ArmoredOutputStream(output);
-            OutputStream encryptedOutStream = pgpEncryptedDataGenerator.open(armoredOutputStream, new byte[100 * 1024]);
-            OutputStream compressedOutStream = compressor.open(encryptedOutStream);
+        try (OutputStream encryptedOutStream = openEncryptedStream(output);
+            OutputStream compressedOutStream = compression.generator(mimeType).open(encryptedOutStream);
             OutputStream literalDataOutStream = literalDataGenerator.open(compressedOutStream, PGPLiteralData.BINARY,
-                "encrypted.pgp", byteSource.size(), new Date())) {
-            byteSource.openBufferedStream().transferTo(literalDataOutStream);
+                "encrypted.pgp", new Date(), new byte[BUFFER_SIZE])) {
+            clearContent.writeTo(literalDataOutStream);
+        }
+    }
+
+    private OutputStream openEncryptedStream(OutputStream output) throws IOException {
+        try {
+            return pgpEncryptedDataGenerator.open(output, new byte[BUFFER_SIZE]);
+        } catch (PGPException e) {
+            throw new IOException("Failed to initialize the PGP encryption", e);
         }
     }
 
+    /**
+     * Builds the encrypted RFC-3156 message in memory. Prefer {@link #encryptMessage(Message)} for large messages.
+     */
     public Message encrypt(Message clearMessage) throws Exception {
-        DefaultMessageBuilder messageBuilder = new DefaultMessageBuilder();
-        BasicBodyFactory basicBodyFactory = new BasicBodyFactory();
-        DefaultMessageWriter defaultMessageWriter = new DefaultMessageWriter();
-        FileBackedOutputStream clearOutputStream = new FileBackedOutputStream(FILE_THRESHOLD);
-        FileBackedOutputStream encryptedOutputStream = new FileBackedOutputStream(FILE_THRESHOLD);
-        BufferedOutputStream bufferedEncryptedOutputStream = new BufferedOutputStream(encryptedOutputStream);
-        BufferedOutputStream bufferedClearOutputStream = new BufferedOutputStream(clearOutputStream);
+        try (EncryptedPayload encryptedPayload = encryptPayload(clearMessage)) {
+            return rfc3156Message(clearMessage, new BasicBodyFactory().binaryBody(encryptedPayload.content.asByteSource().openStream()));
+        }
+    }
 
-        try {
-            defaultMessageWriter.writeMessage(clearMessage, bufferedClearOutputStream);
-            bufferedClearOutputStream.close();
-            encrypt(clearOutputStream.asByteSource(), bufferedEncryptedOutputStream);
-            bufferedEncryptedOutputStream.close();
-
-            Message encryptedMessage = messageBuilder.newMessage();
-            Header header = messageBuilder.newHeader(clearMessage.getHeader());
-            header.removeFields("Content-Type");
-            encryptedMessage.setHeader(header);
-
-            Multipart multipart = messageBuilder.newMultipart("encrypted", new NameValuePair("protocol", "application/pgp-encrypted"));
-            multipart.addBodyPart(new BodyPartBuilder()
-                .setBody(basicBodyFactory.binaryBody("Version: 1".getBytes(StandardCharsets.UTF_8)))
-                .setContentType("application/pgp-encrypted")
-                .build());
-            multipart.addBodyPart(new BodyPartBuilder()
-                .setContentType("application/octet-stream")
-                .setBody(basicBodyFactory.binaryBody(encryptedOutputStream.asByteSource().openStream()))
-                .build());
-            encryptedMessage.setBody(multipart);
-
-
-            final Message.Builder of = Message.Builder.of();
-            header.getFields().forEach(of::addField);
-            of.setBody(multipart);
-            return of.build();
-        } finally {
-            clearOutputStream.reset();
-            encryptedOutputStream.reset();
+    /**
+     * Streams the clear message through the encryption and writes the encrypted RFC-3156 message to a spill-backed
+     * buffer: large messages are never held in memory as a whole.
+     *
+     * The returned {@link EncryptedMessage} needs to be closed in order to release its temporary file.
+     */
+    public EncryptedMessage encryptMessage(Message clearMessage) throws Exception {
+        FileBackedOutputStream encryptedMessage = new FileBackedOutputStream(FILE_THRESHOLD);
+        try (EncryptedPayload encryptedPayload = encryptPayload(clearMessage);
+             OutputStream bufferedEncryptedMessage = new BufferedOutputStream(encryptedMessage)) {
+            new DefaultMessageWriter().writeMessage(
+                rfc3156Message(clearMessage, new ByteSourceBody(encryptedPayload.content.asByteSource())),
+                bufferedEncryptedMessage);
+        } catch (Exception e) {
+            encryptedMessage.reset();
+            throw e;
         }
+        return new EncryptedMessage(encryptedMessage);
+    }
+
+    private EncryptedPayload encryptPayload(Message clearMessage) throws IOException {
+        FileBackedOutputStream encryptedPayload = new FileBackedOutputStream(FILE_THRESHOLD);
+        try (OutputStream bufferedEncryptedPayload = new BufferedOutputStream(encryptedPayload);
+             ArmoredOutputStream armoredOutputStream = new ArmoredOutputStream(bufferedEncryptedPayload)) {
+            encryptBinary(clear -> new DefaultMessageWriter().writeMessage(clearMessage, clear),
+                armoredOutputStream, Optional.ofNullable(clearMessage.getMimeType()));
+        } catch (IOException e) {
+            encryptedPayload.reset();
+            throw e;
+        }
+        return new EncryptedPayload(encryptedPayload);
+    }
+
+    private Message rfc3156Message(Message clearMessage, BinaryBody encryptedBody) {
+        DefaultMessageBuilder messageBuilder = new DefaultMessageBuilder();
+        Header header = messageBuilder.newHeader(clearMessage.getHeader());
+        header.removeFields("Content-Type");
+
+        Multipart multipart = messageBuilder.newMultipart("encrypted", new NameValuePair("protocol", "application/pgp-encrypted"));
+        multipart.addBodyPart(new BodyPartBuilder()
+            .setBody(new BasicBodyFactory().binaryBody("Version: 1".getBytes(StandardCharsets.UTF_8)))
+            .setContentType("application/pgp-encrypted")
+            .build());
+        multipart.addBodyPart(new BodyPartBuilder()
+            .setContentType("application/octet-stream")
+            .setBody(encryptedBody)
+            .build());
+
+        Message.Builder builder = Message.Builder.of();
+        header.getFields().forEach(builder::addField);
+        builder.setBody(multipart);
+        return builder.build();
     }
 }
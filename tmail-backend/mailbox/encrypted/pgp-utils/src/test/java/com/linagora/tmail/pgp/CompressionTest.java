@@ -0,0 +1,66 @@
+package com.linagora.tmail.pgp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+class CompressionTest {
+    @Test
+    void shouldCompressWhenNoMimeType() {
+        assertThat(Compression.DEFAULT.shouldCompress(Optional.empty())).isTrue();
+    }
+
+    @Test
+    void shouldCompressTextContent() {
+        assertThat(Compression.DEFAULT.shouldCompress(Optional.of("text/html"))).isTrue();
+    }
+
+    @Test
+    void shouldNotCompressSkippedMimeTypes() {
+        assertThat(Compression.DEFAULT.shouldCompress(Optional.of("image/jpeg"))).isFalse();
+    }
+
+    @Test
+    void shouldNotCompressWhenSkippedMimeTypeHasParameters() {
+        assertThat(Compression.DEFAULT.shouldCompress(Optional.of("application/zip; name=\"archive.zip\""))).isFalse();
+    }
+
+    @Test
+    void skippedMimeTypesShouldBeCaseInsensitive() {
+        assertThat(Compression.DEFAULT.shouldCompress(Optional.of("Image/JPEG"))).isFalse();
+    }
+
+    @Test
+    void wildcardShouldMatchMimeTypesStartingWithIt() {
+        assertThat(Compression.DEFAULT.shouldCompress(Optional.of("video/mp4"))).isFalse();
+    }
+
+    @Test
+    void shouldNotCompressWhenDisabled() {
+        assertThat(Compression.DISABLED.shouldCompress(Optional.of("text/plain"))).isFalse();
+    }
+
+    @Test
+    void ofShouldNormalizeSkippedMimeTypes() {
+        Compression compression = Compression.of(Compression.DEFAULT_LEVEL, ImmutableSet.of(" Text/Calendar; method=REQUEST "));
+
+        assertThat(compression.shouldCompress(Optional.of("text/calendar"))).isFalse();
+    }
+
+    @Test
+    void shouldRejectNegativeLevels() {
+        assertThatThrownBy(() -> Compression.of(-1, ImmutableSet.of()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectTooHighLevels() {
+        assertThatThrownBy(() -> Compression.of(10, ImmutableSet.of()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,129 @@
+package com.linagora.tmail.pgp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.security.Security;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.message.DefaultMessageBuilder;
+import org.apache.james.mime4j.message.DefaultMessageWriter;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the in memory encryption of a message ({@link Encrypter#encrypt(Message)}, followed by its serialization)
+ * with the streaming one ({@link Encrypter#encryptMessage(Message)}), for messages of 1, 10 and 50 MB.
+ *
+ * Not part of the test suite: run the main method from the IDE. Throughput is reported in messages per second. The
+ * heap high-water mark of each trial is printed on teardown, and the GC profiler reports the allocation rate
+ * (gc.alloc.rate.norm is the number of bytes allocated per operation).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class EncrypterBenchmark {
+    private static final int MEGABYTE = 1024 * 1024;
+
+    @Param({"1", "10", "50"})
+    public int sizeInMegabytes;
+
+    private Encrypter encrypter;
+    private Message clearMessage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        encrypter = Encrypter.forKeys(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes());
+        clearMessage = new DefaultMessageBuilder().parseMessage(new ByteArrayInputStream(messageWithAttachment(sizeInMegabytes * MEGABYTE)));
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    @TearDown(Level.Trial)
+    public void printHeapHighWaterMark() {
+        long heapPeak = heapPools()
+            .mapToLong(pool -> pool.getPeakUsage().getUsed())
+            .sum();
+        System.out.printf("%n%d MB message: heap high-water mark of %d MB%n", sizeInMegabytes, heapPeak / MEGABYTE);
+    }
+
+    @Benchmark
+    public long inMemory() throws Exception {
+        Message encryptedMessage = encrypter.encrypt(clearMessage);
+        ByteArrayOutputStream serializedMessage = new ByteArrayOutputStream();
+        new DefaultMessageWriter().writeMessage(encryptedMessage, serializedMessage);
+        return serializedMessage.size();
+    }
+
+    @Benchmark
+    public long streaming() throws Exception {
+        try (EncryptedMessage encryptedMessage = encrypter.encryptMessage(clearMessage)) {
+            return encryptedMessage.asByteSource().copyTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static Stream<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans()
+            .stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP);
+    }
+
+    private static byte[] messageWithAttachment(int attachmentSize) throws IOException {
+        byte[] attachment = new byte[attachmentSize];
+        new Random(42).nextBytes(attachment);
+
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        message.write(("""
+            Subject: benchmark\r
+            Content-Type: multipart/mixed; boundary="boundary"\r
+            \r
+            --boundary\r
+            Content-Type: text/plain; charset=UTF-8\r
+            \r
+            Please find the attachment enclosed.\r
+            --boundary\r
+            Content-Type: application/octet-stream; name="attachment.bin"\r
+            Content-Transfer-Encoding: base64\r
+            \r
+            """).getBytes(StandardCharsets.US_ASCII));
+        message.write(Base64.getMimeEncoder().encode(attachment));
+        message.write("\r\n--boundary--\r\n".getBytes(StandardCharsets.US_ASCII));
+        return message.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(EncrypterBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build())
+            .run();
+    }
+}
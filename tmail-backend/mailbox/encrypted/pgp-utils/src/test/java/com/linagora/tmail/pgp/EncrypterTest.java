@@ -8,19 +8,24 @@ import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.Provider;
 import java.security.Security;
+import java.util.Optional;
 
 import org.apache.james.mime4j.dom.Body;
 import org.apache.james.mime4j.dom.Message;
 import org.apache.james.mime4j.dom.Multipart;
 import org.apache.james.mime4j.field.Fields;
 import org.apache.james.mime4j.message.BodyPartBuilder;
+import org.apache.james.mime4j.message.DefaultMessageBuilder;
 import org.apache.james.mime4j.message.DefaultMessageWriter;
 import org.apache.james.mime4j.message.MultipartBuilder;
 import org.apache.james.mime4j.message.SingleBodyBuilder;
 import org.apache.james.mime4j.stream.NameValuePair;
+import org.bouncycastle.openpgp.PGPPublicKey;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteSource;
 
 class EncrypterTest {
@@ -64,6 +69,69 @@ class EncrypterTest {
             .isEqualTo(INPUT);
     }
 
+    @Test
+    void encryptShouldProduceValidGPGDataWhenGivenParsedKeys() throws Exception {
+        PGPPublicKey publicKey = Encrypter.readPublicKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Encrypter.forPublicKeys(ImmutableList.of(publicKey))
+            .encrypt(ByteSource.wrap(INPUT.getBytes(StandardCharsets.UTF_8)), out);
+
+        byte[] decryptedPayload = Decrypter.forKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.private"), "123456".toCharArray())
+            .decrypt(new ByteArrayInputStream(out.toByteArray()))
+            .readAllBytes();
+
+        assertThat(new String(decryptedPayload, StandardCharsets.UTF_8))
+            .isEqualTo(INPUT);
+    }
+
+    @Test
+    void encryptBinaryShouldProduceValidGPGData() throws Exception {
+        byte[] keyBytes = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Encrypter.forKeys(keyBytes)
+            .encryptBinary(ByteSource.wrap(INPUT.getBytes(StandardCharsets.UTF_8)), out);
+
+        byte[] decryptedPayload = Decrypter.forKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.private"), "123456".toCharArray())
+            .decrypt(new ByteArrayInputStream(out.toByteArray()))
+            .readAllBytes();
+
+        assertThat(new String(decryptedPayload, StandardCharsets.UTF_8))
+            .isEqualTo(INPUT);
+    }
+
+    @Test
+    void encryptBinaryShouldNotBeArmored() throws Exception {
+        byte[] keyBytes = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Encrypter.forKeys(keyBytes)
+            .encryptBinary(ByteSource.wrap(INPUT.getBytes(StandardCharsets.UTF_8)), out);
+
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8))
+            .doesNotContain("-----BEGIN PGP MESSAGE-----");
+    }
+
+    @Test
+    void armorShouldProduceValidArmoredGPGData() throws Exception {
+        byte[] keyBytes = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        Encrypter.forKeys(keyBytes)
+            .encryptBinary(ByteSource.wrap(INPUT.getBytes(StandardCharsets.UTF_8)), binary);
+        ByteArrayOutputStream armored = new ByteArrayOutputStream();
+
+        Encrypter.armor(new ByteArrayInputStream(binary.toByteArray()), armored);
+
+        byte[] decryptedPayload = Decrypter.forKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.private"), "123456".toCharArray())
+            .decrypt(new ByteArrayInputStream(armored.toByteArray()))
+            .readAllBytes();
+        assertThat(new String(armored.toByteArray(), StandardCharsets.UTF_8))
+            .startsWith("-----BEGIN PGP MESSAGE-----");
+        assertThat(new String(decryptedPayload, StandardCharsets.UTF_8))
+            .isEqualTo(INPUT);
+    }
+
     @Test
     void encryptShouldWorkWithMultipleKeys() throws Exception {
         byte[] keyBytes1 = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
@@ -184,4 +252,127 @@ class EncrypterTest {
                 ---=Part.0.9726a619aa3f23a9.178aa7b7a6b.e3060dccb56a8d65=---\r
                 """);
     }
-}
\ No newline at end of file
+
+    @Test
+    void encryptMessageStreamingShouldMatchRFC3156MimeStructure() throws Exception {
+        Message clearMessage = Message.Builder.of()
+            .setSubject("small message")
+            .setBody("small message has size less than one MB", StandardCharsets.UTF_8)
+            .build();
+
+        byte[] keyBytes1 = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+
+        try (EncryptedMessage encryptedMessage = Encrypter.forKeys(keyBytes1).encryptMessage(clearMessage)) {
+            String encryptedMessageAsString = encryptedMessage.asByteSource().asCharSource(StandardCharsets.UTF_8).read();
+
+            assertThat(encryptedMessageAsString)
+                .startsWith("""
+                    MIME-Version: 1.0\r
+                    Subject: small message\r
+                    Content-Type: multipart/encrypted; protocol="application/pgp-encrypted";\r
+                     boundary=\"""");
+            assertThat(encryptedMessageAsString).contains("""
+                Content-Type: application/pgp-encrypted\r
+                \r
+                Version: 1\r
+                """);
+            assertThat(encryptedMessageAsString)
+                .contains("Content-Type: application/octet-stream", "-----BEGIN PGP MESSAGE-----");
+        }
+    }
+
+    @Test
+    void encryptMessageStreamingPayloadShouldBeDecryptable() throws Exception {
+        String largeBody = Strings.repeat("large message spilled to a temporary file\r\n", 10_000);
+        Message clearMessage = Message.Builder.of()
+            .setSubject("large message")
+            .setBody(largeBody, StandardCharsets.UTF_8)
+            .build();
+
+        byte[] keyBytes1 = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+
+        try (EncryptedMessage encryptedMessage = Encrypter.forKeys(keyBytes1).encryptMessage(clearMessage)) {
+            Message parsedMessage = new DefaultMessageBuilder().parseMessage(encryptedMessage.asByteSource().openStream());
+            Body encryptedBodyPart = ((Multipart) parsedMessage.getBody()).getBodyParts().get(1).getBody();
+            ByteArrayOutputStream encryptedBodyBytes = new ByteArrayOutputStream();
+            new DefaultMessageWriter().writeBody(encryptedBodyPart, encryptedBodyBytes);
+
+            byte[] decryptedPayload = Decrypter.forKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.private"), "123456".toCharArray())
+                .decrypt(new ByteArrayInputStream(encryptedBodyBytes.toByteArray()))
+                .readAllBytes();
+
+            ByteArrayOutputStream clearMessageBytes = new ByteArrayOutputStream();
+            new DefaultMessageWriter().writeMessage(clearMessage, clearMessageBytes);
+            assertThat(decryptedPayload).isEqualTo(clearMessageBytes.toByteArray());
+        }
+    }
+
+    @Test
+    void encryptedMessageShouldNotBeReadableOnceClosed() throws Exception {
+        Message clearMessage = Message.Builder.of()
+            .setSubject("large message")
+            .setBody(Strings.repeat("large message spilled to a temporary file\r\n", 10_000), StandardCharsets.UTF_8)
+            .build();
+        byte[] keyBytes1 = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+
+        EncryptedMessage encryptedMessage = Encrypter.forKeys(keyBytes1).encryptMessage(clearMessage);
+        encryptedMessage.close();
+
+        assertThat(encryptedMessage.size()).isZero();
+    }
+
+    @Test
+    void encryptBinaryStreamShouldProduceValidGPGData() throws Exception {
+        byte[] keyBytes = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Encrypter.forKeys(keyBytes)
+            .encryptBinary(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.UTF_8)), out, Optional.of("text/plain"));
+
+        byte[] decryptedPayload = Decrypter.forKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.private"), "123456".toCharArray())
+            .decrypt(new ByteArrayInputStream(out.toByteArray()))
+            .readAllBytes();
+
+        assertThat(new String(decryptedPayload, StandardCharsets.UTF_8))
+            .isEqualTo(INPUT);
+    }
+
+    @Test
+    void encryptBinaryShouldCompressCompressibleContent() throws Exception {
+        PGPPublicKey publicKey = Encrypter.readPublicKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub"));
+        byte[] compressible = Strings.repeat("compressible ", 10_000).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Encrypter.forPublicKeys(ImmutableList.of(publicKey), Compression.DEFAULT)
+            .encryptBinary(new ByteArrayInputStream(compressible), out, Optional.of("text/plain"));
+
+        assertThat(out.size()).isLessThan(compressible.length / 10);
+    }
+
+    @Test
+    void encryptBinaryShouldNotCompressSkippedMimeTypes() throws Exception {
+        PGPPublicKey publicKey = Encrypter.readPublicKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub"));
+        byte[] compressible = Strings.repeat("compressible ", 10_000).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Encrypter.forPublicKeys(ImmutableList.of(publicKey), Compression.DEFAULT)
+            .encryptBinary(new ByteArrayInputStream(compressible), out, Optional.of("application/zip"));
+
+        assertThat(out.size()).isGreaterThan(compressible.length);
+    }
+
+    @Test
+    void uncompressedContentShouldBeDecryptable() throws Exception {
+        PGPPublicKey publicKey = Encrypter.readPublicKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Encrypter.forPublicKeys(ImmutableList.of(publicKey), Compression.DISABLED)
+            .encryptBinary(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.UTF_8)), out, Optional.empty());
+
+        byte[] decryptedPayload = Decrypter.forKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.private"), "123456".toCharArray())
+            .decrypt(new ByteArrayInputStream(out.toByteArray()))
+            .readAllBytes();
+        assertThat(new String(decryptedPayload, StandardCharsets.UTF_8))
+            .isEqualTo(INPUT);
+    }
+}
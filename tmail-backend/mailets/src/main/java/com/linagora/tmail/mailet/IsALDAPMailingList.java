@@ -1,7 +1,6 @@
 package com.linagora.tmail.mailet;
 
 import java.util.Collection;
-import java.util.Optional;
 
 import jakarta.inject.Inject;
 import jakarta.mail.MessagingException;
@@ -16,14 +15,9 @@ import com.github.fge.lambdas.Throwing;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
-import com.unboundid.ldap.sdk.Filter;
-import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.linagora.tmail.ldap.GroupQuery;
+import com.linagora.tmail.ldap.LdapGroupDirectory;
 import com.unboundid.ldap.sdk.LDAPException;
-import com.unboundid.ldap.sdk.LDAPSearchException;
-import com.unboundid.ldap.sdk.ResultCode;
-import com.unboundid.ldap.sdk.SearchResult;
-import com.unboundid.ldap.sdk.SearchResultEntry;
-import com.unboundid.ldap.sdk.SearchScope;
 
 /**
  * Matcher matching mailing lists defined by the LDAP.
@@ -33,6 +27,8 @@ import com.unboundid.ldap.sdk.SearchScope;
  *
  * Matcher argument needs to be in the form baseDN#groupObjectClass#mailAttribute
  *
+ * Lookups are cached by the {@link LdapGroupDirectory} shared with the SMTP RCPT handler and the LDAPMailingList mailet.
+ *
  * Sample usage:
  *
  * <mailet match="com.linagora.tmail.mailet.IsALDAPMailingList=ou=lists,dc=tmail,dc=com#groupofnames#description" class="ToProcessor">
@@ -41,29 +37,24 @@ import com.unboundid.ldap.sdk.SearchScope;
  *
  */
 public class IsALDAPMailingList extends GenericMatcher {
-    private final LDAPConnectionPool ldapConnectionPool;
-    private final Optional<Filter> userExtraFilter;
-    private String baseDN;
-    private String groupObjectClass;
-    private String mailAttribute;
+    private final LdapGroupDirectory ldapGroupDirectory;
+    private GroupQuery groupQuery;
 
     @Inject
-    public IsALDAPMailingList(LDAPConnectionPool ldapConnectionPool, LdapRepositoryConfiguration configuration) {
-        this.ldapConnectionPool = ldapConnectionPool;
-        this.userExtraFilter = Optional.ofNullable(configuration.getFilter())
-            .map(Throwing.function(Filter::create).sneakyThrow());
+    public IsALDAPMailingList(LdapGroupDirectory ldapGroupDirectory) {
+        this.ldapGroupDirectory = ldapGroupDirectory;
     }
 
     @VisibleForTesting
     public IsALDAPMailingList(LdapRepositoryConfiguration configuration) throws LDAPException {
-        this(new LDAPConnectionFactory(configuration).getLdapConnectionPool(), configuration);
+        this(new LdapGroupDirectory(new LDAPConnectionFactory(configuration).getLdapConnectionPool(), configuration));
     }
 
     @Override
     public Collection<MailAddress> match(Mail mail) throws MessagingException {
         return mail.getRecipients()
             .stream()
-            .filter(Throwing.predicate(rcpt -> resolveListDN(rcpt).isPresent()))
+            .filter(Throwing.predicate(rcpt -> ldapGroupDirectory.lookup(groupQuery, rcpt).isPresent()))
             .collect(ImmutableList.toImmutableList());
     }
 
@@ -71,35 +62,13 @@ public class IsALDAPMailingList extends GenericMatcher {
     public void init() throws MessagingException {
         String condition = getCondition();
         Preconditions.checkState(condition.contains("#"), "Must match the 'baseDN#groupObjectClass#mailAttribute");
-        baseDN = condition.substring(0, condition.indexOf('#'));
+        String baseDN = condition.substring(0, condition.indexOf('#'));
 
         String afterBaseDN = condition.substring(baseDN.length() + 1);
         Preconditions.checkState(afterBaseDN.contains("#"), "Must match the 'baseDN#groupObjectClass#mailAttribute");
 
-        groupObjectClass = afterBaseDN.substring(0, afterBaseDN.indexOf('#'));
-        mailAttribute = afterBaseDN.substring(groupObjectClass.length() + 1);
-    }
-
-    private Optional<SearchResultEntry> resolveListDN(MailAddress rcpt) throws LDAPSearchException {
-        try {
-            SearchResult searchResult = ldapConnectionPool.search(baseDN,
-                SearchScope.SUB,
-                createFilter(rcpt.asString(), mailAttribute));
-
-            return searchResult.getSearchEntries().stream().findFirst();
-        } catch (LDAPException e) {
-            if (e.getResultCode().equals(ResultCode.NO_SUCH_OBJECT)) {
-                return Optional.empty();
-            }
-            throw e;
-        }
-    }
-
-    private Filter createFilter(String retrievalName, String ldapUserRetrievalAttribute) {
-        Filter specificUserFilter = Filter.createEqualityFilter(ldapUserRetrievalAttribute, retrievalName);
-        Filter objectClassFilter = Filter.createEqualityFilter("objectClass", groupObjectClass);
-        return userExtraFilter
-            .map(extraFilter -> Filter.createANDFilter(objectClassFilter, specificUserFilter, extraFilter))
-            .orElseGet(() -> Filter.createANDFilter(objectClassFilter, specificUserFilter));
+        String groupObjectClass = afterBaseDN.substring(0, afterBaseDN.indexOf('#'));
+        String mailAttribute = afterBaseDN.substring(groupObjectClass.length() + 1);
+        groupQuery = new GroupQuery(baseDN, groupObjectClass, mailAttribute);
     }
 }
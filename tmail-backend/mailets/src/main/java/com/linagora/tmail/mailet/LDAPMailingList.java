@@ -33,23 +33,26 @@ import org.slf4j.LoggerFactory;
 
 import com.github.fge.lambdas.Throwing;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.linagora.tmail.ldap.GroupQuery;
+import com.linagora.tmail.ldap.LdapGroup;
+import com.linagora.tmail.ldap.LdapGroupDirectory;
 import com.unboundid.ldap.sdk.Attribute;
 import com.unboundid.ldap.sdk.DN;
-import com.unboundid.ldap.sdk.Filter;
 import com.unboundid.ldap.sdk.LDAPConnectionPool;
 import com.unboundid.ldap.sdk.LDAPException;
-import com.unboundid.ldap.sdk.LDAPSearchException;
 import com.unboundid.ldap.sdk.RDNNameValuePair;
-import com.unboundid.ldap.sdk.ResultCode;
-import com.unboundid.ldap.sdk.SearchResult;
 import com.unboundid.ldap.sdk.SearchResultEntry;
-import com.unboundid.ldap.sdk.SearchScope;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * <p>Mailing list resolution for Twake mail based on LDAP groups.</p>
@@ -65,6 +68,8 @@ import com.unboundid.ldap.sdk.SearchScope;
  *  rejection.</li>
  *  <li>userMailCacheSize: Number of users DN to keep in the cache. This saves DN lookups on member to retrieve their mail address.</li>
  *  <li>userMailCacheDuration: Time during which one should keep entries into the user DN => mailAddress cache.</li>
+ *  <li>memberResolutionConcurrency: Count of member DNs missing from the user DN => mailAddress cache looked up concurrently
+ *  when expanding a list. Defaults to 4. Should not exceed the size of the LDAP connection pool.</li>
  *  <li>mailAttributeForGroups: Attribute holding the mail address of a group. For easy testing this can be set to description
  *  but for production use a special LDAP schema needs to be crafted for using the mail attribute.</li>
  *  </ul>
@@ -73,8 +78,11 @@ import com.unboundid.ldap.sdk.SearchScope;
  *    <li>Sender validation goes faster if the email local part is also the user uid, as this heuristic saves precious LDAP lookups</li>
  *    <li>All DN lookups for retrieving mail address are cached for efficiency. This implies that email address changes for users
  *    is a rare event, and we accept it to be non-synchronized for the duration of the cache retention when this happens</li>
- *    <li>LDAP groups composition and validation rules are never cached so far: addition of new users into a group will
- *    thus be an instant operation.</li>
+ *    <li>When expanding a list, member DNs missing from this cache are looked up concurrently, before resolving nested
+ *    groups one at a time. Sender validation resolves them one at a time, stopping at the first match.</li>
+ *    <li>LDAP groups (composition and validation rules) are cached by the {@link LdapGroupDirectory}, shared with the
+ *    SMTP RCPT handler and the IsALDAPMailingList matcher. Addition of new users into a group is thus effective after at
+ *    most the refresh delay of this cache for lists in use, or can be forced by flushing it through webadmin.</li>
  *  </ul>
  *
  *  <p>Sample structure for LDAP groups:</p>
@@ -125,6 +133,7 @@ import com.unboundid.ldap.sdk.SearchScope;
  */
 public class LDAPMailingList extends GenericMailet {
     private static final Logger LOGGER = LoggerFactory.getLogger(LDAPMailingList.class);
+    private static final int DEFAULT_MEMBER_RESOLUTION_CONCURRENCY = 4;
 
     interface MailingListPredicate extends Predicate<MailAddress> {
         MailingListPredicate LISTS_PREFIX = mailAddress -> mailAddress.getDomain().asString().startsWith("lists.");
@@ -177,23 +186,22 @@ public class LDAPMailingList extends GenericMailet {
             .orElse(false); // Accept local mails
     }
 
+    private final LdapGroupDirectory ldapGroupDirectory;
     private final LDAPConnectionPool ldapConnectionPool;
-    private final Optional<Filter> userExtraFilter;
     private final LdapRepositoryConfiguration configuration;
-    private Filter objectClassFilter;
-    private String[] listAttributes;
+    private GroupQuery groupQuery;
+    private String[] memberAttributes;
     private LoadingCache<String, List<MailAddress>> userMailCache;
-    private String baseDN;
+    private int memberResolutionConcurrency;
     private String rejectedSenderProcessor;
     private MailingListPredicate mailingListPredicate;
     private String mailAttributeForGroups;
 
     @Inject
-    public LDAPMailingList(LDAPConnectionPool ldapConnectionPool, LdapRepositoryConfiguration configuration) {
+    public LDAPMailingList(LdapGroupDirectory ldapGroupDirectory, LDAPConnectionPool ldapConnectionPool, LdapRepositoryConfiguration configuration) {
+        this.ldapGroupDirectory = ldapGroupDirectory;
         this.configuration = configuration;
         this.ldapConnectionPool = ldapConnectionPool;
-        this.userExtraFilter = Optional.ofNullable(configuration.getFilter())
-            .map(Throwing.function(Filter::create).sneakyThrow());
     }
 
     @VisibleForTesting
@@ -201,6 +209,10 @@ public class LDAPMailingList extends GenericMailet {
         this(new LDAPConnectionFactory(configuration).getLdapConnectionPool(), configuration);
     }
 
+    private LDAPMailingList(LDAPConnectionPool ldapConnectionPool, LdapRepositoryConfiguration configuration) {
+        this(new LdapGroupDirectory(ldapConnectionPool, configuration), ldapConnectionPool, configuration);
+    }
+
     @Override
     public void service(Mail mail) throws MessagingException {
         mail.getRecipients()
@@ -214,10 +226,10 @@ public class LDAPMailingList extends GenericMailet {
 
     @Override
     public void init() throws MessagingException {
-        baseDN = getInitParameter("baseDN");
         mailAttributeForGroups = getInitParameter("mailAttributeForGroups", "mail");
-        String groupObjectClass = getInitParameter("groupObjectClass", "groupofnames");
-        objectClassFilter = Filter.createEqualityFilter("objectClass", groupObjectClass);
+        groupQuery = new GroupQuery(getInitParameter("baseDN"),
+            getInitParameter("groupObjectClass", "groupofnames"),
+            mailAttributeForGroups);
         rejectedSenderProcessor = getInitParameter("rejectedSenderProcessor");
         mailingListPredicate = mailingListPredicate();
 
@@ -229,40 +241,34 @@ public class LDAPMailingList extends GenericMailet {
             .map(DurationParser::parse)
             .orElse(Duration.ofHours(1));
 
+        memberResolutionConcurrency = Optional.ofNullable(getInitParameter("memberResolutionConcurrency"))
+            .map(Integer::parseInt)
+            .orElse(DEFAULT_MEMBER_RESOLUTION_CONCURRENCY);
+        Preconditions.checkArgument(memberResolutionConcurrency > 0, "'memberResolutionConcurrency' should be strictly positive");
+
+        this.memberAttributes = ImmutableSet.builder()
+            .add(configuration.getUserIdAttribute())
+            .add("member")
+            .add("objectClass")
+            .build().toArray(String[]::new);
+
         CacheLoader<String, List<MailAddress>> cacheLoader = new CacheLoader<>() {
             @Override
             public List<MailAddress> load(String dn) throws Exception {
-                SearchResultEntry entry = ldapConnectionPool.getEntry(dn,
-                    ImmutableSet.builder()
-                        .add(configuration.getUserIdAttribute())
-                        .add("member")
-                        .add("objectClass")
-                        .build().toArray(String[]::new));
+                SearchResultEntry entry = ldapConnectionPool.getEntry(dn, memberAttributes);
                 if (entry == null) {
                     return ImmutableList.of();
                 }
                 if (entry.hasAttribute("member")) {
-                    return Arrays.stream(entry.getAttribute("member").getValues())
-                        .flatMap(nestedDn -> resolveUserMail(nestedDn).stream())
-                        .collect(ImmutableList.toImmutableList());
+                    return resolveUserMails(Arrays.asList(entry.getAttribute("member").getValues()));
                 }
-                if (entry.getAttribute(configuration.getUserIdAttribute()) == null) {
-                    return ImmutableList.of();
-                }
-                return ImmutableList.of(new MailAddress(entry.getAttribute(configuration.getUserIdAttribute()).getValue()));
+                return userMail(entry);
             }
         };
         this.userMailCache = CacheBuilder.newBuilder()
             .maximumSize(userMailCacheSize)
             .expireAfterAccess(userMailCacheDuration)
             .build(cacheLoader);
-
-        this.listAttributes = ImmutableSet.builder()
-            .add(mailAttributeForGroups)
-            .add("member")
-            .add("owner")
-            .add("businessCategory")
-            .build().toArray(String[]::new);
     }
 
     @Override
@@ -280,27 +286,9 @@ public class LDAPMailingList extends GenericMailet {
         };
     }
 
-    private Optional<SearchResultEntry> resolveListDN(MailAddress rcpt) throws LDAPSearchException {
-        try {
-            SearchResult searchResult = ldapConnectionPool.search(baseDN,
-                SearchScope.SUB,
-                createFilter(rcpt.asString(), mailAttributeForGroups),
-                listAttributes);
-
-            return searchResult.getSearchEntries().stream().findFirst();
-        } catch (LDAPException e) {
-            if (e.getResultCode().equals(ResultCode.NO_SUCH_OBJECT)) {
-                return Optional.empty();
-            }
-            throw e;
-        }
-    }
-
-    private Filter createFilter(String retrievalName, String ldapUserRetrievalAttribute) {
-        Filter specificUserFilter = Filter.createEqualityFilter(ldapUserRetrievalAttribute, retrievalName);
-        return userExtraFilter
-            .map(extraFilter -> Filter.createANDFilter(objectClassFilter, specificUserFilter, extraFilter))
-            .orElseGet(() -> Filter.createANDFilter(objectClassFilter, specificUserFilter));
+    private Optional<SearchResultEntry> resolveListDN(MailAddress rcpt) throws LDAPException {
+        return ldapGroupDirectory.lookup(groupQuery, rcpt)
+            .map(LdapGroup::entry);
     }
 
     private MailTransformation listToMailTransformation(MaybeSender maybeSender, SearchResultEntry list) {
@@ -314,12 +302,7 @@ public class LDAPMailingList extends GenericMailet {
                     .doCompose(MailTransformation.removeRecipient.apply(listAddress));
             }
 
-            List<MailAddress> memberAddresses = list.getAttributes().stream()
-                .filter(attribute -> attribute.getName().equals("member"))
-                .flatMap(attribute -> Stream.of(attribute.getValues()))
-                .map(Throwing.function(this::resolveUserMail))
-                .flatMap(Collection::stream)
-                .collect(ImmutableList.toImmutableList());
+            List<MailAddress> memberAddresses = resolveUserMails(attributeValues(list, "member"));
 
             return MailTransformation.removeRecipient.apply(listAddress)
                 .doComposeIf(
@@ -332,6 +315,13 @@ public class LDAPMailingList extends GenericMailet {
         }
     }
 
+    private List<String> attributeValues(SearchResultEntry list, String attributeName) {
+        return list.getAttributes().stream()
+            .filter(attribute -> attribute.getName().equals(attributeName))
+            .flatMap(attribute -> Stream.of(attribute.getValues()))
+            .collect(ImmutableList.toImmutableList());
+    }
+
     private MailTransformation addListHeaders(Collection<MailAddress> rcpts, MailAddress listName) {
         return mail -> {
             PerRecipientHeaders.Header listIdHeader = PerRecipientHeaders.Header.builder()
@@ -369,6 +359,50 @@ public class LDAPMailingList extends GenericMailet {
         };
     }
 
+    /**
+     * Resolves the given member DNs, in order. Meant for expanding every member: sender validation rather resolves them
+     * lazily, stopping at the first match.
+     *
+     * The DNs missing from the cache are first fetched concurrently, and the users among them are put in the cache.
+     * Nested groups are then resolved one at a time on the calling thread, which is what lets the cache detect
+     * recursive group definitions.
+     */
+    private List<MailAddress> resolveUserMails(List<String> dns) {
+        prefetchUserMails(dns);
+        return dns.stream()
+            .flatMap(dn -> resolveUserMail(dn).stream())
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    private void prefetchUserMails(List<String> dns) {
+        ImmutableSet<String> misses = dns.stream()
+            .filter(dn -> userMailCache.getIfPresent(dn) == null)
+            .collect(ImmutableSet.toImmutableSet());
+        if (misses.size() < 2) {
+            return;
+        }
+
+        Flux.fromIterable(misses)
+            .flatMap(dn -> Mono.fromCallable(() -> ldapConnectionPool.getEntry(dn, memberAttributes))
+                .filter(entry -> !entry.hasAttribute("member"))
+                .doOnNext(Throwing.consumer(entry -> userMailCache.put(dn, userMail(entry))))
+                .onErrorResume(e -> {
+                    // Best effort: the DN is looked up again, and failures reported, when resolved
+                    LOGGER.warn("Failed to prefetch the mail address of {}", dn, e);
+                    return Mono.empty();
+                })
+                .subscribeOn(Schedulers.boundedElastic()), memberResolutionConcurrency)
+            .then()
+            .block();
+    }
+
+    private List<MailAddress> userMail(SearchResultEntry entry) throws AddressException {
+        if (entry.getAttribute(configuration.getUserIdAttribute()) == null) {
+            return ImmutableList.of();
+        }
+        return ImmutableList.of(new MailAddress(entry.getAttribute(configuration.getUserIdAttribute()).getValue()));
+    }
+
     private List<MailAddress> resolveUserMail(String dn) {
         try {
             return userMailCache.get(dn);
@@ -395,9 +429,7 @@ public class LDAPMailingList extends GenericMailet {
                .map(Throwing.function(this::resolveUserMail))
                .flatMap(Collection::stream)
                .anyMatch(sender.asOptional().get()::equals);
-           Supplier<Boolean> isMember = () -> list.getAttributes().stream()
-               .filter(attribute -> attribute.getName().equals("member"))
-               .flatMap(attribute -> Stream.of(attribute.getValues()))
+           Supplier<Boolean> isMember = () -> attributeValues(list, "member").stream()
                .map(Throwing.function(this::resolveUserMail))
                .flatMap(Collection::stream)
                .anyMatch(sender.asOptional().get()::equals);
@@ -418,9 +450,7 @@ public class LDAPMailingList extends GenericMailet {
                .map(Throwing.function(this::resolveUserMail))
                .flatMap(Collection::stream)
                .anyMatch(sender.asOptional().get()::equals);
-           Supplier<Boolean> isOwner = () -> list.getAttributes().stream()
-               .filter(attribute -> attribute.getName().equals("owner"))
-               .flatMap(attribute -> Stream.of(attribute.getValues()))
+           Supplier<Boolean> isOwner = () -> attributeValues(list, "owner").stream()
                .map(Throwing.function(this::resolveUserMail))
                .flatMap(Collection::stream)
                .anyMatch(sender.asOptional().get()::equals);
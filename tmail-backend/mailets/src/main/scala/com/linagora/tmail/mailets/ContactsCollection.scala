@@ -4,7 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module
 import com.google.common.collect.{ImmutableList, ImmutableSet}
 import com.linagora.tmail.james.jmap.EmailAddressContactInjectKeys
-import com.linagora.tmail.james.jmap.contact.{ContactFields, TmailContactUserAddedEvent}
+import com.linagora.tmail.james.jmap.contact.{ContactFields, TmailContactUserAddedEvent, TmailContactUserBatchAddedEvent}
 import jakarta.inject.{Inject, Named}
 import jakarta.mail.Message
 import org.apache.commons.collections.CollectionUtils
@@ -24,9 +24,13 @@ import scala.util.Try
 
 /**
  * <p><b>ContactsCollection</b> allows extracting the recipient's contact of a message
- *  and dispatch ContactUserAddedEvent to eventBus, in order to index contact asynchronously.
+ *  and dispatch a single ContactUserBatchAddedEvent per mail to eventBus, in order to index contacts asynchronously.
  *  This mailet also stores them as JSON in a specified message attribute.</p>
  *
+ * <p>Nodes running 0.11.x or older can not read ContactUserBatchAddedEvent. During a rolling upgrade, set the optional
+ *  <code>batchEvents</code> parameter to <code>false</code> to dispatch one ContactUserAddedEvent per contact instead.
+ *  Defaults to <code>true</code>.</p>
+ *
  * <p>Here is the JSON format:</p>
  * <pre><code>
  * {
@@ -40,6 +44,7 @@ import scala.util.Try
  * <pre><code>
  * &lt;mailet match="All" class="ContactsCollection"&gt;
  *   &lt;attribute&gt;ExtractedContacts&lt;/attribute&gt;
+ *   &lt;batchEvents&gt;true&lt;/batchEvents&gt;
  * &lt;/mailet&gt;
  * </code></pre>
  */
@@ -49,11 +54,14 @@ class ContactsCollection @Inject()(@Named(EmailAddressContactInjectKeys.AUTOCOMP
   private val NO_REGISTRATION_KEYS: ImmutableSet[RegistrationKey] = ImmutableSet.of
   private val OBJECT_MAPPER: ObjectMapper = new ObjectMapper().registerModule(new Jdk8Module)
   private var attributeName: AttributeName = _
+  private var batchEvents: Boolean = _
 
-  override def init(): Unit =
+  override def init(): Unit = {
     attributeName = Option(getInitParameter("attribute"))
       .map(AttributeName.of)
       .getOrElse(throw new MailetException("No value for `attribute` parameter was provided."))
+    batchEvents = getInitParameter("batchEvents", true)
+  }
 
   override def service(mail: Mail): Unit =
     if (CollectionUtils.isNotEmpty(mail.getRecipients)) {
@@ -89,14 +97,25 @@ class ContactsCollection @Inject()(@Named(EmailAddressContactInjectKeys.AUTOCOMP
       .toOption
 
   private def dispatchEvents(sender: MailAddress, contacts: Seq[ContactFields]): SMono[Unit] =
-    SFlux.fromIterable(contacts)
-      .flatMap(contact => SMono.fromPublisher(eventBus.dispatch(TmailContactUserAddedEvent(
+    if (contacts.isEmpty) {
+      SMono.empty
+    } else if (!batchEvents) {
+      SFlux.fromIterable(contacts)
+        .flatMap(contact => SMono.fromPublisher(eventBus.dispatch(TmailContactUserAddedEvent(
+          eventId = EventId.random(),
+          username = Username.fromMailAddress(sender),
+          contact = contact),
+          NO_REGISTRATION_KEYS)))
+        .collectSeq()
+        .`then`()
+    } else {
+      SMono.fromPublisher(eventBus.dispatch(TmailContactUserBatchAddedEvent(
         eventId = EventId.random(),
         username = Username.fromMailAddress(sender),
-        contact = contact),
-        NO_REGISTRATION_KEYS)))
-      .collectSeq()
-      .`then`()
+        contacts = contacts),
+        NO_REGISTRATION_KEYS))
+        .`then`()
+    }
 
   private def appendAttributeToMail(sender: MailAddress, mail: Mail, contacts: Seq[ContactFields]): SMono[String] =
     SMono.just(sender)
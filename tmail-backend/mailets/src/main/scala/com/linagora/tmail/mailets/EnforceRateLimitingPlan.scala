@@ -3,14 +3,16 @@ package com.linagora.tmail.mailets
 import java.time.Duration
 import java.time.temporal.ChronoUnit
 
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
 import com.google.common.annotations.VisibleForTesting
 import com.google.common.base.Preconditions
 import com.google.common.collect.ImmutableList
-import com.linagora.tmail.mailets.EnforceRateLimitingPlan.{ACCEPTABLE_OPERATIONS, LIMIT_PER_RECIPIENTS_OPERATIONS, LIMIT_PER_SENDER_OPERATIONS}
+import com.linagora.tmail.mailets.EnforceRateLimitingPlan.{ACCEPTABLE_OPERATIONS, LIMIT_PER_RECIPIENTS_OPERATIONS, LIMIT_PER_SENDER_OPERATIONS, RATE_LIMITERS_CACHE_EXPIRATION, RATE_LIMITERS_CACHE_MAXIMUM_SIZE}
 import com.linagora.tmail.rate.limiter.api.OperationLimitations.{DELIVERY_LIMITATIONS_NAME, RELAY_LIMITATIONS_NAME, TRANSIT_LIMITATIONS_NAME}
-import com.linagora.tmail.rate.limiter.api.{CacheRateLimitingPlan, OperationLimitations, RateLimitingPlanId, RateLimitingPlanNotFoundException, RateLimitingPlanRepository, RateLimitingPlanUserRepository}
-import jakarta.inject.Inject
+import com.linagora.tmail.rate.limiter.api.{CacheRateLimitingPlan, CacheRateLimitingPlanUserRepository, OperationLimitations, RateLimitingCachesInvalidationListener, RateLimitingPlanId, RateLimitingPlanInjectKeys, RateLimitingPlanNotFoundException, RateLimitingPlanRepository, RateLimitingPlanUserRepository}
+import jakarta.inject.{Inject, Named}
 import org.apache.james.core.{MailAddress, Username}
+import org.apache.james.events.EventBus
 import org.apache.james.lifecycle.api.LifecycleUtil
 import org.apache.james.metrics.api.GaugeRegistry
 import org.apache.james.rate.limiter.api.{AcceptableRate, RateExceeded, RateLimiterFactory, RateLimitingResult, Rule, Rules}
@@ -19,6 +21,7 @@ import org.apache.james.transport.mailets.KeyPrefix
 import org.apache.james.util.DurationParser
 import org.apache.mailet.Mail
 import org.apache.mailet.base.GenericMailet
+import reactor.core.Disposable
 import reactor.core.scala.publisher.{SFlux, SMono}
 
 import scala.jdk.CollectionConverters._
@@ -28,12 +31,15 @@ object EnforceRateLimitingPlan {
   val LIMIT_PER_SENDER_OPERATIONS: Set[String] = Set(TRANSIT_LIMITATIONS_NAME, RELAY_LIMITATIONS_NAME)
   val LIMIT_PER_RECIPIENTS_OPERATIONS: Set[String] = Set(DELIVERY_LIMITATIONS_NAME)
   val ACCEPTABLE_OPERATIONS: Set[String] = LIMIT_PER_SENDER_OPERATIONS ++ LIMIT_PER_RECIPIENTS_OPERATIONS
+  val RATE_LIMITERS_CACHE_MAXIMUM_SIZE: Long = 10000
+  val RATE_LIMITERS_CACHE_EXPIRATION: Duration = Duration.ofHours(1)
 }
 
 class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanRepository,
                                         planUserRepository: RateLimitingPlanUserRepository,
                                         rateLimiterFactory: RateLimiterFactory,
-                                        gaugeRegistry: GaugeRegistry) extends GenericMailet {
+                                        gaugeRegistry: GaugeRegistry,
+                                        @Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN) eventBus: EventBus) extends GenericMailet {
 
   private var operationLimitation: String = _
   private var exceededProcessor: String = _
@@ -41,6 +47,9 @@ class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanReposito
   private var rateLimitRecipient: Boolean = _
   private var planRateLimiterResolver: PlanRateLimiterResolver = _
   private var planStore: RateLimitingPlanRepository = _
+  private var planUserStore: RateLimitingPlanUserRepository = _
+  private var rateLimitersCache: Cache[(RateLimitingPlanId, OperationLimitations), Seq[TmailPlanRateLimiter]] = _
+  private var cachesInvalidation: Option[Disposable] = None
 
   override def init(): Unit = {
     exceededProcessor = getInitParameter("exceededProcessor", Mail.ERROR)
@@ -50,9 +59,16 @@ class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanReposito
     Preconditions.checkArgument(operationLimitation != null && operationLimitation.nonEmpty, "`operationLimitation` is compulsory".asInstanceOf[Object])
     Preconditions.checkArgument(ACCEPTABLE_OPERATIONS.contains(operationLimitation), s"`operationLimitation` must be [${String.join(", ", ACCEPTABLE_OPERATIONS.asJava)}]".asInstanceOf[Object])
 
-    planStore = parseCacheExpiration()
+    val cacheExpiration: Option[Duration] = parseCacheExpiration()
+    val planCache: Option[CacheRateLimitingPlan] = cacheExpiration
       .map(duration => new CacheRateLimitingPlan(planRepository, duration, gaugeRegistry, Some(operationLimitation)))
-      .getOrElse(planRepository)
+    val planUserCache: Option[CacheRateLimitingPlanUserRepository] = cacheExpiration
+      .map(duration => new CacheRateLimitingPlanUserRepository(planUserRepository, duration, gaugeRegistry, Some(operationLimitation)))
+    planStore = planCache.getOrElse(planRepository)
+    planUserStore = planUserCache.getOrElse(planUserRepository)
+    cachesInvalidation = cacheExpiration
+      .map(_ => RateLimitingCachesInvalidationListener.register(eventBus, new RateLimitingCachesInvalidationListener(planCache, planUserCache)))
+    rateLimitersCache = createRateLimitersCache()
 
     planRateLimiterResolver = PlanRateLimiterResolver(
       rateLimiterFactory = rateLimiterFactory,
@@ -60,6 +76,26 @@ class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanReposito
       precision = getMailetConfig.getDuration("precision"))
   }
 
+  override def destroy(): Unit = {
+    cachesInvalidation.foreach(_.dispose())
+    cachesInvalidation = None
+  }
+
+  // Rate limiters only depend on the plan limitations: keying on them lets an updated plan naturally get new rate limiters
+  private def createRateLimitersCache(): Cache[(RateLimitingPlanId, OperationLimitations), Seq[TmailPlanRateLimiter]] = {
+    val cache: Cache[(RateLimitingPlanId, OperationLimitations), Seq[TmailPlanRateLimiter]] = Caffeine.newBuilder()
+      .maximumSize(RATE_LIMITERS_CACHE_MAXIMUM_SIZE)
+      .expireAfterAccess(RATE_LIMITERS_CACHE_EXPIRATION)
+      .recordStats()
+      .build[(RateLimitingPlanId, OperationLimitations), Seq[TmailPlanRateLimiter]]()
+
+    gaugeRegistry.register(operationLimitation + ".rate_limiters.cache.get.hitRate", () => cache.stats().hitRate())
+      .register(operationLimitation + ".rate_limiters.cache.get.missCount", () => cache.stats().missCount())
+      .register(operationLimitation + ".rate_limiters.cache.get.hitCount", () => cache.stats().hitCount())
+      .register(operationLimitation + ".rate_limiters.cache.get.size", () => cache.estimatedSize())
+    cache
+  }
+
   @VisibleForTesting
   def parseCacheExpiration(): Option[Duration] = Option(getInitParameter("cacheExpiration"))
     .map(string => DurationParser.parse(string, ChronoUnit.SECONDS))
@@ -77,13 +113,16 @@ class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanReposito
     }
 
   private def applyRateLimiter(mail: Mail, username: Username): SMono[RateLimitingResult] =
-    SMono.fromPublisher(planUserRepository.getPlanByUser(username))
+    resolveRateLimiters(username)
+      .flatMap(rateLimiters => TmailPlanRateLimiter.rateLimitAll(Seq(PlanRateLimitingRequest(username, username, rateLimiters)), mail))
+      .map(results => results.head._2)
+
+  private def resolveRateLimiters(username: Username): SMono[Seq[TmailPlanRateLimiter]] =
+    SMono.fromPublisher(planUserStore.getPlanByUser(username))
       .flatMap(retrieveRateLimiter)
-      .flatMapMany(SFlux.fromIterable)
-      .flatMap(_.rateLimit(username, mail))
-      .fold[RateLimitingResult](AcceptableRate)((a, b) => a.merge(b))
+      .defaultIfEmpty(Seq())
       .onErrorResume {
-        case _: RateLimitingPlanNotFoundException => SMono.just[RateLimitingResult](AcceptableRate)
+        case _: RateLimitingPlanNotFoundException => SMono.just(Seq[TmailPlanRateLimiter]())
       }
 
   private def retrieveRateLimiter(id: RateLimitingPlanId): SMono[Seq[TmailPlanRateLimiter]] =
@@ -91,7 +130,8 @@ class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanReposito
       .flatMapIterable(_.operationLimitations)
       .filter(_.asString().equals(operationLimitation))
       .next()
-      .map(planRateLimiterResolver.extractRateLimiters(id, _))
+      .map(operationLimitations => rateLimitersCache.get((id, operationLimitations),
+        key => planRateLimiterResolver.extractRateLimiters(key._1, key._2)))
 
   private def applyRateLimiterPerSender(mail: Mail, username: Username): Unit = {
     val rateLimitingResult: RateLimitingResult = applyRateLimiter(mail, username).block()
@@ -101,10 +141,15 @@ class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanReposito
   }
 
   private def applyRateLimiterPerRecipient(mail: Mail): Unit = {
+    // Plans are resolved first, then the rate limiters of all recipients are evaluated as a single batch
     val rateLimitResults: Seq[(MailAddress, RateLimitingResult)] = SFlux.fromIterable(mail.getRecipients.asScala)
-      .flatMap(recipient => applyRateLimiter(mail, Username.fromMailAddress(recipient))
-        .map(rateLimitingResult => recipient -> rateLimitingResult))
+      .flatMap(recipient => {
+        val username: Username = Username.fromMailAddress(recipient)
+        resolveRateLimiters(username)
+          .map(rateLimiters => PlanRateLimitingRequest(recipient, username, rateLimiters))
+      })
       .collectSeq()
+      .flatMap(requests => TmailPlanRateLimiter.rateLimitAll(requests, mail))
       .block()
 
     val rateLimitedRecipients: Seq[MailAddress] = rateLimitResults.filter(_._2.equals(RateExceeded)).map(_._1)
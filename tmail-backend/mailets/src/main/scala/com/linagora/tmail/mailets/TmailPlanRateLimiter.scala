@@ -9,7 +9,40 @@ import org.apache.james.rate.limiter.api.{AcceptableRate, Increment, RateLimiter
 import org.apache.james.transport.mailets.KeyPrefix
 import org.apache.mailet.Mail
 import org.reactivestreams.Publisher
-import reactor.core.scala.publisher.SMono
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+/**
+ * The rate limiters of the plan of a user, `target` being what the result is reported for (eg the recipient).
+ */
+case class PlanRateLimitingRequest[T](target: T, username: Username, rateLimiters: Seq[TmailPlanRateLimiter])
+
+object TmailPlanRateLimiter {
+  /**
+   * Evaluates every rate limiter of every request of a mail at once.
+   *
+   * Increments are computed once per limit type for the whole mail, and every rate limiting call is issued without
+   * waiting for the others so that the backend client pipelines them. Results are merged per target the same way
+   * as for a single user: any exceeded limit makes the target exceeded.
+   */
+  def rateLimitAll[T](requests: Seq[PlanRateLimitingRequest[T]], mail: Mail): SMono[Seq[(T, RateLimitingResult)]] = {
+    val increments: Map[String, Option[Increment]] = requests.flatMap(_.rateLimiters)
+      .map(_.limitTypeName)
+      .distinct
+      .map(limitTypeName => limitTypeName -> LimitTypeUtils.extractQuantity(mail, limitTypeName))
+      .toMap
+    val calls: Seq[(PlanRateLimitingRequest[T], TmailPlanRateLimiter)] = requests.flatMap(request => request.rateLimiters.map(request -> _))
+
+    SFlux.fromIterable(calls)
+      .flatMap(call => SMono.fromPublisher(call._2.rateLimit(call._1.username, increments(call._2.limitTypeName)))
+        .map(result => call._1 -> result), Math.max(calls.size, 1))
+      .collectSeq()
+      .map(results => {
+        val resultsByRequest: Map[PlanRateLimitingRequest[T], Seq[RateLimitingResult]] = results.groupMap(_._1)(_._2)
+        requests.map(request => request.target -> resultsByRequest.getOrElse(request, Seq())
+          .fold[RateLimitingResult](AcceptableRate)((a, b) => a.merge(b)))
+      })
+  }
+}
 
 case class TmailPlanRateLimiter(rateLimiter: RateLimiter,
                                 keyPrefix: Option[KeyPrefix] = None,
@@ -18,7 +51,10 @@ case class TmailPlanRateLimiter(rateLimiter: RateLimiter,
                                 operationLimitationName: String) {
 
   def rateLimit(username: Username, mail: Mail): Publisher[RateLimitingResult] =
-    LimitTypeUtils.extractQuantity(mail, limitTypeName)
+    rateLimit(username, LimitTypeUtils.extractQuantity(mail, limitTypeName))
+
+  def rateLimit(username: Username, quantity: Option[Increment]): Publisher[RateLimitingResult] =
+    quantity
       .map(increment => rateLimiter.rateLimit(
         key = RateLimitingPlanKey(
           keyPrefix,
@@ -0,0 +1,163 @@
+package com.linagora.tmail.mailet;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.apache.commons.configuration2.plist.PropertyListConfiguration;
+import org.apache.james.core.MailAddress;
+import org.apache.james.user.ldap.LdapRepositoryConfiguration;
+import org.apache.mailet.base.test.FakeMail;
+import org.apache.mailet.base.test.FakeMailContext;
+import org.apache.mailet.base.test.FakeMailetConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.linagora.tmail.ldap.LdapGroupDirectory;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+
+/**
+ * Measures the expansion of a list of 10, 1,000 and 10,000 members whose DNs are not cached yet, depending on the count
+ * of member DNs looked up concurrently.
+ *
+ * The LDAP is an UnboundID in-memory directory server: LDAP latency is close to zero, thus gains are larger with a
+ * remote LDAP server.
+ *
+ * Not part of the test suite: run the main method from the IDE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LDAPMailingListBenchmark {
+    private static final String BASE_DN = "dc=james,dc=org";
+    private static final String PEOPLE_DN = "ou=people," + BASE_DN;
+    private static final String LISTS_DN = "ou=lists," + BASE_DN;
+    private static final String ADMIN_DN = "cn=admin," + BASE_DN;
+    private static final String ADMIN_PASSWORD = "secret";
+    private static final String LIST_ADDRESS = "list@lists.james.org";
+    private static final int CONNECTION_POOL_SIZE = 16;
+
+    @Param({"10", "1000", "10000"})
+    public int memberCount;
+
+    @Param({"1", "4", "16"})
+    public int memberResolutionConcurrency;
+
+    private InMemoryDirectoryServer directoryServer;
+    private LDAPConnectionPool connectionPool;
+    private LdapRepositoryConfiguration configuration;
+    private LDAPMailingList mailet;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        InMemoryDirectoryServerConfig serverConfig = new InMemoryDirectoryServerConfig(BASE_DN);
+        serverConfig.addAdditionalBindCredentials(ADMIN_DN, ADMIN_PASSWORD);
+        serverConfig.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("ldap", 0));
+        directoryServer = new InMemoryDirectoryServer(serverConfig);
+        directoryServer.startListening();
+
+        directoryServer.add(new Entry(BASE_DN, new Attribute("objectClass", "top", "domain"), new Attribute("dc", "james")));
+        directoryServer.add(new Entry(PEOPLE_DN, new Attribute("objectClass", "top", "organizationalUnit"), new Attribute("ou", "people")));
+        directoryServer.add(new Entry(LISTS_DN, new Attribute("objectClass", "top", "organizationalUnit"), new Attribute("ou", "lists")));
+        for (int index = 0; index < memberCount; index++) {
+            directoryServer.add(user(index));
+        }
+        directoryServer.add(new Entry("cn=list," + LISTS_DN,
+            new Attribute("objectClass", "top", "groupOfNames"),
+            new Attribute("cn", "list"),
+            new Attribute("description", LIST_ADDRESS),
+            new Attribute("member", IntStream.range(0, memberCount)
+                .mapToObj(LDAPMailingListBenchmark::userDn)
+                .toArray(String[]::new))));
+
+        connectionPool = directoryServer.getConnectionPool(CONNECTION_POOL_SIZE);
+        configuration = LdapRepositoryConfiguration.from(ldapRepositoryConfiguration(directoryServer.getListenPort()));
+    }
+
+    /**
+     * A new mailet, thus empty caches, for each expansion.
+     */
+    @Setup(Level.Invocation)
+    public void setUpMailet() throws Exception {
+        mailet = new LDAPMailingList(new LdapGroupDirectory(connectionPool, configuration), connectionPool, configuration);
+        mailet.init(FakeMailetConfig.builder()
+            .mailetName("LDAPMailingList")
+            .setProperty("baseDN", LISTS_DN)
+            .setProperty("rejectedSenderProcessor", "rejectedSender")
+            .setProperty("mailAttributeForGroups", "description")
+            .setProperty("memberResolutionConcurrency", String.valueOf(memberResolutionConcurrency))
+            .mailetContext(FakeMailContext.defaultContext())
+            .build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionPool.close();
+        directoryServer.shutDown(true);
+    }
+
+    @Benchmark
+    public Collection<MailAddress> expandColdList() throws Exception {
+        FakeMail mail = FakeMail.builder()
+            .name("mail")
+            .sender("bob@james.org")
+            .recipient(LIST_ADDRESS)
+            .build();
+        mailet.service(mail);
+        return mail.getRecipients();
+    }
+
+    private static String userDn(int index) {
+        return "uid=user" + index + "," + PEOPLE_DN;
+    }
+
+    private static Entry user(int index) {
+        return new Entry(userDn(index),
+            new Attribute("objectClass", "top", "person", "organizationalPerson", "inetOrgPerson"),
+            new Attribute("uid", "user" + index),
+            new Attribute("cn", "user" + index),
+            new Attribute("sn", "user" + index),
+            new Attribute("mail", "user" + index + "@james.org"));
+    }
+
+    private static PropertyListConfiguration ldapRepositoryConfiguration(int port) {
+        PropertyListConfiguration configuration = new PropertyListConfiguration();
+        configuration.addProperty("[@ldapHost]", "ldap://localhost:" + port);
+        configuration.addProperty("[@principal]", ADMIN_DN);
+        configuration.addProperty("[@credentials]", ADMIN_PASSWORD);
+        configuration.addProperty("[@userBase]", PEOPLE_DN);
+        configuration.addProperty("[@userObjectClass]", "inetOrgPerson");
+        configuration.addProperty("[@userIdAttribute]", "mail");
+        configuration.addProperty("supportsVirtualHosting", true);
+        return configuration;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(LDAPMailingListBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+}
@@ -3,6 +3,7 @@ package com.linagora.tmail.mailet;
 import static org.apache.james.user.ldap.DockerLdapSingleton.ADMIN;
 import static org.apache.james.user.ldap.DockerLdapSingleton.ADMIN_PASSWORD;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.util.Optional;
 
@@ -64,6 +65,50 @@ class LDAPMailingListTest {
                 new MailAddress("james-user2@james.org"));
     }
 
+    @Test
+    void shouldResolveGroupWhenMembersAreResolvedOneAtATime() throws Exception {
+        LDAPMailingList testee = new LDAPMailingList(LdapRepositoryConfiguration.from(ldapRepositoryConfigurationWithVirtualHosting(ldapContainer)));
+        FakeMailContext mailetContext = FakeMailContext.defaultContext();
+        FakeMailetConfig config = FakeMailetConfig.builder()
+            .mailetName("LDAPMailingList")
+            .setProperty("baseDN", "ou=lists,dc=james,dc=org")
+            .setProperty("rejectedSenderProcessor", "rejectedSender")
+            .setProperty("mailingListPredicate", "lists-prefix")
+            .setProperty("mailAttributeForGroups", "description")
+            .setProperty("memberResolutionConcurrency", "1")
+            .mailetContext(mailetContext)
+            .build();
+        testee.init(config);
+
+        FakeMail mail = FakeMail.builder()
+            .name("test-mail")
+            .state(FakeMail.DEFAULT)
+            .sender("bob@james.org")
+            .recipient("mygroup@lists.james.org")
+            .build();
+        testee.service(mail);
+
+        assertThat(mail.getRecipients())
+            .containsOnly(new MailAddress("james-user@james.org"),
+                new MailAddress("james-user2@james.org"));
+    }
+
+    @Test
+    void initShouldRejectNonPositiveMemberResolutionConcurrency() throws Exception {
+        LDAPMailingList testee = new LDAPMailingList(LdapRepositoryConfiguration.from(ldapRepositoryConfigurationWithVirtualHosting(ldapContainer)));
+        FakeMailetConfig config = FakeMailetConfig.builder()
+            .mailetName("LDAPMailingList")
+            .setProperty("baseDN", "ou=lists,dc=james,dc=org")
+            .setProperty("rejectedSenderProcessor", "rejectedSender")
+            .setProperty("mailAttributeForGroups", "description")
+            .setProperty("memberResolutionConcurrency", "0")
+            .mailetContext(FakeMailContext.defaultContext())
+            .build();
+
+        assertThatThrownBy(() -> testee.init(config))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void shouldSupportOpenList() throws Exception {
         LDAPMailingList testee = new LDAPMailingList(LdapRepositoryConfiguration.from(ldapRepositoryConfigurationWithVirtualHosting(ldapContainer)));
@@ -3,7 +3,7 @@ package com.linagora.tmail.mailets
 import java.util
 import java.util.Optional
 
-import com.linagora.tmail.james.jmap.contact.{ContactFields, TmailContactUserAddedEvent}
+import com.linagora.tmail.james.jmap.contact.{ContactFields, TmailContactUserAddedEvent, TmailContactUserBatchAddedEvent}
 import com.linagora.tmail.mailets.ContactsCollectionTest.{ATTRIBUTE_NAME, MAILET_CONFIG, RECIPIENT, RECIPIENT2, RECIPIENT3, SENDER}
 import net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson
 import org.apache.james.core.builder.MimeMessageBuilder
@@ -44,8 +44,10 @@ class TestEventListener(events: util.ArrayList[Event] = new util.ArrayList[Event
   def eventReceived(): util.List[Event] = events
 
   def contactReceived(): util.List[ContactFields] = events.asScala
-    .map(_.asInstanceOf[TmailContactUserAddedEvent])
-    .map(_.contact).asJava
+    .flatMap {
+      case batchAddedEvent: TmailContactUserBatchAddedEvent => batchAddedEvent.contacts
+      case addedEvent: TmailContactUserAddedEvent => Seq(addedEvent.contact)
+    }.asJava
 }
 
 class ContactsCollectionTest {
@@ -318,7 +320,7 @@ class ContactsCollectionTest {
   }
 
   @Test
-  def serviceShouldDispatchSeveralEventWhenHasSeveralRecipient(): Unit = {
+  def serviceShouldDispatchASingleEventWhenHasSeveralRecipients(): Unit = {
     mailet.init(MAILET_CONFIG)
 
     val mail: FakeMail = FakeMail.builder()
@@ -334,6 +336,36 @@ class ContactsCollectionTest {
 
     mailet.service(mail)
 
+    assertThat(eventListener.eventReceived())
+      .hasSize(1)
+    assertThat(eventListener.contactReceived())
+      .containsExactlyInAnyOrder(ContactFields(new MailAddress(RECIPIENT)), ContactFields(new MailAddress("recipient2@domain.tld")))
+  }
+
+  @Test
+  def serviceShouldDispatchAnEventPerRecipientWhenBatchEventsIsDisabled(): Unit = {
+    mailet.init(FakeMailetConfig.builder()
+      .mailetName("ContactsCollection")
+      .setProperty("attribute", ATTRIBUTE_NAME.asString())
+      .setProperty("batchEvents", "false")
+      .build())
+
+    val mail: FakeMail = FakeMail.builder()
+      .name("mail1")
+      .mimeMessage(MimeMessageBuilder.mimeMessageBuilder()
+        .setSender(SENDER)
+        .addToRecipient(RECIPIENT, "recipient2@domain.tld")
+        .setSubject("Subject 01")
+        .setText("Content mail 123"))
+      .sender(SENDER)
+      .recipient(RECIPIENT)
+      .build()
+
+    mailet.service(mail)
+
+    assertThat(eventListener.eventReceived())
+      .hasSize(2)
+      .allMatch(event => event.isInstanceOf[TmailContactUserAddedEvent])
     assertThat(eventListener.contactReceived())
       .containsExactlyInAnyOrder(ContactFields(new MailAddress(RECIPIENT)), ContactFields(new MailAddress("recipient2@domain.tld")))
   }
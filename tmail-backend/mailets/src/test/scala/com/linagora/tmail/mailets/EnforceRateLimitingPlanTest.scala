@@ -7,11 +7,13 @@ import java.util.stream.IntStream
 import com.codahale.metrics.MetricRegistry
 import com.linagora.tmail.mailets.EnforceRateLimitingPlanTest.{USER1, USER2}
 import com.linagora.tmail.rate.limiter.api.memory.MemoryRateLimitingPlanUserRepository
-import com.linagora.tmail.rate.limiter.api.{DeliveryLimitations, InMemoryRateLimitingPlanRepository, LimitTypes, OperationLimitationsType, RateLimitation, RateLimitingPlan, RateLimitingPlanCreateRequest, RateLimitingPlanRepository, RateLimitingPlanUserRepository, RelayLimitations, TransitLimitations}
+import com.linagora.tmail.rate.limiter.api.{DeliveryLimitations, InMemoryRateLimitingPlanRepository, LimitTypes, OperationLimitationsType, RateLimitation, RateLimitingPlan, RateLimitingPlanChangeNotifier, RateLimitingPlanCreateRequest, RateLimitingPlanRepository, RateLimitingPlanUserRepository, RelayLimitations, TransitLimitations}
 import eu.timepit.refined.auto._
 import org.apache.james.backends.redis.{DockerRedis, RedisClientFactory, RedisExtension, StandaloneRedisConfiguration}
 import org.apache.james.core.Username
-import org.apache.james.metrics.api.NoopGaugeRegistry
+import org.apache.james.events.delivery.InVmEventDelivery
+import org.apache.james.events.{EventBus, InVMEventBus, MemoryEventDeadLetters, RetryBackoffConfiguration}
+import org.apache.james.metrics.api.{NoopGaugeRegistry, NoopMetricFactory}
 import org.apache.james.metrics.dropwizard.DropWizardGaugeRegistry
 import org.apache.james.rate.limiter.redis.RedisRateLimiterFactory
 import org.apache.james.server.core.filesystem.FileSystemImpl
@@ -20,6 +22,8 @@ import org.apache.mailet.base.test.{FakeMail, FakeMailContext, FakeMailetConfig}
 import org.apache.mailet.{Mail, MailetConfig}
 import org.assertj.core.api.Assertions.{assertThat, assertThatCode, assertThatThrownBy}
 import org.assertj.core.api.SoftAssertions.assertSoftly
+import org.awaitility.Awaitility.await
+import org.awaitility.Durations.TEN_SECONDS
 import org.junit.jupiter.api.extension.ExtendWith
 import org.junit.jupiter.api.{BeforeEach, Nested, Test}
 import reactor.core.scala.publisher.SMono
@@ -35,10 +39,11 @@ class EnforceRateLimitingPlanTest {
   var rateLimitationPlanRepository: RateLimitingPlanRepository = _
   var rateLimitingPlanUserRepository: RateLimitingPlanUserRepository = _
   var redisRateLimiterFactory: RedisRateLimiterFactory = _
+  var eventBus: EventBus = _
 
   def testee(mailetConfig: MailetConfig): EnforceRateLimitingPlan = {
     val mailet: EnforceRateLimitingPlan = new EnforceRateLimitingPlan(rateLimitationPlanRepository, rateLimitingPlanUserRepository, redisRateLimiterFactory,
-      new NoopGaugeRegistry())
+      new NoopGaugeRegistry(), eventBus)
     mailet.init(mailetConfig)
     mailet
   }
@@ -48,6 +53,7 @@ class EnforceRateLimitingPlanTest {
     rateLimitationPlanRepository = new InMemoryRateLimitingPlanRepository
     rateLimitingPlanUserRepository = new MemoryRateLimitingPlanUserRepository
     redisRateLimiterFactory = new RedisRateLimiterFactory(StandaloneRedisConfiguration.from(redis.redisURI().toString), new RedisClientFactory(FileSystemImpl.forTesting))
+    eventBus = new InVMEventBus(new InVmEventDelivery(new NoopMetricFactory()), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters())
 
     val rateLimitingPlan: RateLimitingPlan = SMono.fromPublisher(rateLimitationPlanRepository.create(RateLimitingPlanCreateRequest(
       name = "PaidPlan",
@@ -683,7 +689,7 @@ class EnforceRateLimitingPlanTest {
     val gaugeRegistry: DropWizardGaugeRegistry = new DropWizardGaugeRegistry(metricRegistry)
 
     val mailet: EnforceRateLimitingPlan = new EnforceRateLimitingPlan(rateLimitationPlanRepository, rateLimitingPlanUserRepository, redisRateLimiterFactory,
-      gaugeRegistry)
+      gaugeRegistry, eventBus)
 
     mailet.init(FakeMailetConfig.builder()
       .mailetName("EnforceRateLimitingPlan")
@@ -706,4 +712,63 @@ class EnforceRateLimitingPlanTest {
     assertThat(metricRegistry.getGauges.get("TransitLimitations.rate_limiting_plan.cache.get.hitCount").getValue)
       .isEqualTo(java.lang.Long.valueOf(sentCount - 1))
   }
+
+  @Test
+  def planOfUserAndRateLimitersShouldBeCachedWhenConfigurationIsProvided(): Unit = {
+    val metricRegistry: MetricRegistry = new MetricRegistry()
+    val gaugeRegistry: DropWizardGaugeRegistry = new DropWizardGaugeRegistry(metricRegistry)
+
+    val mailet: EnforceRateLimitingPlan = new EnforceRateLimitingPlan(rateLimitationPlanRepository, rateLimitingPlanUserRepository, redisRateLimiterFactory,
+      gaugeRegistry, eventBus)
+
+    mailet.init(FakeMailetConfig.builder()
+      .mailetName("EnforceRateLimitingPlan")
+      .setProperty("operationLimitation", "TransitLimitations")
+      .setProperty("precision", "1s")
+      .setProperty("cacheExpiration", "2m")
+      .build())
+
+    val sentCount: Int = 10
+    IntStream.range(0, sentCount)
+      .forEach(index => mailet.service(FakeMail.builder()
+        .name("mail" + index)
+        .sender(USER1.asString())
+        .recipients("rcpt1@linagora.com")
+        .state("transport")
+        .build()))
+
+    assertSoftly(softly => {
+      softly.assertThat(metricRegistry.getGauges.get("TransitLimitations.rate_limiting_plan_user.cache.get.hitCount").getValue)
+        .isEqualTo(java.lang.Long.valueOf(sentCount - 1))
+      softly.assertThat(metricRegistry.getGauges.get("TransitLimitations.rate_limiters.cache.get.hitCount").getValue)
+        .isEqualTo(java.lang.Long.valueOf(sentCount - 1))
+    })
+  }
+
+  @Test
+  def revokedPlanOfUserShouldNotBeEnforcedOnceNotified(): Unit = {
+    val mailet: EnforceRateLimitingPlan = testee(FakeMailetConfig.builder()
+      .mailetName("EnforceRateLimitingPlan")
+      .setProperty("operationLimitation", "TransitLimitations")
+      .setProperty("precision", "1s")
+      .setProperty("cacheExpiration", "2m")
+      .build())
+    mailet.service(transitMail("mail1"))
+    SMono.fromPublisher(rateLimitingPlanUserRepository.revokePlan(USER1)).block()
+
+    await().atMost(TEN_SECONDS).untilAsserted(() => {
+      SMono.fromPublisher(new RateLimitingPlanChangeNotifier(eventBus).notifyPlanUserChanged(USER1)).block()
+      val mail: Mail = transitMail("mail2")
+      mailet.service(mail)
+
+      assertThat(mail.getState).isEqualTo("transport")
+    })
+  }
+
+  private def transitMail(name: String): Mail = FakeMail.builder()
+    .name(name)
+    .sender(USER1.asString())
+    .recipients("rcpt1@linagora.com")
+    .state("transport")
+    .build()
 }
@@ -0,0 +1,80 @@
+package com.linagora.tmail.mailets
+
+import java.util.UUID
+import java.util.concurrent.ConcurrentLinkedQueue
+
+import com.linagora.tmail.rate.limiter.api.LimitTypes.{COUNT, SIZE}
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanId
+import org.apache.james.core.Username
+import org.apache.james.rate.limiter.api.Increment.Increment
+import org.apache.james.rate.limiter.api.{AcceptableRate, RateExceeded, RateLimiter, RateLimitingKey, RateLimitingResult}
+import org.apache.mailet.base.test.FakeMail
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.SMono
+
+import scala.jdk.CollectionConverters._
+
+class TmailPlanRateLimiterTest {
+  private val PLAN_ID: RateLimitingPlanId = RateLimitingPlanId(UUID.randomUUID())
+  private val ALICE: Username = Username.of("alice@domain.tld")
+  private val BOB: Username = Username.of("bob@domain.tld")
+
+  private class RecordingRateLimiter(exceededUsername: Username) extends RateLimiter {
+    val keys: ConcurrentLinkedQueue[String] = new ConcurrentLinkedQueue[String]()
+
+    override def rateLimit(key: RateLimitingKey, increaseQuantity: Increment): Publisher[RateLimitingResult] = {
+      keys.add(key.asString())
+      if (key.asString().endsWith(exceededUsername.asString())) {
+        SMono.just(RateExceeded)
+      } else {
+        SMono.just(AcceptableRate)
+      }
+    }
+  }
+
+  private def planRateLimiter(rateLimiter: RateLimiter, limitTypeName: String): TmailPlanRateLimiter =
+    TmailPlanRateLimiter(rateLimiter = rateLimiter, limitTypeName = limitTypeName, planId = PLAN_ID,
+      operationLimitationName = "DeliveryLimitations")
+
+  @Test
+  def rateLimitAllShouldEvaluateEveryLimiterOfEveryRequest(): Unit = {
+    val rateLimiter: RecordingRateLimiter = new RecordingRateLimiter(BOB)
+    val rateLimiters: Seq[TmailPlanRateLimiter] = Seq(planRateLimiter(rateLimiter, COUNT), planRateLimiter(rateLimiter, SIZE))
+
+    TmailPlanRateLimiter.rateLimitAll(Seq(
+        PlanRateLimitingRequest(ALICE, ALICE, rateLimiters),
+        PlanRateLimitingRequest(BOB, BOB, rateLimiters)),
+        FakeMail.builder().name("mail").size(100).build())
+      .block()
+
+    assertThat(rateLimiter.keys.asScala.size).isEqualTo(4)
+  }
+
+  @Test
+  def rateLimitAllShouldReportResultsPerTarget(): Unit = {
+    val rateLimiter: RecordingRateLimiter = new RecordingRateLimiter(BOB)
+    val rateLimiters: Seq[TmailPlanRateLimiter] = Seq(planRateLimiter(rateLimiter, COUNT), planRateLimiter(rateLimiter, SIZE))
+
+    val results: Seq[(String, RateLimitingResult)] = TmailPlanRateLimiter.rateLimitAll(Seq(
+        PlanRateLimitingRequest("alice", ALICE, rateLimiters),
+        PlanRateLimitingRequest("bob", BOB, rateLimiters)),
+        FakeMail.builder().name("mail").size(100).build())
+      .block()
+
+    assertThat(results.toMap.asJava)
+      .containsEntry("alice", AcceptableRate)
+      .containsEntry("bob", RateExceeded)
+  }
+
+  @Test
+  def rateLimitAllShouldAcceptTargetsWithoutRateLimiters(): Unit = {
+    val results: Seq[(String, RateLimitingResult)] = TmailPlanRateLimiter.rateLimitAll(Seq(
+        PlanRateLimitingRequest("alice", ALICE, Seq())),
+        FakeMail.builder().name("mail").build())
+      .block()
+
+    assertThat(results.toMap.asJava).containsEntry("alice", AcceptableRate)
+  }
+}
@@ -0,0 +1,5 @@
+package com.linagora.tmail.rate.limiter.api;
+
+public interface RateLimitingPlanInjectKeys {
+    String RATE_LIMITING_PLAN = "RATE_LIMITING_PLAN_INJECTION";
+}
@@ -25,9 +25,15 @@ class CacheRateLimitingPlan(repository: RateLimitingPlanRepository, expireDurati
   private val gaugePrefixValue: String = gaugePrefix.map(_ + ".").getOrElse("")
 
   private val cacheGet: AsyncLoadingCache[RateLimitingPlanId, RateLimitingPlan] = {
-    val loadingCache: AsyncLoadingCache[RateLimitingPlanId, RateLimitingPlan] = Caffeine.newBuilder()
+    val builder: Caffeine[AnyRef, AnyRef] = Caffeine.newBuilder()
       .expireAfterWrite(expireDuration)
       .recordStats()
+    // Plans read at least once per half expiration are reloaded in the background instead of on the mail path
+    val refreshDuration: Duration = expireDuration.dividedBy(2)
+    if (refreshDuration.compareTo(Duration.ZERO) > 0) {
+      builder.refreshAfterWrite(refreshDuration)
+    }
+    val loadingCache: AsyncLoadingCache[RateLimitingPlanId, RateLimitingPlan] = builder
       .buildAsync[RateLimitingPlanId, RateLimitingPlan](cacheLoaderGet)
 
     gaugeRegistry.register(gaugePrefixValue + "rate_limiting_plan.cache.get.hitRate", () => loadingCache.synchronous().stats().hitRate())
@@ -39,11 +45,11 @@ class CacheRateLimitingPlan(repository: RateLimitingPlanRepository, expireDurati
 
   override def create(creationRequest: RateLimitingPlanCreateRequest): Publisher[RateLimitingPlan] =
     SMono.fromPublisher(repository.create(creationRequest))
-      .doOnNext(_ => invalidCache())
+      .doOnNext(plan => invalidate(plan.id))
 
   override def update(resetRequest: RateLimitingPlanResetRequest): Publisher[Unit] =
     SMono.fromPublisher(repository.update(resetRequest))
-      .`then`(SMono.fromCallable(() => invalidCache()))
+      .`then`(SMono.fromCallable(() => invalidate(resetRequest.id)))
 
   override def get(id: RateLimitingPlanId): Publisher[RateLimitingPlan] =
     SMono.fromFuture(cacheGet.get(id).asScala)
@@ -59,5 +65,5 @@ class CacheRateLimitingPlan(repository: RateLimitingPlanRepository, expireDurati
 
   override def list(): Publisher[RateLimitingPlan] = repository.list()
 
-  private def invalidCache(): Unit = cacheGet.synchronous().invalidateAll()
+  def invalidate(planId: RateLimitingPlanId): Unit = cacheGet.synchronous().invalidate(planId)
 }
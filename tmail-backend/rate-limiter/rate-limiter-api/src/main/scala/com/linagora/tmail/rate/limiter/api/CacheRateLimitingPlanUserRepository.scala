@@ -0,0 +1,58 @@
+package com.linagora.tmail.rate.limiter.api
+
+import java.time.Duration
+import java.util.concurrent.Executor
+
+import com.github.benmanes.caffeine.cache.{AsyncCacheLoader, AsyncLoadingCache, Caffeine}
+import org.apache.james.core.Username
+import org.apache.james.metrics.api.GaugeRegistry
+import org.reactivestreams.Publisher
+import reactor.core.publisher.Mono
+import reactor.core.scala.publisher.SMono
+import reactor.core.scheduler.Schedulers
+
+import scala.jdk.FutureConverters._
+
+class CacheRateLimitingPlanUserRepository(repository: RateLimitingPlanUserRepository, expireDuration: Duration, gaugeRegistry: GaugeRegistry,
+                                          gaugePrefix: Option[String] = None) extends RateLimitingPlanUserRepository {
+
+  // Users without a plan are cached too: they are the most common case on the mail path
+  private val cacheLoaderGet: AsyncCacheLoader[Username, Option[RateLimitingPlanId]] =
+    (username: Username, executor: Executor) => Mono.from(repository.getPlanByUser(username))
+      .map(planId => Option(planId))
+      .onErrorResume(classOf[RateLimitingPlanNotFoundException], _ => Mono.just[Option[RateLimitingPlanId]](None))
+      .subscribeOn(Schedulers.fromExecutor(executor))
+      .toFuture
+
+  private val gaugePrefixValue: String = gaugePrefix.map(_ + ".").getOrElse("")
+
+  private val cacheGet: AsyncLoadingCache[Username, Option[RateLimitingPlanId]] = {
+    val loadingCache: AsyncLoadingCache[Username, Option[RateLimitingPlanId]] = Caffeine.newBuilder()
+      .expireAfterWrite(expireDuration)
+      .recordStats()
+      .buildAsync[Username, Option[RateLimitingPlanId]](cacheLoaderGet)
+
+    gaugeRegistry.register(gaugePrefixValue + "rate_limiting_plan_user.cache.get.hitRate", () => loadingCache.synchronous().stats().hitRate())
+      .register(gaugePrefixValue + "rate_limiting_plan_user.cache.get.missCount", () => loadingCache.synchronous().stats().missCount())
+      .register(gaugePrefixValue + "rate_limiting_plan_user.cache.get.hitCount", () => loadingCache.synchronous().stats().hitCount())
+      .register(gaugePrefixValue + "rate_limiting_plan_user.cache.get.size", () => loadingCache.synchronous().estimatedSize())
+    loadingCache
+  }
+
+  override def applyPlan(username: Username, planId: RateLimitingPlanId): Publisher[Unit] =
+    SMono.fromPublisher(repository.applyPlan(username, planId))
+      .`then`(SMono.fromCallable(() => invalidate(username)))
+
+  override def revokePlan(username: Username): Publisher[Unit] =
+    SMono.fromPublisher(repository.revokePlan(username))
+      .`then`(SMono.fromCallable(() => invalidate(username)))
+
+  override def listUsers(planId: RateLimitingPlanId): Publisher[Username] = repository.listUsers(planId)
+
+  override def getPlanByUser(username: Username): Publisher[RateLimitingPlanId] =
+    SMono.fromFuture(cacheGet.get(username).asScala)
+      .flatMap(maybePlanId => maybePlanId.map(SMono.just(_))
+        .getOrElse(SMono.error(RateLimitingPlanNotFoundException())))
+
+  def invalidate(username: Username): Unit = cacheGet.synchronous().invalidate(username)
+}
@@ -0,0 +1,150 @@
+package com.linagora.tmail.rate.limiter.api
+
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicReference
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.google.common.collect.ImmutableSet
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanChangedEvent.SYSTEM_USER
+import jakarta.inject.{Inject, Named}
+import org.apache.james.core.Username
+import org.apache.james.events.Event.EventId
+import org.apache.james.events.{Event, EventBus, EventListener, EventSerializer, Registration, RegistrationKey}
+import org.reactivestreams.Publisher
+import reactor.core.Disposable
+import reactor.core.publisher.Mono
+import reactor.core.scheduler.Schedulers
+import reactor.util.retry.Retry
+
+object RateLimitingPlanChangedEvent {
+  val SYSTEM_USER: Username = Username.of("rate-limiting-plan")
+}
+
+case class RateLimitingPlanChangedEvent(eventId: EventId, planId: RateLimitingPlanId) extends Event {
+  override def getUsername: Username = SYSTEM_USER
+
+  override def isNoop: Boolean = false
+
+  override def getEventId: EventId = eventId
+}
+
+/**
+ * The plan applied to a user was changed or revoked.
+ */
+case class RateLimitingPlanUserChangedEvent(eventId: EventId, username: Username) extends Event {
+  override def getUsername: Username = SYSTEM_USER
+
+  override def isNoop: Boolean = false
+
+  override def getEventId: EventId = eventId
+}
+
+object RateLimitingPlanRegistrationKey {
+  val KEY: String = "rate-limiting-plan-changes"
+}
+
+/**
+ * Every [[RateLimitingCachesInvalidationListener]] is registered on this single key, so that a change dispatched on it
+ * is broadcast to the whole cluster.
+ */
+case class RateLimitingPlanRegistrationKey() extends RegistrationKey {
+  override def asString(): String = RateLimitingPlanRegistrationKey.KEY
+}
+
+class RateLimitingPlanRegistrationKeyFactory extends RegistrationKey.Factory {
+  override def forClass(): Class[_ <: RegistrationKey] = classOf[RateLimitingPlanRegistrationKey]
+
+  override def fromString(asString: String): RegistrationKey = asString match {
+    case RateLimitingPlanRegistrationKey.KEY => RateLimitingPlanRegistrationKey()
+    case _ => throw new IllegalArgumentException(s"Unknown rate limiting plan registration key $asString")
+  }
+}
+
+class RateLimitingPlanEventSerializer @Inject()() extends EventSerializer {
+  private val PLAN_CHANGED_TYPE: String = classOf[RateLimitingPlanChangedEvent].getCanonicalName
+  private val PLAN_USER_CHANGED_TYPE: String = classOf[RateLimitingPlanUserChangedEvent].getCanonicalName
+  private val objectMapper: ObjectMapper = new ObjectMapper()
+
+  override def toJson(event: Event): String = event match {
+    case planChangedEvent: RateLimitingPlanChangedEvent => objectMapper.writeValueAsString(objectMapper.createObjectNode()
+      .put("type", PLAN_CHANGED_TYPE)
+      .put("eventId", planChangedEvent.eventId.getId.toString)
+      .put("planId", planChangedEvent.planId.serialize()))
+    case planUserChangedEvent: RateLimitingPlanUserChangedEvent => objectMapper.writeValueAsString(objectMapper.createObjectNode()
+      .put("type", PLAN_USER_CHANGED_TYPE)
+      .put("eventId", planUserChangedEvent.eventId.getId.toString)
+      .put("username", planUserChangedEvent.username.asString()))
+  }
+
+  override def toJsonBytes(event: Event): Array[Byte] = toJson(event).getBytes(StandardCharsets.UTF_8)
+
+  override def fromBytes(serialized: Array[Byte]): Event = asEvent(new String(serialized, StandardCharsets.UTF_8))
+
+  override def asEvent(serialized: String): Event = {
+    val node = objectMapper.readTree(serialized)
+    node.path("type").asText() match {
+      case PLAN_CHANGED_TYPE => RateLimitingPlanChangedEvent(
+        eventId = EventId.of(node.path("eventId").asText()),
+        planId = RateLimitingPlanId.parse(node.path("planId").asText()))
+      case PLAN_USER_CHANGED_TYPE => RateLimitingPlanUserChangedEvent(
+        eventId = EventId.of(node.path("eventId").asText()),
+        username = Username.of(node.path("username").asText()))
+      case _ => throw new IllegalArgumentException(s"Unknown rate limiting plan event: $serialized")
+    }
+  }
+}
+
+object RateLimitingCachesInvalidationListener {
+  private val REGISTRATION_RETRY_DELAY: Duration = Duration.ofSeconds(1)
+
+  /**
+   * Registers the listener once the event bus is started: distributed event buses reject registrations before that,
+   * and the components owning the caches can be initialized first.
+   *
+   * @return disposing it cancels a pending registration or unregisters the listener
+   */
+  def register(eventBus: EventBus, listener: RateLimitingCachesInvalidationListener): Disposable = {
+    val registration: AtomicReference[Registration] = new AtomicReference[Registration]()
+    val subscription: Disposable = Mono.defer(() => Mono.from(eventBus.register(listener, RateLimitingPlanRegistrationKey())))
+      .retryWhen(Retry.fixedDelay(Long.MaxValue, REGISTRATION_RETRY_DELAY)
+        .filter(_.isInstanceOf[IllegalStateException]))
+      .subscribeOn(Schedulers.boundedElastic())
+      .subscribe(value => registration.set(value))
+
+    () => {
+      subscription.dispose()
+      Option(registration.getAndSet(null))
+        .foreach(value => Mono.from(value.unregister()).block())
+    }
+  }
+}
+
+/**
+ * Drops the plans and plan assignments changed on any node from the caches of a component.
+ *
+ * The component registers it on the [[RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN]] event bus for as long as it uses
+ * the caches, and unregisters it when disposed so that the caches can be garbage collected. See
+ * [[RateLimitingCachesInvalidationListener.register]].
+ */
+class RateLimitingCachesInvalidationListener(planCache: Option[CacheRateLimitingPlan],
+                                             planUserCache: Option[CacheRateLimitingPlanUserRepository]) extends EventListener.ReactiveEventListener {
+  override def reactiveEvent(event: Event): Publisher[Void] = event match {
+    case planChangedEvent: RateLimitingPlanChangedEvent => Mono.fromRunnable[Void](() => planCache.foreach(_.invalidate(planChangedEvent.planId)))
+    case planUserChangedEvent: RateLimitingPlanUserChangedEvent => Mono.fromRunnable[Void](() => planUserCache.foreach(_.invalidate(planUserChangedEvent.username)))
+    case _ => Mono.empty()
+  }
+
+  override def isHandling(event: Event): Boolean = event.isInstanceOf[RateLimitingPlanChangedEvent] || event.isInstanceOf[RateLimitingPlanUserChangedEvent]
+}
+
+/**
+ * Drops changed plans and plan assignments from the caches of every node. The local node is notified by the event bus too.
+ */
+class RateLimitingPlanChangeNotifier @Inject()(@Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN) eventBus: EventBus) {
+  def notifyPlanChanged(planId: RateLimitingPlanId): Publisher[Void] =
+    eventBus.dispatch(RateLimitingPlanChangedEvent(EventId.random(), planId), ImmutableSet.of[RegistrationKey](RateLimitingPlanRegistrationKey()))
+
+  def notifyPlanUserChanged(username: Username): Publisher[Void] =
+    eventBus.dispatch(RateLimitingPlanUserChangedEvent(EventId.random(), username), ImmutableSet.of[RegistrationKey](RateLimitingPlanRegistrationKey()))
+}
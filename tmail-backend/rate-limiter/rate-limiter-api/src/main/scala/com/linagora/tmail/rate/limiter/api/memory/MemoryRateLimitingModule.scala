@@ -1,8 +1,10 @@
 package com.linagora.tmail.rate.limiter.api.memory
 
 import com.google.inject.multibindings.Multibinder
-import com.google.inject.{AbstractModule, Scopes}
-import com.linagora.tmail.rate.limiter.api.{InMemoryRateLimitingPlanRepository, RateLimitingPlanRepository, RateLimitingPlanUserRepository, RateLimitingPlanUsernameChangeTaskStep}
+import com.google.inject.name.Named
+import com.google.inject.{AbstractModule, Provides, Scopes, Singleton}
+import com.linagora.tmail.rate.limiter.api.{InMemoryRateLimitingPlanRepository, RateLimitingPlanInjectKeys, RateLimitingPlanRepository, RateLimitingPlanUserRepository, RateLimitingPlanUsernameChangeTaskStep}
+import org.apache.james.events.EventBus
 import org.apache.james.user.api.UsernameChangeTaskStep
 
 class MemoryRateLimitingModule() extends AbstractModule {
@@ -18,4 +20,9 @@ class MemoryRateLimitingModule() extends AbstractModule {
       .addBinding()
       .to(classOf[RateLimitingPlanUsernameChangeTaskStep])
   }
+
+  @Provides
+  @Singleton
+  @Named(RateLimitingPlanInjectKeys.RATE_LIMITING_PLAN)
+  def provideInVMEventBus(eventBus: EventBus): EventBus = eventBus
 }
@@ -2,17 +2,84 @@ package com.linagora.tmail.rate.limiter.api
 
 import java.time.Duration
 
-import org.apache.james.metrics.api.NoopGaugeRegistry
-import org.junit.jupiter.api.BeforeEach
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanRepositoryContract.{CREATION_REQUEST, CREATION_REQUEST_WITH_MULTI_OPERATIONS, TRANSIT_LIMITS}
+import eu.timepit.refined.auto._
+import org.apache.james.core.Username
+import org.apache.james.events.Event.EventId
+import org.apache.james.events.delivery.InVmEventDelivery
+import org.apache.james.events.{EventBus, InVMEventBus, MemoryEventDeadLetters, RetryBackoffConfiguration}
+import org.apache.james.metrics.api.{NoopGaugeRegistry, NoopMetricFactory}
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.{BeforeEach, Test}
+import reactor.core.scala.publisher.SMono
 
 class CacheInMemoryRateLimitingPlanRepositoryTest extends RateLimitingPlanRepositoryContract {
-  var repository: RateLimitingPlanRepository = _
+  var inMemoryRepository: RateLimitingPlanRepository = _
+  var repository: CacheRateLimitingPlan = _
 
   override def testee: RateLimitingPlanRepository = repository
 
   @BeforeEach
   def beforeEach(): Unit = {
-    val inMemoryRepository: RateLimitingPlanRepository = new InMemoryRateLimitingPlanRepository()
-    repository = new CacheRateLimitingPlan(inMemoryRepository, Duration.ofMinutes(2), new NoopGaugeRegistry)
+    inMemoryRepository = new InMemoryRateLimitingPlanRepository()
+    repository = new CacheRateLimitingPlan(inMemoryRepository, Duration.ofMinutes(2), new NoopGaugeRegistry, None)
   }
-}
\ No newline at end of file
+
+  private def resetRequest(planId: RateLimitingPlanId): RateLimitingPlanResetRequest =
+    RateLimitingPlanResetRequest(id = planId, name = "new name", operationLimitations = OperationLimitationsType.liftOrThrow(Seq(TRANSIT_LIMITS)))
+
+  @Test
+  def updateShouldOnlyInvalidateTheUpdatedPlan(): Unit = {
+    val plan1: RateLimitingPlan = SMono.fromPublisher(repository.create(CREATION_REQUEST)).block()
+    val plan2: RateLimitingPlan = SMono.fromPublisher(repository.create(CREATION_REQUEST_WITH_MULTI_OPERATIONS)).block()
+    SMono.fromPublisher(repository.get(plan1.id)).block()
+    SMono.fromPublisher(repository.get(plan2.id)).block()
+
+    // Bypasses the cache: only an invalidation of plan 2 would expose this change
+    SMono.fromPublisher(inMemoryRepository.update(resetRequest(plan2.id))).block()
+    SMono.fromPublisher(repository.update(resetRequest(plan1.id))).block()
+
+    assertThat(SMono.fromPublisher(repository.get(plan1.id)).block().name.value).isEqualTo("new name")
+    assertThat(SMono.fromPublisher(repository.get(plan2.id)).block().name.value).isEqualTo("complex_plan")
+  }
+
+  @Test
+  def invalidateShouldDropCachedPlan(): Unit = {
+    val plan: RateLimitingPlan = SMono.fromPublisher(repository.create(CREATION_REQUEST)).block()
+    SMono.fromPublisher(repository.get(plan.id)).block()
+
+    SMono.fromPublisher(inMemoryRepository.update(resetRequest(plan.id))).block()
+    repository.invalidate(plan.id)
+
+    assertThat(SMono.fromPublisher(repository.get(plan.id)).block().name.value).isEqualTo("new name")
+  }
+
+  @Test
+  def planChangeNotificationShouldDropCachedPlan(): Unit = {
+    val eventBus: EventBus = new InVMEventBus(new InVmEventDelivery(new NoopMetricFactory), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters())
+    SMono.fromPublisher(eventBus.register(new RateLimitingCachesInvalidationListener(Some(repository), None), RateLimitingPlanRegistrationKey())).block()
+    val plan: RateLimitingPlan = SMono.fromPublisher(repository.create(CREATION_REQUEST)).block()
+    SMono.fromPublisher(repository.get(plan.id)).block()
+
+    SMono.fromPublisher(inMemoryRepository.update(resetRequest(plan.id))).block()
+    SMono.fromPublisher(new RateLimitingPlanChangeNotifier(eventBus).notifyPlanChanged(plan.id)).block()
+
+    assertThat(SMono.fromPublisher(repository.get(plan.id)).block().name.value).isEqualTo("new name")
+  }
+
+  @Test
+  def planChangedEventShouldRoundTrip(): Unit = {
+    val serializer: RateLimitingPlanEventSerializer = new RateLimitingPlanEventSerializer()
+    val event: RateLimitingPlanChangedEvent = RateLimitingPlanChangedEvent(EventId.random(), RateLimitingPlanId.generate)
+
+    assertThat(serializer.fromBytes(serializer.toJsonBytes(event))).isEqualTo(event)
+  }
+
+  @Test
+  def planUserChangedEventShouldRoundTrip(): Unit = {
+    val serializer: RateLimitingPlanEventSerializer = new RateLimitingPlanEventSerializer()
+    val event: RateLimitingPlanUserChangedEvent = RateLimitingPlanUserChangedEvent(EventId.random(), Username.of("bob@domain.tld"))
+
+    assertThat(serializer.fromBytes(serializer.toJsonBytes(event))).isEqualTo(event)
+  }
+}
@@ -0,0 +1,70 @@
+package com.linagora.tmail.rate.limiter.api
+
+import java.time.Duration
+
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanUserRepositoryContract.{BOB, PLAN_ID_1, PLAN_ID_2}
+import com.linagora.tmail.rate.limiter.api.memory.MemoryRateLimitingPlanUserRepository
+import org.apache.james.events.delivery.InVmEventDelivery
+import org.apache.james.events.{EventBus, InVMEventBus, MemoryEventDeadLetters, RetryBackoffConfiguration}
+import org.apache.james.metrics.api.{NoopGaugeRegistry, NoopMetricFactory}
+import org.assertj.core.api.Assertions.{assertThat, assertThatThrownBy}
+import org.junit.jupiter.api.{BeforeEach, Test}
+import reactor.core.scala.publisher.SMono
+
+class CacheMemoryRateLimitingPlanUserRepositoryTest extends RateLimitingPlanUserRepositoryContract {
+  var memoryRepository: RateLimitingPlanUserRepository = _
+  var repository: CacheRateLimitingPlanUserRepository = _
+
+  override def testee: RateLimitingPlanUserRepository = repository
+
+  @BeforeEach
+  def beforeEach(): Unit = {
+    memoryRepository = new MemoryRateLimitingPlanUserRepository()
+    repository = new CacheRateLimitingPlanUserRepository(memoryRepository, Duration.ofMinutes(2), new NoopGaugeRegistry, None)
+  }
+
+  @Test
+  def getPlanByUserShouldBeCached(): Unit = {
+    SMono.fromPublisher(repository.applyPlan(BOB, PLAN_ID_1)).block()
+    SMono.fromPublisher(repository.getPlanByUser(BOB)).block()
+
+    SMono.fromPublisher(memoryRepository.applyPlan(BOB, PLAN_ID_2)).block()
+
+    assertThat(SMono.fromPublisher(repository.getPlanByUser(BOB)).block()).isEqualTo(PLAN_ID_1)
+  }
+
+  @Test
+  def usersWithoutPlanShouldBeCached(): Unit = {
+    assertThatThrownBy(() => SMono.fromPublisher(repository.getPlanByUser(BOB)).block())
+      .isInstanceOf(classOf[RateLimitingPlanNotFoundException])
+
+    SMono.fromPublisher(memoryRepository.applyPlan(BOB, PLAN_ID_1)).block()
+
+    assertThatThrownBy(() => SMono.fromPublisher(repository.getPlanByUser(BOB)).block())
+      .isInstanceOf(classOf[RateLimitingPlanNotFoundException])
+  }
+
+  @Test
+  def invalidateShouldDropCachedEntries(): Unit = {
+    SMono.fromPublisher(repository.applyPlan(BOB, PLAN_ID_1)).block()
+    SMono.fromPublisher(repository.getPlanByUser(BOB)).block()
+
+    SMono.fromPublisher(memoryRepository.applyPlan(BOB, PLAN_ID_2)).block()
+    repository.invalidate(BOB)
+
+    assertThat(SMono.fromPublisher(repository.getPlanByUser(BOB)).block()).isEqualTo(PLAN_ID_2)
+  }
+
+  @Test
+  def planUserChangeNotificationShouldDropCachedEntries(): Unit = {
+    val eventBus: EventBus = new InVMEventBus(new InVmEventDelivery(new NoopMetricFactory), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters())
+    SMono.fromPublisher(eventBus.register(new RateLimitingCachesInvalidationListener(None, Some(repository)), RateLimitingPlanRegistrationKey())).block()
+    SMono.fromPublisher(repository.applyPlan(BOB, PLAN_ID_1)).block()
+    SMono.fromPublisher(repository.getPlanByUser(BOB)).block()
+
+    SMono.fromPublisher(memoryRepository.applyPlan(BOB, PLAN_ID_2)).block()
+    SMono.fromPublisher(new RateLimitingPlanChangeNotifier(eventBus).notifyPlanUserChanged(BOB)).block()
+
+    assertThat(SMono.fromPublisher(repository.getPlanByUser(BOB)).block()).isEqualTo(PLAN_ID_2)
+  }
+}
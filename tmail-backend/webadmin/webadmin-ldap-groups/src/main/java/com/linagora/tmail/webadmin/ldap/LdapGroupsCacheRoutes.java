@@ -0,0 +1,69 @@
+package com.linagora.tmail.webadmin.ldap;
+
+import jakarta.inject.Inject;
+import jakarta.mail.internet.AddressException;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.webadmin.Constants;
+import org.apache.james.webadmin.Routes;
+import org.apache.james.webadmin.utils.ErrorResponder;
+import org.apache.james.webadmin.utils.Responses;
+import org.eclipse.jetty.http.HttpStatus;
+
+import com.linagora.tmail.ldap.LdapGroupDirectory;
+
+import spark.Request;
+import spark.Route;
+import spark.Service;
+
+public class LdapGroupsCacheRoutes implements Routes {
+    private static final String ADDRESS_PARAM = ":address";
+
+    public static final String BASE_PATH = Constants.SEPARATOR + "ldap" + Constants.SEPARATOR + "groups" + Constants.SEPARATOR + "cache";
+    private static final String ADDRESS_PATH = BASE_PATH + Constants.SEPARATOR + ADDRESS_PARAM;
+
+    private final LdapGroupDirectory ldapGroupDirectory;
+
+    @Inject
+    public LdapGroupsCacheRoutes(LdapGroupDirectory ldapGroupDirectory) {
+        this.ldapGroupDirectory = ldapGroupDirectory;
+    }
+
+    @Override
+    public String getBasePath() {
+        return BASE_PATH;
+    }
+
+    @Override
+    public void define(Service service) {
+        service.delete(BASE_PATH, flush());
+        service.delete(ADDRESS_PATH, flushAddress());
+    }
+
+    public Route flush() {
+        return (request, response) -> {
+            ldapGroupDirectory.flush();
+            return Responses.returnNoContent(response);
+        };
+    }
+
+    public Route flushAddress() {
+        return (request, response) -> {
+            ldapGroupDirectory.flush(extractAddress(request));
+            return Responses.returnNoContent(response);
+        };
+    }
+
+    private MailAddress extractAddress(Request request) {
+        try {
+            return new MailAddress(request.params(ADDRESS_PARAM));
+        } catch (AddressException e) {
+            throw ErrorResponder.builder()
+                .statusCode(HttpStatus.BAD_REQUEST_400)
+                .type(ErrorResponder.ErrorType.INVALID_ARGUMENT)
+                .message("Invalid mail address: " + request.params(ADDRESS_PARAM))
+                .cause(e)
+                .haltError();
+        }
+    }
+}
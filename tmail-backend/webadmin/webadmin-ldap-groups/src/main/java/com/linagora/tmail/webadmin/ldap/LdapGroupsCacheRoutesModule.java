@@ -0,0 +1,18 @@
+package com.linagora.tmail.webadmin.ldap;
+
+import org.apache.james.webadmin.Routes;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.multibindings.Multibinder;
+
+/**
+ * Only to be installed along with the combined users repository, which provides the LDAP connection pool.
+ */
+public class LdapGroupsCacheRoutesModule extends AbstractModule {
+    @Override
+    protected void configure() {
+        Multibinder.newSetBinder(binder(), Routes.class)
+            .addBinding()
+            .to(LdapGroupsCacheRoutes.class);
+    }
+}
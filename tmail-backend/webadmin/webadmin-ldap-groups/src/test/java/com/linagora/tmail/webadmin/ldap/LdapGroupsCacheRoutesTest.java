@@ -0,0 +1,77 @@
+package com.linagora.tmail.webadmin.ldap;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.http.ContentType.JSON;
+import static org.eclipse.jetty.http.HttpStatus.BAD_REQUEST_400;
+import static org.eclipse.jetty.http.HttpStatus.NO_CONTENT_204;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.webadmin.WebAdminServer;
+import org.apache.james.webadmin.WebAdminUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.linagora.tmail.ldap.LdapGroupDirectory;
+
+import io.restassured.RestAssured;
+
+class LdapGroupsCacheRoutesTest {
+    private WebAdminServer webAdminServer;
+    private LdapGroupDirectory ldapGroupDirectory;
+
+    @BeforeEach
+    void setUp() {
+        ldapGroupDirectory = mock(LdapGroupDirectory.class);
+
+        webAdminServer = WebAdminUtils.createWebAdminServer(new LdapGroupsCacheRoutes(ldapGroupDirectory))
+            .start();
+
+        RestAssured.requestSpecification = WebAdminUtils.buildRequestSpecification(webAdminServer)
+            .setBasePath(LdapGroupsCacheRoutes.BASE_PATH)
+            .build();
+    }
+
+    @AfterEach
+    void stop() {
+        webAdminServer.destroy();
+    }
+
+    @Test
+    void deleteShouldFlushTheWholeCache() {
+        given()
+            .delete()
+        .then()
+            .statusCode(NO_CONTENT_204);
+
+        verify(ldapGroupDirectory).flush();
+    }
+
+    @Test
+    void deleteAddressShouldFlushThisAddress() throws Exception {
+        given()
+            .delete("/sales@lists.linagora.com")
+        .then()
+            .statusCode(NO_CONTENT_204);
+
+        verify(ldapGroupDirectory).flush(new MailAddress("sales@lists.linagora.com"));
+    }
+
+    @Test
+    void deleteAddressShouldRejectInvalidAddresses() {
+        given()
+            .delete("/invalid@@lists.linagora.com")
+        .then()
+            .statusCode(BAD_REQUEST_400)
+            .contentType(JSON)
+            .body("statusCode", is(BAD_REQUEST_400))
+            .body("type", is("InvalidArgument"))
+            .body("message", is("Invalid mail address: invalid@@lists.linagora.com"));
+
+        verifyNoInteractions(ldapGroupDirectory);
+    }
+}
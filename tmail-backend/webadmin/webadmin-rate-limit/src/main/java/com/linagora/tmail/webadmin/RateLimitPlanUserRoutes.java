@@ -13,6 +13,7 @@ import org.apache.james.webadmin.utils.ErrorResponder;
 import org.apache.james.webadmin.utils.JsonTransformer;
 import org.apache.james.webadmin.utils.Responses;
 
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanChangeNotifier;
 import com.linagora.tmail.rate.limiter.api.RateLimitingPlanId;
 import com.linagora.tmail.rate.limiter.api.RateLimitingPlanNotFoundException;
 import com.linagora.tmail.rate.limiter.api.RateLimitingPlanRepository;
@@ -40,14 +41,17 @@ public class RateLimitPlanUserRoutes implements Routes {
     private final RateLimitingPlanRepository planRepository;
     private final UsersRepository usersRepository;
     private final JsonTransformer jsonTransformer;
+    private final RateLimitingPlanChangeNotifier planChangeNotifier;
 
     @Inject
     public RateLimitPlanUserRoutes(RateLimitingPlanUserRepository planUserRepository, RateLimitingPlanRepository planRepository,
-                                   UsersRepository usersRepository, JsonTransformer jsonTransformer) {
+                                   UsersRepository usersRepository, JsonTransformer jsonTransformer,
+                                   RateLimitingPlanChangeNotifier planChangeNotifier) {
         this.planUserRepository = planUserRepository;
         this.planRepository = planRepository;
         this.usersRepository = usersRepository;
         this.jsonTransformer = jsonTransformer;
+        this.planChangeNotifier = planChangeNotifier;
     }
 
     @Override
@@ -70,6 +74,7 @@ public class RateLimitPlanUserRoutes implements Routes {
             userPreconditions(username);
             planIdPreconditions(planId);
             return Mono.from(planUserRepository.applyPlan(username, planId))
+                .then(Mono.from(planChangeNotifier.notifyPlanUserChanged(username)))
                 .then(Mono.just(Responses.returnNoContent(response)))
                 .block();
         };
@@ -108,6 +113,7 @@ public class RateLimitPlanUserRoutes implements Routes {
             Username username = extractUsername(request);
             userPreconditions(username);
             return Mono.from(planUserRepository.revokePlan(username))
+                .then(Mono.from(planChangeNotifier.notifyPlanUserChanged(username)))
                 .then(Mono.just(Responses.returnNoContent(response)))
                 .block();
         };
@@ -5,7 +5,7 @@ import java.util.Optional
 
 import com.linagora.tmail.rate.limiter.api.LimitTypes.LimitTypes
 import com.linagora.tmail.rate.limiter.api.OperationLimitations.{DELIVERY_LIMITATIONS_NAME, RELAY_LIMITATIONS_NAME, TRANSIT_LIMITATIONS_NAME}
-import com.linagora.tmail.rate.limiter.api.{LimitTypes, OperationLimitations, OperationLimitationsType, RateLimitation, RateLimitingPlan, RateLimitingPlanCreateRequest, RateLimitingPlanId, RateLimitingPlanName, RateLimitingPlanNotFoundException, RateLimitingPlanRepository, RateLimitingPlanResetRequest}
+import com.linagora.tmail.rate.limiter.api.{LimitTypes, OperationLimitations, OperationLimitationsType, RateLimitation, RateLimitingPlan, RateLimitingPlanChangeNotifier, RateLimitingPlanCreateRequest, RateLimitingPlanId, RateLimitingPlanName, RateLimitingPlanNotFoundException, RateLimitingPlanRepository, RateLimitingPlanResetRequest}
 import com.linagora.tmail.webadmin.model.RateLimitingPlanCreateRequestDTO.{DELIVERY_LIMIT_KEY, RELAY_LIMIT_KEY, TRANSIT_LIMIT_KEY}
 import com.linagora.tmail.webadmin.model.{GetAllRateLimitPlanResponseDTO, OperationLimitationsDTO, RateLimitationDTO, RateLimitingPlanCreateRequestDTO, RateLimitingPlanDTO, RateLimitingPlanIdResponse, RateLimitingPlanResetRequestDTO}
 import jakarta.inject.Inject
@@ -21,6 +21,7 @@ import scala.jdk.OptionConverters._
 import scala.jdk.StreamConverters._
 
 class RateLimitPlanManagementRoutes @Inject()(planRepository: RateLimitingPlanRepository,
+                                              planChangeNotifier: RateLimitingPlanChangeNotifier,
                                               jsonTransformer: JsonTransformer) extends Routes {
   private val PLAN_ID_PARAM = ":planId"
   private val PLAN_NAME_PARAM = ":planName"
@@ -50,8 +51,10 @@ class RateLimitPlanManagementRoutes @Inject()(planRepository: RateLimitingPlanRe
       })
       .block()
 
-  private def updateAPlan: Route = (request: Request, response: Response) =>
-    SMono.fromPublisher(planRepository.update(toResetRequest(request)))
+  private def updateAPlan: Route = (request: Request, response: Response) => {
+    val resetRequest: RateLimitingPlanResetRequest = toResetRequest(request)
+    SMono.fromPublisher(planRepository.update(resetRequest))
+      .`then`(SMono.fromPublisher(planChangeNotifier.notifyPlanChanged(resetRequest.id)))
       .onErrorResume { case e: RateLimitingPlanNotFoundException => SMono.error(
         ErrorResponder.builder()
           .statusCode(NOT_FOUND_404)
@@ -61,6 +64,7 @@ class RateLimitPlanManagementRoutes @Inject()(planRepository: RateLimitingPlanRe
       }
       .`then`(SMono.just(Responses.returnNoContent(response)))
       .block()
+  }
 
   private def getAPlan: Route = (request: Request, response: Response) =>
     SMono.fromPublisher(planRepository.get(extractRateLimitingPlanId(request)))
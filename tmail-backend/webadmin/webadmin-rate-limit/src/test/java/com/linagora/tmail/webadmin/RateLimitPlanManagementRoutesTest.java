@@ -10,8 +10,16 @@ import static org.eclipse.jetty.http.HttpStatus.NOT_FOUND_404;
 import static org.eclipse.jetty.http.HttpStatus.NO_CONTENT_204;
 import static org.eclipse.jetty.http.HttpStatus.OK_200;
 
+import java.time.Duration;
 import java.util.Map;
 
+import org.apache.james.events.EventBus;
+import org.apache.james.events.InVMEventBus;
+import org.apache.james.events.MemoryEventDeadLetters;
+import org.apache.james.events.RetryBackoffConfiguration;
+import org.apache.james.events.delivery.InVmEventDelivery;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.api.NoopMetricFactory;
 import org.apache.james.webadmin.WebAdminServer;
 import org.apache.james.webadmin.WebAdminUtils;
 import org.apache.james.webadmin.utils.JsonTransformer;
@@ -21,10 +29,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import com.linagora.tmail.rate.limiter.api.CacheRateLimitingPlan;
 import com.linagora.tmail.rate.limiter.api.InMemoryRateLimitingPlanRepository;
+import com.linagora.tmail.rate.limiter.api.RateLimitingCachesInvalidationListener;
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanChangeNotifier;
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanRegistrationKey;
 import com.linagora.tmail.rate.limiter.api.RateLimitingPlanRepository;
 import com.linagora.tmail.rate.limiter.api.RateLimitingPlanId;
 
+import scala.Option;
+
 import io.restassured.RestAssured;
 import reactor.core.publisher.Mono;
 
@@ -36,11 +50,16 @@ public class RateLimitPlanManagementRoutesTest {
 
     private WebAdminServer webAdminServer;
     private RateLimitingPlanRepository planRepository;
+    private RateLimitingPlanRepository cachedPlanRepository;
 
     @BeforeEach
     void setUp() {
         planRepository = new InMemoryRateLimitingPlanRepository();
-        RateLimitPlanManagementRoutes routes = new RateLimitPlanManagementRoutes(planRepository, new JsonTransformer());
+        EventBus eventBus = new InVMEventBus(new InVmEventDelivery(new NoopMetricFactory()), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters());
+        CacheRateLimitingPlan planCache = new CacheRateLimitingPlan(planRepository, Duration.ofHours(1), new NoopGaugeRegistry(), Option.empty());
+        Mono.from(eventBus.register(new RateLimitingCachesInvalidationListener(Option.apply(planCache), Option.empty()), new RateLimitingPlanRegistrationKey())).block();
+        cachedPlanRepository = planCache;
+        RateLimitPlanManagementRoutes routes = new RateLimitPlanManagementRoutes(planRepository, new RateLimitingPlanChangeNotifier(eventBus), new JsonTransformer());
         webAdminServer = WebAdminUtils.createWebAdminServer(routes).start();
 
         RestAssured.requestSpecification = WebAdminUtils.buildRequestSpecification(webAdminServer).build();
@@ -523,6 +542,52 @@ public class RateLimitPlanManagementRoutesTest {
             });
         }
 
+        @Test
+        void shouldInvalidateCachedPlan() {
+            String createPlanJson = """
+                {
+                  "transitLimits": [{
+                    "name": "receivedMailsPerHour",
+                    "periodInSeconds": 3600,
+                    "count": 100,
+                    "size": 2048
+                  }]
+                }""";
+
+            String planId = given()
+                .body(createPlanJson)
+                .post(String.format(CREATE_A_PLAN_PATH, "oldPlanName"))
+            .then()
+                .statusCode(CREATED_201)
+                .extract()
+                .body()
+                .jsonPath()
+                .getString("planId");
+
+            // populate the cache
+            Mono.from(cachedPlanRepository.get(RateLimitingPlanId.parse(planId))).block();
+
+            String updatePlanJson = """
+                {
+                  "planName": "newPlanName",
+                  "transitLimits": [{
+                    "name": "receivedMailsPerHour",
+                    "periodInSeconds": 3600,
+                    "count": 50,
+                    "size": 2048
+                  }]
+                }""";
+
+            given()
+                .body(updatePlanJson)
+                .put(String.format(UPDATE_A_PLAN_PATH, planId))
+            .then()
+                .statusCode(NO_CONTENT_204);
+
+            assertThat(Mono.from(cachedPlanRepository.get(RateLimitingPlanId.parse(planId))).block().name())
+                .isEqualTo("newPlanName");
+        }
+
         @Test
         void shouldReturnNotFoundWhenPlanNotFound() {
             String json = """
@@ -12,10 +12,18 @@ import static org.eclipse.jetty.http.HttpStatus.OK_200;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.stream.Stream;
 
 import org.apache.james.core.Username;
+import org.apache.james.events.EventBus;
+import org.apache.james.events.InVMEventBus;
+import org.apache.james.events.MemoryEventDeadLetters;
+import org.apache.james.events.RetryBackoffConfiguration;
+import org.apache.james.events.delivery.InVmEventDelivery;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.api.NoopMetricFactory;
 import org.apache.james.user.api.UsersRepository;
 import org.apache.james.user.api.UsersRepositoryException;
 import org.apache.james.webadmin.WebAdminServer;
@@ -30,9 +38,13 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import com.linagora.tmail.rate.limiter.api.CacheRateLimitingPlanUserRepository;
 import com.linagora.tmail.rate.limiter.api.InMemoryRateLimitingPlanRepository;
+import com.linagora.tmail.rate.limiter.api.RateLimitingCachesInvalidationListener;
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanChangeNotifier;
 import com.linagora.tmail.rate.limiter.api.RateLimitingPlanId;
 import com.linagora.tmail.rate.limiter.api.RateLimitingPlanNotFoundException;
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanRegistrationKey;
 import com.linagora.tmail.rate.limiter.api.RateLimitingPlanRepository;
 import com.linagora.tmail.rate.limiter.api.RateLimitingPlanRepositoryContract;
 import com.linagora.tmail.rate.limiter.api.RateLimitingPlanUserRepository;
@@ -63,13 +75,21 @@ public class RateLimitPlanUsersRoutesTest {
     private UsersRepository usersRepository;
     private RateLimitingPlanUserRepository planUserRepository;
     private RateLimitingPlanRepository planRepository;
+    private CacheRateLimitingPlanUserRepository cachedPlanUserRepository;
 
     @BeforeEach
     void setUp() {
         planRepository = new InMemoryRateLimitingPlanRepository();
         planUserRepository = new MemoryRateLimitingPlanUserRepository();
         usersRepository = mock(UsersRepository.class);
-        RateLimitPlanUserRoutes rateLimitPlanUserRoutes = new RateLimitPlanUserRoutes(planUserRepository, planRepository, usersRepository, new JsonTransformer());
+        EventBus eventBus = new InVMEventBus(new InVmEventDelivery(new NoopMetricFactory()), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters());
+        // Stands for the cache of a mailet reading the same repository
+        cachedPlanUserRepository = new CacheRateLimitingPlanUserRepository(planUserRepository, Duration.ofMinutes(5), new NoopGaugeRegistry(),
+            scala.Option.empty());
+        Mono.from(eventBus.register(new RateLimitingCachesInvalidationListener(scala.Option.empty(), scala.Option.apply(cachedPlanUserRepository)),
+            new RateLimitingPlanRegistrationKey())).block();
+        RateLimitPlanUserRoutes rateLimitPlanUserRoutes = new RateLimitPlanUserRoutes(planUserRepository, planRepository, usersRepository, new JsonTransformer(),
+            new RateLimitingPlanChangeNotifier(eventBus));
         webAdminServer = WebAdminUtils.createWebAdminServer(rateLimitPlanUserRoutes).start();
 
         RestAssured.requestSpecification = WebAdminUtils.buildRequestSpecification(webAdminServer).build();
@@ -180,6 +200,21 @@ public class RateLimitPlanUsersRoutesTest {
             });
         }
 
+        @Test
+        void shouldInvalidateCachedPlanOfUser() throws UsersRepositoryException {
+            when(usersRepository.contains(BOB)).thenReturn(true);
+            RateLimitingPlanId planId = Mono.from(planRepository.create(RateLimitingPlanRepositoryContract.CREATION_REQUEST())).block().id();
+            assertThatThrownBy(() -> Mono.from(cachedPlanUserRepository.getPlanByUser(BOB)).block())
+                .isInstanceOf(RateLimitingPlanNotFoundException.class);
+
+            given()
+                .put(String.format(ATTACH_PLAN_TO_USER_PATH, BOB.asString(), planId.serialize()))
+            .then()
+                .statusCode(NO_CONTENT_204);
+
+            assertThat(Mono.from(cachedPlanUserRepository.getPlanByUser(BOB)).block()).isEqualTo(planId);
+        }
+
         @Test
         void shouldOverridePreviousPlanWithNewPlan() throws UsersRepositoryException {
             when(usersRepository.contains(BOB)).thenReturn(true);
@@ -460,6 +495,22 @@ public class RateLimitPlanUsersRoutesTest {
                 .isInstanceOf(RateLimitingPlanNotFoundException.class);
         }
 
+        @Test
+        void shouldInvalidateCachedPlanOfUser() throws UsersRepositoryException {
+            when(usersRepository.contains(BOB)).thenReturn(true);
+            RateLimitingPlanId planId = Mono.from(planRepository.create(RateLimitingPlanRepositoryContract.CREATION_REQUEST())).block().id();
+            Mono.from(planUserRepository.applyPlan(BOB, planId)).block();
+            assertThat(Mono.from(cachedPlanUserRepository.getPlanByUser(BOB)).block()).isEqualTo(planId);
+
+            given()
+                .delete(String.format(REVOKE_PLAN_OF_USER_PATH, BOB.asString()))
+            .then()
+                .statusCode(NO_CONTENT_204);
+
+            assertThatThrownBy(() -> Mono.from(cachedPlanUserRepository.getPlanByUser(BOB)).block())
+                .isInstanceOf(RateLimitingPlanNotFoundException.class);
+        }
+
         @Test
         void shouldBeIdempotent() throws UsersRepositoryException {
             when(usersRepository.contains(BOB)).thenReturn(true);
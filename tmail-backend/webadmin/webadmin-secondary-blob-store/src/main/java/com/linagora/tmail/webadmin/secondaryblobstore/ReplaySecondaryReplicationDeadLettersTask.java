@@ -0,0 +1,54 @@
+package com.linagora.tmail.webadmin.secondaryblobstore;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.apache.james.task.Task;
+import org.apache.james.task.TaskExecutionDetails;
+import org.apache.james.task.TaskType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linagora.tmail.blob.secondaryblobstore.RabbitMQSecondaryReplicationQueue;
+import com.linagora.tmail.blob.secondaryblobstore.RabbitMQSecondaryReplicationQueue.ReplayContext;
+
+public class ReplaySecondaryReplicationDeadLettersTask implements Task {
+    static final TaskType TASK_TYPE = TaskType.of("replay-secondary-blob-store-replication-dead-letters");
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplaySecondaryReplicationDeadLettersTask.class);
+
+    public record Details(Instant timestamp, long replayedCount, long failedCount) implements TaskExecutionDetails.AdditionalInformation {
+    }
+
+    private final RabbitMQSecondaryReplicationQueue replicationQueue;
+    private final ReplayContext context;
+
+    public ReplaySecondaryReplicationDeadLettersTask(RabbitMQSecondaryReplicationQueue replicationQueue) {
+        this.replicationQueue = replicationQueue;
+        this.context = new ReplayContext();
+    }
+
+    @Override
+    public Result run() {
+        try {
+            replicationQueue.replayDeadLetters(context).block();
+        } catch (Exception e) {
+            LOGGER.error("Failed to replay the secondary blob store replication dead letters", e);
+            return Result.PARTIAL;
+        }
+        if (context.getFailedCount() > 0) {
+            return Result.PARTIAL;
+        }
+        return Result.COMPLETED;
+    }
+
+    @Override
+    public TaskType type() {
+        return TASK_TYPE;
+    }
+
+    @Override
+    public Optional<TaskExecutionDetails.AdditionalInformation> details() {
+        return Optional.of(new Details(Clock.systemUTC().instant(), context.getReplayedCount(), context.getFailedCount()));
+    }
+}
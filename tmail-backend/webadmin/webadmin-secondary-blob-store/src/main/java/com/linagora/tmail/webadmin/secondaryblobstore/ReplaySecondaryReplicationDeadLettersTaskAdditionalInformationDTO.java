@@ -0,0 +1,37 @@
+package com.linagora.tmail.webadmin.secondaryblobstore;
+
+import java.time.Instant;
+
+import org.apache.james.json.DTOModule;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTO;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTOModule;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record ReplaySecondaryReplicationDeadLettersTaskAdditionalInformationDTO(@JsonProperty("type") String type,
+                                                                                @JsonProperty("timestamp") Instant timestamp,
+                                                                                @JsonProperty("replayedCount") long replayedCount,
+                                                                                @JsonProperty("failedCount") long failedCount) implements AdditionalInformationDTO {
+
+    public static final AdditionalInformationDTOModule<ReplaySecondaryReplicationDeadLettersTask.Details, ReplaySecondaryReplicationDeadLettersTaskAdditionalInformationDTO> SERIALIZATION_MODULE =
+        DTOModule.forDomainObject(ReplaySecondaryReplicationDeadLettersTask.Details.class)
+            .convertToDTO(ReplaySecondaryReplicationDeadLettersTaskAdditionalInformationDTO.class)
+            .toDomainObjectConverter(dto -> new ReplaySecondaryReplicationDeadLettersTask.Details(dto.timestamp(), dto.replayedCount(), dto.failedCount()))
+            .toDTOConverter((details, typeName) ->
+                new ReplaySecondaryReplicationDeadLettersTaskAdditionalInformationDTO(typeName, details.timestamp(), details.replayedCount(), details.failedCount()))
+            .typeName(ReplaySecondaryReplicationDeadLettersTask.TASK_TYPE.asString())
+            .withFactory(AdditionalInformationDTOModule::new);
+
+    @Override
+    @JsonIgnore
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    @JsonIgnore
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,26 @@
+package com.linagora.tmail.webadmin.secondaryblobstore;
+
+import org.apache.james.json.DTOModule;
+import org.apache.james.server.task.json.dto.TaskDTO;
+import org.apache.james.server.task.json.dto.TaskDTOModule;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.linagora.tmail.blob.secondaryblobstore.RabbitMQSecondaryReplicationQueue;
+
+public record ReplaySecondaryReplicationDeadLettersTaskDTO(@JsonProperty("type") String type) implements TaskDTO {
+    public static TaskDTOModule<ReplaySecondaryReplicationDeadLettersTask, ReplaySecondaryReplicationDeadLettersTaskDTO> module(RabbitMQSecondaryReplicationQueue replicationQueue) {
+        return DTOModule.forDomainObject(ReplaySecondaryReplicationDeadLettersTask.class)
+            .convertToDTO(ReplaySecondaryReplicationDeadLettersTaskDTO.class)
+            .toDomainObjectConverter(dto -> new ReplaySecondaryReplicationDeadLettersTask(replicationQueue))
+            .toDTOConverter((domainObject, typeName) -> new ReplaySecondaryReplicationDeadLettersTaskDTO(typeName))
+            .typeName(ReplaySecondaryReplicationDeadLettersTask.TASK_TYPE.asString())
+            .withFactory(TaskDTOModule::new);
+    }
+
+    @Override
+    @JsonIgnore
+    public String getType() {
+        return type;
+    }
+}
@@ -0,0 +1,57 @@
+package com.linagora.tmail.webadmin.secondaryblobstore;
+
+import java.util.Optional;
+
+import jakarta.inject.Inject;
+
+import org.apache.james.task.Task;
+import org.apache.james.task.TaskManager;
+import org.apache.james.webadmin.Constants;
+import org.apache.james.webadmin.Routes;
+import org.apache.james.webadmin.tasks.TaskFromRequest;
+import org.apache.james.webadmin.utils.JsonTransformer;
+
+import com.google.common.base.Preconditions;
+import com.linagora.tmail.blob.secondaryblobstore.RabbitMQSecondaryReplicationQueue;
+
+import spark.Request;
+import spark.Service;
+
+public class SecondaryBlobStoreReplicationRoutes implements Routes {
+    private static final String REPLAY_ACTION = "replay";
+    public static final String BASE_PATH = Constants.SEPARATOR + "blobs" + Constants.SEPARATOR + "secondaryReplication";
+    public static final String DEAD_LETTERS_PATH = BASE_PATH + Constants.SEPARATOR + "deadLetters";
+
+    private final TaskManager taskManager;
+    private final JsonTransformer jsonTransformer;
+    private final RabbitMQSecondaryReplicationQueue replicationQueue;
+
+    @Inject
+    public SecondaryBlobStoreReplicationRoutes(TaskManager taskManager,
+                                               JsonTransformer jsonTransformer,
+                                               RabbitMQSecondaryReplicationQueue replicationQueue) {
+        this.taskManager = taskManager;
+        this.jsonTransformer = jsonTransformer;
+        this.replicationQueue = replicationQueue;
+    }
+
+    @Override
+    public String getBasePath() {
+        return BASE_PATH;
+    }
+
+    @Override
+    public void define(Service service) {
+        TaskFromRequest replayTaskRequest = this::replayDeadLetters;
+        service.post(DEAD_LETTERS_PATH, replayTaskRequest.asRoute(taskManager), jsonTransformer);
+    }
+
+    public Task replayDeadLetters(Request request) {
+        Preconditions.checkArgument(Optional.ofNullable(request.queryParams("action"))
+                .filter(REPLAY_ACTION::equals)
+                .isPresent(),
+            String.format("'action' is missing or must be '%s'", REPLAY_ACTION));
+
+        return new ReplaySecondaryReplicationDeadLettersTask(replicationQueue);
+    }
+}
@@ -0,0 +1,44 @@
+package com.linagora.tmail.webadmin.secondaryblobstore;
+
+import org.apache.james.server.task.json.dto.AdditionalInformationDTO;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTOModule;
+import org.apache.james.server.task.json.dto.TaskDTO;
+import org.apache.james.server.task.json.dto.TaskDTOModule;
+import org.apache.james.task.Task;
+import org.apache.james.task.TaskExecutionDetails;
+import org.apache.james.webadmin.Routes;
+import org.apache.james.webadmin.dto.DTOModuleInjections;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.ProvidesIntoSet;
+import com.google.inject.name.Named;
+import com.linagora.tmail.blob.secondaryblobstore.RabbitMQSecondaryReplicationQueue;
+
+/**
+ * Only to be installed when the secondary blob store replication is asynchronous.
+ */
+public class SecondaryBlobStoreReplicationRoutesModule extends AbstractModule {
+    @Override
+    protected void configure() {
+        Multibinder.newSetBinder(binder(), Routes.class)
+            .addBinding()
+            .to(SecondaryBlobStoreReplicationRoutes.class);
+    }
+
+    @ProvidesIntoSet
+    public TaskDTOModule<? extends Task, ? extends TaskDTO> replaySecondaryReplicationDeadLettersTask(RabbitMQSecondaryReplicationQueue replicationQueue) {
+        return ReplaySecondaryReplicationDeadLettersTaskDTO.module(replicationQueue);
+    }
+
+    @ProvidesIntoSet
+    public AdditionalInformationDTOModule<? extends TaskExecutionDetails.AdditionalInformation, ? extends AdditionalInformationDTO> replaySecondaryReplicationDeadLettersAdditionalInformation() {
+        return ReplaySecondaryReplicationDeadLettersTaskAdditionalInformationDTO.SERIALIZATION_MODULE;
+    }
+
+    @Named(DTOModuleInjections.WEBADMIN_DTO)
+    @ProvidesIntoSet
+    public AdditionalInformationDTOModule<? extends TaskExecutionDetails.AdditionalInformation, ? extends AdditionalInformationDTO> webAdminReplaySecondaryReplicationDeadLettersAdditionalInformation() {
+        return ReplaySecondaryReplicationDeadLettersTaskAdditionalInformationDTO.SERIALIZATION_MODULE;
+    }
+}
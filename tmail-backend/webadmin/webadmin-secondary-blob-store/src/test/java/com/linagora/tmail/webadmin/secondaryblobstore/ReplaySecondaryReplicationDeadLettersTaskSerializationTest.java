@@ -0,0 +1,31 @@
+package com.linagora.tmail.webadmin.secondaryblobstore;
+
+import static org.mockito.Mockito.mock;
+
+import java.time.Instant;
+
+import org.apache.james.JsonSerializationVerifier;
+import org.apache.james.util.ClassLoaderUtils;
+import org.junit.jupiter.api.Test;
+
+import com.linagora.tmail.blob.secondaryblobstore.RabbitMQSecondaryReplicationQueue;
+
+class ReplaySecondaryReplicationDeadLettersTaskSerializationTest {
+    @Test
+    void taskShouldMatchJsonSerializationContract() throws Exception {
+        RabbitMQSecondaryReplicationQueue replicationQueue = mock(RabbitMQSecondaryReplicationQueue.class);
+
+        JsonSerializationVerifier.dtoModule(ReplaySecondaryReplicationDeadLettersTaskDTO.module(replicationQueue))
+            .bean(new ReplaySecondaryReplicationDeadLettersTask(replicationQueue))
+            .json(ClassLoaderUtils.getSystemResourceAsString("json/replay_secondary_replication_dead_letters.task.json"))
+            .verify();
+    }
+
+    @Test
+    void additionalInformationShouldMatchJsonSerializationContract() throws Exception {
+        JsonSerializationVerifier.dtoModule(ReplaySecondaryReplicationDeadLettersTaskAdditionalInformationDTO.SERIALIZATION_MODULE)
+            .bean(new ReplaySecondaryReplicationDeadLettersTask.Details(Instant.parse("2007-12-03T10:15:30.00Z"), 3, 1))
+            .json(ClassLoaderUtils.getSystemResourceAsString("json/replay_secondary_replication_dead_letters.additionalInformation.json"))
+            .verify();
+    }
+}
@@ -0,0 +1,134 @@
+package com.linagora.tmail.webadmin.secondaryblobstore;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.http.ContentType.JSON;
+import static org.eclipse.jetty.http.HttpStatus.BAD_REQUEST_400;
+import static org.eclipse.jetty.http.HttpStatus.CREATED_201;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.james.json.DTOConverter;
+import org.apache.james.task.Hostname;
+import org.apache.james.task.MemoryTaskManager;
+import org.apache.james.webadmin.WebAdminServer;
+import org.apache.james.webadmin.WebAdminUtils;
+import org.apache.james.webadmin.routes.TasksRoutes;
+import org.apache.james.webadmin.utils.JsonTransformer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.linagora.tmail.blob.secondaryblobstore.RabbitMQSecondaryReplicationQueue;
+
+import io.restassured.RestAssured;
+import reactor.core.publisher.Mono;
+
+class SecondaryBlobStoreReplicationRoutesTest {
+    private WebAdminServer webAdminServer;
+    private MemoryTaskManager taskManager;
+    private RabbitMQSecondaryReplicationQueue replicationQueue;
+
+    @BeforeEach
+    void setUp() {
+        taskManager = new MemoryTaskManager(new Hostname("foo"));
+        replicationQueue = mock(RabbitMQSecondaryReplicationQueue.class);
+        JsonTransformer jsonTransformer = new JsonTransformer();
+
+        TasksRoutes tasksRoutes = new TasksRoutes(taskManager,
+            jsonTransformer,
+            DTOConverter.of(ReplaySecondaryReplicationDeadLettersTaskAdditionalInformationDTO.SERIALIZATION_MODULE));
+
+        webAdminServer = WebAdminUtils.createWebAdminServer(
+                new SecondaryBlobStoreReplicationRoutes(taskManager, jsonTransformer, replicationQueue),
+                tasksRoutes)
+            .start();
+
+        RestAssured.requestSpecification = WebAdminUtils.buildRequestSpecification(webAdminServer)
+            .setBasePath(SecondaryBlobStoreReplicationRoutes.DEAD_LETTERS_PATH)
+            .build();
+    }
+
+    @AfterEach
+    void stop() {
+        webAdminServer.destroy();
+        taskManager.stop();
+    }
+
+    @Test
+    void replayShouldReturnErrorWhenMissingAction() {
+        given()
+            .post()
+        .then()
+            .statusCode(BAD_REQUEST_400)
+            .contentType(JSON)
+            .body("statusCode", is(BAD_REQUEST_400))
+            .body("type", is("InvalidArgument"))
+            .body("details", is("'action' is missing or must be 'replay'"));
+    }
+
+    @Test
+    void replayShouldReturnErrorWhenInvalidAction() {
+        given()
+            .queryParam("action", "invalid")
+            .post()
+        .then()
+            .statusCode(BAD_REQUEST_400)
+            .contentType(JSON)
+            .body("details", is("'action' is missing or must be 'replay'"));
+    }
+
+    @Test
+    void replayShouldReturnTaskId() {
+        when(replicationQueue.replayDeadLetters(any())).thenReturn(Mono.empty());
+
+        given()
+            .queryParam("action", "replay")
+            .post()
+        .then()
+            .statusCode(CREATED_201)
+            .body("taskId", notNullValue());
+    }
+
+    @Test
+    void replayTaskShouldReportTheReplayedDeadLetters() {
+        when(replicationQueue.replayDeadLetters(any())).thenReturn(Mono.empty());
+
+        String taskId = given()
+            .queryParam("action", "replay")
+            .post()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+        .when()
+            .get(taskId + "/await")
+        .then()
+            .body("status", is("completed"))
+            .body("taskId", is(taskId))
+            .body("type", is("replay-secondary-blob-store-replication-dead-letters"))
+            .body("additionalInformation.replayedCount", is(0))
+            .body("additionalInformation.failedCount", is(0));
+    }
+
+    @Test
+    void replayTaskShouldFailWhenTheReplayFails() {
+        when(replicationQueue.replayDeadLetters(any())).thenReturn(Mono.error(new RuntimeException("RabbitMQ is down")));
+
+        String taskId = given()
+            .queryParam("action", "replay")
+            .post()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+        .when()
+            .get(taskId + "/await")
+        .then()
+            .body("status", is("failed"));
+    }
+}